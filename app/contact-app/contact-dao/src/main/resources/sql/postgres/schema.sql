@@ -24,6 +24,9 @@ CREATE TABLE PERSON (
     CONSTRAINT FK_PERSON_TYPE FOREIGN KEY (TYPE) REFERENCES PERSON_TYPE(ID)
 );
 
+-- default sort and keyset pagination order
+CREATE INDEX IDX_PERSON_NAME ON PERSON (LAST_NAME, FIRST_NAME, ID);
+
 CREATE TABLE PERSON_STUDENT (
     ID integer not null,  
     SCHOOL_NAME varchar(50), -- not null,
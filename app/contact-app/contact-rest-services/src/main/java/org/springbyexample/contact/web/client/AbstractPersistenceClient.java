@@ -101,6 +101,45 @@ public abstract class AbstractPersistenceClient<R extends EntityResponseResult,
         return response;
     }
 
+    @Override
+    public FR createAll(FR request) {
+        FR response = null;
+
+        String url = client.createUrl(saveRequest + BULK_URI);
+
+        logger.debug("REST client bulk save.  size={}  url='{}'", request.getResults().size(), url);
+
+        response = client.getRestTemplate().postForObject(url, request, findResponseClazz);
+
+        return response;
+    }
+
+    @Override
+    public FR updateAll(FR request) {
+        FR response = null;
+
+        String url = client.createUrl(saveRequest + BULK_URI);
+
+        logger.debug("REST client bulk update.  size={}  url='{}'", request.getResults().size(), url);
+
+        response = client.getRestTemplate().exchange(url, HttpMethod.PUT, new HttpEntity(request), findResponseClazz).getBody();
+
+        return response;
+    }
+
+    @Override
+    public FR deleteAll(FR request) {
+        FR response = null;
+
+        String url = client.createUrl(saveRequest + BULK_DELETE_URI);
+
+        logger.debug("REST client bulk delete.  size={}  url='{}'", request.getResults().size(), url);
+
+        response = client.getRestTemplate().exchange(url, HttpMethod.PUT, new HttpEntity(request), findResponseClazz).getBody();
+
+        return response;
+    }
+
     @Override
     public R delete(S request) {
         throw new UnsupportedOperationException("Issue with DELETE and posting body.");
@@ -17,6 +17,7 @@ package org.springbyexample.contact.web.client;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -25,6 +26,11 @@ import org.springbyexample.mvc.rest.client.RestClient;
 import org.springbyexample.mvc.rest.service.PersistenceFindMarshallingService;
 import org.springbyexample.schema.beans.response.EntityFindResponseResult;
 import org.springbyexample.schema.beans.response.EntityResponseResult;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureAdapter;
+import org.springframework.web.util.UriComponentsBuilder;
 
 
 /**
@@ -73,6 +79,49 @@ public abstract class AbstractPersistenceFindClient<R extends EntityResponseResu
         return response;
     }
 
+    /**
+     * Finds a record by primary key without blocking the calling thread.
+     * Requires an <code>AsyncRestTemplate</code> on the {@link RestClient}.
+     */
+    public ListenableFuture<R> findByIdAsync(Integer id) {
+        String url = client.createUrl(findByIdRequest);
+
+        logger.debug("REST client async findById.  id={}  url='{}'", id, url);
+
+        ListenableFuture<ResponseEntity<R>> future =
+                client.getAsyncRestTemplate().getForEntity(url, responseClazz, createPkVars(id));
+
+        return new ListenableFutureAdapter<R, ResponseEntity<R>>(future) {
+            @Override
+            protected R adapt(ResponseEntity<R> response) {
+                return response.getBody();
+            }
+        };
+    }
+
+    /**
+     * Finds records by a list of primary keys.
+     * 
+     * @throws  IllegalArgumentException    If the ids are <code>null</code> or empty, 
+     *                                      since the request would match the find all request.
+     */
+    @Override
+    public FR findByIds(List<Integer> ids) {
+        FR response = null;
+
+        Assert.notEmpty(ids, "Ids must not be empty.");
+
+        String url = client.createUrl(findRequest);
+
+        logger.debug("REST client findByIds.  ids={}  url='{}'", ids, url);
+
+        response = client.getRestTemplate().getForObject(
+                UriComponentsBuilder.fromHttpUrl(url).queryParam(IDS_VAR, ids.toArray()).build().toUri(),
+                findResponseClazz);
+
+        return response;
+    }
+
     @Override
     public FR find(int page, int pageSize) {
         FR response = null;
@@ -87,6 +136,23 @@ public abstract class AbstractPersistenceFindClient<R extends EntityResponseResu
         return response;
     }
 
+    @Override
+    public FR findByCursor(String cursor, int pageSize) {
+        FR response = null;
+
+        String url = client.createUrl(findRequest + CURSOR_PAGINATED);
+
+        logger.debug("REST client cursor find.  cursor='{}'  pageSize={}  url='{}'",
+                     new Object[] { cursor, pageSize, url});
+
+        response = client.getRestTemplate().getForObject(
+                UriComponentsBuilder.fromHttpUrl(url).queryParam(CURSOR_VAR, (cursor != null ? cursor : ""))
+                                    .buildAndExpand(Collections.singletonMap(PAGE_SIZE_VAR, pageSize)).encode().toUri(),
+                findResponseClazz);
+
+        return response;
+    }
+
     @Override
     public FR find() {
         FR response = null;
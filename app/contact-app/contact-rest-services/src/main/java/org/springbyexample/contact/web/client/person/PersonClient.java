@@ -42,4 +42,12 @@ public class PersonClient extends AbstractPersistenceClient<PersonResponse, Pers
               PersonResponse.class, PersonFindResponse.class);
     }
 
+    /**
+     * Find all persons from the streaming request, which the server writes
+     * as each record is loaded instead of building the whole response first.
+     */
+    public PersonFindResponse findStream() {
+        return client.getRestTemplate().getForObject(client.createUrl(FIND_STREAM_REQUEST), findResponseClazz);
+    }
+
 }
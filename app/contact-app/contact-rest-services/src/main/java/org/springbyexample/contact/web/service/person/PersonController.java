@@ -15,20 +15,34 @@
  */
 package org.springbyexample.contact.web.service.person;
 
+import java.io.IOException;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springbyexample.contact.service.person.ContactService;
 import org.springbyexample.contact.web.service.AbstractController;
+import org.springbyexample.mvc.stream.FindResponseWriter;
+import org.springbyexample.mvc.stream.JsonFindResponseWriter;
+import org.springbyexample.mvc.stream.XmlFindResponseWriter;
 import org.springbyexample.schema.beans.person.Person;
 import org.springbyexample.schema.beans.person.PersonFindResponse;
 import org.springbyexample.schema.beans.person.PersonResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 
 /**
@@ -42,9 +56,16 @@ public class PersonController extends AbstractController<Person, PersonResponse,
 
     final Logger logger = LoggerFactory.getLogger(getClass());
 
+    private final ObjectMapper objectMapper;
+    private final Jaxb2Marshaller marshaller;
+
     @Autowired
-    public PersonController(ContactService service) {
+    public PersonController(ContactService service,
+                            @Qualifier("jacksonObjectMapper") ObjectMapper objectMapper, Jaxb2Marshaller marshaller) {
         super(service);
+
+        this.objectMapper = objectMapper;
+        this.marshaller = marshaller;
     }
 
     @Override
@@ -55,6 +76,14 @@ public class PersonController extends AbstractController<Person, PersonResponse,
         return service.findById((int)id);
     }
 
+    @Override
+    @RequestMapping(value = FIND_REQUEST, method = RequestMethod.GET, params = { IDS_VAR })
+    public PersonFindResponse findByIds(@RequestParam(IDS_VAR) List<Integer> ids) {
+        logger.info("Find persons.  ids={}", ids);
+
+        return service.findByIds(ids);
+    }
+
     @Override
     @RequestMapping(value = FIND_PAGINATED_REQUEST, method = RequestMethod.GET)
     public PersonFindResponse find(@PathVariable(PAGE_VAR) int page,
@@ -64,6 +93,15 @@ public class PersonController extends AbstractController<Person, PersonResponse,
         return service.find(page, pageSize);
     }
 
+    @Override
+    @RequestMapping(value = FIND_CURSOR_REQUEST, method = RequestMethod.GET, params = { CURSOR_VAR })
+    public PersonFindResponse findByCursor(@RequestParam(CURSOR_VAR) String cursor,
+                                           @PathVariable(PAGE_SIZE_VAR) int pageSize) {
+        logger.info("Find person page.  cursor='{}'  pageSize={}", cursor, pageSize);
+
+        return service.findByCursor(cursor, pageSize);
+    }
+
     @Override
     @RequestMapping(value = FIND_REQUEST, method = RequestMethod.GET)
     public PersonFindResponse find() {
@@ -72,6 +110,33 @@ public class PersonController extends AbstractController<Person, PersonResponse,
         return service.find();
     }
 
+    /**
+     * Find all persons, writing each one to the response as it's loaded.
+     * The response is the same as a find response.
+     */
+    @RequestMapping(value = FIND_STREAM_REQUEST, method = RequestMethod.GET, produces = MediaType.APPLICATION_XML_VALUE)
+    public void findStream(HttpServletResponse response) throws IOException {
+        logger.info("Stream all persons.");
+
+        response.setContentType(MediaType.APPLICATION_XML_VALUE);
+
+        stream(new XmlFindResponseWriter<Person>(marshaller.getJaxbContext(), PersonFindResponse.class, Person.class,
+                                                 response.getOutputStream()));
+    }
+
+    /**
+     * Find all persons, writing each one to the response as it's loaded.
+     * The response is the same as a find response.
+     */
+    @RequestMapping(value = FIND_STREAM_REQUEST, method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    public void findStreamJson(HttpServletResponse response) throws IOException {
+        logger.info("Stream all persons.");
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        stream(new JsonFindResponseWriter<Person>(objectMapper, response.getOutputStream()));
+    }
+
     @Override
     @RequestMapping(value = SAVE_REQUEST, method = RequestMethod.POST)
     public PersonResponse create(@RequestBody Person request) {
@@ -110,4 +175,37 @@ public class PersonController extends AbstractController<Person, PersonResponse,
         return delete(id);
     }
 
+    @Override
+    @RequestMapping(value = BULK_REQUEST, method = RequestMethod.POST)
+    public PersonFindResponse createAll(@RequestBody PersonFindResponse request) {
+        logger.info("Save persons.  size={}", request.getResults().size());
+
+        return service.createAll(request);
+    }
+
+    @Override
+    @RequestMapping(value = BULK_REQUEST, method = RequestMethod.PUT)
+    public PersonFindResponse updateAll(@RequestBody PersonFindResponse request) {
+        logger.info("Update persons.  size={}", request.getResults().size());
+
+        return service.updateAll(request);
+    }
+
+    @Override
+    @RequestMapping(value = BULK_DELETE_REQUEST, method = RequestMethod.PUT)
+    public PersonFindResponse deleteAll(@RequestBody PersonFindResponse request) {
+        logger.info("Delete persons.  size={}", request.getResults().size());
+
+        return service.deleteAll(request);
+    }
+
+    /**
+     * Streams all records to the writer.
+     */
+    private void stream(FindResponseWriter<Person> writer) throws IOException {
+        long count = service.find(writer);
+
+        writer.finish(count);
+    }
+
 }
@@ -31,10 +31,14 @@ public interface PersonMarshallingService extends PersistenceContactMarshallingS
 
     public final static String FIND_BY_ID_REQUEST = PATH + PATH_DELIM + "{" + ID_VAR + "}";
     public final static String FIND_PAGINATED_REQUEST = PATH + PAGINATED;
+    public final static String FIND_CURSOR_REQUEST = PATH + CURSOR_PAGINATED;
     public final static String FIND_REQUEST = PATH;
+    public final static String FIND_STREAM_REQUEST = PATH + STREAM_PATH;
     public final static String SAVE_REQUEST = PATH;
     public final static String UPDATE_REQUEST = FIND_BY_ID_REQUEST;
     public final static String DELETE_PK_REQUEST = FIND_BY_ID_REQUEST;
     public final static String DELETE_REQUEST = PATH;
+    public final static String BULK_REQUEST = PATH + BULK_URI;
+    public final static String BULK_DELETE_REQUEST = PATH + BULK_DELETE_URI;
 
 }
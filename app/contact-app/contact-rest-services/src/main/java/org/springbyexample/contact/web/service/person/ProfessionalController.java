@@ -15,6 +15,8 @@
  */
 package org.springbyexample.contact.web.service.person;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springbyexample.schema.beans.person.Professional;
@@ -28,6 +30,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 
 
 /**
@@ -60,6 +63,28 @@ public class ProfessionalController implements ProfessionalMarshallingService {
                                                   .withCompanyName(COMPANY_NAME));
     }
 
+    @Override
+    @RequestMapping(value = FIND_REQUEST, method = RequestMethod.GET, params = { IDS_VAR })
+    public ProfessionalFindResponse findByIds(@RequestParam(IDS_VAR) List<Integer> ids) {
+        logger.info("Find Professionals.  ids={}", ids);
+
+        Assert.notEmpty(ids, "Ids must not be empty.");
+
+        ProfessionalFindResponse response = new ProfessionalFindResponse();
+
+        if (ids.contains(ID)) {
+            response.withResults(new Professional().withId(ID).withFirstName(FIRST_NAME).withLastName(LAST_NAME)
+                                                   .withCompanyName(COMPANY_NAME));
+        }
+
+        if (ids.contains(SECOND_ID)) {
+            response.withResults(new Professional().withId(SECOND_ID).withFirstName(SECOND_FIRST_NAME).withLastName(SECOND_LAST_NAME)
+                                                   .withCompanyName(SECOND_COMPANY_NAME));
+        }
+
+        return response.withCount(response.getResults().size());
+    }
+
     @Override
     @RequestMapping(value = FIND_PAGINATED_REQUEST, method = RequestMethod.GET)
     public ProfessionalFindResponse find(@PathVariable(PAGE_VAR) int page,
@@ -74,6 +99,15 @@ public class ProfessionalController implements ProfessionalMarshallingService {
                                                    .withCompanyName(SECOND_COMPANY_NAME));
     }
 
+    @Override
+    @RequestMapping(value = FIND_CURSOR_REQUEST, method = RequestMethod.GET, params = { CURSOR_VAR })
+    public ProfessionalFindResponse findByCursor(@RequestParam(CURSOR_VAR) String cursor,
+                                                 @PathVariable(PAGE_SIZE_VAR) int pageSize) {
+        logger.info("Find Professional page.  cursor='{}'  pageSize={}", cursor, pageSize);
+
+        return find(0, pageSize);
+    }
+
     @Override
     @RequestMapping(value = FIND_REQUEST, method = RequestMethod.GET)
     public ProfessionalFindResponse find() {
@@ -135,4 +169,28 @@ public class ProfessionalController implements ProfessionalMarshallingService {
                              .withMessage(String.format("Successfully deleted record.  id='%d'", id)));
     }
 
+    @Override
+    @RequestMapping(value = BULK_REQUEST, method = RequestMethod.POST)
+    public ProfessionalFindResponse createAll(@RequestBody ProfessionalFindResponse request) {
+        logger.info("Save Professionals.  size={}", request.getResults().size());
+
+        return request.withCount(request.getResults().size());
+    }
+
+    @Override
+    @RequestMapping(value = BULK_REQUEST, method = RequestMethod.PUT)
+    public ProfessionalFindResponse updateAll(@RequestBody ProfessionalFindResponse request) {
+        logger.info("Update Professionals.  size={}", request.getResults().size());
+
+        return request.withCount(request.getResults().size());
+    }
+
+    @Override
+    @RequestMapping(value = BULK_DELETE_REQUEST, method = RequestMethod.PUT)
+    public ProfessionalFindResponse deleteAll(@RequestBody ProfessionalFindResponse request) {
+        logger.info("Delete Professionals.  size={}", request.getResults().size());
+
+        return request.withCount(request.getResults().size());
+    }
+
 }
@@ -17,17 +17,39 @@ package org.springbyexample.contact.web.service.person;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.springbyexample.contact.test.constants.person.PersonTestConstants.FIRST_NAME;
 import static org.springbyexample.contact.test.constants.person.PersonTestConstants.LAST_NAME;
 import static org.springbyexample.contact.test.constants.person.PersonTestConstants.NEW_LAST_NAME;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
 import org.springbyexample.contact.web.client.person.PersonClient;
 import org.springbyexample.contact.web.service.AbstractPersistenceContactControllerTest;
+import org.springbyexample.mvc.rest.client.ContentEncodingRequestInterceptor;
+import org.springbyexample.mvc.rest.client.FindByIdBatcher;
+import org.springbyexample.mvc.rest.client.RestClient;
 import org.springbyexample.mvc.rest.service.PersistenceMarshallingService;
 import org.springbyexample.schema.beans.person.Person;
 import org.springbyexample.schema.beans.person.PersonFindResponse;
 import org.springbyexample.schema.beans.person.PersonResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
 
 /**
  * Tests person client against an embedded REST service
@@ -40,6 +62,12 @@ public class PersonControllerTest extends AbstractPersistenceContactControllerTe
     @Autowired
     private final PersonClient client = null;
 
+    @Autowired
+    private final RestClient restClient = null;
+
+    @Autowired
+    private final FindByIdBatcher<Person> batcher = null;
+
     public PersonControllerTest() {
         super(1, 3);
     }
@@ -49,6 +77,139 @@ public class PersonControllerTest extends AbstractPersistenceContactControllerTe
         return client;
     }
 
+    @Override
+    protected ListenableFuture<PersonResponse> findByIdAsync(int id) {
+        return client.findByIdAsync(id);
+    }
+
+    @Test
+    public void testFindByIdBatcher() throws Exception {
+        int missingId = 1000;
+
+        // same id is coalesced into one future
+        ListenableFuture<Person> future = batcher.findByIdAsync(id);
+        assertSame("Future for the same id should be shared.", future, batcher.findByIdAsync(id));
+
+        Map<Integer, Person> hResults = batcher.findByIds(Arrays.asList(id, missingId));
+
+        verifyRecord(future.get());
+        verifyRecord(hResults.get(id));
+        assertNull("Missing id should have a null result.", hResults.get(missingId));
+    }
+
+    @Test
+    public void testFindStream() {
+        verifyStream(client.findStream());
+    }
+
+    @Test
+    public void testFindStreamJson() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JodaModule());
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+        RestTemplate restTemplate = new RestTemplate(restClient.getRestTemplate().getRequestFactory());
+        restTemplate.setMessageConverters(
+                Collections.<HttpMessageConverter<?>>singletonList(new MappingJackson2HttpMessageConverter(objectMapper)));
+
+        verifyStream(restTemplate.getForObject(restClient.createUrl(PersonMarshallingService.FIND_STREAM_REQUEST),
+                                               PersonFindResponse.class));
+    }
+
+    @Test
+    public void testBulk() {
+        int size = 3;
+        PersonFindResponse request = new PersonFindResponse();
+
+        for (int i = 0; i < size; i++) {
+            request.withResults(generateCreateRequest());
+        }
+
+        PersonFindResponse response = client.createAll(request);
+        assertNotNull("Response is null.", response);
+        assertEquals("Number of results", size, response.getResults().size());
+
+        List<Integer> ids = new ArrayList<Integer>();
+
+        for (Person person : response.getResults()) {
+            verifyRecord(person, true);
+
+            ids.add(person.getId());
+            generateUpdateRequest(person);
+        }
+
+        response = client.updateAll(response);
+        assertNotNull("Response is null.", response);
+        assertEquals("Number of results", size, response.getResults().size());
+
+        for (Person person : response.getResults()) {
+            verifyRecord(person, true, true);
+        }
+
+        response = client.deleteAll(response);
+        assertNotNull("Response is null.", response);
+        assertEquals("Number of results", size, response.getResults().size());
+        assertTrue("Messages should be empty.", response.getMessageList().isEmpty());
+
+        for (int i = 0; i < size; i++) {
+            assertEquals("'id'", (int) ids.get(i), response.getResults().get(i).getId());
+        }
+
+        assertTrue("Results should be empty after delete.", client.findByIds(ids).getResults().isEmpty());
+    }
+
+    @Test
+    public void testCompressedRequest() {
+        int size = 3;
+        PersonFindResponse request = new PersonFindResponse();
+
+        for (int i = 0; i < size; i++) {
+            request.withResults(generateCreateRequest());
+        }
+
+        long decodedCount = restClient.getContentEncoding().getDecodedCount();
+
+        // request factory also has the rest client's interceptors, which decode the response
+        ContentEncodingRequestInterceptor contentEncoding = new ContentEncodingRequestInterceptor();
+        contentEncoding.setMinRequestSize(1);
+
+        RestTemplate restTemplate = new RestTemplate(restClient.getRestTemplate().getRequestFactory());
+        restTemplate.setMessageConverters(restClient.getRestTemplate().getMessageConverters());
+        restTemplate.setInterceptors(Collections.<ClientHttpRequestInterceptor>singletonList(contentEncoding));
+
+        PersonFindResponse response = restTemplate.postForObject(restClient.createUrl(PersonMarshallingService.BULK_REQUEST),
+                                                                 request, PersonFindResponse.class);
+        assertNotNull("Response is null.", response);
+        assertEquals("Number of results", size, response.getResults().size());
+        assertTrue("Response should be compressed.", (restClient.getContentEncoding().getDecodedCount() > decodedCount));
+
+        for (Person person : response.getResults()) {
+            verifyRecord(person, true);
+        }
+
+        client.deleteAll(response);
+    }
+
+    /**
+     * Verifies a streamed response matches the find response.
+     */
+    private void verifyStream(PersonFindResponse response) {
+        PersonFindResponse expected = client.find();
+
+        assertNotNull("Response is null.", response);
+        assertEquals("'count'", expected.getCount(), response.getCount());
+        assertEquals("Number of results", expected.getResults().size(), response.getResults().size());
+
+        for (int i = 0; i < expected.getResults().size(); i++) {
+            Person person = response.getResults().get(i);
+
+            assertEquals("'id'", expected.getResults().get(i).getId(), person.getId());
+
+            if (id == person.getId()) {
+                verifyRecord(person);
+            }
+        }
+    }
+
     @Override
     protected Person generateCreateRequest() {
         return new Person().withFirstName(FIRST_NAME).withLastName(LAST_NAME);
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.contact.web.service.person;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+import org.springbyexample.mvc.encoding.ContentEncoding;
+import org.springbyexample.mvc.json.ObjectMapperCache;
+import org.springbyexample.mvc.json.SmileObjectMapper;
+import org.springbyexample.schema.beans.person.Person;
+import org.springbyexample.schema.beans.person.PersonFindResponse;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+
+/**
+ * Tests a person find response round trips as XML, JSON, and Smile,
+ * and compares their sizes uncompressed and with GZIP.
+ *
+ * @author David Winterfeldt
+ */
+public class PersonFindResponseSerializationTest {
+
+    private static final int RESULT_SIZE = 100;
+
+    @Test
+    public void testSerialization() throws Exception {
+        JAXBContext jaxbContext = JAXBContext.newInstance(PersonFindResponse.class);
+
+        ObjectMapperCache json = new ObjectMapperCache(createObjectMapper(new ObjectMapper()));
+        ObjectMapperCache smile = new ObjectMapperCache(createObjectMapper(new SmileObjectMapper()));
+
+        PersonFindResponse response = createResponse(RESULT_SIZE);
+
+        byte[] xmlBody = verifyRoundTrip(new XmlFormat(jaxbContext), response);
+        byte[] jsonBody = verifyRoundTrip(new JacksonFormat(json), response);
+        byte[] smileBody = verifyRoundTrip(new JacksonFormat(smile), response);
+
+        assertTrue("Smile should be smaller than JSON.", (smileBody.length < jsonBody.length));
+        assertTrue("JSON should be smaller than XML.", (jsonBody.length < xmlBody.length));
+    }
+
+    /**
+     * Serializes and deserializes a response, and checks compressing it makes it smaller.
+     *
+     * @return  The serialized response.
+     */
+    private byte[] verifyRoundTrip(Format format, PersonFindResponse response) throws Exception {
+        byte[] body = format.write(response);
+        PersonFindResponse result = format.read(body);
+
+        assertEquals("'count'", response.getCount(), result.getCount());
+        assertEquals("Number of results", response.getResults().size(), result.getResults().size());
+
+        for (int i = 0; i < response.getResults().size(); i++) {
+            Person expected = response.getResults().get(i);
+            Person person = result.getResults().get(i);
+
+            assertEquals("'id'", expected.getId(), person.getId());
+            assertEquals("'firstName'", expected.getFirstName(), person.getFirstName());
+            assertEquals("'lastName'", expected.getLastName(), person.getLastName());
+            assertEquals("'lockVersion'", expected.getLockVersion(), person.getLockVersion());
+            assertEquals("'created'", expected.getCreated().getMillis(), person.getCreated().getMillis());
+            assertEquals("'createUser'", expected.getCreateUser(), person.getCreateUser());
+        }
+
+        assertTrue("Compressed body should be smaller.", (compress(body).length < body.length));
+
+        return body;
+    }
+
+    private ObjectMapper createObjectMapper(ObjectMapper objectMapper) {
+        objectMapper.registerModule(new JodaModule());
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+        return objectMapper;
+    }
+
+    private PersonFindResponse createResponse(int resultSize) {
+        PersonFindResponse result = new PersonFindResponse().withCount(resultSize);
+        // XML dates don't have milliseconds
+        DateTime now = new DateTime().withMillisOfSecond(0);
+
+        for (int i = 0; i < resultSize; i++) {
+            result.withResults(new Person().withId(i + 1).withLockVersion(i % 5)
+                                           .withFirstName("First" + i).withLastName("Last" + i)
+                                           .withCreated(now).withCreateUser("david")
+                                           .withLastUpdated(now).withLastUpdateUser("david"));
+        }
+
+        return result;
+    }
+
+    private byte[] compress(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        OutputStream encodingOut = ContentEncoding.GZIP.encode(out);
+
+        try {
+            encodingOut.write(body);
+        } finally {
+            encodingOut.close();
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Serialization format.
+     */
+    private interface Format {
+
+        byte[] write(PersonFindResponse response) throws Exception;
+
+        PersonFindResponse read(byte[] body) throws Exception;
+
+    }
+
+    /**
+     * XML format using JAXB.
+     */
+    private static class XmlFormat implements Format {
+
+        private final JAXBContext jaxbContext;
+
+        public XmlFormat(JAXBContext jaxbContext) {
+            this.jaxbContext = jaxbContext;
+        }
+
+        @Override
+        public byte[] write(PersonFindResponse response) throws Exception {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Marshaller marshaller = jaxbContext.createMarshaller();
+
+            marshaller.marshal(response, out);
+
+            return out.toByteArray();
+        }
+
+        @Override
+        public PersonFindResponse read(byte[] body) throws Exception {
+            Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+
+            return (PersonFindResponse) unmarshaller.unmarshal(new ByteArrayInputStream(body));
+        }
+
+    }
+
+    /**
+     * JSON or Smile format using a shared reader and writer.
+     */
+    private static class JacksonFormat implements Format {
+
+        private final ObjectWriter writer;
+        private final ObjectReader reader;
+
+        public JacksonFormat(ObjectMapperCache cache) {
+            this.writer = cache.getWriter(PersonFindResponse.class);
+            this.reader = cache.getReader(PersonFindResponse.class);
+        }
+
+        @Override
+        public byte[] write(PersonFindResponse response) throws Exception {
+            return writer.writeValueAsBytes(response);
+        }
+
+        @Override
+        public PersonFindResponse read(byte[] body) throws Exception {
+            return reader.readValue(body);
+        }
+
+    }
+
+}
@@ -15,10 +15,8 @@
  */
 package org.springbyexample.contact.converter.person;
 
-import org.dozer.Mapper;
-import org.springbyexample.converter.AbstractMapperListConverter;
+import org.springbyexample.converter.AbstractBeanCopierListConverter;
 import org.springbyexample.schema.beans.person.Person;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 
@@ -28,12 +26,10 @@ import org.springframework.stereotype.Component;
  * @author David Winterfeldt
  */
 @Component
-public class ContactConverter extends AbstractMapperListConverter<org.springbyexample.contact.orm.entity.person.Person, Person> {
+public class ContactConverter extends AbstractBeanCopierListConverter<org.springbyexample.contact.orm.entity.person.Person, Person> {
 
-    @Autowired
-    public ContactConverter(Mapper mapper) {
-        super(mapper,
-              org.springbyexample.contact.orm.entity.person.Person.class, Person.class);
+    public ContactConverter() {
+        super(org.springbyexample.contact.orm.entity.person.Person.class, Person.class);
     }
 
 }
@@ -15,11 +15,9 @@
  */
 package org.springbyexample.contact.converter.person;
 
-import org.dozer.Mapper;
-import org.springbyexample.converter.AbstractMapperListConverter;
+import org.springbyexample.converter.AbstractBeanCopierListConverter;
 import org.springbyexample.schema.beans.person.Person;
 import org.springbyexample.schema.beans.person.Student;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 
@@ -29,11 +27,10 @@ import org.springframework.stereotype.Component;
  * @author David Winterfeldt
  */
 @Component
-public class PersonStudentConverter extends AbstractMapperListConverter<Person, Student> {
+public class PersonStudentConverter extends AbstractBeanCopierListConverter<Person, Student> {
 
-    @Autowired
-    public PersonStudentConverter(Mapper mapper) {
-        super(mapper, Person.class, Student.class);
+    public PersonStudentConverter() {
+        super(Person.class, Student.class);
     }
 
 }
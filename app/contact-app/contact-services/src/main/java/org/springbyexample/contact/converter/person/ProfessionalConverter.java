@@ -15,10 +15,8 @@
  */
 package org.springbyexample.contact.converter.person;
 
-import org.dozer.Mapper;
-import org.springbyexample.converter.AbstractMapperListConverter;
+import org.springbyexample.converter.AbstractBeanCopierListConverter;
 import org.springbyexample.schema.beans.person.Professional;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 
@@ -28,12 +26,10 @@ import org.springframework.stereotype.Component;
  * @author David Winterfeldt
  */
 @Component
-public class ProfessionalConverter extends AbstractMapperListConverter<org.springbyexample.contact.orm.entity.person.Professional, Professional> {
+public class ProfessionalConverter extends AbstractBeanCopierListConverter<org.springbyexample.contact.orm.entity.person.Professional, Professional> {
 
-    @Autowired
-    public ProfessionalConverter(Mapper mapper) {
-        super(mapper,
-              org.springbyexample.contact.orm.entity.person.Professional.class, Professional.class);
+    public ProfessionalConverter() {
+        super(org.springbyexample.contact.orm.entity.person.Professional.class, Professional.class);
     }
 
 }
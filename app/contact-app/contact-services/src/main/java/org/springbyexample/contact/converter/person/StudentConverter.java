@@ -15,10 +15,8 @@
  */
 package org.springbyexample.contact.converter.person;
 
-import org.dozer.Mapper;
-import org.springbyexample.converter.AbstractMapperListConverter;
+import org.springbyexample.converter.AbstractBeanCopierListConverter;
 import org.springbyexample.schema.beans.person.Student;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 
@@ -28,12 +26,10 @@ import org.springframework.stereotype.Component;
  * @author David Winterfeldt
  */
 @Component
-public class StudentConverter extends AbstractMapperListConverter<org.springbyexample.contact.orm.entity.person.Student, Student> {
+public class StudentConverter extends AbstractBeanCopierListConverter<org.springbyexample.contact.orm.entity.person.Student, Student> {
 
-    @Autowired
-    public StudentConverter(Mapper mapper) {
-        super(mapper,
-              org.springbyexample.contact.orm.entity.person.Student.class, Student.class);
+    public StudentConverter() {
+        super(org.springbyexample.contact.orm.entity.person.Student.class, Student.class);
     }
 
 }
@@ -18,10 +18,13 @@ package org.springbyexample.contact.service.person;
 import static org.springbyexample.contact.security.Role.ADMIN;
 import static org.springbyexample.contact.security.Role.USER;
 
+import java.util.List;
+
 import org.springbyexample.schema.beans.person.Person;
 import org.springbyexample.schema.beans.person.PersonFindResponse;
 import org.springbyexample.schema.beans.person.PersonResponse;
 import org.springbyexample.service.PersistenceService;
+import org.springbyexample.service.ResultCallback;
 import org.springframework.security.access.annotation.Secured;
 
 
@@ -36,6 +39,10 @@ public interface ContactService extends PersistenceService<Person, PersonRespons
     @Secured ({ USER })
     public PersonResponse findById(Integer id);
 
+    @Override
+    @Secured ({ USER })
+    public PersonFindResponse findByIds(List<Integer> ids);
+
     /**
      * Find by last name.
      */
@@ -50,6 +57,14 @@ public interface ContactService extends PersistenceService<Person, PersonRespons
     @Secured ({ USER })
     public PersonFindResponse find(int page, int pageSize);
 
+    @Override
+    @Secured ({ USER })
+    public PersonFindResponse findByCursor(String cursor, int pageSize);
+
+    @Override
+    @Secured ({ USER })
+    public long find(ResultCallback<Person> callback);
+
     @Override
     @Secured ({ USER })
     public PersonResponse create(Person person);
@@ -62,4 +77,16 @@ public interface ContactService extends PersistenceService<Person, PersonRespons
     @Secured ({ ADMIN })
     public PersonResponse delete(Person person);
 
+    @Override
+    @Secured ({ USER })
+    public PersonFindResponse createAll(PersonFindResponse request);
+
+    @Override
+    @Secured ({ USER })
+    public PersonFindResponse updateAll(PersonFindResponse request);
+
+    @Override
+    @Secured ({ ADMIN })
+    public PersonFindResponse deleteAll(PersonFindResponse request);
+
 }
@@ -64,20 +64,18 @@ public class ContactServiceImpl extends AbstractPersistenceService<org.springbye
     }
 
     @Override
-    protected PersonResponse doSave(Person request) {
-        org.springbyexample.contact.orm.entity.person.Person bean = null;
+    protected org.springbyexample.contact.orm.entity.person.Person convertSaveRequest(Person request) {
+        org.springbyexample.contact.orm.entity.person.Person result = null;
 
         if (request instanceof Student) {
-            bean = studentConverter.convertFrom((Student) request);
+            result = studentConverter.convertFrom((Student) request);
         } else if (request instanceof Professional) {
-            bean = professionalConverter.convertFrom((Professional) request);
+            result = professionalConverter.convertFrom((Professional) request);
         } else {
-            bean = studentConverter.convertFrom(personStudentConverter.convertTo(request));
+            result = studentConverter.convertFrom(personStudentConverter.convertTo(request));
         }
 
-        Person result = converter.convertTo(repository.saveAndFlush(bean));
-
-        return createSaveResponse(result);
+        return result;
     }
 
     @Override
@@ -100,6 +98,11 @@ public class ContactServiceImpl extends AbstractPersistenceService<org.springbye
                 .withMessageKey(DELETE_MSG).withMessage(getMessage(DELETE_MSG)));
     }
 
+    @Override
+    protected Person createNotFoundResult(Integer id) {
+        return new Person().withId(id);
+    }
+
     @Override
     protected PersonResponse createResponse(Person result) {
         return new PersonResponse().withResults(result);
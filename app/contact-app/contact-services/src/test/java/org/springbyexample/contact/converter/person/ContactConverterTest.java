@@ -0,0 +1,172 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.contact.converter.person;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.dozer.DozerBeanMapper;
+import org.joda.time.DateTime;
+import org.junit.Test;
+import org.springbyexample.contact.orm.entity.person.Address;
+import org.springbyexample.contact.orm.entity.person.Student;
+import org.springbyexample.converter.AbstractMapperListConverter;
+import org.springbyexample.converter.ListConverter;
+import org.springbyexample.schema.beans.person.Person;
+
+/**
+ * Tests contact converter matches the Dozer mapping it replaced.
+ *
+ * @author David Winterfeldt
+ */
+public class ContactConverterTest {
+
+    private static final int LIST_SIZE = 5000;
+
+    private final ListConverter<org.springbyexample.contact.orm.entity.person.Person, Person> converter =
+            new ContactConverter();
+    private final ListConverter<org.springbyexample.contact.orm.entity.person.Person, Person> dozerConverter =
+            new AbstractMapperListConverter<org.springbyexample.contact.orm.entity.person.Person, Person>(
+                    new DozerBeanMapper(Arrays.asList("dozer/dozer-joda-mappings.xml", "dozer/dozer-mappings.xml")),
+                    org.springbyexample.contact.orm.entity.person.Person.class, Person.class) {};
+
+    @Test
+    public void testConvertTo() {
+        org.springbyexample.contact.orm.entity.person.Person source = createPerson();
+
+        verifyPerson(dozerConverter.convertTo(source), converter.convertTo(source));
+    }
+
+    @Test
+    public void testConvertFrom() {
+        Person source = converter.convertTo(createPerson());
+
+        org.springbyexample.contact.orm.entity.person.Person expected = dozerConverter.convertFrom(source);
+        org.springbyexample.contact.orm.entity.person.Person result = converter.convertFrom(source);
+
+        assertNotNull("Result is null.", result);
+        assertEquals("class", expected.getClass(), result.getClass());
+        assertEquals("'id'", expected.getId(), result.getId());
+        assertEquals("'firstName'", expected.getFirstName(), result.getFirstName());
+        assertEquals("'lastName'", expected.getLastName(), result.getLastName());
+        assertEquals("'lockVersion'", expected.getLockVersion(), result.getLockVersion());
+        assertEquals("'lastUpdated'", expected.getLastUpdated(), result.getLastUpdated());
+        assertEquals("'lastUpdateUser'", expected.getLastUpdateUser(), result.getLastUpdateUser());
+        assertEquals("'created'", expected.getCreated(), result.getCreated());
+        assertEquals("'createUser'", expected.getCreateUser(), result.getCreateUser());
+    }
+
+    @Test
+    public void testConvertListToParallel() {
+        List<org.springbyexample.contact.orm.entity.person.Person> lSources =
+                new ArrayList<org.springbyexample.contact.orm.entity.person.Person>();
+
+        for (int i = 0; i < LIST_SIZE; i++) {
+            org.springbyexample.contact.orm.entity.person.Person source = createPerson();
+            source.setId(i);
+
+            lSources.add(source);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        ContactConverter parallelConverter = new ContactConverter();
+        parallelConverter.setParallelThreshold(LIST_SIZE / 10);
+        parallelConverter.setForkJoinPool(pool);
+
+        List<Person> lResults = null;
+
+        try {
+            lResults = parallelConverter.convertListTo(lSources);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals("Results size.", LIST_SIZE, lResults.size());
+
+        for (int i = 0; i < LIST_SIZE; i++) {
+            verifyPerson(converter.convertTo(lSources.get(i)), lResults.get(i));
+        }
+
+        // results are modifiable like a sequential conversion
+        lResults.add(converter.convertTo(createPerson()));
+    }
+
+    @Test
+    public void testConvertIteratorTo() {
+        List<org.springbyexample.contact.orm.entity.person.Person> lSources =
+                Arrays.asList(createPerson(), createPerson());
+        lSources.get(1).setId(2);
+
+        Iterator<Person> iterator = converter.convertIteratorTo(lSources.iterator());
+
+        for (org.springbyexample.contact.orm.entity.person.Person source : lSources) {
+            verifyPerson(converter.convertTo(source), iterator.next());
+        }
+
+        assertFalse("Iterator should be finished.", iterator.hasNext());
+    }
+
+    private void verifyPerson(Person expected, Person result) {
+        assertNotNull("Result is null.", result);
+        assertEquals("class", expected.getClass(), result.getClass());
+        assertEquals("'id'", expected.getId(), result.getId());
+        assertEquals("'firstName'", expected.getFirstName(), result.getFirstName());
+        assertEquals("'lastName'", expected.getLastName(), result.getLastName());
+        assertEquals("'lockVersion'", expected.getLockVersion(), result.getLockVersion());
+        assertEquals("'lastUpdated'", expected.getLastUpdated(), result.getLastUpdated());
+        assertEquals("'lastUpdateUser'", expected.getLastUpdateUser(), result.getLastUpdateUser());
+        assertEquals("'created'", expected.getCreated(), result.getCreated());
+        assertEquals("'createUser'", expected.getCreateUser(), result.getCreateUser());
+    }
+
+    private org.springbyexample.contact.orm.entity.person.Person createPerson() {
+        Student result = new Student();
+
+        result.setId(1);
+        result.setFirstName("Joe");
+        result.setLastName("Smith");
+        result.setSchoolName("NYU");
+        result.setLockVersion(2);
+        result.setLastUpdated(DateTime.now());
+        result.setLastUpdateUser("david");
+        result.setCreated(DateTime.now().minusDays(1));
+        result.setCreateUser("david");
+        result.setAddresses(new HashSet<Address>(Arrays.asList(createAddress(1, "New York"), createAddress(2, "Boston"))));
+
+        return result;
+    }
+
+    private Address createAddress(int id, String city) {
+        Address result = new Address();
+
+        result.setId(id);
+        result.setAddress("1 Main St.");
+        result.setCity(city);
+        result.setZipPostal("10001");
+        result.setCountry("USA");
+
+        return result;
+    }
+
+}
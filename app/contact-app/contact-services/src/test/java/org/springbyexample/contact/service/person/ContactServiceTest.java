@@ -18,13 +18,17 @@ package org.springbyexample.contact.service.person;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.springbyexample.contact.test.constants.person.PersonTestConstants.*;
 import static org.springbyexample.contact.test.constants.person.PersonTestConstants.FIRST_ID;
 import static org.springbyexample.contact.test.constants.person.PersonTestConstants.FIRST_NAME;
 import static org.springbyexample.contact.test.constants.person.PersonTestConstants.LAST_NAME;
 import static org.springbyexample.contact.test.constants.person.PersonTestConstants.SECOND_ID;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.Test;
@@ -35,6 +39,13 @@ import org.springbyexample.schema.beans.entity.PkEntityBase;
 import org.springbyexample.schema.beans.person.Person;
 import org.springbyexample.schema.beans.person.PersonFindResponse;
 import org.springbyexample.schema.beans.person.PersonResponse;
+import org.springbyexample.schema.beans.response.Message;
+import org.springbyexample.schema.beans.response.MessageType;
+import org.springbyexample.service.AbstractPersistenceFindService;
+import org.springbyexample.service.AbstractPersistenceService;
+import org.springbyexample.service.AbstractPersistenceFindService.CountMode;
+import org.springbyexample.service.ResultCallback;
+import org.springframework.aop.framework.Advised;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -57,6 +68,34 @@ public class ContactServiceTest extends AbstractServiceTest {
         testPersonOne(person);
     }
 
+    @Test
+    public void testFindByIds() {
+        int missingId = 1000;
+
+        PersonFindResponse response = service.findByIds(Arrays.asList(FIRST_ID, SECOND_ID, missingId));
+        assertNotNull("Person response is null.", response);
+
+        List<Person> results = response.getResults();
+
+        int expectedCount = 2;
+
+        assertNotNull("Person list is null.", results);
+        assertEquals("Number of persons should be " + expectedCount + ".", expectedCount, results.size());
+
+        for (Person person : results) {
+            if (FIRST_ID.equals(person.getId())) {
+                testPersonOne(person);
+            } else {
+                assertEquals("'id'", (int) SECOND_ID, person.getId());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindByIdsEmpty() {
+        service.findByIds(Collections.<Integer>emptyList());
+    }
+
     @Test
     public void testFindByLastName() {
         PersonFindResponse response = service.findByLastName(LAST_NAME);
@@ -93,6 +132,81 @@ public class ContactServiceTest extends AbstractServiceTest {
         }
     }
 
+    @Test
+    public void testFindWithCallback() throws Exception {
+        AbstractPersistenceFindService<?, ?, ?, ?> target =
+                (AbstractPersistenceFindService<?, ?, ?, ?>) ((Advised) service).getTargetSource().getTarget();
+        int fetchSize = target.getFetchSize();
+
+        final List<Person> persons = new ArrayList<Person>();
+
+        // small fetch size so more than one chunk is loaded
+        target.setFetchSize(2);
+
+        try {
+            long count = service.find(new ResultCallback<Person>() {
+                @Override
+                public void doWithResult(Person result) {
+                    persons.add(result);
+                }
+            });
+
+            assertEquals("Count should be " + EXPECTED_COUNT + ".", EXPECTED_COUNT, count);
+        } finally {
+            target.setFetchSize(fetchSize);
+        }
+
+        List<Person> expected = service.find().getResults();
+
+        assertEquals("Number of persons should be " + EXPECTED_COUNT + ".", EXPECTED_COUNT, persons.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("'id'", expected.get(i).getId(), persons.get(i).getId());
+        }
+    }
+
+    @Test
+    public void testFindByCursor() {
+        List<Person> expected = service.find().getResults();
+        List<Person> persons = new ArrayList<Person>();
+        String cursor = null;
+
+        do {
+            PersonFindResponse response = service.findByCursor(cursor, 1);
+
+            assertEquals("count", EXPECTED_COUNT, response.getCount());
+            assertTrue("Page should have at most one result.", (response.getResults().size() <= 1));
+
+            persons.addAll(response.getResults());
+            cursor = response.getNextCursor();
+        } while (cursor != null && persons.size() <= EXPECTED_COUNT);
+
+        assertEquals("Number of persons should be " + EXPECTED_COUNT + ".", EXPECTED_COUNT, persons.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("'id'", expected.get(i).getId(), persons.get(i).getId());
+        }
+    }
+
+    @Test
+    public void testFindByCursorCountMode() throws Exception {
+        AbstractPersistenceFindService<?, ?, ?, ?> target =
+                (AbstractPersistenceFindService<?, ?, ?, ?>) ((Advised) service).getTargetSource().getTarget();
+
+        try {
+            target.setCountMode(CountMode.NONE);
+
+            assertEquals("count", AbstractPersistenceFindService.UNKNOWN_COUNT, service.findByCursor(null, 1).getCount());
+
+            target.setCountMode(CountMode.CACHED);
+
+            assertEquals("count", EXPECTED_COUNT, service.findByCursor(null, 1).getCount());
+            assertEquals("count", EXPECTED_COUNT, service.findByCursor(null, 1).getCount());
+        } finally {
+            target.setCountMode(CountMode.EXACT);
+        }
+    }
+
     @Test
     public void testCreate() {
         String firstName = "Jack";
@@ -153,6 +267,140 @@ public class ContactServiceTest extends AbstractServiceTest {
         assertNull("Person is not null.", person);
     }
 
+    @Test
+    public void testCreateAll() throws Exception {
+        int size = 5;
+        PersonFindResponse request = new PersonFindResponse();
+
+        for (int i = 0; i < size; i++) {
+            request.withResults(new Person().withFirstName("Jack" + i).withLastName("Johnson"));
+        }
+
+        PersonFindResponse response = bulk(new BulkCallback() {
+            @Override
+            public PersonFindResponse doWithService(PersonFindResponse request) {
+                return service.createAll(request);
+            }
+        }, request);
+
+        assertEquals("Number of persons should be " + size + ".", size, response.getResults().size());
+
+        for (int i = 0; i < size; i++) {
+            Person person = response.getResults().get(i);
+
+            assertTrue("Primary key should be greater than zero.", (person.getId() > 0));
+            testPerson(person, "Jack" + i, "Johnson");
+        }
+
+        int expectedCount = EXPECTED_COUNT + size;
+
+        assertEquals("Number of persons should be " + expectedCount + ".", expectedCount, service.find().getResults().size());
+    }
+
+    @Test
+    public void testUpdateAll() throws Exception {
+        int size = 3;
+        String lastName = "Jones";
+        PersonFindResponse request = new PersonFindResponse();
+
+        for (int i = 0; i < size; i++) {
+            request.withResults(new Person().withFirstName("Jack" + i).withLastName("Johnson"));
+        }
+
+        request = service.createAll(request);
+
+        for (Person person : request.getResults()) {
+            person.setLastName(lastName);
+        }
+
+        PersonFindResponse response = bulk(new BulkCallback() {
+            @Override
+            public PersonFindResponse doWithService(PersonFindResponse request) {
+                return service.updateAll(request);
+            }
+        }, request);
+
+        assertEquals("Number of persons should be " + size + ".", size, response.getResults().size());
+
+        for (int i = 0; i < size; i++) {
+            Person person = service.findById(request.getResults().get(i).getId()).getResults();
+
+            testPerson(person, "Jack" + i, lastName);
+        }
+
+        int expectedCount = EXPECTED_COUNT + size;
+
+        assertEquals("Number of persons should be " + expectedCount + ".", expectedCount, service.find().getResults().size());
+    }
+
+    @Test
+    public void testDeleteAll() throws Exception {
+        int missingId = 1000;
+
+        // reverse of the database order with the missing id in the first batch
+        PersonFindResponse request = new PersonFindResponse().withResults(new Person().withId(SECOND_ID),
+                                                                          new Person().withId(missingId),
+                                                                          new Person().withId(FIRST_ID));
+
+        PersonFindResponse response = bulk(new BulkCallback() {
+            @Override
+            public PersonFindResponse doWithService(PersonFindResponse request) {
+                return service.deleteAll(request);
+            }
+        }, request);
+
+        int expectedCount = 3;
+
+        assertEquals("Number of results should be " + expectedCount + ".", expectedCount, response.getResults().size());
+
+        testPersonTwo(response.getResults().get(0));
+
+        Person notFound = response.getResults().get(1);
+
+        assertEquals("id", missingId, notFound.getId());
+        assertNull("firstName", notFound.getFirstName());
+
+        testPersonOne(response.getResults().get(2));
+
+        assertEquals("Number of messages should be 1.", 1, response.getMessageList().size());
+
+        Message message = response.getMessageList().get(0);
+
+        assertEquals("messageType", MessageType.WARN, message.getMessageType());
+        assertEquals("property", "results[1]", message.getProperty());
+        assertTrue("Message should have the id.", message.getMessage().contains(String.valueOf(missingId)));
+
+        assertNull("Person is not null.", service.findById(FIRST_ID).getResults());
+        assertNull("Person is not null.", service.findById(SECOND_ID).getResults());
+    }
+
+    /**
+     * Calls a bulk operation with a small batch size so more than one batch is flushed.
+     */
+    private PersonFindResponse bulk(BulkCallback callback, PersonFindResponse request) throws Exception {
+        AbstractPersistenceService<?, ?, ?, ?> target =
+                (AbstractPersistenceService<?, ?, ?, ?>) ((Advised) service).getTargetSource().getTarget();
+        int batchSize = target.getBatchSize();
+
+        target.setBatchSize(2);
+
+        try {
+            PersonFindResponse response = callback.doWithService(request);
+            assertNotNull("Person response is null.", response);
+
+            return response;
+        } finally {
+            target.setBatchSize(batchSize);
+        }
+    }
+
+    /**
+     * Bulk operation callback.
+     */
+    private interface BulkCallback {
+        public PersonFindResponse doWithService(PersonFindResponse request);
+    }
+
     /**
      * Create person.
      */
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.enterprise.solr;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springbyexample.enterprise.solr.CatalogItemStaxMarshaller.CatalogItemResults;
+import org.springbyexample.httpclient.solr.SolrCodec;
+import org.springframework.oxm.MarshallingFailureException;
+import org.springframework.oxm.UnmarshallingFailureException;
+import org.springframework.oxm.XmlMappingException;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+
+/**
+ * Solr <code>CatalogItem</code> codec using Solr's JSON update format 
+ * and JSON response writer.  Uses Jackson's streaming API so requests 
+ * are written directly to the output stream and responses are read in a single pass.
+ * 
+ * @author David Winterfeldt
+ */
+@Component
+public class CatalogItemJsonCodec implements SolrCodec {
+    
+    final Logger logger = LoggerFactory.getLogger(CatalogItemJsonCodec.class);
+
+    private static final String WRITER_TYPE = "json";
+    private static final String CONTENT_TYPE = "application/json; charset=UTF-8";
+    
+    private static final String RESPONSE_FIELD_NAME = "response";
+    private static final String DOCS_FIELD_NAME = "docs";
+    private static final String NEXT_CURSOR_MARK_FIELD_NAME = "nextCursorMark";
+
+    private static final JsonFactory jsonFactory = createJsonFactory();
+    
+    /**
+     * Implementation of <code>SolrCodec</code>.
+     */
+    public String getWriterType() {
+        return WRITER_TYPE;
+    }
+
+    /**
+     * Implementation of <code>SolrCodec</code>.
+     */
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+    
+    /**
+     * Implementation of <code>Marshaller</code>. 
+     */
+    @SuppressWarnings("unchecked")
+    public void marshal(Object bean, Result result) throws XmlMappingException, IOException {
+        List<CatalogItem> lCatalogItems = (List<CatalogItem>) bean;
+
+        if (result instanceof StreamResult) {
+            StreamResult streamResult = (StreamResult) result;
+            JsonGenerator generator = null;
+            
+            if (streamResult.getWriter() != null) {
+                generator = jsonFactory.createGenerator(streamResult.getWriter());
+            } else {
+                generator = jsonFactory.createGenerator(streamResult.getOutputStream(), JsonEncoding.UTF8);
+            }
+
+            try {
+                generator.writeStartArray();
+                
+                for (CatalogItem item : lCatalogItems) {
+                    generator.writeStartObject();
+
+                    if (item.getId() != null) {
+                        generator.writeStringField("id", item.getId());
+                    }
+                    
+                    if (item.getManufacturer() != null) {
+                        generator.writeStringField("manu", item.getManufacturer());
+                    }
+                    
+                    if (item.getName() != null) {
+                        generator.writeStringField("name", item.getName());
+                    }
+                    
+                    generator.writeNumberField("price", item.getPrice());
+                    generator.writeBooleanField("inStock", item.isInStock());
+                    generator.writeNumberField("popularity", item.getPopularity());
+                    
+                    generator.writeEndObject();
+                }
+                
+                generator.writeEndArray();
+            } catch (JsonGenerationException e) {
+                throw new MarshallingFailureException(e.getMessage(), e);
+            } finally {
+                // flushes without closing the target
+                generator.close();
+            }
+        }
+
+        logger.debug("Marshalled bean of size {}.", lCatalogItems.size());
+    }
+
+    /**
+     * Implementation of <code>Unmarshaller</code>.  If the response 
+     * has a <i>nextCursorMark</i>, the result implements <code>SolrCursorResult</code>.
+     */
+    public Object unmarshal(Source source) throws XmlMappingException, IOException {
+        CatalogItemResults lResults = new CatalogItemResults();
+
+        if (source instanceof StreamSource) {
+            StreamSource streamSource = (StreamSource) source;
+            JsonParser parser = null;
+            
+            if (streamSource.getReader() != null) {
+                parser = jsonFactory.createParser(streamSource.getReader());
+            } else {
+                parser = jsonFactory.createParser(streamSource.getInputStream());
+            }
+
+            try {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new UnmarshallingFailureException("Expected a JSON object for the response.");
+                }
+                
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String fieldName = parser.getCurrentName();
+                    JsonToken token = parser.nextToken();
+                    
+                    if (RESPONSE_FIELD_NAME.equals(fieldName) && token == JsonToken.START_OBJECT) {
+                        processResponse(parser, lResults);
+                    } else if (NEXT_CURSOR_MARK_FIELD_NAME.equals(fieldName)) {
+                        lResults.setNextCursorMark(getText(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } catch (JsonParseException e) {
+                throw new UnmarshallingFailureException(e.getMessage(), e);
+            } finally {
+                parser.close();
+            }
+
+            logger.debug("Unmarshalled bean of size {}.", lResults.size());
+        }
+
+        return lResults;
+    }
+
+    /**
+     * Implementation of <code>Marshaller</code>.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean supports(Class clazz) {
+        return (clazz.isAssignableFrom(List.class));
+    }
+
+    /**
+     * Processes the response object, which contains the documents.
+     */
+    private void processResponse(JsonParser parser, List<CatalogItem> lResults) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            
+            if (DOCS_FIELD_NAME.equals(fieldName) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    lResults.add(processDoc(parser));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+    
+    /**
+     * Processes a document.  Multi-valued and unknown fields are skipped, 
+     * and primitive fields keep their defaults if the value is <code>null</code>.
+     */
+    private CatalogItem processDoc(JsonParser parser) throws IOException {
+        CatalogItem result = new CatalogItem();
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            
+            if (token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT) {
+                parser.skipChildren();
+            } else if ("id".equals(name)) {
+                result.setId(getText(parser));
+            } else if ("manu".equals(name)) {
+                result.setManufacturer(getText(parser));
+            } else if ("name".equals(name)) {
+                result.setName(getText(parser));
+            } else if (token == JsonToken.VALUE_NULL) {
+                continue;
+            } else if ("inStock".equals(name)) {
+                result.setInStock(parser.getValueAsBoolean());
+            } else if ("popularity".equals(name)) {
+                result.setPopularity(parser.getValueAsInt());
+            } else if ("price".equals(name)) {
+                result.setPrice(parser.getFloatValue());
+            }
+        }
+        
+        return result;
+    }
+
+    /**
+     * Gets the current value as text, or <code>null</code> for a JSON <code>null</code>.
+     */
+    private String getText(JsonParser parser) throws IOException {
+        return (parser.getCurrentToken() == JsonToken.VALUE_NULL ? null : parser.getText());
+    }
+
+    /**
+     * Creates JSON factory that doesn't close the stream it writes to.
+     */
+    private static JsonFactory createJsonFactory() {
+        JsonFactory result = new JsonFactory();
+        
+        result.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        
+        return result;
+    }
+    
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.enterprise.solr;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.lang.BooleanUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springbyexample.httpclient.solr.SolrCodec;
+import org.springbyexample.httpclient.solr.SolrCursorResult;
+import org.springframework.oxm.MarshallingFailureException;
+import org.springframework.oxm.UnmarshallingFailureException;
+import org.springframework.oxm.XmlMappingException;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Solr <code>CatalogItem</code> Spring OXM marshaller/unmarshaller 
+ * using StAX.  Requests are written directly to the output stream 
+ * and responses are read in a single forward pass without building a document.
+ * 
+ * @author David Winterfeldt
+ */
+@Component
+public class CatalogItemStaxMarshaller implements SolrCodec {
+    
+    final Logger logger = LoggerFactory.getLogger(CatalogItemStaxMarshaller.class);
+
+    private static final String ENCODING = "UTF-8";
+    private static final String WRITER_TYPE = "xml";
+    private static final String CONTENT_TYPE = "text/xml; charset=" + ENCODING;
+    
+    private static final String ADD_ELEMENT_NAME = "add";
+    private static final String DOC_ELEMENT_NAME = "doc";
+    private static final String FIELD_ELEMENT_NAME = "field";
+    private static final String FIELD_ELEMENT_NAME_ATTRIBUTE = "name";
+
+    private static final String RESULT_ELEMENT_NAME = "result";
+    private static final String RESULT_NAME = "response";
+    private static final String NEXT_CURSOR_MARK_NAME = "nextCursorMark";
+    
+    private static final XMLInputFactory inputFactory = createInputFactory();
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    
+    /**
+     * Implementation of <code>SolrCodec</code>.
+     */
+    public String getWriterType() {
+        return WRITER_TYPE;
+    }
+
+    /**
+     * Implementation of <code>SolrCodec</code>.
+     */
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+    
+    /**
+     * Implementation of <code>Marshaller</code>. 
+     */
+    @SuppressWarnings("unchecked")
+    public void marshal(Object bean, Result result) throws XmlMappingException, IOException {
+        List<CatalogItem> lCatalogItems = (List<CatalogItem>) bean;
+
+        if (result instanceof StreamResult) {
+            XMLStreamWriter writer = null;
+            
+            try {
+                StreamResult streamResult = (StreamResult) result;
+                
+                if (streamResult.getWriter() != null) {
+                    writer = outputFactory.createXMLStreamWriter(streamResult.getWriter());
+                } else {
+                    writer = outputFactory.createXMLStreamWriter(streamResult.getOutputStream(), ENCODING);
+                }
+
+                writer.writeStartDocument(ENCODING, "1.0");
+                writer.writeStartElement(ADD_ELEMENT_NAME);
+
+                for (CatalogItem item : lCatalogItems) {
+                    writer.writeStartElement(DOC_ELEMENT_NAME);
+
+                    writeField(writer, "id", item.getId());
+                    writeField(writer, "manu", item.getManufacturer());
+                    writeField(writer, "name", item.getName());
+                    writeField(writer, "price", String.valueOf(item.getPrice()));
+                    writeField(writer, "inStock", BooleanUtils.toStringTrueFalse(item.isInStock()));
+                    writeField(writer, "popularity", String.valueOf(item.getPopularity()));
+                    
+                    writer.writeEndElement();
+                }
+
+                writer.writeEndElement();
+                writer.writeEndDocument();
+                writer.flush();
+            } catch (XMLStreamException e) {
+                throw new MarshallingFailureException(e.getMessage(), e);
+            } finally {
+                close(writer);
+            }
+        }
+
+        logger.debug("Marshalled bean of size {}.", lCatalogItems.size());
+    }
+
+    /**
+     * Implementation of <code>Unmarshaller</code>.  If the response 
+     * has a <i>nextCursorMark</i>, the result implements <code>SolrCursorResult</code>.
+     */
+    public Object unmarshal(Source source) throws XmlMappingException, IOException {
+        CatalogItemResults lResults = new CatalogItemResults();
+
+        if (source instanceof StreamSource) {
+            XMLStreamReader reader = null;
+            
+            try {
+                StreamSource streamSource = (StreamSource) source;
+                
+                if (streamSource.getReader() != null) {
+                    reader = inputFactory.createXMLStreamReader(streamSource.getReader());
+                } else {
+                    reader = inputFactory.createXMLStreamReader(streamSource.getInputStream());
+                }
+                
+                boolean inResult = false;
+                CatalogItem item = null;
+                
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String elementName = reader.getLocalName();
+                        String name = reader.getAttributeValue(null, FIELD_ELEMENT_NAME_ATTRIBUTE);
+                        
+                        if (item != null) {
+                            processField(reader, item, name);
+                        } else if (inResult && DOC_ELEMENT_NAME.equals(elementName)) {
+                            item = new CatalogItem();
+                        } else if (RESULT_ELEMENT_NAME.equals(elementName) && RESULT_NAME.equals(name)) {
+                            inResult = true;
+                        } else if (!inResult && NEXT_CURSOR_MARK_NAME.equals(name)) {
+                            lResults.setNextCursorMark(reader.getElementText());
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        String elementName = reader.getLocalName();
+                        
+                        if (item != null && DOC_ELEMENT_NAME.equals(elementName)) {
+                            lResults.add(item);
+                            item = null;
+                        } else if (RESULT_ELEMENT_NAME.equals(elementName)) {
+                            inResult = false;
+                        }
+                    }
+                }
+            } catch (XMLStreamException e) {
+                throw new UnmarshallingFailureException(e.getMessage(), e);
+            } finally {
+                close(reader);
+            }
+
+            logger.debug("Unmarshalled bean of size {}.", lResults.size());
+        }
+
+        return lResults;
+    }
+
+    /**
+     * Implementation of <code>Marshaller</code>.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean supports(Class clazz) {
+        return (clazz.isAssignableFrom(List.class));
+    }
+
+    /**
+     * Writes a field if it has a value.
+     */
+    private void writeField(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        if (value != null) {
+            writer.writeStartElement(FIELD_ELEMENT_NAME);
+            writer.writeAttribute(FIELD_ELEMENT_NAME_ATTRIBUTE, name);
+            writer.writeCharacters(value);
+            writer.writeEndElement();
+        }
+    }
+    
+    /**
+     * Sets a field on an item from a child element of a <i>doc</i> 
+     * element.  Multi-valued and unknown fields are skipped.
+     */
+    private void processField(XMLStreamReader reader, CatalogItem item, String name) throws XMLStreamException {
+        if ("id".equals(name)) {
+            item.setId(reader.getElementText());
+        } else if ("inStock".equals(name)) {
+            item.setInStock(BooleanUtils.toBoolean(reader.getElementText()));
+        } else if ("manu".equals(name)) {
+            item.setManufacturer(reader.getElementText());
+        } else if ("name".equals(name)) {
+            item.setName(reader.getElementText());
+        } else if ("popularity".equals(name)) {
+            item.setPopularity(Integer.parseInt(reader.getElementText()));
+        } else if ("price".equals(name)) {
+            item.setPrice(Float.parseFloat(reader.getElementText()));
+        } else {
+            skipElement(reader);
+        }
+    }
+
+    /**
+     * Skips the current element and all its children.
+     */
+    private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        
+        while (depth > 0) {
+            int event = reader.next();
+            
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+    
+    /**
+     * Closes writer quietly.
+     */
+    private void close(XMLStreamWriter writer) {
+        if (writer != null) {
+            try { writer.close(); } catch (XMLStreamException e) {}
+        }
+    }
+
+    /**
+     * Closes reader quietly.
+     */
+    private void close(XMLStreamReader reader) {
+        if (reader != null) {
+            try { reader.close(); } catch (XMLStreamException e) {}
+        }
+    }
+    
+    /**
+     * Creates input factory that doesn't resolve DTDs or external entities.
+     */
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory result = XMLInputFactory.newInstance();
+        
+        result.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        result.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        
+        return result;
+    }
+
+    /**
+     * Unmarshalled search results.
+     */
+    public static class CatalogItemResults extends ArrayList<CatalogItem> implements SolrCursorResult {
+
+        private static final long serialVersionUID = -3521842316512098452L;
+        
+        private String nextCursorMark = null;
+        
+        /**
+         * Gets the cursor mark for the next page of results.
+         */
+        public String getNextCursorMark() {
+            return nextCursorMark;
+        }
+
+        /**
+         * Sets the cursor mark for the next page of results.
+         */
+        public void setNextCursorMark(String nextCursorMark) {
+            this.nextCursorMark = nextCursorMark;
+        }
+        
+    }
+    
+}
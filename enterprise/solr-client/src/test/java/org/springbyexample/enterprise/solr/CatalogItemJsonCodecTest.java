@@ -0,0 +1,146 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.enterprise.solr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springbyexample.enterprise.solr.CatalogItemStaxMarshaller.CatalogItemResults;
+
+/**
+ * Tests <code>CatalogItemJsonCodec</code>.
+ * 
+ * @author David Winterfeldt
+ */
+public class CatalogItemJsonCodecTest {
+
+    final Logger logger = LoggerFactory.getLogger(CatalogItemJsonCodecTest.class);
+
+    private static final String NEXT_CURSOR_MARK = "AoEjR0JQ";
+    
+    private static final String RESPONSE = 
+        "{\"responseHeader\":{\"status\":0,\"QTime\":1,\"params\":{\"q\":\"belkin\",\"wt\":\"json\"}}," + 
+        "\"response\":{\"numFound\":2,\"start\":0,\"docs\":[" + 
+        "{\"id\":\"F8V7067-APL-KIT\",\"name\":\"Belkin Mobile Power Cord for iPod w/ Dock\",\"manu\":\"Belkin\"," + 
+        "\"cat\":[\"electronics\",\"connector\"],\"price\":19.95,\"popularity\":1,\"inStock\":false}," + 
+        "{\"id\":\"IW-02\",\"name\":\"iPod & iPod Mini USB 2.0 Cable\",\"manu\":\"Belkin\"," + 
+        "\"price\":11.5,\"popularity\":1,\"inStock\":true}]}," + 
+        "\"nextCursorMark\":\"" + NEXT_CURSOR_MARK + "\"}";
+    
+    private final CatalogItemJsonCodec codec = new CatalogItemJsonCodec();
+    
+    /**
+     * Tests unmarshalling a JSON search response.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUnmarshal() throws Exception {
+        List<CatalogItem> lResults = (List<CatalogItem>) codec.unmarshal(
+                new StreamSource(new ByteArrayInputStream(RESPONSE.getBytes("UTF-8"))));
+        
+        int expectedCount = 2;
+        assertEquals("Catalog item list should be '" + expectedCount + "'.", expectedCount, lResults.size());
+        
+        CatalogItem item = lResults.get(0);
+        
+        assertEquals("Catalog item id doesn't match.", "F8V7067-APL-KIT", item.getId());
+        assertEquals("Catalog item manufacturer doesn't match.", "Belkin", item.getManufacturer());
+        assertEquals("Catalog item name doesn't match.", "Belkin Mobile Power Cord for iPod w/ Dock", item.getName());
+        assertEquals("Catalog item price doesn't match.", 19.95f, item.getPrice(), 0);
+        assertEquals("Catalog item in stock doesn't match.", false, item.isInStock());
+        assertEquals("Catalog item popularity doesn't match.", 1, item.getPopularity());
+        
+        assertEquals("Catalog item id doesn't match.", "IW-02", lResults.get(1).getId());
+        assertEquals("Next cursor mark should be '" + NEXT_CURSOR_MARK + "'.", 
+                     NEXT_CURSOR_MARK, ((CatalogItemResults) lResults).getNextCursorMark());
+    }
+
+    /**
+     * Tests <code>null</code> values aren't unmarshalled as the text 'null'.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUnmarshalNull() throws Exception {
+        String response = 
+            "{\"response\":{\"numFound\":1,\"start\":0,\"docs\":[" + 
+            "{\"id\":\"IW-02\",\"name\":null,\"manu\":null,\"price\":null,\"popularity\":null,\"inStock\":null}]}," + 
+            "\"nextCursorMark\":null}";
+        
+        List<CatalogItem> lResults = (List<CatalogItem>) codec.unmarshal(
+                new StreamSource(new ByteArrayInputStream(response.getBytes("UTF-8"))));
+        
+        assertEquals("Catalog item list should be '1'.", 1, lResults.size());
+        
+        CatalogItem item = lResults.get(0);
+        
+        assertEquals("Catalog item id doesn't match.", "IW-02", item.getId());
+        assertNull("Catalog item manufacturer should be null.", item.getManufacturer());
+        assertNull("Catalog item name should be null.", item.getName());
+        assertEquals("Catalog item price should be the default.", 0, item.getPrice(), 0);
+        assertEquals("Catalog item popularity should be the default.", 0, item.getPopularity());
+        assertNull("Next cursor mark should be null.", ((CatalogItemResults) lResults).getNextCursorMark());
+    }
+
+    /**
+     * Tests marshalling an update request and compares its size to XML.
+     */
+    @Test
+    public void testMarshal() throws Exception {
+        List<CatalogItem> lCatalogItems = new ArrayList<CatalogItem>();
+        
+        for (int i = 0; i < 100; i++) {
+            CatalogItem item = new CatalogItem();
+            item.setId("id-" + i);
+            item.setManufacturer("Manufacturer \"" + i + "\"");
+            item.setName("Name " + i);
+            item.setPrice(1.5f * i);
+            item.setInStock(i % 2 == 0);
+            item.setPopularity(i);
+            
+            lCatalogItems.add(item);
+        }
+
+        ByteArrayOutputStream jsonOut = new ByteArrayOutputStream();
+        codec.marshal(lCatalogItems, new StreamResult(jsonOut));
+        
+        ByteArrayOutputStream xmlOut = new ByteArrayOutputStream();
+        new CatalogItemStaxMarshaller().marshal(lCatalogItems, new StreamResult(xmlOut));
+        
+        String request = new String(jsonOut.toByteArray(), "UTF-8");
+        
+        assertTrue("Request doesn't match expected JSON.", 
+                   request.startsWith("[{\"id\":\"id-0\",\"manu\":\"Manufacturer \\\"0\\\"\",\"name\":\"Name 0\"," + 
+                                      "\"price\":0.0,\"inStock\":true,\"popularity\":0}"));
+        assertTrue("JSON request should be smaller than XML.", jsonOut.size() < xmlOut.size());
+        
+        logger.debug("Update request size for {} items.  json={} xml={}", 
+                     new Object[] { lCatalogItems.size(), jsonOut.size(), xmlOut.size() });
+    }
+    
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.enterprise.solr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+import org.springbyexample.enterprise.solr.CatalogItemStaxMarshaller.CatalogItemResults;
+
+/**
+ * Tests <code>CatalogItemStaxMarshaller</code> against <code>CatalogItemMarshaller</code>.
+ * 
+ * @author David Winterfeldt
+ */
+public class CatalogItemStaxMarshallerTest {
+
+    private static final String NEXT_CURSOR_MARK = "AoEjR0JQ";
+    
+    private static final String RESPONSE = 
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + 
+        "<response>" + 
+        "<lst name=\"responseHeader\"><int name=\"status\">0</int><int name=\"QTime\">1</int>" + 
+        "<lst name=\"params\"><str name=\"q\">belkin</str><str name=\"cursorMark\">*</str></lst></lst>" + 
+        "<result name=\"response\" numFound=\"2\" start=\"0\">" + 
+        "<doc><str name=\"id\">F8V7067-APL-KIT</str><bool name=\"inStock\">false</bool>" + 
+        "<str name=\"manu\">Belkin</str><str name=\"name\">Belkin Mobile Power Cord for iPod w/ Dock</str>" + 
+        "<int name=\"popularity\">1</int><float name=\"price\">19.95</float></doc>" + 
+        "<doc><arr name=\"cat\"><str>electronics</str><str>connector</str></arr>" + 
+        "<str name=\"id\">IW-02</str><bool name=\"inStock\">true</bool>" + 
+        "<str name=\"manu\">Belkin</str><str name=\"name\">iPod &amp; iPod Mini USB 2.0 Cable</str>" + 
+        "<int name=\"popularity\">1</int><float name=\"price\">11.5</float></doc>" + 
+        "</result>" + 
+        "<str name=\"nextCursorMark\">" + NEXT_CURSOR_MARK + "</str>" + 
+        "</response>";
+    
+    private final CatalogItemMarshaller domMarshaller = new CatalogItemMarshaller();
+    private final CatalogItemStaxMarshaller staxMarshaller = new CatalogItemStaxMarshaller();
+    
+    /**
+     * Tests unmarshalling a search response matches the DOM unmarshaller.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUnmarshal() throws Exception {
+        List<CatalogItem> lExpected = (List<CatalogItem>) domMarshaller.unmarshal(getSource(RESPONSE.getBytes("UTF-8")));
+        List<CatalogItem> lResults = (List<CatalogItem>) staxMarshaller.unmarshal(getSource(RESPONSE.getBytes("UTF-8")));
+        
+        assertItemsEqual(lExpected, lResults);
+        
+        assertEquals("Next cursor mark should be '" + NEXT_CURSOR_MARK + "'.", 
+                     NEXT_CURSOR_MARK, ((CatalogItemResults) lResults).getNextCursorMark());
+    }
+
+    /**
+     * Tests marshalling and then unmarshalling with both marshallers.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMarshal() throws Exception {
+        List<CatalogItem> lCatalogItems = new ArrayList<CatalogItem>();
+        
+        for (int i = 0; i < 3; i++) {
+            CatalogItem item = new CatalogItem();
+            item.setId("id-" + i);
+            item.setManufacturer("Manufacturer <" + i + ">");
+            item.setName("Name & " + i);
+            item.setPrice(1.5f * i);
+            item.setInStock(i % 2 == 0);
+            item.setPopularity(i);
+            
+            lCatalogItems.add(item);
+        }
+
+        ByteArrayOutputStream domOut = new ByteArrayOutputStream();
+        domMarshaller.marshal(lCatalogItems, new StreamResult(domOut));
+        
+        ByteArrayOutputStream staxOut = new ByteArrayOutputStream();
+        staxMarshaller.marshal(lCatalogItems, new StreamResult(staxOut));
+        
+        String request = new String(staxOut.toByteArray(), "UTF-8");
+        
+        assertTrue("Request should start with an add element.", request.contains("<add><doc><field name=\"id\">id-0</field>"));
+        
+        // convert the add requests into search responses to compare the documents
+        List<CatalogItem> lExpected = (List<CatalogItem>) domMarshaller.unmarshal(getSource(toResponse(domOut.toByteArray())));
+        List<CatalogItem> lResults = (List<CatalogItem>) staxMarshaller.unmarshal(getSource(toResponse(staxOut.toByteArray())));
+
+        assertItemsEqual(lCatalogItems, lExpected);
+        assertItemsEqual(lExpected, lResults);
+        
+        assertNull("Next cursor mark should be null.", ((CatalogItemResults) lResults).getNextCursorMark());
+    }
+
+    /**
+     * Converts an add request into a search response.
+     */
+    private byte[] toResponse(byte[] request) throws Exception {
+        String result = new String(request, "UTF-8");
+        
+        result = result.replaceFirst("<\\?xml[^>]*\\?>", "");
+        result = result.replace("<add>", "<response><result name=\"response\">").replace("</add>", "</result></response>");
+        // DOM unmarshaller expects price last
+        result = result.replaceAll("(<field name=\"price\">[^<]*</field>)(.*?)</doc>", "$2$1</doc>");
+        
+        return result.getBytes("UTF-8");
+    }
+    
+    /**
+     * Gets source for bytes.
+     */
+    private StreamSource getSource(byte[] bytes) {
+        return new StreamSource(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Asserts lists of items are equal.
+     */
+    private void assertItemsEqual(List<CatalogItem> lExpected, List<CatalogItem> lResults) {
+        assertEquals("Catalog item list size doesn't match.", lExpected.size(), lResults.size());
+        
+        for (int i = 0; i < lExpected.size(); i++) {
+            CatalogItem expected = lExpected.get(i);
+            CatalogItem item = lResults.get(i);
+            
+            assertEquals("Catalog item id doesn't match.", expected.getId(), item.getId());
+            assertEquals("Catalog item manufacturer doesn't match.", expected.getManufacturer(), item.getManufacturer());
+            assertEquals("Catalog item name doesn't match.", expected.getName(), item.getName());
+            assertEquals("Catalog item price doesn't match.", expected.getPrice(), item.getPrice(), 0);
+            assertEquals("Catalog item in stock doesn't match.", expected.isInStock(), item.isInStock());
+            assertEquals("Catalog item popularity doesn't match.", expected.getPopularity(), item.getPopularity());
+        }
+    }
+    
+}
@@ -18,6 +18,7 @@ package org.springbyexample.enterprise.solr;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -191,6 +192,37 @@ public class SolrOxmClientIT {
                      expectedPopularity, item.getPopularity());
     }
     
+    /**
+     * Tests lazily paged search sorted on the unique key 
+     * returns the same results as a single search.
+     */ 
+    @Test
+    public void testSearchIterable() {
+        assertNotNull("SolrOxmClient is null.", client);
+
+        Map<String, String> hParams = new HashMap<String, String>();
+        hParams.put("q", "electronics");
+        hParams.put("sort", "id asc");
+
+        List<String> lIds = new ArrayList<String>();
+        
+        for (CatalogItem item : client.searchIterable(hParams, 5)) {
+            lIds.add(item.getId());
+        }
+
+        Map<String, String> hSearchParams = new HashMap<String, String>(hParams);
+        hSearchParams.put("rows", "1000");
+        
+        List<String> lExpectedIds = new ArrayList<String>();
+        
+        for (CatalogItem item : client.search(hSearchParams)) {
+            lExpectedIds.add(item.getId());
+        }
+        
+        assertTrue("Search should have more than one page.", lExpectedIds.size() > 5);
+        assertEquals("Catalog item ids don't match.", lExpectedIds, lIds);
+    }
+    
     /**
      * Tests adding/updating records.
      */ 
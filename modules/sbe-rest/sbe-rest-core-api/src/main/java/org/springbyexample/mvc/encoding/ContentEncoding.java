@@ -0,0 +1,178 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.encoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.springframework.util.StringUtils;
+
+
+/**
+ * HTTP content codings supported for compressing request and response bodies.
+ *
+ * @author David Winterfeldt
+ */
+public enum ContentEncoding {
+
+    GZIP("gzip") {
+        @Override
+        public DeflaterOutputStream encode(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+
+        @Override
+        public InflaterInputStream decode(InputStream in) throws IOException {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+    },
+
+    DEFLATE("deflate") {
+        @Override
+        public DeflaterOutputStream encode(OutputStream out) throws IOException {
+            return new DeflaterOutputStream(out);
+        }
+
+        @Override
+        public InflaterInputStream decode(InputStream in) throws IOException {
+            return new InflaterInputStream(in);
+        }
+    };
+
+    public static final String ACCEPT_ENCODING = "Accept-Encoding";
+    public static final String CONTENT_ENCODING = "Content-Encoding";
+
+    /**
+     * Accept encoding header value for all supported codings.
+     */
+    public static final String ACCEPT_ALL = GZIP.getName() + ", " + DEFLATE.getName();
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String name;
+
+    private ContentEncoding(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets content coding name used in headers.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Wraps a stream so content written to it is encoded.
+     * The returned stream must be closed or finished to write the trailer.
+     */
+    public abstract DeflaterOutputStream encode(OutputStream out) throws IOException;
+
+    /**
+     * Wraps a stream so content read from it is decoded.
+     */
+    public abstract InflaterInputStream decode(InputStream in) throws IOException;
+
+    /**
+     * Gets content coding by name.
+     *
+     * @param   name    <code>Content-Encoding</code> header value.
+     * @return  The content coding or <code>null</code> if there isn't one
+     *          or it isn't supported.
+     */
+    public static ContentEncoding forName(String name) {
+        ContentEncoding result = null;
+
+        if (StringUtils.hasText(name)) {
+            String value = name.trim();
+
+            for (ContentEncoding encoding : values()) {
+                if (encoding.getName().equalsIgnoreCase(value)) {
+                    result = encoding;
+
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the preferred supported content coding from an <code>Accept-Encoding</code> header.
+     * Codings with a quality of zero aren't acceptable, and GZIP is preferred
+     * when codings have the same quality.
+     *
+     * @return  The content coding or <code>null</code> if none are acceptable.
+     */
+    public static ContentEncoding forAcceptEncoding(String acceptEncoding) {
+        ContentEncoding result = null;
+
+        if (!StringUtils.hasText(acceptEncoding)) {
+            return result;
+        }
+
+        float resultQuality = 0;
+
+        for (String token : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+            String[] parts = StringUtils.tokenizeToStringArray(token, ";");
+
+            if (parts.length == 0) {
+                continue;
+            }
+
+            float quality = getQuality(parts);
+            ContentEncoding encoding = ("*".equals(parts[0]) ? GZIP : forName(parts[0]));
+
+            if (encoding != null && (quality > resultQuality ||
+                                     (quality == resultQuality && result != null && encoding.ordinal() < result.ordinal()))) {
+                result = encoding;
+                resultQuality = quality;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets quality value from the parameters of an accept encoding token.
+     *
+     * @return  The quality or one if there isn't a valid quality value.
+     */
+    private static float getQuality(String[] parts) {
+        float result = 1;
+
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i];
+
+            if (param.startsWith("q=")) {
+                try {
+                    result = Float.parseFloat(param.substring(2));
+                } catch (NumberFormatException e) {
+                    result = 1;
+                }
+            }
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,417 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.encoding.filter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springbyexample.mvc.encoding.ContentEncoding;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+
+/**
+ * Compresses responses with the preferred content coding from the request's
+ * <code>Accept-Encoding</code> header, and decodes request bodies
+ * with a supported <code>Content-Encoding</code>.
+ *
+ * <p>A response is only compressed once something is written to it, so empty responses
+ * like a 304 (Not Modified) don't get an encoding.  A response with a content length
+ * less than the min size set before it's written isn't compressed.</p>
+ *
+ * <p>Every response gets a <code>Vary: Accept-Encoding</code> header, 
+ * since whether or not it's compressed depends on the request's <code>Accept-Encoding</code>.
+ * Otherwise a cache could store an uncompressed response and return it 
+ * for a request that accepts gzip, or the other way around.</p>
+ *
+ * @author David Winterfeldt
+ */
+public class ContentEncodingFilter extends OncePerRequestFilter {
+
+    public final static int DEFAULT_MIN_SIZE = 512;
+
+    private static final String VARY = "Vary";
+    private static final String ISO_8859_1 = "ISO-8859-1";
+
+    private int minSize = DEFAULT_MIN_SIZE;
+
+    /**
+     * Gets min size in bytes of a response that is compressed.
+     */
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * Sets min size in bytes of a response that is compressed.
+     * Only applies when the content length is set before the body is written.
+     * Default is 512.
+     */
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        HttpServletRequest filteredRequest = request;
+        ContentEncoding requestEncoding = ContentEncoding.forName(request.getHeader(ContentEncoding.CONTENT_ENCODING));
+
+        if (requestEncoding != null) {
+            filteredRequest = new DecodingRequest(request, requestEncoding);
+        }
+
+        ContentEncoding encoding = ContentEncoding.forAcceptEncoding(request.getHeader(ContentEncoding.ACCEPT_ENCODING));
+
+        response.addHeader(VARY, ContentEncoding.ACCEPT_ENCODING);
+
+        if (encoding == null || "HEAD".equals(request.getMethod())) {
+            filterChain.doFilter(filteredRequest, response);
+
+            return;
+        }
+
+        EncodingResponse encodingResponse = new EncodingResponse(response, encoding, minSize);
+
+        filterChain.doFilter(filteredRequest, encodingResponse);
+
+        encodingResponse.finish();
+    }
+
+    /**
+     * Request decoding its body.  The encoding and length headers
+     * are hidden since they describe the encoded body.
+     */
+    private static class DecodingRequest extends HttpServletRequestWrapper {
+
+        private final ContentEncoding encoding;
+
+        private ServletInputStream in;
+        private BufferedReader reader;
+
+        public DecodingRequest(HttpServletRequest request, ContentEncoding encoding) {
+            super(request);
+
+            this.encoding = encoding;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return (isEncodedHeader(name) ? null : super.getHeader(name));
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Enumeration getHeaders(String name) {
+            return (isEncodedHeader(name) ? Collections.enumeration(Collections.emptyList()) : super.getHeaders(name));
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (reader != null) {
+                throw new IllegalStateException("Reader has already been used.");
+            }
+
+            if (in == null) {
+                final InputStream decodingIn = encoding.decode(super.getInputStream());
+
+                in = new ServletInputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        return decodingIn.read();
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        return decodingIn.read(b, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        decodingIn.close();
+                    }
+                };
+            }
+
+            return in;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String characterEncoding = getCharacterEncoding();
+
+                reader = new BufferedReader(new InputStreamReader(getInputStream(),
+                                                                  (characterEncoding != null ? characterEncoding : ISO_8859_1)));
+            }
+
+            return reader;
+        }
+
+        private boolean isEncodedHeader(String name) {
+            return (ContentEncoding.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name));
+        }
+
+    }
+
+    /**
+     * Response encoding its body.  The content length isn't passed on
+     * unless it's less than the min size and the body isn't encoded.
+     */
+    private static class EncodingResponse extends HttpServletResponseWrapper {
+
+        private final ContentEncoding encoding;
+        private final int minSize;
+
+        private boolean skipEncoding = false;
+        private EncodingOutputStream out;
+        private PrintWriter writer;
+
+        public EncodingResponse(HttpServletResponse response, ContentEncoding encoding, int minSize) {
+            super(response);
+
+            this.encoding = encoding;
+            this.minSize = minSize;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            if (!isEncoding() && len < minSize) {
+                skipEncoding = true;
+
+                super.setContentLength(len);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!setSpecialHeader(name, value)) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!setSpecialHeader(name, value)) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (!setSpecialHeader(name, String.valueOf(value))) {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            if (!setSpecialHeader(name, String.valueOf(value))) {
+                super.addIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("Writer has already been used.");
+            }
+
+            return getEncodingOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (out != null) {
+                    throw new IllegalStateException("Output stream has already been used.");
+                }
+
+                writer = new PrintWriter(new OutputStreamWriter(getEncodingOutputStream(), getCharacterEncoding()));
+            }
+
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            } else if (out != null) {
+                out.flush();
+            }
+
+            super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+
+            out = null;
+            writer = null;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+
+            out = null;
+            writer = null;
+            skipEncoding = false;
+        }
+
+        /**
+         * Writes any remaining encoded content.
+         */
+        public void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+
+            if (out != null) {
+                out.finish();
+            }
+        }
+
+        private boolean isEncoding() {
+            return (out != null && out.isEncoding());
+        }
+
+        /**
+         * Handles the content length header and a content encoding set by the application.
+         *
+         * @return  <code>true</code> if the header was handled.
+         */
+        private boolean setSpecialHeader(String name, String value) {
+            boolean result = false;
+
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                try {
+                    setContentLength(Integer.parseInt(value));
+                } catch (NumberFormatException e) {
+                    // not a valid length, so ignore it
+                }
+
+                result = true;
+            } else if (ContentEncoding.CONTENT_ENCODING.equalsIgnoreCase(name) && !isEncoding()) {
+                skipEncoding = true;
+            }
+
+            return result;
+        }
+
+        private EncodingOutputStream getEncodingOutputStream() throws IOException {
+            if (out == null) {
+                out = new EncodingOutputStream();
+            }
+
+            return out;
+        }
+
+        /**
+         * Output stream deciding whether to encode on the first write.
+         */
+        private class EncodingOutputStream extends ServletOutputStream {
+
+            private OutputStream target;
+            private DeflaterOutputStream encodingTarget;
+
+            public boolean isEncoding() {
+                return (encodingTarget != null);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                getTarget().write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (len > 0) {
+                    getTarget().write(b, off, len);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (target != null) {
+                    target.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                finish();
+
+                if (target != null) {
+                    target.close();
+                }
+            }
+
+            /**
+             * Writes any remaining encoded content without closing the response stream.
+             */
+            public void finish() throws IOException {
+                if (encodingTarget != null) {
+                    encodingTarget.finish();
+                }
+            }
+
+            private OutputStream getTarget() throws IOException {
+                if (target == null) {
+                    OutputStream responseOut = getResponse().getOutputStream();
+
+                    if (skipEncoding) {
+                        target = responseOut;
+                    } else {
+                        EncodingResponse.super.setHeader(ContentEncoding.CONTENT_ENCODING, encoding.getName());
+
+                        encodingTarget = encoding.encode(responseOut);
+                        target = encodingTarget;
+                    }
+                }
+
+                return target;
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.json;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * Jackson message converter reading and writing with an <code>ObjectReader</code>
+ * and <code>ObjectWriter</code> shared per type by an {@link ObjectMapperCache}.
+ *
+ * <p>Works with any object mapper, so it's also used for Smile
+ * with a {@link SmileObjectMapper}.</p>
+ *
+ * @author David Winterfeldt
+ */
+public class CachingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private volatile ObjectMapperCache cache;
+
+    public CachingJackson2HttpMessageConverter() {
+        super();
+    }
+
+    public CachingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        return read(getJavaType(clazz, null), inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        return read(getJavaType(type, contextClass), inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object object, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        if (object == null || object instanceof MappingJacksonValue) {
+            super.writeInternal(object, outputMessage);
+
+            return;
+        }
+
+        JsonEncoding encoding = getJsonEncoding(outputMessage.getHeaders().getContentType());
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputMessage.getBody(), encoding);
+
+        try {
+            writePrefix(generator, object);
+            getCache().getWriter(object.getClass()).writeValue(generator, object);
+            writeSuffix(generator, object);
+
+            generator.flush();
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotWritableException("Could not write content: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads a value with the shared reader for its type.
+     */
+    private Object read(JavaType javaType, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return getCache().getReader(javaType).readValue(inputMessage.getBody());
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("Could not read content: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets cache for the current object mapper, which is replaced
+     * if a different object mapper has been set.
+     */
+    private ObjectMapperCache getCache() {
+        ObjectMapperCache result = cache;
+
+        if (result == null || result.getObjectMapper() != objectMapper) {
+            result = new ObjectMapperCache(objectMapper);
+            cache = result;
+        }
+
+        return result;
+    }
+
+}
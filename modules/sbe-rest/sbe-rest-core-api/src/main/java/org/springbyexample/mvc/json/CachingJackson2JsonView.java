@@ -0,0 +1,72 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+
+/**
+ * Jackson view writing with an <code>ObjectWriter</code> shared
+ * per type by an {@link ObjectMapperCache}.
+ *
+ * <p>Works with any object mapper, so it's also used for Smile
+ * with a {@link SmileObjectMapper}.</p>
+ *
+ * @author David Winterfeldt
+ */
+public class CachingJackson2JsonView extends MappingJackson2JsonView {
+
+    private volatile ObjectMapperCache cache;
+
+    @Override
+    protected void writeContent(OutputStream stream, Object object) throws IOException {
+        if (object == null || object instanceof MappingJacksonValue) {
+            super.writeContent(stream, object);
+
+            return;
+        }
+
+        JsonGenerator generator = getObjectMapper().getFactory().createGenerator(stream, getEncoding());
+
+        writePrefix(generator, object);
+        getCache().getWriter(object.getClass()).writeValue(generator, object);
+        writeSuffix(generator, object);
+
+        generator.flush();
+    }
+
+    /**
+     * Gets cache for the current object mapper, which is replaced
+     * if a different object mapper has been set.
+     */
+    private ObjectMapperCache getCache() {
+        ObjectMapperCache result = cache;
+
+        if (result == null || result.getObjectMapper() != getObjectMapper()) {
+            result = new ObjectMapperCache(getObjectMapper());
+            cache = result;
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.json;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+
+/**
+ * Shared <code>ObjectReader</code> and <code>ObjectWriter</code> instances
+ * for an <code>ObjectMapper</code>, created once per type.
+ *
+ * <p>Readers and writers are immutable and bound to their root type, so each request
+ * skips resolving the root serializer or deserializer.  The mapper shouldn't be
+ * reconfigured after the first reader or writer is created.</p>
+ *
+ * @author David Winterfeldt
+ */
+public class ObjectMapperCache {
+
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentMap<JavaType, ObjectReader> hReaders = new ConcurrentHashMap<JavaType, ObjectReader>();
+    private final ConcurrentMap<Class<?>, ObjectWriter> hWriters = new ConcurrentHashMap<Class<?>, ObjectWriter>();
+
+    public ObjectMapperCache(ObjectMapper objectMapper) {
+        Assert.notNull(objectMapper, "Object mapper must not be null.");
+
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Gets object mapper.
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Gets reader for a class.
+     */
+    public ObjectReader getReader(Class<?> clazz) {
+        return getReader(objectMapper.constructType(clazz));
+    }
+
+    /**
+     * Gets reader for a type.
+     */
+    public ObjectReader getReader(JavaType type) {
+        ObjectReader result = hReaders.get(type);
+
+        if (result == null) {
+            result = objectMapper.reader(type);
+
+            ObjectReader existing = hReaders.putIfAbsent(type, result);
+
+            if (existing != null) {
+                result = existing;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets writer for a class.
+     */
+    public ObjectWriter getWriter(Class<?> clazz) {
+        ObjectWriter result = hWriters.get(clazz);
+
+        if (result == null) {
+            result = objectMapper.writerFor(clazz);
+
+            ObjectWriter existing = hWriters.putIfAbsent(clazz, result);
+
+            if (existing != null) {
+                result = existing;
+            }
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.rest.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springbyexample.mvc.encoding.ContentEncoding;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+
+/**
+ * Requests compressed responses with an <code>Accept-Encoding</code> header
+ * and decodes a response body with a supported <code>Content-Encoding</code>.
+ *
+ * <p>Request bodies are sent uncompressed unless a min request size is set,
+ * since a server can only decode them if it also supports compression.
+ * Should be added after a {@link ResponseCacheRequestInterceptor} so cached
+ * responses are stored decoded.</p>
+ *
+ * @author David Winterfeldt
+ */
+public class ContentEncodingRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final ContentEncoding REQUEST_ENCODING = ContentEncoding.GZIP;
+
+    private final AtomicLong decodedCount = new AtomicLong();
+
+    private int minRequestSize = 0;
+
+    /**
+     * Gets min size in bytes of a request body that is compressed.
+     */
+    public int getMinRequestSize() {
+        return minRequestSize;
+    }
+
+    /**
+     * Sets min size in bytes of a request body that is compressed.
+     * Zero or less doesn't compress request bodies.  Default is zero.
+     */
+    public void setMinRequestSize(int minRequestSize) {
+        this.minRequestSize = minRequestSize;
+    }
+
+    /**
+     * Gets number of responses that had their body decoded.
+     */
+    public long getDecodedCount() {
+        return decodedCount.get();
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        HttpHeaders headers = request.getHeaders();
+
+        if (!headers.containsKey(ContentEncoding.ACCEPT_ENCODING)) {
+            headers.set(ContentEncoding.ACCEPT_ENCODING, ContentEncoding.ACCEPT_ALL);
+        }
+
+        byte[] requestBody = body;
+
+        if (minRequestSize > 0 && body.length >= minRequestSize && !headers.containsKey(ContentEncoding.CONTENT_ENCODING)) {
+            requestBody = encode(body);
+
+            headers.set(ContentEncoding.CONTENT_ENCODING, REQUEST_ENCODING.getName());
+
+            logger.debug("Compressed request body.  uri='{}'  size={}  compressedSize={}",
+                         new Object[] { request.getURI(), body.length, requestBody.length });
+        }
+
+        ClientHttpResponse response = execution.execute(request, requestBody);
+
+        ContentEncoding encoding = ContentEncoding.forName(response.getHeaders().getFirst(ContentEncoding.CONTENT_ENCODING));
+
+        if (encoding != null) {
+            decodedCount.incrementAndGet();
+
+            return new DecodingResponse(response, encoding);
+        }
+
+        return response;
+    }
+
+    /**
+     * Encodes a request body.
+     */
+    private byte[] encode(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+        OutputStream encodingOut = REQUEST_ENCODING.encode(out);
+
+        try {
+            encodingOut.write(body);
+        } finally {
+            encodingOut.close();
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Response decoding the body of the response it wraps.  The encoding
+     * and length headers are removed since they describe the encoded body.
+     */
+    private static class DecodingResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final ContentEncoding encoding;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private InputStream body;
+
+        public DecodingResponse(ClientHttpResponse response, ContentEncoding encoding) {
+            this.response = response;
+            this.encoding = encoding;
+
+            headers.putAll(response.getHeaders());
+            headers.remove(ContentEncoding.CONTENT_ENCODING);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return response.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = encoding.decode(response.getBody());
+            }
+
+            return body;
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.rest.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springbyexample.mvc.rest.service.PersistenceFindMarshallingService;
+import org.springbyexample.schema.beans.entity.PkEntityBase;
+import org.springbyexample.schema.beans.response.EntityFindResponseResult;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+
+/**
+ * Coalesces <code>findById</code> calls made close together into
+ * a single <code>findByIds</code> request.
+ *
+ * <p>The first id requested opens a batch that is sent after the batch window
+ * or as soon as it reaches the max batch size, which cancels its scheduled send.  
+ * Concurrent requests for the same id
+ * share one future, and each caller gets its own record from the batch response
+ * (or <code>null</code> if the id wasn't found).</p>
+ *
+ * <p>A blocking {@link #findById(Integer)} in a loop still waits for each batch,
+ * so code looking up many ids should use {@link #findByIds(Collection)} or
+ * collect the futures from {@link #findByIdAsync(Integer)} first.</p>
+ *
+ * @author David Winterfeldt
+ *
+ * @param   <V>      Domain transfer object (DTO).
+ */
+public class FindByIdBatcher<V extends PkEntityBase> implements DisposableBean {
+
+    final Logger logger = LoggerFactory.getLogger(getClass());
+
+    public final static long DEFAULT_BATCH_WINDOW = 5;
+    public final static int DEFAULT_MAX_BATCH_SIZE = 50;
+    public final static int DEFAULT_POOL_SIZE = 2;
+
+    private final PersistenceFindMarshallingService<?, ?> service;
+    private final ScheduledExecutorService scheduler;
+    private final boolean internalScheduler;
+    private final Object lock = new Object();
+
+    private long batchWindow = DEFAULT_BATCH_WINDOW;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    private Map<Integer, SettableListenableFuture<V>> hPending = new LinkedHashMap<Integer, SettableListenableFuture<V>>();
+    private ScheduledFuture<?> pendingFlush = null;
+
+    /**
+     * Constructor using an internal scheduler.
+     */
+    public FindByIdBatcher(PersistenceFindMarshallingService<?, ?> service) {
+        this(service, createScheduler(), true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param   service         Find client batches are sent to.
+     * @param   scheduler       Used to wait for the batch window and send batches.
+     *                          Isn't shutdown when this bean is destroyed.
+     */
+    public FindByIdBatcher(PersistenceFindMarshallingService<?, ?> service, ScheduledExecutorService scheduler) {
+        this(service, scheduler, false);
+    }
+
+    private FindByIdBatcher(PersistenceFindMarshallingService<?, ?> service, ScheduledExecutorService scheduler,
+                            boolean internalScheduler) {
+        Assert.notNull(service, "Service must not be null.");
+        Assert.notNull(scheduler, "Scheduler must not be null.");
+
+        this.service = service;
+        this.scheduler = scheduler;
+        this.internalScheduler = internalScheduler;
+    }
+
+    /**
+     * Gets how long in milliseconds a batch collects ids before it's sent.
+     */
+    public long getBatchWindow() {
+        return batchWindow;
+    }
+
+    /**
+     * Sets how long in milliseconds a batch collects ids before it's sent.
+     * Default is 5.
+     */
+    public void setBatchWindow(long batchWindow) {
+        this.batchWindow = batchWindow;
+    }
+
+    /**
+     * Gets max number of ids in a batch.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Sets max number of ids in a batch.  A full batch is sent immediately.
+     * Default is 50, which keeps the request URL a reasonable length.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        Assert.isTrue((maxBatchSize > 0), "Max batch size must be greater than zero.");
+
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Finds a record by primary key, waiting for the batch it's sent in.
+     *
+     * @return  The record or <code>null</code> if it wasn't found.
+     */
+    public V findById(Integer id) {
+        return get(findByIdAsync(id));
+    }
+
+    /**
+     * Finds records by primary key.
+     * Ids are sent in as few batches as possible.
+     *
+     * @return  Records by id in the order requested.
+     *          Ids without a record have a <code>null</code> value.
+     */
+    public Map<Integer, V> findByIds(Collection<Integer> ids) {
+        Map<Integer, ListenableFuture<V>> hFutures = new LinkedHashMap<Integer, ListenableFuture<V>>();
+
+        for (Integer id : ids) {
+            if (!hFutures.containsKey(id)) {
+                hFutures.put(id, findByIdAsync(id));
+            }
+        }
+
+        Map<Integer, V> result = new LinkedHashMap<Integer, V>();
+
+        for (Map.Entry<Integer, ListenableFuture<V>> entry : hFutures.entrySet()) {
+            result.put(entry.getKey(), get(entry.getValue()));
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds the id to the current batch.
+     *
+     * @return  Future of the record, which is <code>null</code> if it wasn't found.
+     */
+    public ListenableFuture<V> findByIdAsync(Integer id) {
+        Assert.notNull(id, "Id must not be null.");
+
+        SettableListenableFuture<V> future = null;
+        Map<Integer, SettableListenableFuture<V>> hFullBatch = null;
+
+        synchronized (lock) {
+            future = hPending.get(id);
+
+            if (future == null) {
+                future = new SettableListenableFuture<V>();
+
+                hPending.put(id, future);
+
+                if (hPending.size() >= maxBatchSize) {
+                    hFullBatch = cutBatch();
+                } else if (hPending.size() == 1) {
+                    final Map<Integer, SettableListenableFuture<V>> hBatch = hPending;
+
+                    pendingFlush = scheduler.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            flush(hBatch);
+                        }
+                    }, batchWindow, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+
+        if (hFullBatch != null) {
+            final Map<Integer, SettableListenableFuture<V>> hBatch = hFullBatch;
+
+            scheduler.execute(new Runnable() {
+                @Override
+                public void run() {
+                    send(hBatch);
+                }
+            });
+        }
+
+        return future;
+    }
+
+    /**
+     * Sends the current batch.
+     */
+    public void flush() {
+        flush(null);
+    }
+
+    /**
+     * Sends the current batch if it's the expected batch.  
+     * A scheduled send passes the batch it was scheduled for, 
+     * so it doesn't send a later batch early if its batch was already sent.
+     *
+     * @param   hExpectedBatch      Batch to send or <code>null</code> to send any current batch.
+     */
+    private void flush(Map<Integer, SettableListenableFuture<V>> hExpectedBatch) {
+        Map<Integer, SettableListenableFuture<V>> hBatch = null;
+
+        synchronized (lock) {
+            if (hPending.isEmpty() || (hExpectedBatch != null && hExpectedBatch != hPending)) {
+                return;
+            }
+
+            hBatch = cutBatch();
+        }
+
+        send(hBatch);
+    }
+
+    /**
+     * Replaces the current batch with a new one and cancels its scheduled send.
+     * Must be called while holding the lock.
+     *
+     * @return  The current batch.
+     */
+    private Map<Integer, SettableListenableFuture<V>> cutBatch() {
+        Map<Integer, SettableListenableFuture<V>> result = hPending;
+
+        hPending = new LinkedHashMap<Integer, SettableListenableFuture<V>>();
+
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Sends any pending batch and shuts down the internal scheduler.
+     */
+    @Override
+    public void destroy() {
+        flush();
+
+        if (internalScheduler) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Sends a batch and fans the results out to each id's future.
+     */
+    @SuppressWarnings("unchecked")
+    private void send(Map<Integer, SettableListenableFuture<V>> hBatch) {
+        List<Integer> ids = new ArrayList<Integer>(hBatch.keySet());
+
+        logger.debug("Sending findByIds batch.  size={}", ids.size());
+
+        try {
+            EntityFindResponseResult response = service.findByIds(ids);
+
+            if (response != null && response.getResults() != null) {
+                for (PkEntityBase result : response.getResults()) {
+                    SettableListenableFuture<V> future = hBatch.remove(result.getId());
+
+                    if (future != null) {
+                        future.set((V) result);
+                    }
+                }
+            }
+
+            for (SettableListenableFuture<V> future : hBatch.values()) {
+                future.set(null);
+            }
+        } catch (Throwable e) {
+            for (SettableListenableFuture<V> future : hBatch.values()) {
+                future.setException(e);
+            }
+        }
+    }
+
+    /**
+     * Waits for a future, unwrapping the cause of a failed request.
+     */
+    private V get(ListenableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted waiting for findById batch.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException("Error processing findById batch.", e.getCause());
+        }
+    }
+
+    /**
+     * Creates internal scheduler with daemon threads.
+     */
+    private static ScheduledExecutorService createScheduler() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("find-by-id-batcher-");
+        threadFactory.setDaemon(true);
+
+        return Executors.newScheduledThreadPool(DEFAULT_POOL_SIZE, threadFactory);
+    }
+
+}
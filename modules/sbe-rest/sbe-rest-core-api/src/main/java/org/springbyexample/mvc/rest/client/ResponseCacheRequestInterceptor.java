@@ -0,0 +1,348 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.rest.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.Assert;
+
+
+/**
+ * Bounded cache of GET responses with an <code>ETag</code>.
+ *
+ * <p>A cached URL is revalidated with an <code>If-None-Match</code> header
+ * and a 304 (Not Modified) is answered from the cached body, so an unchanged
+ * resource isn't transferred again.  The least recently used entries are evicted
+ * when the cache has more than the max entries or its bodies are larger than 
+ * the max bytes.  A response with a body larger than the max entry bytes 
+ * isn't cached, and is passed through without being buffered.</p>
+ *
+ * @author David Winterfeldt
+ */
+public class ResponseCacheRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    final Logger logger = LoggerFactory.getLogger(getClass());
+
+    public final static int DEFAULT_MAX_ENTRIES = 100;
+    public final static long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+    public final static int DEFAULT_MAX_ENTRY_BYTES = 1024 * 1024;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private final Map<String, CachedResponse> hCache = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true);
+    private long cachedBytes = 0;
+    private final AtomicLong notModifiedCount = new AtomicLong();
+
+    public ResponseCacheRequestInterceptor() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ResponseCacheRequestInterceptor(int maxEntries) {
+        this(maxEntries, DEFAULT_MAX_BYTES, DEFAULT_MAX_ENTRY_BYTES);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param   maxEntries      Max number of cached responses.
+     * @param   maxBytes        Max total size in bytes of the cached response bodies.
+     * @param   maxEntryBytes   Max size in bytes of a cached response body.
+     */
+    public ResponseCacheRequestInterceptor(int maxEntries, long maxBytes, int maxEntryBytes) {
+        Assert.isTrue((maxEntries > 0), "Max entries must be greater than zero.");
+        Assert.isTrue((maxEntryBytes > 0), "Max entry bytes must be greater than zero.");
+        Assert.isTrue((maxBytes >= maxEntryBytes), "Max bytes must be at least the max entry bytes.");
+
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    /**
+     * Gets number of requests answered from the cache after a 304 (Not Modified).
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    /**
+     * Gets number of cached responses.
+     */
+    public int size() {
+        synchronized (hCache) {
+            return hCache.size();
+        }
+    }
+
+    /**
+     * Gets total size in bytes of the cached response bodies.
+     */
+    public long getCachedBytes() {
+        synchronized (hCache) {
+            return cachedBytes;
+        }
+    }
+
+    /**
+     * Removes all cached responses.
+     */
+    public void clear() {
+        synchronized (hCache) {
+            hCache.clear();
+            cachedBytes = 0;
+        }
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (!HttpMethod.GET.equals(request.getMethod())) {
+            return execution.execute(request, body);
+        }
+
+        String key = createKey(request);
+        CachedResponse cached = null;
+
+        synchronized (hCache) {
+            cached = hCache.get(key);
+        }
+
+        if (cached != null) {
+            request.getHeaders().setIfNoneMatch(cached.getHeaders().getETag());
+        }
+
+        ClientHttpResponse response = execution.execute(request, body);
+
+        if (cached != null && HttpStatus.NOT_MODIFIED.equals(response.getStatusCode())) {
+            response.close();
+
+            notModifiedCount.incrementAndGet();
+
+            logger.debug("Not modified, using cached response.  uri='{}'", request.getURI());
+
+            return cached;
+        }
+
+        if (cached != null) {
+            remove(key);
+        }
+
+        if (HttpStatus.OK.equals(response.getStatusCode()) && response.getHeaders().getETag() != null &&
+            response.getHeaders().getContentLength() <= maxEntryBytes) {
+            InputStream in = response.getBody();
+            byte[] responseBody = null;
+
+            try {
+                // read one byte past the max to know if the body is too large without a content length
+                responseBody = read(in, maxEntryBytes + 1);
+            } catch (IOException e) {
+                response.close();
+
+                throw e;
+            }
+
+            if (responseBody.length > maxEntryBytes) {
+                logger.debug("Response too large to cache.  uri='{}'", request.getURI());
+
+                return new PartlyReadResponse(response, responseBody, in);
+            }
+
+            response.close();
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(response.getHeaders());
+
+            cached = new CachedResponse(headers, responseBody);
+
+            put(key, cached);
+
+            return cached;
+        }
+
+        return response;
+    }
+
+    /**
+     * Caches a response, evicting the least recently used 
+     * responses until the cache is within its limits.
+     */
+    private void put(String key, CachedResponse response) {
+        synchronized (hCache) {
+            CachedResponse previous = hCache.put(key, response);
+
+            cachedBytes += response.getBodyLength() - (previous != null ? previous.getBodyLength() : 0);
+
+            Iterator<CachedResponse> iterator = hCache.values().iterator();
+
+            while ((hCache.size() > maxEntries || cachedBytes > maxBytes) && iterator.hasNext()) {
+                cachedBytes -= iterator.next().getBodyLength();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes a cached response.
+     */
+    private void remove(String key) {
+        synchronized (hCache) {
+            CachedResponse previous = hCache.remove(key);
+
+            if (previous != null) {
+                cachedBytes -= previous.getBodyLength();
+            }
+        }
+    }
+
+    /**
+     * Reads up to a max number of bytes from a stream.
+     */
+    private byte[] read(InputStream in, int max) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(max, 4096));
+        byte[] buffer = new byte[4096];
+        int length = 0;
+
+        while (out.size() < max && (length = in.read(buffer, 0, Math.min(buffer.length, max - out.size()))) != -1) {
+            out.write(buffer, 0, length);
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Creates cache key from the URI and the accept header,
+     * since the same URI can be rendered in different formats.
+     */
+    protected String createKey(HttpRequest request) {
+        return request.getURI() + " " + request.getHeaders().getAccept();
+    }
+
+    /**
+     * Cached response.  Immutable and can be returned more than once
+     * since each call to {@link #getBody()} returns a new stream.
+     */
+    private static class CachedResponse implements ClientHttpResponse {
+
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        public CachedResponse(HttpHeaders headers, byte[] body) {
+            this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+            this.body = body;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return HttpStatus.OK.value();
+        }
+
+        @Override
+        public String getStatusText() {
+            return HttpStatus.OK.getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {}
+
+        /**
+         * Gets size of the body in bytes.
+         */
+        public int getBodyLength() {
+            return body.length;
+        }
+
+    }
+
+    /**
+     * Response that wasn't cached, with the start of its body 
+     * already read while checking its size.
+     */
+    private static class PartlyReadResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final InputStream body;
+
+        public PartlyReadResponse(ClientHttpResponse response, byte[] start, InputStream rest) {
+            this.response = response;
+            this.body = new SequenceInputStream(new ByteArrayInputStream(start), rest);
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return response.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+
+    }
+
+}
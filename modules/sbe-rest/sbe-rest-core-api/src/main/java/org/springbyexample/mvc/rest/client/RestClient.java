@@ -15,6 +15,9 @@
  */
 package org.springbyexample.mvc.rest.client;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.annotation.PostConstruct;
 
 import org.apache.http.auth.AuthScope;
@@ -23,7 +26,9 @@ import org.apache.http.impl.client.DefaultHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.RestTemplate;
 
 
@@ -40,6 +45,9 @@ public class RestClient {
     private final RestTemplate template;
     private final RestClientProperties clientProperties;
     private final DefaultHttpClient httpClient;
+    private AsyncRestTemplate asyncTemplate;
+    private ResponseCacheRequestInterceptor responseCache;
+    private ContentEncodingRequestInterceptor contentEncoding;
 
     @Autowired
     public RestClient(RestTemplate template, RestClientProperties clientProperties,
@@ -52,6 +60,26 @@ public class RestClient {
     @PostConstruct
     public void init() {
         setCredentials(clientProperties.getUsername(), clientProperties.getPassword());
+
+        List<ClientHttpRequestInterceptor> lInterceptors = new ArrayList<ClientHttpRequestInterceptor>(template.getInterceptors());
+
+        if (clientProperties.getResponseCacheSize() > 0) {
+            responseCache = new ResponseCacheRequestInterceptor(clientProperties.getResponseCacheSize(),
+                                                                clientProperties.getResponseCacheMaxBytes(),
+                                                                clientProperties.getResponseCacheMaxEntryBytes());
+
+            lInterceptors.add(responseCache);
+        }
+
+        // after the response cache so cached responses are decoded
+        if (clientProperties.isCompression()) {
+            contentEncoding = new ContentEncodingRequestInterceptor();
+            contentEncoding.setMinRequestSize(clientProperties.getCompressionRequestMinSize());
+
+            lInterceptors.add(contentEncoding);
+        }
+
+        template.setInterceptors(lInterceptors);
     }
 
     /**
@@ -61,6 +89,43 @@ public class RestClient {
         return template;
     }
 
+    /**
+     * Gets response cache used by the rest template for conditional GETs.
+     *
+     * @return  The response cache or <code>null</code> if it's disabled.
+     */
+    public ResponseCacheRequestInterceptor getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Gets interceptor compressing requests and decoding compressed responses.
+     *
+     * @return  The interceptor or <code>null</code> if compression is disabled.
+     */
+    public ContentEncodingRequestInterceptor getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Gets async rest template.
+     * 
+     * @return  The async rest template or <code>null</code> if one isn't configured.
+     */
+    public AsyncRestTemplate getAsyncRestTemplate() {
+        return asyncTemplate;
+    }
+
+    /**
+     * Sets async rest template used for requests returning a <code>Future</code>.
+     * Should be backed by a non-blocking request factory so concurrent 
+     * requests don't each hold a thread.
+     */
+    @Autowired(required = false)
+    public void setAsyncRestTemplate(AsyncRestTemplate asyncTemplate) {
+        this.asyncTemplate = asyncTemplate;
+    }
+
     /**
      * Creates URL based on the URI passed in.
      */
@@ -39,6 +39,21 @@ public class RestClientProperties {
     @Value("#{ systemProperties['ws.password'] != null ? systemProperties['ws.password'] : restProperties['ws.password'] }")
     private String password;   
 
+    @Value("#{ restProperties['ws.response.cache.size'] != null ? restProperties['ws.response.cache.size'] : 100 }")
+    private int responseCacheSize;
+
+    @Value("#{ restProperties['ws.response.cache.max.bytes'] != null ? restProperties['ws.response.cache.max.bytes'] : 16777216 }")
+    private long responseCacheMaxBytes;
+
+    @Value("#{ restProperties['ws.response.cache.max.entry.bytes'] != null ? restProperties['ws.response.cache.max.entry.bytes'] : 1048576 }")
+    private int responseCacheMaxEntryBytes;
+
+    @Value("#{ restProperties['ws.compression'] != null ? restProperties['ws.compression'] : true }")
+    private boolean compression;
+
+    @Value("#{ restProperties['ws.compression.request.min.size'] != null ? restProperties['ws.compression.request.min.size'] : 0 }")
+    private int compressionRequestMinSize;
+
     /**
      * Gets base URI for the REST APIs.
      */
@@ -67,4 +82,45 @@ public class RestClientProperties {
         return password;
     }
     
+    /**
+     * Gets max number of GET responses cached for revalidation with an ETag.
+     * Zero disables the cache.
+     */
+    public int getResponseCacheSize() {
+        return responseCacheSize;
+    }
+
+    /**
+     * Gets max total size in bytes of the cached response bodies.
+     * Default is 16MB.
+     */
+    public long getResponseCacheMaxBytes() {
+        return responseCacheMaxBytes;
+    }
+
+    /**
+     * Gets max size in bytes of a response body that is cached.
+     * Larger responses aren't cached.  Default is 1MB.
+     */
+    public int getResponseCacheMaxEntryBytes() {
+        return responseCacheMaxEntryBytes;
+    }
+    
+    /**
+     * Whether compressed responses are requested and decoded.
+     * Default is <code>true</code>.
+     */
+    public boolean isCompression() {
+        return compression;
+    }
+
+    /**
+     * Gets min size in bytes of a request body that is compressed.
+     * Zero disables request compression, which is the default since
+     * the server must also support it.
+     */
+    public int getCompressionRequestMinSize() {
+        return compressionRequestMinSize;
+    }
+    
 }
@@ -15,11 +15,14 @@
  */
 package org.springbyexample.mvc.rest.service;
 
+import java.util.List;
+
 import org.springbyexample.schema.beans.response.EntityFindResponseResult;
 import org.springbyexample.schema.beans.response.EntityResponseResult;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 
 
 /**
@@ -37,12 +40,16 @@ public interface PersistenceFindMarshallingService<R extends EntityResponseResul
     public final static String PARAM_VALUE_DELIM = "&";
     
     public final static String ID_VAR = "id";
+    public final static String IDS_VAR = "ids";
     public final static String PAGE_VAR = "page";
     public final static String PAGE_SIZE_VAR = "page-size";
+    public final static String CURSOR_VAR = "cursor";
 
     public final static String PAGE_PATH = PATH_DELIM + PAGE_VAR;
     public final static String PAGE_SIZE_PATH = PATH_DELIM + PAGE_SIZE_VAR;
+    public final static String STREAM_PATH = PATH_DELIM + "stream";
     public final static String PAGINATED = PAGE_PATH + PATH_DELIM + "{" + PAGE_VAR + "}" + PAGE_SIZE_PATH + PATH_DELIM + "{" + PAGE_SIZE_VAR + "}";
+    public final static String CURSOR_PAGINATED = PAGE_SIZE_PATH + PATH_DELIM + "{" + PAGE_SIZE_VAR + "}";
     
     public final static String ROOT_URI = PATH_DELIM;
     public final static String FIND_BY_ID_URI = PATH_DELIM + "{" + ID_VAR + "}";
@@ -53,12 +60,26 @@ public interface PersistenceFindMarshallingService<R extends EntityResponseResul
     @RequestMapping(value = FIND_BY_ID_URI, method = RequestMethod.GET)
     public R findById(@PathVariable(ID_VAR) Integer id);
 
+    /**
+     * Find by a list of primary keys.  
+     * Each id is sent as a separate <code>ids</code> request param.
+     */
+    @RequestMapping(value = ROOT_URI, method = RequestMethod.GET, params = { IDS_VAR })
+    public FR findByIds(@RequestParam(IDS_VAR) List<Integer> ids);
+
     /**
      * Find a paginated record set.
      */
     @RequestMapping(value = PAGINATED, method = RequestMethod.GET)
     public FR find(@PathVariable(PAGE_VAR) int page, @PathVariable(PAGE_SIZE_VAR) int pageSize);
 
+    /**
+     * Find a page of records after a cursor.
+     * The cursor is the previous response's next cursor or empty for the first page.
+     */
+    @RequestMapping(value = CURSOR_PAGINATED, method = RequestMethod.GET, params = { CURSOR_VAR })
+    public FR findByCursor(@RequestParam(CURSOR_VAR) String cursor, @PathVariable(PAGE_SIZE_VAR) int pageSize);
+
     /**
      * Find all records.
      */
@@ -36,6 +36,8 @@ public interface PersistenceMarshallingService<R extends EntityResponseResult, F
         extends PersistenceFindMarshallingService<R, FR> {
 
     public final static String DELETE_URI = ROOT_URI + "remove";
+    public final static String BULK_URI = ROOT_URI + "bulk";
+    public final static String BULK_DELETE_URI = BULK_URI + DELETE_URI;
     
     /**
      * Save record.
@@ -56,4 +58,25 @@ public interface PersistenceMarshallingService<R extends EntityResponseResult, F
     @RequestMapping(value = DELETE_URI, method = RequestMethod.PUT)
     public R delete(@RequestBody S request);
     
+    /**
+     * Save the request's results in batches.
+     */
+    @RequestMapping(value = BULK_URI, method = RequestMethod.POST)
+    public FR createAll(@RequestBody FR request);
+
+    /**
+     * Update the request's results in batches.
+     */
+    @RequestMapping(value = BULK_URI, method = RequestMethod.PUT)
+    public FR updateAll(@RequestBody FR request);
+
+    /**
+     * Delete the request's results by primary key in batches.
+     * The ids are sent in the body, the same as a bulk save,
+     * so a large delete isn't limited by the length of the URL.
+     */
+    // PUT like delete(S) since the server has a marshalling error if DELETE has a body
+    @RequestMapping(value = BULK_DELETE_URI, method = RequestMethod.PUT)
+    public FR deleteAll(@RequestBody FR request);
+    
 }
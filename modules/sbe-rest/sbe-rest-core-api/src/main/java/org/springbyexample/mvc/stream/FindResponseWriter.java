@@ -0,0 +1,40 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.stream;
+
+import java.io.IOException;
+
+import org.springbyexample.service.ResultCallback;
+
+
+/**
+ * Writes a find response to a stream one result at a time
+ * in the same format as the marshalled find response,
+ * so a client reads it like any other find response.
+ *
+ * @author David Winterfeldt
+ *
+ * @param   <V>      Domain transfer object (DTO).
+ */
+public interface FindResponseWriter<V> extends ResultCallback<V> {
+
+    /**
+     * Writes the count and the end of the response, and flushes the stream.
+     * The stream isn't closed.
+     */
+    public void finish(long count) throws IOException;
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+
+/**
+ * Writes a JSON find response with a generator, so only the current result
+ * is held in memory.  The results are written first and then the count.
+ *
+ * @author David Winterfeldt
+ *
+ * @param   <V>      Domain transfer object (DTO).
+ */
+public class JsonFindResponseWriter<V> implements FindResponseWriter<V> {
+
+    public final static String RESULTS_FIELD = "results";
+    public final static String COUNT_FIELD = "count";
+
+    private final ObjectWriter writer;
+    private final JsonGenerator generator;
+
+    public JsonFindResponseWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        // let the servlet container decide when to send a chunk
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        generator.writeArrayFieldStart(RESULTS_FIELD);
+    }
+
+    @Override
+    public void doWithResult(V result) {
+        try {
+            writer.writeValue(generator, result);
+        } catch (IOException e) {
+            throw new HttpMessageNotWritableException("Unable to write result.", e);
+        }
+    }
+
+    @Override
+    public void finish(long count) throws IOException {
+        generator.writeEndArray();
+        generator.writeNumberField(COUNT_FIELD, count);
+        generator.writeEndObject();
+        generator.close();
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSchema;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.util.Assert;
+
+
+/**
+ * Writes an XML find response with a stream writer, marshalling each result
+ * as a fragment so only the current result is held in memory.
+ * The results are written first and then the count.
+ *
+ * @author David Winterfeldt
+ *
+ * @param   <V>      Domain transfer object (DTO).
+ */
+public class XmlFindResponseWriter<V> implements FindResponseWriter<V> {
+
+    private static final String DEFAULT_NAME = "##default";
+    private static final String ENCODING = "UTF-8";
+    private static final String PREFIX = "ns";
+
+    public final static String RESULTS_ELEMENT = "results";
+    public final static String COUNT_ELEMENT = "count";
+
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+    private final Class<V> resultClazz;
+    private final Marshaller marshaller;
+    private final XMLStreamWriter writer;
+
+    /**
+     * Constructor.
+     *
+     * @param   jaxbContext         Context with the find response and result classes.
+     * @param   findResponseClazz   Find response root element the results are written in.
+     * @param   resultClazz         Declared type of the results.
+     * @param   out                 Stream written to.
+     */
+    public XmlFindResponseWriter(JAXBContext jaxbContext, Class<?> findResponseClazz, Class<V> resultClazz,
+                                 OutputStream out) throws IOException {
+        this.resultClazz = resultClazz;
+
+        QName rootName = getRootName(findResponseClazz);
+
+        try {
+            marshaller = jaxbContext.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+
+            writer = outputFactory.createXMLStreamWriter(out, ENCODING);
+            writer.writeStartDocument(ENCODING, "1.0");
+            // prefixed so the unqualified results and count aren't in the root's namespace
+            writer.writeStartElement(PREFIX, rootName.getLocalPart(), rootName.getNamespaceURI());
+            writer.writeNamespace(PREFIX, rootName.getNamespaceURI());
+        } catch (JAXBException e) {
+            throw new IOException("Unable to create marshaller.", e);
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to write start of response.", e);
+        }
+    }
+
+    @Override
+    public void doWithResult(V result) {
+        try {
+            marshaller.marshal(new JAXBElement<V>(new QName(RESULTS_ELEMENT), resultClazz, result), writer);
+        } catch (JAXBException e) {
+            throw new HttpMessageNotWritableException("Unable to write result.", e);
+        }
+    }
+
+    @Override
+    public void finish(long count) throws IOException {
+        try {
+            writer.writeStartElement(COUNT_ELEMENT);
+            writer.writeCharacters(String.valueOf(count));
+            writer.writeEndElement();
+
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to write end of response.", e);
+        }
+    }
+
+    /**
+     * Gets the qualified root element name of the find response.
+     */
+    private QName getRootName(Class<?> findResponseClazz) {
+        XmlRootElement rootElement = findResponseClazz.getAnnotation(XmlRootElement.class);
+
+        Assert.notNull(rootElement, "Find response must be an XML root element.");
+
+        String namespace = rootElement.namespace();
+
+        if (DEFAULT_NAME.equals(namespace)) {
+            XmlSchema schema = findResponseClazz.getPackage().getAnnotation(XmlSchema.class);
+
+            namespace = (schema != null ? schema.namespace() : "");
+        }
+
+        return new QName(namespace, rootElement.name());
+    }
+
+}
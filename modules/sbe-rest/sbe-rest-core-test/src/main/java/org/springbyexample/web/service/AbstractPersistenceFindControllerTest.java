@@ -19,6 +19,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.joda.time.DateTime;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -27,6 +34,7 @@ import org.springbyexample.mvc.rest.service.PersistenceFindMarshallingService;
 import org.springbyexample.schema.beans.entity.PkEntityBase;
 import org.springbyexample.schema.beans.response.EntityFindResponseResult;
 import org.springbyexample.schema.beans.response.EntityResponseResult;
+import org.springframework.util.concurrent.ListenableFuture;
 
 /**
  * Tests read-only persistence client APIs against an embedded REST service 
@@ -64,6 +72,14 @@ public abstract class AbstractPersistenceFindControllerTest<R extends EntityResp
      */
     protected abstract void verifyRecord(S record, boolean save, boolean update);
 
+    /**
+     * Finds a record asynchronously.  Returns <code>null</code> 
+     * if the client doesn't support asynchronous requests.
+     */
+    protected ListenableFuture<R> findByIdAsync(int id) {
+        return null;
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void testFindById() {
@@ -74,6 +90,50 @@ public abstract class AbstractPersistenceFindControllerTest<R extends EntityResp
         verifyRecord((S) response.getResults());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFindByIdAsync() throws Exception {
+        int requests = 5;
+        List<ListenableFuture<R>> lFutures = new ArrayList<ListenableFuture<R>>();
+        
+        for (int i = 0; i < requests; i++) {
+            ListenableFuture<R> future = findByIdAsync(id);
+            
+            if (future == null) {
+                return;
+            }
+            
+            lFutures.add(future);
+        }
+        
+        for (ListenableFuture<R> future : lFutures) {
+            R response = future.get();
+            
+            assertNotNull("Response is null.", response);
+            
+            verifyRecord((S) response.getResults());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFindByIds() {
+        int missingId = 1000;
+
+        FR response = getFindClient().findByIds(Arrays.asList(id, missingId));
+        assertNotNull("Response is null.", response);
+
+        assertNotNull("Response results is null.", response.getResults());
+        assertEquals("results", 1, response.getResults().size());
+
+        verifyRecord((S) response.getResults().get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindByIdsEmpty() {
+        getFindClient().findByIds(Collections.<Integer>emptyList());
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void testPaginatedFind() {
@@ -89,6 +149,35 @@ public abstract class AbstractPersistenceFindControllerTest<R extends EntityResp
         verifyRecord((S) response.getResults().get(0));
     }
 
+    @Test
+    public void testFindByCursor() {
+        int pageSize = 2;
+        Set<Integer> ids = new HashSet<Integer>();
+        String cursor = null;
+        int pages = 0;
+
+        do {
+            FR response = getFindClient().findByCursor(cursor, pageSize);
+            assertNotNull("Response is null.", response);
+
+            assertEquals("count", expectedCount, response.getCount());
+
+            assertNotNull("Response results is null.", response.getResults());
+            assertTrue("Page should have at most " + pageSize + " results.", (response.getResults().size() <= pageSize));
+
+            for (PkEntityBase result : response.getResults()) {
+                assertTrue("Result should only be on one page.  id=" + result.getId(), ids.add(result.getId()));
+            }
+
+            cursor = response.getNextCursor();
+            pages++;
+
+            assertTrue("Too many pages.", (pages <= expectedCount));
+        } while (cursor != null);
+
+        assertEquals("results", expectedCount, ids.size());
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void testFind() {
@@ -48,6 +48,7 @@ public class EmbeddedJetty {
     private final static String[] DEFAULT_ACTIVE_PROFILES = { "hsql" };
     private final static String[] DEFAULT_CONFIG_LOCATIONS = new String[] { "/embedded-jetty-context.xml" };
     private final static String SECURITY_FILTER_NAME = "springSecurityFilterChain";
+    private final static String CONTENT_ENCODING_FILTER_NAME = "contentEncodingFilter";
 
     private final String[] activeProfiles;
     private final String[] configLocations;
@@ -132,6 +133,15 @@ public class EmbeddedJetty {
 
                 context.getServletHandler().addFilterWithMapping(filterHolder, "/*", 0);
                 
+                // setup compression if a filter bean is defined
+                if (ctx.containsBean(CONTENT_ENCODING_FILTER_NAME)) {
+                    FilterHolder encodingFilterHolder = new FilterHolder();
+                    encodingFilterHolder.setName(CONTENT_ENCODING_FILTER_NAME);
+                    encodingFilterHolder.setClassName(DelegatingFilterProxy.class.getName());
+
+                    context.getServletHandler().addFilterWithMapping(encodingFilterHolder, "/*", 0);
+                }
+                
                 break;                
             }
         }
@@ -15,6 +15,9 @@
  */
 package org.springbyexample.mvc.converter.handler;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Map;
@@ -24,7 +27,6 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.springbyexample.converter.ListConverter;
 import org.springframework.util.Assert;
-import org.springframework.util.ReflectionUtils;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 
@@ -33,6 +35,11 @@ import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
  * Converter handler interceptor for converting response results
  * after intial processing.
  *
+ * <p>The results getter and setter are bound once to method handles 
+ * and the response is looked up directly by its model key, 
+ * so the only allocation per request is the converted result.  
+ * The model is only scanned if the response isn't under the expected key.</p>
+ *
  * @author David Winterfeldt
  */
 public class ConverterHandlerInterceptor extends HandlerInterceptorAdapter {
@@ -40,11 +47,28 @@ public class ConverterHandlerInterceptor extends HandlerInterceptorAdapter {
     @SuppressWarnings("rawtypes")
     private final ListConverter converter;
     private final Class<?> returnTypeClass;
-    private final Method getResultsMethod;
-    private final Method setResultsMethod;
+    private final String modelKey;
+    private final MethodHandle getResultsHandle;
+    private final MethodHandle setResultsHandle;
 
     public ConverterHandlerInterceptor(@SuppressWarnings("rawtypes") ListConverter converter,
                                        Class<?> returnTypeClass, Method getResultsMethod, Method setResultsMethod) {
+        this(converter, returnTypeClass, null, getResultsMethod, setResultsMethod);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param   converter           Converter for the results.
+     * @param   returnTypeClass     Service method return type.
+     * @param   modelKey            Model key the response is expected under.  
+     *                              If <code>null</code>, the model is scanned for the response.
+     * @param   getResultsMethod    Results getter.
+     * @param   setResultsMethod    Results setter.
+     */
+    public ConverterHandlerInterceptor(@SuppressWarnings("rawtypes") ListConverter converter,
+                                       Class<?> returnTypeClass, String modelKey,
+                                       Method getResultsMethod, Method setResultsMethod) {
         Assert.notNull(converter);
         Assert.notNull(returnTypeClass);
         Assert.notNull(getResultsMethod);
@@ -52,22 +76,29 @@ public class ConverterHandlerInterceptor extends HandlerInterceptorAdapter {
 
         this.converter = converter;
         this.returnTypeClass = returnTypeClass;
-        this.getResultsMethod = getResultsMethod;
-        this.setResultsMethod = setResultsMethod;
+        this.modelKey = modelKey;
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+            this.getResultsHandle = lookup.unreflect(getResultsMethod)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            this.setResultsHandle = lookup.unreflect(setResultsMethod)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to access results getter or setter.", e);
+        }
     }
 
     @Override
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView)
             throws Exception {
-        Map<String, Object> model = modelAndView.getModel();
-
-        for (String key : model.keySet()) {
-            Object value = model.get(key);
+        Object value = findResponse(modelAndView.getModel());
 
-            // find model value that matches service return type
-            if (value.getClass().isAssignableFrom(returnTypeClass)) {
-                Object results = ReflectionUtils.invokeMethod(getResultsMethod, value);
+        if (value != null) {
+            try {
+                Object results = (Object) getResultsHandle.invokeExact(value);
 
                 Object convertedValue = null;
 
@@ -77,11 +108,36 @@ public class ConverterHandlerInterceptor extends HandlerInterceptorAdapter {
                     convertedValue = converter.convertListTo((Collection) results);
                 }
 
-                ReflectionUtils.invokeMethod(setResultsMethod, value, convertedValue);
+                setResultsHandle.invokeExact(value, convertedValue);
+            } catch (Exception e) {
+                throw e;
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Finds model value that matches service return type.
+     */
+    private Object findResponse(Map<String, Object> model) {
+        if (modelKey != null) {
+            Object value = model.get(modelKey);
 
-                break;
+            if (returnTypeClass.isInstance(value)) {
+                return value;
             }
         }
+
+        for (Object value : model.values()) {
+            if (returnTypeClass.isInstance(value)) {
+                return value;
+            }
+        }
+
+        return null;
     }
 
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.etag.handler;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.joda.time.DateTime;
+import org.springbyexample.schema.beans.entity.PkEntityBase;
+import org.springbyexample.schema.beans.response.EntityFindResponseResult;
+import org.springbyexample.schema.beans.response.EntityResponseResult;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+
+/**
+ * Sets an <code>ETag</code> and <code>Last-Modified</code> header on GET responses
+ * from the ids and lock versions of the entity results in the model.
+ *
+ * <p>If the request's <code>If-None-Match</code> header matches, the status
+ * is set to 304 (Not Modified) and the model is cleared so nothing is rendered.
+ * The ETag is weak since the same results are rendered as XML or JSON.</p>
+ *
+ * @author David Winterfeldt
+ */
+public class ETagHandlerInterceptor extends HandlerInterceptorAdapter {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView)
+            throws Exception {
+        if (modelAndView == null || !"GET".equals(request.getMethod())) {
+            return;
+        }
+
+        for (Object value : modelAndView.getModel().values()) {
+            List<? extends PkEntityBase> results = getResults(value);
+
+            if (results != null) {
+                ServletWebRequest webRequest = new ServletWebRequest(request, response);
+
+                long lastModified = getLastModified(results);
+
+                if (lastModified > 0) {
+                    response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+                }
+
+                if (webRequest.checkNotModified(createETag(value, results))) {
+                    modelAndView.clear();
+                }
+
+                break;
+            }
+        }
+    }
+
+    /**
+     * Gets entity results from a response.
+     *
+     * @return  The results or <code>null</code> if the value isn't a response
+     *          or doesn't have a result.
+     */
+    protected List<? extends PkEntityBase> getResults(Object value) {
+        List<? extends PkEntityBase> result = null;
+
+        if (value instanceof EntityFindResponseResult) {
+            result = ((EntityFindResponseResult) value).getResults();
+        } else if (value instanceof EntityResponseResult) {
+            PkEntityBase bean = ((EntityResponseResult) value).getResults();
+
+            result = (bean != null ? Collections.singletonList(bean) : null);
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates a weak ETag from the response type, count, and each result's id and lock version.
+     */
+    protected String createETag(Object value, List<? extends PkEntityBase> results) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(value.getClass().getName());
+
+        if (value instanceof EntityFindResponseResult) {
+            sb.append('#');
+            sb.append(((EntityFindResponseResult) value).getCount());
+        }
+
+        for (PkEntityBase bean : results) {
+            sb.append(';');
+            sb.append(bean.getId());
+            sb.append(':');
+            sb.append(bean.getLockVersion());
+        }
+
+        return "W/\"" + DigestUtils.md5DigestAsHex(sb.toString().getBytes(UTF_8)) + "\"";
+    }
+
+    /**
+     * Gets latest last updated time of the results.
+     *
+     * @return  Time in milliseconds or zero if no result has a last updated time.
+     */
+    protected long getLastModified(List<? extends PkEntityBase> results) {
+        long result = 0;
+
+        for (PkEntityBase bean : results) {
+            DateTime lastUpdated = bean.getLastUpdated();
+
+            if (lastUpdated != null && lastUpdated.getMillis() > result) {
+                result = lastUpdated.getMillis();
+            }
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.method.annotation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.StringUtils;
+
+
+/**
+ * Index of <code>RestResource</code> interfaces and their request mapped methods
+ * written at compile time by {@link RestResourceIndexProcessor}.
+ *
+ * <p>Lets {@link ServiceHandlerMapping} and the REST client factory skip classpath scanning
+ * and walking each interface's methods.  Every index on the classpath is merged, and
+ * a base package without any indexed interfaces is still scanned.  Setting the
+ * <code>sbe.rest.index.ignore</code> system property to <code>true</code> ignores the index.</p>
+ *
+ * @author David Winterfeldt
+ */
+public class RestResourceIndex {
+
+    final static Logger logger = LoggerFactory.getLogger(RestResourceIndex.class);
+
+    public final static String INDEX_LOCATION = "META-INF/sbe-rest/rest-resource.index";
+    public final static String IGNORE_INDEX_PROPERTY = "sbe.rest.index.ignore";
+
+    final static String METHOD_DELIM = ";";
+    final static String PARAM_DELIM = ",";
+
+    private final static ConcurrentMap<ClassLoader, RestResourceIndex> hCache =
+            new ConcurrentReferenceHashMap<ClassLoader, RestResourceIndex>();
+
+    private final ClassLoader classLoader;
+    private final Map<String, List<String>> hComponents;
+
+    RestResourceIndex(ClassLoader classLoader, Map<String, List<String>> hComponents) {
+        this.classLoader = classLoader;
+        this.hComponents = hComponents;
+    }
+
+    /**
+     * Loads all indexes on the class loader's classpath.  An index
+     * is only read once per class loader.
+     *
+     * @return  The index, which is empty if there aren't any or they're ignored.
+     */
+    public static RestResourceIndex load(ClassLoader classLoader) {
+        ClassLoader cl = (classLoader != null ? classLoader : RestResourceIndex.class.getClassLoader());
+        RestResourceIndex result = hCache.get(cl);
+
+        if (result == null) {
+            result = read(cl);
+
+            RestResourceIndex existing = hCache.putIfAbsent(cl, result);
+
+            if (existing != null) {
+                result = existing;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Whether or not there are any indexed interfaces.
+     */
+    public boolean isEmpty() {
+        return hComponents.isEmpty();
+    }
+
+    /**
+     * Gets class names of the indexed interfaces in a package or its sub-packages.
+     *
+     * @return  The class names or an empty list if none are indexed for the package.
+     */
+    public List<String> getComponents(String basePackage) {
+        List<String> result = new ArrayList<String>();
+        String prefix = basePackage + ".";
+
+        for (String className : hComponents.keySet()) {
+            if (className.startsWith(prefix)) {
+                result.add(className);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets request mapped methods of an indexed interface.
+     *
+     * @return  The methods or <code>null</code> if the interface isn't indexed
+     *          or a method couldn't be resolved.
+     */
+    public List<Method> getMethods(Class<?> clazz) {
+        List<String> lSignatures = hComponents.get(clazz.getName());
+
+        if (lSignatures == null) {
+            return null;
+        }
+
+        List<Method> result = new ArrayList<Method>(lSignatures.size());
+
+        for (String signature : lSignatures) {
+            int paramIndex = signature.indexOf('(');
+            String methodName = signature.substring(0, paramIndex);
+            String[] paramTypeNames = StringUtils.tokenizeToStringArray(
+                    signature.substring(paramIndex + 1, signature.length() - 1), PARAM_DELIM);
+            Class<?>[] paramTypes = new Class<?>[paramTypeNames.length];
+
+            try {
+                for (int i = 0; i < paramTypeNames.length; i++) {
+                    paramTypes[i] = ClassUtils.forName(paramTypeNames[i], classLoader);
+                }
+
+                // same method the handler method selector uses for an interface method
+                result.add(clazz.getMethod(methodName, paramTypes));
+            } catch (ClassNotFoundException e) {
+                logger.warn("Unable to resolve indexed method, index may be stale.  class={}  method={}",
+                            clazz.getName(), signature);
+
+                return null;
+            } catch (NoSuchMethodException e) {
+                logger.warn("Unable to resolve indexed method, index may be stale.  class={}  method={}",
+                            clazz.getName(), signature);
+
+                return null;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads and merges all indexes.
+     */
+    static RestResourceIndex read(ClassLoader classLoader) {
+        Map<String, List<String>> hComponents = new TreeMap<String, List<String>>();
+
+        if (Boolean.getBoolean(IGNORE_INDEX_PROPERTY)) {
+            return new RestResourceIndex(classLoader, hComponents);
+        }
+
+        try {
+            Enumeration<URL> urls = classLoader.getResources(INDEX_LOCATION);
+
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                Properties properties = new Properties();
+                InputStream in = url.openStream();
+
+                try {
+                    properties.load(in);
+                } finally {
+                    in.close();
+                }
+
+                for (String className : properties.stringPropertyNames()) {
+                    String[] signatures = StringUtils.tokenizeToStringArray(properties.getProperty(className), METHOD_DELIM);
+                    List<String> lSignatures = new ArrayList<String>(signatures.length);
+
+                    Collections.addAll(lSignatures, signatures);
+
+                    hComponents.put(className, lSignatures);
+                }
+
+                logger.debug("Loaded REST resource index.  url='{}'", url);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to load REST resource index from '" + INDEX_LOCATION + "'.", e);
+        }
+
+        return new RestResourceIndex(classLoader, hComponents);
+    }
+
+}
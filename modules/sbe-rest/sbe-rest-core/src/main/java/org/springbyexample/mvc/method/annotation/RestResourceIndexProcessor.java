@@ -0,0 +1,292 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.method.annotation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+
+/**
+ * Writes a {@link RestResourceIndex} of the top level <code>RestResource</code> interfaces
+ * being compiled and their <code>RequestMapping</code> methods.
+ *
+ * <p>Methods are indexed by name and erased parameter types, including inherited ones
+ * and ones overriding a request mapped method.  Registered as a service so it runs
+ * on any module compiled with this jar on the classpath.</p>
+ *
+ * <p>An incremental compile only has some of the module's types, so the index 
+ * from the previous compile is merged in.  Its interfaces are kept unless they were 
+ * just compiled (and are indexed again if they're still a <code>RestResource</code>) 
+ * or no longer exist.</p>
+ *
+ * @author David Winterfeldt
+ */
+public class RestResourceIndexProcessor extends AbstractProcessor {
+
+    private final static String REST_RESOURCE = "org.springbyexample.mvc.bind.annotation.RestResource";
+    private final static String REQUEST_MAPPING = "org.springframework.web.bind.annotation.RequestMapping";
+
+    private final Map<String, Set<String>> hComponents = new TreeMap<String, Set<String>>();
+    private final Set<String> processedTypes = new HashSet<String>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        // meta-annotated interfaces are indexed too, so every root type is checked
+        return Collections.singleton("*");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        } else {
+            for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+                String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+
+                processedTypes.add(className);
+
+                if (type.getKind() == ElementKind.INTERFACE && hasAnnotation(type, REST_RESOURCE, new HashSet<String>())) {
+                    hComponents.put(className, getMethodSignatures(type));
+                }
+            }
+        }
+
+        // other processors may also handle these annotations
+        return false;
+    }
+
+    /**
+     * Gets signatures of request mapped methods.
+     */
+    private Set<String> getMethodSignatures(TypeElement type) {
+        Set<String> result = new LinkedHashSet<String>();
+        List<ExecutableElement> lMethods = new ArrayList<ExecutableElement>();
+
+        collectMethods(type, lMethods, new HashSet<String>());
+
+        for (ExecutableElement method : lMethods) {
+            if (hasAnnotation(method, REQUEST_MAPPING, new HashSet<String>())) {
+                result.add(createSignature(method));
+
+                for (ExecutableElement overrider : lMethods) {
+                    if (overrider != method && processingEnv.getElementUtils().overrides(overrider, method, type)) {
+                        result.add(createSignature(overrider));
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Collects methods declared by an interface and its super interfaces.
+     */
+    private void collectMethods(TypeElement type, List<ExecutableElement> lMethods, Set<String> visited) {
+        if (!visited.add(type.getQualifiedName().toString())) {
+            return;
+        }
+
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (!method.getModifiers().contains(Modifier.STATIC)) {
+                lMethods.add(method);
+            }
+        }
+
+        for (TypeMirror superInterface : type.getInterfaces()) {
+            collectMethods((TypeElement) ((DeclaredType) superInterface).asElement(), lMethods, visited);
+        }
+    }
+
+    /**
+     * Whether or not an element is annotated or meta-annotated with an annotation.
+     */
+    private boolean hasAnnotation(Element element, String annotationName, Set<String> visited) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            String name = annotationType.getQualifiedName().toString();
+
+            if (annotationName.equals(name)) {
+                return true;
+            } else if (!name.startsWith("java.lang.annotation.") && visited.add(name) &&
+                       hasAnnotation(annotationType, annotationName, visited)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Creates a method signature from its name and erased parameter types
+     * (ex: <code>find(java.lang.Integer,int)</code>).
+     */
+    private String createSignature(ExecutableElement method) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(method.getSimpleName());
+        sb.append('(');
+
+        for (VariableElement param : method.getParameters()) {
+            if (sb.charAt(sb.length() - 1) != '(') {
+                sb.append(RestResourceIndex.PARAM_DELIM);
+            }
+
+            sb.append(getTypeName(param.asType()));
+        }
+
+        sb.append(')');
+
+        return sb.toString();
+    }
+
+    /**
+     * Gets erased type name as <code>ClassUtils.forName</code> expects it.
+     */
+    private String getTypeName(TypeMirror type) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+
+        if (erasure.getKind() == TypeKind.ARRAY) {
+            return getTypeName(((ArrayType) erasure).getComponentType()) + "[]";
+        } else if (erasure.getKind() == TypeKind.DECLARED) {
+            return processingEnv.getElementUtils().getBinaryName((TypeElement) ((DeclaredType) erasure).asElement()).toString();
+        }
+
+        return erasure.toString();
+    }
+
+    /**
+     * Reads the index written by a previous compile.
+     *
+     * @return  The previous index or <code>null</code> if there isn't one.
+     */
+    private Properties readIndex() {
+        try {
+            FileObject resource = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+                                                                       RestResourceIndex.INDEX_LOCATION);
+            InputStream in = resource.openInputStream();
+            Properties result = new Properties();
+
+            try {
+                result.load(in);
+            } finally {
+                in.close();
+            }
+
+            return result;
+        } catch (IOException e) {
+            // no previous index
+            return null;
+        }
+    }
+
+    /**
+     * Whether or not an interface from the previous index wasn't compiled this time and still exists.
+     */
+    private boolean isUnchanged(String className) {
+        return (!processedTypes.contains(className) &&
+                processingEnv.getElementUtils().getTypeElement(className.replace('$', '.')) != null);
+    }
+
+    /**
+     * Writes index of the interfaces found in all rounds merged with the previous index.
+     */
+    private void writeIndex() {
+        Properties previousIndex = readIndex();
+        Map<String, Set<String>> hIndex = new TreeMap<String, Set<String>>(hComponents);
+
+        if (previousIndex != null) {
+            for (String className : previousIndex.stringPropertyNames()) {
+                if (!hIndex.containsKey(className) && isUnchanged(className)) {
+                    String value = previousIndex.getProperty(className);
+                    Set<String> signatures = new LinkedHashSet<String>();
+
+                    if (value.length() > 0) {
+                        Collections.addAll(signatures, value.split(RestResourceIndex.METHOD_DELIM));
+                    }
+
+                    hIndex.put(className, signatures);
+                }
+            }
+        }
+
+        if (hIndex.isEmpty() && previousIndex == null) {
+            return;
+        }
+
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                                                                          RestResourceIndex.INDEX_LOCATION);
+            Writer writer = resource.openWriter();
+
+            try {
+                for (Map.Entry<String, Set<String>> entry : hIndex.entrySet()) {
+                    StringBuilder sb = new StringBuilder();
+
+                    for (String signature : entry.getValue()) {
+                        if (sb.length() > 0) {
+                            sb.append(RestResourceIndex.METHOD_DELIM);
+                        }
+
+                        sb.append(signature);
+                    }
+
+                    writer.write(entry.getKey() + "=" + sb + "\n");
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write REST resource index '" + RestResourceIndex.INDEX_LOCATION + "'.  " + e.getMessage());
+        }
+    }
+
+}
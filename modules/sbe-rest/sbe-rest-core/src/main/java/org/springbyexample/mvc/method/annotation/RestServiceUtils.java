@@ -15,7 +15,18 @@
  */
 package org.springbyexample.mvc.method.annotation;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.core.BridgeMethodResolver;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils.MethodFilter;
+import org.springframework.web.method.HandlerMethodSelector;
 
 
 /**
@@ -31,17 +42,7 @@ public class RestServiceUtils {
      * Checks whether or not the class name is valid.
      */
     public static boolean isRestServiceInterface(String interfaceName) {
-        Class<?> clazz = null;
-        
-        try {
-            clazz = ClassUtils.forName(interfaceName, ClassUtils.getDefaultClassLoader());
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException("Error loading interface class.", e);
-        } catch (LinkageError e) {
-            throw new RuntimeException("Error loading interface class.", e);
-        }
-        
-        return isRestServiceInterface(clazz);
+        return isRestServiceInterface(loadInterface(interfaceName));
     }
 
     /**
@@ -52,5 +53,69 @@ public class RestServiceUtils {
 //        return !(PersistenceMarshallingService.class.equals(clazz)) && ClassUtils.isAssignable(PersistenceMarshallingService.class, clazz);
     }
     
+    /**
+     * Finds <code>RestResource</code> interfaces in a package from the index,
+     * scanning the package if the index is <code>null</code> or has none in it.
+     */
+    public static List<Class<?>> findRestServiceInterfaces(RestServiceComponentProvider scanner, RestResourceIndex index,
+                                                           String basePackage) {
+        List<Class<?>> result = new ArrayList<Class<?>>();
+        List<String> lClassNames = (index != null ? index.getComponents(basePackage) : null);
+
+        if (lClassNames == null || lClassNames.isEmpty()) {
+            lClassNames = new ArrayList<String>();
+
+            Collection<BeanDefinition> components = scanner.findCandidateComponents(basePackage);
+
+            for (BeanDefinition definition : components) {
+                lClassNames.add(definition.getBeanClassName());
+            }
+        }
+
+        for (String className : lClassNames) {
+            result.add(loadInterface(className));
+        }
+
+        return result;
+    }
+
+    /**
+     * Selects matching methods of an interface from the index, falling back to
+     * <code>HandlerMethodSelector</code> if the index is <code>null</code> or doesn't have the interface.
+     * Matches the same methods as the selector since indexed methods are resolved the same way.
+     */
+    public static Set<Method> selectMethods(Class<?> marshallingServiceClass, RestResourceIndex index, MethodFilter filter) {
+        List<Method> lIndexedMethods = (index != null ? index.getMethods(marshallingServiceClass) : null);
+
+        if (lIndexedMethods == null) {
+            return HandlerMethodSelector.selectMethods(marshallingServiceClass, filter);
+        }
+
+        Set<Method> result = new LinkedHashSet<Method>();
+
+        for (Method method : lIndexedMethods) {
+            Method bridgedMethod = BridgeMethodResolver.findBridgedMethod(method);
+
+            if (filter.matches(method) && (bridgedMethod == method || !filter.matches(bridgedMethod))) {
+                result.add(method);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Loads interface class.
+     */
+    private static Class<?> loadInterface(String interfaceName) {
+        try {
+            return ClassUtils.forName(interfaceName, ClassUtils.getDefaultClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Error loading interface class.", e);
+        } catch (LinkageError e) {
+            throw new RuntimeException("Error loading interface class.", e);
+        }
+    }
+    
 }
 
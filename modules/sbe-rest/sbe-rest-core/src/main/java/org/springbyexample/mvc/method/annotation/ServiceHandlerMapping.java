@@ -17,11 +17,14 @@ package org.springbyexample.mvc.method.annotation;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.apache.commons.lang.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,9 +33,13 @@ import org.springbyexample.mvc.bind.annotation.RestRequestResource;
 import org.springbyexample.mvc.bind.annotation.RestResource;
 import org.springbyexample.mvc.converter.handler.ConverterHandlerInfo;
 import org.springbyexample.mvc.converter.handler.ConverterHandlerInterceptor;
-import org.springframework.beans.factory.config.BeanDefinition;
+import org.springbyexample.mvc.etag.handler.ETagHandlerInterceptor;
+import org.springbyexample.mvc.metrics.EndpointMetrics;
+import org.springbyexample.mvc.metrics.handler.EndpointMetricsHandlerInterceptor;
+import org.springbyexample.mvc.metrics.handler.EndpointMetricsRequestHandler;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.Conventions;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -41,11 +48,12 @@ import org.springframework.util.ReflectionUtils.MethodCallback;
 import org.springframework.util.ReflectionUtils.MethodFilter;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.method.HandlerMethod;
-import org.springframework.web.method.HandlerMethodSelector;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.handler.MappedInterceptor;
 import org.springframework.web.servlet.mvc.condition.PatternsRequestCondition;
+import org.springframework.web.servlet.mvc.condition.RequestMethodsRequestCondition;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
@@ -54,6 +62,20 @@ import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandl
  * Creates {@link RequestMappingInfo} instances from type and method-level
  * {@link RequestMapping @RequestMapping} annotations in
  * {@link @RestResource @RestResource} classes.
+ * 
+ * <p>Methods returning a <code>Future</code> are asynchronous client 
+ * methods for a mapping handled by a synchronous method and aren't registered.</p>
+ *
+ * <p>GET responses have an <code>ETag</code> derived from the results' lock versions 
+ * and conditional requests are answered with a 304 (Not Modified) 
+ * unless {@link #setConditionalGet(boolean)} is disabled.</p>
+ *
+ * <p>Interfaces and their methods are read from the {@link RestResourceIndex}
+ * written at compile time, and a base package missing from the index is scanned.</p>
+ *
+ * <p>Latency, errors, and response sizes of each registered endpoint are recorded
+ * in {@link EndpointMetrics} unless {@link #setRecordMetrics(boolean)} is disabled,
+ * and can be scraped from {@link #setMetricsPath(String)} if it's set.</p>
  *
  * @author David Winterfeldt
  */
@@ -64,10 +86,16 @@ public class ServiceHandlerMapping extends RequestMappingHandlerMapping {
     private List<String> basePackages;
     private RestServiceComponentProvider scanner;
     private ConverterHandlerInfo converterHandlerInfo;
+    private boolean conditionalGet = true;
+    private boolean useIndex = true;
+    private boolean recordMetrics = true;
+    private EndpointMetrics endpointMetrics = new EndpointMetrics();
+    private String metricsPath;
 
     // temporary variable used to store the method
     // while registerHandlerMethod is called and overridden createHandlerMethod is called from it
     private Method restBridgedMethod;
+    private Class<?> restMarshallingServiceClass;
 
     /**
      * Sets base packages to scan for <code>RestResource</code>s.
@@ -93,26 +121,77 @@ public class ServiceHandlerMapping extends RequestMappingHandlerMapping {
         this.converterHandlerInfo = converterHandlerInfo;
     }
 
+    /**
+     * Sets whether or not to set an <code>ETag</code> on GET responses
+     * and answer a matching <code>If-None-Match</code> with a 304 (Not Modified).
+     * Default is <code>true</code>.
+     */
+    public void setConditionalGet(boolean conditionalGet) {
+        this.conditionalGet = conditionalGet;
+    }
+
+    /**
+     * Sets whether or not to use the compile time <code>RestResource</code> index
+     * instead of scanning base packages.  Default is <code>true</code>.
+     */
+    public void setUseIndex(boolean useIndex) {
+        this.useIndex = useIndex;
+    }
+
+    /**
+     * Sets whether or not to record statistics for each endpoint.
+     * Default is <code>true</code>.
+     */
+    public void setRecordMetrics(boolean recordMetrics) {
+        this.recordMetrics = recordMetrics;
+    }
+
+    /**
+     * Gets endpoint statistics.
+     */
+    public EndpointMetrics getEndpointMetrics() {
+        return endpointMetrics;
+    }
+
+    /**
+     * Sets endpoint statistics, so a bean exported to JMX can be shared.
+     */
+    public void setEndpointMetrics(EndpointMetrics endpointMetrics) {
+        Assert.notNull(endpointMetrics, "Endpoint metrics must not be null.");
+
+        this.endpointMetrics = endpointMetrics;
+    }
+
+    /**
+     * Sets path a GET request can scrape endpoint statistics in a plain text format from.
+     * Not mapped by default.
+     */
+    public void setMetricsPath(String metricsPath) {
+        this.metricsPath = metricsPath;
+    }
+
     @Override
     protected void initHandlerMethods() {
-        for (String basePackage : basePackages) {
-            Collection<BeanDefinition> components = scanner.findCandidateComponents(basePackage);
+        // registered first, so the time of the other interceptors is recorded
+        if (recordMetrics) {
+            setInterceptors(new Object[] { new EndpointMetricsHandlerInterceptor(endpointMetrics) });
+        }
 
-            for (final BeanDefinition definition : components) {
-                final Class<?> marshallingServiceClass;
+        // registered before converters so it's post handled after results are converted
+        if (conditionalGet) {
+            setInterceptors(new Object[] { new ETagHandlerInterceptor() });
+        }
 
-                try {
-                    marshallingServiceClass = ClassUtils.forName(definition.getBeanClassName(), ClassUtils.getDefaultClassLoader());
-                } catch (ClassNotFoundException e) {
-                    throw new RuntimeException("Error loading interface class.", e);
-                } catch (LinkageError e) {
-                    throw new RuntimeException("Error loading interface class.", e);
-                }
+        long start = System.currentTimeMillis();
+        RestResourceIndex index = (useIndex ? RestResourceIndex.load(ClassUtils.getDefaultClassLoader()) : null);
 
-                Set<Method> methods = HandlerMethodSelector.selectMethods(marshallingServiceClass, new MethodFilter() {
+        for (String basePackage : basePackages) {
+            for (final Class<?> marshallingServiceClass : RestServiceUtils.findRestServiceInterfaces(scanner, index, basePackage)) {
+                Set<Method> methods = RestServiceUtils.selectMethods(marshallingServiceClass, index, new MethodFilter() {
                     @Override
                     public boolean matches(Method method) {
-                        return (getMappingForMethod(method, marshallingServiceClass) != null);
+                        return (getMappingForMethod(method, marshallingServiceClass) != null &&
+                                !Future.class.isAssignableFrom(method.getReturnType()));
                     }
                 });
 
@@ -122,6 +201,13 @@ public class ServiceHandlerMapping extends RequestMappingHandlerMapping {
             }
         }
 
+        if (metricsPath != null) {
+            registerMetricsHandler();
+        }
+
+        logger.info("Registered {} REST handler methods in {}ms.  index={}",
+                    new Object[] { getHandlerMethods().size(), (System.currentTimeMillis() - start), (index != null && !index.isEmpty()) });
+
         initInterceptors();
         handlerMethodsInitialized(getHandlerMethods());
     }
@@ -180,20 +266,50 @@ public class ServiceHandlerMapping extends RequestMappingHandlerMapping {
 
             // need to set param types to use in createHandlerMethod before calling registerHandlerMethod
             restBridgedMethod = BridgeMethodResolver.findBridgedMethod(method);
+            restMarshallingServiceClass = marshallingServiceClass;
 
             // mapping is key, HandlerMethod is value
             registerHandlerMethod(handler, serviceMethod, mapping);
 
             processConverters(restRequestResource, mapping, serviceMethod);
+
+            if (recordMetrics) {
+                for (String pattern : mapping.getPatternsCondition().getPatterns()) {
+                    for (RequestMethod requestMethod : mapping.getMethodsCondition().getMethods()) {
+                        endpointMetrics.register(requestMethod.name(), pattern);
+                    }
+                }
+            }
         }
     }
 
+    /**
+     * Register handler writing endpoint statistics to the metrics path.
+     */
+    private void registerMetricsHandler() {
+        EndpointMetricsRequestHandler handler = new EndpointMetricsRequestHandler(endpointMetrics);
+        Method method = ClassUtils.getMethod(EndpointMetricsRequestHandler.class, "handleRequest",
+                                             HttpServletRequest.class, HttpServletResponse.class);
+        RequestMappingInfo mapping = new RequestMappingInfo(
+                new PatternsRequestCondition(new String[] { metricsPath }, getUrlPathHelper(), getPathMatcher(),
+                                             useSuffixPatternMatch(), useTrailingSlashMatch()),
+                new RequestMethodsRequestCondition(RequestMethod.GET), null, null, null, null, null);
+
+        // not a REST service method
+        restBridgedMethod = null;
+        restMarshallingServiceClass = null;
+
+        registerHandlerMethod(handler, method, mapping);
+
+        logger.info("Registered endpoint metrics handler for '{}'.", metricsPath);
+    }
+
     @Override
     protected HandlerMethod createHandlerMethod(Object handler, Method method) {
         HandlerMethod handlerMethod = super.createHandlerMethod(handler, method);
 
         if (restBridgedMethod != null) {
-            handlerMethod = new ServiceHandlerMethod(handler, method, restBridgedMethod);
+            handlerMethod = new ServiceHandlerMethod(handler, method, restBridgedMethod, restMarshallingServiceClass);
         }
 
         return handlerMethod;
@@ -237,7 +353,10 @@ public class ServiceHandlerMapping extends RequestMappingHandlerMapping {
                 });
             }
 
-            HandlerInterceptor interceptor = new ConverterHandlerInterceptor(converter, returnTypeClass,
+            // same model key the return value handler adds the response under
+            String modelKey = Conventions.getVariableNameForReturnType(serviceMethod, returnTypeClass, null);
+
+            HandlerInterceptor interceptor = new ConverterHandlerInterceptor(converter, returnTypeClass, modelKey,
                     getResultsMethod, (setResultsMethod != null ? setResultsMethod : altSetResultsMethod.get()));
 
             MappedInterceptor mappedInterceptor = new MappedInterceptor(pathPatterns, interceptor);
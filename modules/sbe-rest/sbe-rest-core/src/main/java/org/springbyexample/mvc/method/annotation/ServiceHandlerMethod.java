@@ -18,23 +18,32 @@ package org.springbyexample.mvc.method.annotation;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 
+import java.lang.reflect.Type;
+
 import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
 import org.springframework.web.method.HandlerMethod;
 
 
 /**
  * <code>HandlerMethod</code> extension to allow setting the method parameters.
  *
+ * <p>Parameter types are resolved against the marshalling service interface, 
+ * so a generic request body is read as the interface's type argument 
+ * instead of its bound.</p>
+ *
  * @author David Winterfeldt
  */
 public class ServiceHandlerMethod extends HandlerMethod {
 
     private Method restBridgedMethod;
+    private Class<?> marshallingServiceClass;
 
-    public ServiceHandlerMethod(Object bean, Method method, Method restBridgedMethod) {
+    public ServiceHandlerMethod(Object bean, Method method, Method restBridgedMethod, Class<?> marshallingServiceClass) {
         super(bean, method);
         
         this.restBridgedMethod = restBridgedMethod;
+        this.marshallingServiceClass = marshallingServiceClass;
         
         // process method parameters
         getMethodParameters();
@@ -58,8 +67,27 @@ public class ServiceHandlerMethod extends HandlerMethod {
 
     private class HandlerMethodParameter extends MethodParameter {
 
+        private final Class<?> resolvedParameterType;
+        private final Type resolvedGenericParameterType;
+
         protected HandlerMethodParameter(int index) {
             super(ServiceHandlerMethod.this.restBridgedMethod, index);
+
+            ResolvableType type = ResolvableType.forMethodParameter(ServiceHandlerMethod.this.restBridgedMethod, index,
+                                                                    ServiceHandlerMethod.this.marshallingServiceClass);
+
+            resolvedParameterType = type.resolve(super.getParameterType());
+            resolvedGenericParameterType = (type.hasGenerics() ? super.getGenericParameterType() : resolvedParameterType);
+        }
+
+        @Override
+        public Class<?> getParameterType() {
+            return resolvedParameterType;
+        }
+
+        @Override
+        public Type getGenericParameterType() {
+            return resolvedGenericParameterType;
         }
 
         @Override
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+
+/**
+ * Latency, throughput, error, and response size statistics for each
+ * REST endpoint keyed by HTTP method and mapping pattern.
+ *
+ * <p>The statistics are exposed as JMX attributes when registered with an annotation
+ * based <code>MBeanExporter</code> and in a plain text format that can be scraped
+ * with {@link #writeText(Writer)}.  Scrapers should calculate throughput from
+ * the request counters.</p>
+ *
+ * @author David Winterfeldt
+ */
+@ManagedResource(description="REST endpoint statistics.")
+public class EndpointMetrics {
+
+    public final static String TEXT_CONTENT_TYPE = "text/plain; version=0.0.4; charset=UTF-8";
+
+    private final static String PREFIX = "sbe_rest_";
+    private final static double[] PERCENTILES = { 0.5, 0.99 };
+
+    private final ConcurrentMap<String, EndpointStatistics> hStatistics = new ConcurrentHashMap<String, EndpointStatistics>();
+
+    /**
+     * Registers an endpoint, so it's reported before it's requested.
+     */
+    public void register(String method, String pattern) {
+        getStatistics(method, pattern);
+    }
+
+    /**
+     * Records a request.
+     *
+     * @see EndpointStatistics#record(long, int, boolean, long)
+     */
+    public void record(String method, String pattern, long micros, int status, boolean exception, long responseSize) {
+        getStatistics(method, pattern).record(micros, status, exception, responseSize);
+    }
+
+    /**
+     * Gets or creates statistics for an endpoint.
+     */
+    public EndpointStatistics getStatistics(String method, String pattern) {
+        String key = createKey(method, pattern);
+        EndpointStatistics result = hStatistics.get(key);
+
+        if (result == null) {
+            EndpointStatistics stats = new EndpointStatistics(method, pattern);
+            result = hStatistics.putIfAbsent(key, stats);
+
+            if (result == null) {
+                result = stats;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets statistics for each endpoint keyed by 'method pattern'.
+     */
+    public Map<String, EndpointStatistics> getStatistics() {
+        return Collections.<String, EndpointStatistics>unmodifiableMap(hStatistics);
+    }
+
+    /**
+     * Gets total number of requests.
+     */
+    @ManagedAttribute(description="Total number of requests.")
+    public long getTotalRequests() {
+        long result = 0;
+
+        for (EndpointStatistics stats : hStatistics.values()) {
+            result += stats.getRequests();
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets total number of requests with an exception or server error.
+     */
+    @ManagedAttribute(description="Total number of requests with an exception or server error.")
+    public long getTotalErrors() {
+        long result = 0;
+
+        for (EndpointStatistics stats : hStatistics.values()) {
+            result += stats.getErrors();
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets a summary of statistics for each endpoint.
+     */
+    @ManagedAttribute(description="Statistics for each endpoint.")
+    public String[] getEndpointSummary() {
+        List<String> lResults = new ArrayList<String>();
+
+        for (Map.Entry<String, EndpointStatistics> entry : hStatistics.entrySet()) {
+            EndpointStatistics stats = entry.getValue();
+            long[] percentiles = stats.getLatency().getPercentiles(PERCENTILES);
+
+            lResults.add(entry.getKey() +
+                         " requests=" + stats.getRequests() +
+                         " throughput=" + String.format("%.2f", stats.getThroughput()) + "/s" +
+                         " errors=" + stats.getErrors() +
+                         " clientErrors=" + stats.getClientErrors() +
+                         " p50=" + percentiles[0] + "us" +
+                         " p99=" + percentiles[1] + "us" +
+                         " max=" + stats.getLatency().getMax() + "us" +
+                         " meanResponseSize=" + stats.getMeanResponseSize());
+        }
+
+        Collections.sort(lResults);
+
+        return lResults.toArray(new String[lResults.size()]);
+    }
+
+    /**
+     * Resets statistics.  Registered endpoints are still reported.
+     */
+    @ManagedOperation(description="Resets statistics.")
+    public void reset() {
+        for (Map.Entry<String, EndpointStatistics> entry : hStatistics.entrySet()) {
+            EndpointStatistics stats = entry.getValue();
+
+            hStatistics.replace(entry.getKey(), stats, new EndpointStatistics(stats.getMethod(), stats.getPattern()));
+        }
+    }
+
+    /**
+     * Writes statistics in the Prometheus text format.
+     * Latencies are in seconds.
+     */
+    public void writeText(Writer writer) throws IOException {
+        Map<String, EndpointStatistics> hSorted = new TreeMap<String, EndpointStatistics>(hStatistics);
+
+        writeType(writer, "requests_total", "counter");
+
+        for (EndpointStatistics stats : hSorted.values()) {
+            writeSample(writer, "requests_total", stats, null, stats.getRequests());
+        }
+
+        writeType(writer, "errors_total", "counter");
+
+        for (EndpointStatistics stats : hSorted.values()) {
+            writeSample(writer, "errors_total", stats, null, stats.getErrors());
+        }
+
+        writeType(writer, "client_errors_total", "counter");
+
+        for (EndpointStatistics stats : hSorted.values()) {
+            writeSample(writer, "client_errors_total", stats, null, stats.getClientErrors());
+        }
+
+        writeType(writer, "response_bytes_total", "counter");
+
+        for (EndpointStatistics stats : hSorted.values()) {
+            writeSample(writer, "response_bytes_total", stats, null, stats.getResponseBytes());
+        }
+
+        writeType(writer, "latency_seconds", "summary");
+
+        for (EndpointStatistics stats : hSorted.values()) {
+            LatencyHistogram latency = stats.getLatency();
+            long[] percentiles = latency.getPercentiles(PERCENTILES);
+
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                writeSample(writer, "latency_seconds", stats, "quantile=\"" + PERCENTILES[i] + "\"", toSeconds(percentiles[i]));
+            }
+
+            writeSample(writer, "latency_seconds_sum", stats, null, toSeconds(latency.getSum()));
+            writeSample(writer, "latency_seconds_count", stats, null, latency.getCount());
+        }
+
+        writeType(writer, "latency_max_seconds", "gauge");
+
+        for (EndpointStatistics stats : hSorted.values()) {
+            writeSample(writer, "latency_max_seconds", stats, null, toSeconds(stats.getLatency().getMax()));
+        }
+
+        writer.flush();
+    }
+
+    private void writeType(Writer writer, String name, String type) throws IOException {
+        writer.write("# TYPE " + PREFIX + name + " " + type + "\n");
+    }
+
+    private void writeSample(Writer writer, String name, EndpointStatistics stats, String label, Object value)
+            throws IOException {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(PREFIX).append(name);
+        sb.append("{method=\"").append(escape(stats.getMethod()));
+        sb.append("\",pattern=\"").append(escape(stats.getPattern())).append('"');
+
+        if (label != null) {
+            sb.append(',').append(label);
+        }
+
+        sb.append("} ").append(value).append('\n');
+
+        writer.write(sb.toString());
+    }
+
+    private String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private double toSeconds(long micros) {
+        return (micros / 1000000d);
+    }
+
+    private String createKey(String method, String pattern) {
+        return method + " " + pattern;
+    }
+
+}
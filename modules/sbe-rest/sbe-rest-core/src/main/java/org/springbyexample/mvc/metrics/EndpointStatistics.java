@@ -0,0 +1,133 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Request statistics for an endpoint's HTTP method and mapping pattern.
+ *
+ * @author David Winterfeldt
+ */
+public class EndpointStatistics {
+
+    private final String method;
+    private final String pattern;
+    private final long startTime = System.currentTimeMillis();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong clientErrors = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong sizedResponses = new AtomicLong();
+
+    public EndpointStatistics(String method, String pattern) {
+        this.method = method;
+        this.pattern = pattern;
+    }
+
+    /**
+     * Records a request.
+     *
+     * @param   micros          Latency in microseconds.
+     * @param   status          Response status.
+     * @param   exception       Whether or not the handler threw an unresolved exception.
+     * @param   responseSize    Response size in bytes or -1 if it isn't known.
+     */
+    public void record(long micros, int status, boolean exception, long responseSize) {
+        latency.record(micros);
+
+        if (exception || status >= 500) {
+            errors.incrementAndGet();
+        } else if (status >= 400) {
+            clientErrors.incrementAndGet();
+        }
+
+        if (responseSize >= 0) {
+            responseBytes.addAndGet(responseSize);
+            sizedResponses.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets HTTP method.
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Gets mapping pattern.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Gets latency histogram.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gets number of requests.
+     */
+    public long getRequests() {
+        return latency.getCount();
+    }
+
+    /**
+     * Gets number of requests with an exception or a server error (5xx) status.
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * Gets number of requests with a client error (4xx) status.
+     */
+    public long getClientErrors() {
+        return clientErrors.get();
+    }
+
+    /**
+     * Gets total size of responses with a known size.
+     */
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    /**
+     * Gets mean size of responses with a known size.
+     */
+    public long getMeanResponseSize() {
+        long total = sizedResponses.get();
+
+        return (total > 0 ? (responseBytes.get() / total) : 0);
+    }
+
+    /**
+     * Gets requests per second since the statistics were created.
+     */
+    public double getThroughput() {
+        long elapsed = Math.max(1, (System.currentTimeMillis() - startTime));
+
+        return (getRequests() * 1000d / elapsed);
+    }
+
+}
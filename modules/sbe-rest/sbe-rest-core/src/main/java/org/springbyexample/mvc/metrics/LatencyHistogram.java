@@ -0,0 +1,179 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Lock-free histogram of latencies in microseconds.
+ *
+ * <p>Values under 16 have their own bucket, and each power of two above that is split
+ * into 8 buckets, so a percentile is within 12.5% of the recorded value
+ * in a fixed 312 buckets.  Recording only increments atomic counters and
+ * percentiles are calculated from a snapshot when they're read.</p>
+ *
+ * @author David Winterfeldt
+ */
+public class LatencyHistogram {
+
+    private final static int SUB_BUCKET_BITS = 3;
+    private final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private final static int LINEAR_BUCKETS = SUB_BUCKETS << 1;
+    private final static int MIN_EXPONENT = SUB_BUCKET_BITS + 1;
+    private final static int MAX_EXPONENT = 40;
+    private final static long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    final static int BUCKETS = LINEAR_BUCKETS + ((MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_BUCKETS);
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param   micros      Latency in microseconds.  Negative values are recorded as zero.
+     */
+    public void record(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+
+        buckets.incrementAndGet(getBucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long current = max.get();
+
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Gets number of recorded latencies.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets total of recorded latencies in microseconds.
+     */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * Gets max recorded latency in microseconds.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets mean latency in microseconds.
+     */
+    public long getMean() {
+        long total = count.get();
+
+        return (total > 0 ? (sum.get() / total) : 0);
+    }
+
+    /**
+     * Gets a latency percentile.
+     *
+     * @param   percentile      Percentile from zero to one (ex: 0.99).
+     *
+     * @return  Upper bound of the percentile's bucket in microseconds, capped
+     *          at the max, or zero if nothing has been recorded.
+     */
+    public long getPercentile(double percentile) {
+        return getPercentiles(percentile)[0];
+    }
+
+    /**
+     * Gets latency percentiles from a single snapshot of the buckets.
+     *
+     * @see #getPercentile(double)
+     */
+    public long[] getPercentiles(double... percentiles) {
+        long[] result = new long[percentiles.length];
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+
+        if (total == 0) {
+            return result;
+        }
+
+        long maxValue = max.get();
+
+        for (int p = 0; p < percentiles.length; p++) {
+            long target = Math.max(1, (long) Math.ceil(percentiles[p] * total));
+            long cumulative = 0;
+
+            for (int i = 0; i < BUCKETS; i++) {
+                cumulative += snapshot[i];
+
+                if (cumulative >= target) {
+                    result[p] = Math.min(getUpperBound(i), maxValue);
+
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets bucket index for a value.  Values above the max are in the last bucket.
+     */
+    static int getBucket(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) Math.max(value, 0);
+        } else if (value > MAX_VALUE) {
+            return BUCKETS - 1;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return LINEAR_BUCKETS + ((exponent - MIN_EXPONENT) * SUB_BUCKETS) + subBucket;
+    }
+
+    /**
+     * Gets largest value in a bucket.
+     */
+    static long getUpperBound(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = MIN_EXPONENT + ((bucket - LINEAR_BUCKETS) / SUB_BUCKETS);
+        int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+
+        return ((long) (SUB_BUCKETS + subBucket) << shift) + (1L << shift) - 1;
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.metrics.handler;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springbyexample.mvc.method.annotation.ServiceHandlerMethod;
+import org.springbyexample.mvc.metrics.EndpointMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.Assert;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+
+/**
+ * Records the latency, status, and response size of each REST service request
+ * under its HTTP method and best matching mapping pattern.
+ *
+ * <p>Latency covers the handler, other interceptors, and rendering the view.
+ * The response size is only known if the view sets a <code>Content-Length</code>.
+ * Requests to other handlers, like the metrics endpoint, aren't recorded.</p>
+ *
+ * @author David Winterfeldt
+ */
+public class EndpointMetricsHandlerInterceptor extends HandlerInterceptorAdapter {
+
+    private final static String START_ATTRIBUTE = EndpointMetricsHandlerInterceptor.class.getName() + ".start";
+
+    private final static String SUFFIX_PATTERN = ".*";
+
+    private final EndpointMetrics endpointMetrics;
+
+    public EndpointMetricsHandlerInterceptor(EndpointMetrics endpointMetrics) {
+        Assert.notNull(endpointMetrics, "Endpoint metrics must not be null.");
+
+        this.endpointMetrics = endpointMetrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (handler instanceof ServiceHandlerMethod) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex)
+            throws Exception {
+        Long start = (Long) request.getAttribute(START_ATTRIBUTE);
+
+        if (start == null) {
+            return;
+        }
+
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+        // suffix pattern matches (ex: '.json') are recorded under the registered pattern
+        if (pattern != null && pattern.endsWith(SUFFIX_PATTERN)) {
+            pattern = pattern.substring(0, (pattern.length() - SUFFIX_PATTERN.length()));
+        }
+
+        endpointMetrics.record(request.getMethod(), pattern, micros, response.getStatus(), (ex != null),
+                               getResponseSize(response));
+    }
+
+    /**
+     * Gets response size from the <code>Content-Length</code> header.
+     *
+     * @return  The size or -1 if it isn't set.
+     */
+    private long getResponseSize(HttpServletResponse response) {
+        String contentLength = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+
+        if (contentLength != null) {
+            try {
+                return Long.parseLong(contentLength);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+}
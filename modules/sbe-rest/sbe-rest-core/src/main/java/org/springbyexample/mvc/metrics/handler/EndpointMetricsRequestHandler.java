@@ -0,0 +1,53 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.metrics.handler;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springbyexample.mvc.metrics.EndpointMetrics;
+import org.springframework.util.Assert;
+import org.springframework.web.HttpRequestHandler;
+
+
+/**
+ * Writes endpoint statistics in a plain text format for scraping.
+ *
+ * @author David Winterfeldt
+ */
+public class EndpointMetricsRequestHandler implements HttpRequestHandler {
+
+    private final EndpointMetrics endpointMetrics;
+
+    public EndpointMetricsRequestHandler(EndpointMetrics endpointMetrics) {
+        Assert.notNull(endpointMetrics, "Endpoint metrics must not be null.");
+
+        this.endpointMetrics = endpointMetrics;
+    }
+
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        response.setContentType(EndpointMetrics.TEXT_CONTENT_TYPE);
+        response.setHeader("Cache-Control", "no-cache");
+
+        endpointMetrics.writeText(response.getWriter());
+    }
+
+}
@@ -15,11 +15,40 @@
  */
 package org.springbyexample.mvc.rest.client.factory;
 
+import java.io.UnsupportedEncodingException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriTemplate;
+import org.springframework.web.util.UriUtils;
 
 
 /**
  * Client request handler information.
+ * 
+ * <p>Acts as a precompiled invocation plan for a client method.  
+ * The method's parameter annotations are resolved once into the index 
+ * of the argument bound to each URI template variable and the index 
+ * of the request body, and the URI template is parsed once from 
+ * the full URL.  An invocation only fills an array of 
+ * URI variables and expands the template.</p>
+ *
+ * <p>A <code>RequestParam</code> bound to a <code>Collection</code> or array 
+ * is sent as a repeated request param with one value per element.  
+ * A required one can't be empty, since the request would otherwise 
+ * match a mapping without the param.</p>
  *
  * @author David Winterfeldt
  */
@@ -28,11 +57,111 @@ public class ClientRequestHandlerInfo {
     private final String pattern;
     private final Class<?> responseClazz;
     private final RequestMethod method;
+    private final String url;
+    private final UriTemplate uriTemplate;
+    private final int[] uriVariableArgIndexes;
+    private final int requestBodyArgIndex;
+    private final String[] multiValueParamNames;
+    private final int[] multiValueParamArgIndexes;
+    private final boolean[] multiValueParamRequired;
+    private final int argCount;
+    private final boolean async;
 
-    public ClientRequestHandlerInfo(String pattern, Class<?> responseClazz, RequestMethod method) {
+    /**
+     * Constructor.
+     * 
+     * @param   pattern             URI pattern relative to the API path.
+     * @param   responseClazz       Response class.
+     * @param   method              Request method.
+     * @param   url                 Full URL template (base URL, API path, and pattern).
+     * @param   clientMethod        Client interface method to bind arguments from.  
+     *                              May be <code>null</code> if the method doesn't have any parameters.
+     * @param   async               Whether or not the method returns a <code>Future</code> of the response.
+     */
+    public ClientRequestHandlerInfo(String pattern, Class<?> responseClazz, RequestMethod method,
+                                    String url, Method clientMethod, boolean async) {
         this.pattern = pattern;
+        this.async = async;
         this.responseClazz = responseClazz;
         this.method = method;
+        this.url = url;
+
+        Annotation[][] paramAnnotations = (clientMethod != null ? clientMethod.getParameterAnnotations() : new Annotation[0][]);
+        Class<?>[] paramTypes = (clientMethod != null ? clientMethod.getParameterTypes() : new Class<?>[0]);
+        String[] argNames = new String[paramAnnotations.length];
+        List<String> lMultiValueParamNames = new ArrayList<String>();
+        List<Integer> lMultiValueParamArgIndexes = new ArrayList<Integer>();
+        List<Boolean> lMultiValueParamRequired = new ArrayList<Boolean>();
+        int bodyIndex = -1;
+
+        for (int i = 0; i < paramAnnotations.length; i++) {
+            Annotation[] annotations = paramAnnotations[i];
+
+            // expecting just one method param annotation
+            Assert.notEmpty(annotations, "Must be just one annotation on the method param.");
+
+            Annotation annotation = annotations[0];
+
+            Assert.isTrue(((annotation instanceof PathVariable) || (annotation instanceof RequestParam) ||
+                           (annotation instanceof RequestBody)),
+                          "Method param annotation must be PathVariable || RequestParam || RequestBody.");
+
+            if (annotation instanceof PathVariable) {
+                argNames[i] = ((PathVariable) annotation).value();
+            } else if (annotation instanceof RequestParam) {
+                if (Collection.class.isAssignableFrom(paramTypes[i]) || paramTypes[i].isArray()) {
+                    lMultiValueParamNames.add(((RequestParam) annotation).value());
+                    lMultiValueParamArgIndexes.add(i);
+                    lMultiValueParamRequired.add(((RequestParam) annotation).required());
+                } else {
+                    argNames[i] = ((RequestParam) annotation).value();
+                }
+            } else {
+                bodyIndex = i;
+            }
+        }
+
+        multiValueParamNames = lMultiValueParamNames.toArray(new String[lMultiValueParamNames.size()]);
+        multiValueParamArgIndexes = new int[lMultiValueParamArgIndexes.size()];
+        multiValueParamRequired = new boolean[lMultiValueParamRequired.size()];
+
+        for (int i = 0; i < multiValueParamArgIndexes.length; i++) {
+            multiValueParamArgIndexes[i] = lMultiValueParamArgIndexes.get(i);
+            multiValueParamRequired[i] = lMultiValueParamRequired.get(i);
+        }
+
+        // multi-value params are added on expansion, so remove their single value template variable
+        if (multiValueParamNames.length > 0) {
+            UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(url);
+
+            for (String name : multiValueParamNames) {
+                builder.replaceQueryParam(name);
+            }
+
+            this.uriTemplate = new UriTemplate(builder.build().toUriString());
+        } else {
+            this.uriTemplate = new UriTemplate(url);
+        }
+
+        List<String> variableNames = uriTemplate.getVariableNames();
+
+        // a template variable may appear more than once, so bind each occurrence
+        uriVariableArgIndexes = new int[variableNames.size()];
+
+        for (int i = 0; i < variableNames.size(); i++) {
+            uriVariableArgIndexes[i] = -1;
+
+            for (int j = 0; j < argNames.length; j++) {
+                if (variableNames.get(i).equals(argNames[j])) {
+                    uriVariableArgIndexes[i] = j;
+
+                    break;
+                }
+            }
+        }
+
+        this.requestBodyArgIndex = bodyIndex;
+        this.argCount = paramAnnotations.length;
     }
 
     /**
@@ -55,5 +184,98 @@ public class ClientRequestHandlerInfo {
     public RequestMethod getMethod() {
         return method;
     }
+
+    /**
+     * Whether or not the request is sent asynchronously 
+     * and a <code>ListenableFuture</code> of the response is returned.
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Gets full URL template.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Whether or not the URI template has variables.
+     */
+    public boolean hasUriVariables() {
+        return (uriVariableArgIndexes.length > 0 || multiValueParamNames.length > 0);
+    }
+
+    /**
+     * Creates the request URI by expanding the URI template 
+     * with the invocation's arguments.
+     * 
+     * @throws  IllegalArgumentException    If a required multi-value param argument is <code>null</code> or empty.
+     */
+    public URI expand(Object[] args) {
+        Assert.isTrue(((args != null ? args.length : 0) == argCount),
+                      "Args and method param annotation length must match.");
+
+        Object[] uriVariables = new Object[uriVariableArgIndexes.length];
+
+        for (int i = 0; i < uriVariableArgIndexes.length; i++) {
+            int index = uriVariableArgIndexes[i];
+
+            if (index >= 0) {
+                uriVariables[i] = args[index];
+            }
+        }
+
+        URI result = uriTemplate.expand(uriVariables);
+
+        if (multiValueParamNames.length > 0) {
+            result = appendMultiValueParams(result, args);
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the request body from the invocation's arguments.
+     * 
+     * @return  The request body or <code>null</code> if there isn't one.
+     */
+    public Object getRequestBody(Object[] args) {
+        return (requestBodyArgIndex >= 0 ? args[requestBodyArgIndex] : null);
+    }
+ 
+    /**
+     * Appends a request param for each element of a multi-value param argument.
+     */
+    private URI appendMultiValueParams(URI uri, Object[] args) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUri(uri);
+
+        try {
+            for (int i = 0; i < multiValueParamNames.length; i++) {
+                Collection<?> values = getValues(args[multiValueParamArgIndexes[i]]);
+
+                Assert.isTrue((!multiValueParamRequired[i] || !values.isEmpty()),
+                              "Required request param '" + multiValueParamNames[i] + "' must not be empty.");
+
+                for (Object value : values) {
+                    builder.queryParam(multiValueParamNames[i],
+                                       UriUtils.encodeQueryParam(ObjectUtils.nullSafeToString(value), "UTF-8"));
+                }
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+
+        // values are already encoded
+        return builder.build(true).toUri();
+    }
+
+    /**
+     * Gets the values of a multi-value param argument.
+     */
+    private Collection<?> getValues(Object arg) {
+        return (arg instanceof Collection ? (Collection<?>) arg : CollectionUtils.arrayToList(arg));
+    }
  
 }
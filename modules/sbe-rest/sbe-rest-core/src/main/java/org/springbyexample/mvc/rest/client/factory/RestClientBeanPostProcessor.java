@@ -15,13 +15,14 @@
  */
 package org.springbyexample.mvc.rest.client.factory;
 
-import java.util.Collection;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springbyexample.mvc.bind.annotation.RestResource;
+import org.springbyexample.mvc.method.annotation.RestResourceIndex;
 import org.springbyexample.mvc.method.annotation.RestServiceComponentProvider;
+import org.springbyexample.mvc.method.annotation.RestServiceUtils;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.MutablePropertyValues;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -39,6 +40,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
  * {@link RequestMapping @RequestMapping} annotations in
  * {@link @RestResource @RestResource} classes.
  *
+ * <p>Interfaces are read from the {@link RestResourceIndex} written at compile time,
+ * and a base package missing from the index is scanned.</p>
+ *
  * @author David Winterfeldt
  */
 public class RestClientBeanPostProcessor implements BeanDefinitionRegistryPostProcessor {
@@ -51,6 +55,7 @@ public class RestClientBeanPostProcessor implements BeanDefinitionRegistryPostPr
     
     private List<String> basePackages;
     private RestServiceComponentProvider scanner;
+    private boolean useIndex = true;
 
     /**
      * Sets marshalling service suffix.
@@ -87,26 +92,24 @@ public class RestClientBeanPostProcessor implements BeanDefinitionRegistryPostPr
         this.scanner = scanner;
     }
 
+    /**
+     * Sets whether or not to use the compile time <code>RestResource</code> index
+     * instead of scanning base packages.  Default is <code>true</code>.
+     */
+    public void setUseIndex(boolean useIndex) {
+        this.useIndex = useIndex;
+    }
+
     @Override
     public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
     }
 
     @Override
     public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+        RestResourceIndex index = (useIndex ? RestResourceIndex.load(ClassUtils.getDefaultClassLoader()) : null);
+
         for (String basePackage : basePackages) {
-            Collection<BeanDefinition> components = scanner.findCandidateComponents(basePackage);
-            
-            for (final BeanDefinition definition : components) {
-                final Class<?> marshallingServiceClass;
-                
-                try {
-                    marshallingServiceClass = ClassUtils.forName(definition.getBeanClassName(), ClassUtils.getDefaultClassLoader());
-                } catch (ClassNotFoundException e) {
-                    throw new RuntimeException("Error loading interface class.", e);
-                } catch (LinkageError e) {
-                    throw new RuntimeException("Error loading interface class.", e);
-                }
-                
+            for (Class<?> marshallingServiceClass : RestServiceUtils.findRestServiceInterfaces(scanner, index, basePackage)) {
                 RestResource restResource = AnnotationUtils.findAnnotation(marshallingServiceClass, RestResource.class);
 
                 if (restResource.exportClient()) {
@@ -147,6 +150,7 @@ public class RestClientBeanPostProcessor implements BeanDefinitionRegistryPostPr
 
         MutablePropertyValues values = new MutablePropertyValues();
         values.addPropertyValue("marshallingServiceClass", marshallingServiceClass);
+        values.addPropertyValue("useIndex", useIndex);
         
         factoryBeanDefinition.setPropertyValues(values);
         
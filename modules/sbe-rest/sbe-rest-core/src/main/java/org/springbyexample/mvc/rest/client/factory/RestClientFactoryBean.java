@@ -16,33 +16,42 @@
 package org.springbyexample.mvc.rest.client.factory;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springbyexample.mvc.bind.annotation.RestRequestResource;
 import org.springbyexample.mvc.bind.annotation.RestResource;
+import org.springbyexample.mvc.method.annotation.RestResourceIndex;
+import org.springbyexample.mvc.method.annotation.RestServiceUtils;
 import org.springbyexample.mvc.rest.client.RestClient;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.ReflectionUtils.MethodFilter;
 import org.springframework.util.StringUtils;
+import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
-import org.springframework.web.method.HandlerMethodSelector;
 
 
 /**
  * Creates a REST client bean instances from type and method-level
  * {@link RequestMapping @RequestMapping} annotations in
  * {@link @RestResource @RestResource} classes.
+ * 
+ * <p>Methods returning a <code>Future</code> or <code>ListenableFuture</code> 
+ * of the response are sent with the {@link RestClient}'s 
+ * <code>AsyncRestTemplate</code> and return immediately.</p>
  *
  * @author David Winterfeldt
  */
@@ -52,6 +61,7 @@ public class RestClientFactoryBean {
 
     private final RestClient client;
     private Class<?> marshallingServiceClass;
+    private boolean useIndex = true;
 
     private Object bean;
 
@@ -64,6 +74,14 @@ public class RestClientFactoryBean {
         this.marshallingServiceClass = marshallingServiceClass;
     }
 
+    /**
+     * Sets whether or not to read request mapped methods from the compile time
+     * <code>RestResource</code> index.  Default is <code>true</code>.
+     */
+    public void setUseIndex(boolean useIndex) {
+        this.useIndex = useIndex;
+    }
+
     public Object getBean() throws BeansException {
         logger.info("########## {} ######", marshallingServiceClass);
 
@@ -73,7 +91,9 @@ public class RestClientFactoryBean {
 
             Map<Method, ClientRequestHandlerInfo> methodRequestHandlers = new HashMap<Method, ClientRequestHandlerInfo>();
 
-            Set<Method> methods = HandlerMethodSelector.selectMethods(marshallingServiceClass, new MethodFilter() {
+            RestResourceIndex index = (useIndex ? RestResourceIndex.load(marshallingServiceClass.getClassLoader()) : null);
+
+            Set<Method> methods = RestServiceUtils.selectMethods(marshallingServiceClass, index, new MethodFilter() {
                 @Override
                 public boolean matches(Method method) {
                     return (AnnotationUtils.findAnnotation(method, RequestMapping.class) != null);
@@ -83,6 +103,20 @@ public class RestClientFactoryBean {
             for (Method interfaceMethod : methods) {
                 Method method = BridgeMethodResolver.findBridgedMethod(interfaceMethod);
                 Class<?> responseClazz = method.getReturnType();
+                boolean async = Future.class.isAssignableFrom(responseClazz);
+
+                if (async) {
+                    if (!responseClazz.isAssignableFrom(ListenableFuture.class)) {
+                        throw new IllegalStateException("Async method '" + method + "' must return a Future or ListenableFuture.");
+                    }
+
+                    if (client.getAsyncRestTemplate() == null) {
+                        throw new IllegalStateException("Async method '" + method + "' requires an AsyncRestTemplate on the RestClient.");
+                    }
+
+                    // response is the future's type argument
+                    responseClazz = ResolvableType.forMethodReturnType(method, marshallingServiceClass).getGeneric(0).resolve(Object.class);
+                }
 
                 RequestMapping requestMapping = AnnotationUtils.findAnnotation(method, RequestMapping.class);
                 RestRequestResource restRequestResource = AnnotationUtils.findAnnotation(method, RestRequestResource.class);
@@ -143,14 +177,19 @@ public class RestClientFactoryBean {
 
                     if (RequestMethod.POST.equals(requestMethod) || RequestMethod.PUT.equals(requestMethod)
                             || RequestMethod.DELETE.equals(requestMethod)) {
-                        responseClazz = restResource.responseClass();
+                        // bulk methods return a find response, use it if the interface's type argument resolves it
+                        Class<?> resolvedClazz = ResolvableType.forMethodReturnType(method, marshallingServiceClass).resolve();
+
+                        responseClazz = (!async && isConcrete(resolvedClazz) ? resolvedClazz : restResource.responseClass());
                     }
 //                    else if (RequestMethod.DELETE.equals(requestMethod)) {
 //                        responseClazz = ResponseResult.class;
 //                    }
 
+                    // resolve the full URL and argument bindings once instead of on every call
                     ClientRequestHandlerInfo clientRequestHandlerInfo =
-                            new ClientRequestHandlerInfo(uri.toString(), responseClazz, requestMethod);
+                            new ClientRequestHandlerInfo(uri.toString(), responseClazz, requestMethod,
+                                                         client.createUrl(uri.toString()), method, async);
 
                     methodRequestHandlers.put(method, clientRequestHandlerInfo);
                 } else {
@@ -166,4 +205,11 @@ public class RestClientFactoryBean {
         return bean;
     }
 
+    /**
+     * Whether or not a class can be instantiated as a response.
+     */
+    private boolean isConcrete(Class<?> clazz) {
+        return (clazz != null && !clazz.isInterface() && !Modifier.isAbstract(clazz.getModifiers()));
+    }
+
 }
@@ -16,11 +16,10 @@
 package org.springbyexample.mvc.rest.client.factory;
 
 import java.io.IOException;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.net.URI;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -31,19 +30,26 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.ClientHttpRequest;
 import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.util.Assert;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureAdapter;
 import org.springframework.web.bind.annotation.RequestMethod;
-import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.RestClientException;
 
 
 /**
  * REST client <code>InvocationHandler</code>.
+ * 
+ * <p>Each method's {@link ClientRequestHandlerInfo} is compiled once 
+ * by the {@link RestClientFactoryBean}, so an invocation only looks up 
+ * the plan, expands the URI, and dispatches to the <code>RestTemplate</code>.</p>
+ *
+ * <p>If a required request param is bound to an empty collection or array, 
+ * an <code>IllegalArgumentException</code> is thrown and no request is sent.</p>
  *
  * @author David Winterfeldt
  */
@@ -70,73 +76,73 @@ public class RestClientInvocationHandler implements InvocationHandler {
         }
 
         ClientRequestHandlerInfo clientRequestHandlerInfo = methodRequestHandlers.get(method);
-        RequestMethod httpMethod = clientRequestHandlerInfo.getMethod();
-
-        String uri = client.createUrl(clientRequestHandlerInfo.getPattern());
-        Map<String, Object> urlVariables = new HashMap<String, Object>();
-        Object request = null;
-
-        if (args != null && args.length > 0) {
-            Assert.isTrue((args.length ==  method.getParameterAnnotations().length),
-                          "Args and method param annotation length must match.");
 
-            for (int i = 0; i < method.getParameterAnnotations().length; i++) {
-                Annotation[] annotations = method.getParameterAnnotations()[i];
-
-                // expecting just one method param annotation
-//                if (!RequestMethod.DELETE.equals(httpMethod)) {
-                    Assert.notEmpty(annotations, "Must be just one annotation on the method param.");
-//                }
-
-                Annotation annotation = (annotations.length > 0 ? annotations[0] : null);
-
-//                if (!RequestMethod.DELETE.equals(httpMethod)) {
-                    Assert.isTrue(((annotation instanceof PathVariable) || (annotation instanceof RequestParam) ||
-                                   (annotation instanceof RequestBody)),
-                                  "Method param annotation must be PathVariable || RequestParam || RequestBody.");
-//                }
+        if (clientRequestHandlerInfo == null) {
+            throw new UnsupportedOperationException("Method '" + method.getName() + "' is not exported by the REST client.");
+        }
 
-                String key = null;
+        RequestMethod httpMethod = clientRequestHandlerInfo.getMethod();
+        Class<?> responseClazz = clientRequestHandlerInfo.getResponseClazz();
 
-                if (annotation instanceof PathVariable) {
-                    key = ((PathVariable) annotation).value();
-                } else if (annotation instanceof RequestParam) {
-                    key = ((RequestParam) annotation).value();
-                } else {
-                    request = args[i];
-                }
+        URI uri = clientRequestHandlerInfo.expand(args);
+        Object request = (args != null ? clientRequestHandlerInfo.getRequestBody(args) : null);
 
-                // might be null if RequestBody
-                if (key != null) {
-                    urlVariables.put(key, args[i]);
-                }
-            }
+        if (logger.isDebugEnabled()) {
+            logger.debug("REST client call. url='{}'  httpMethod={}", uri, httpMethod);
         }
 
-        logger.debug("REST client call. url='{}'  httpMethod={}", uri, httpMethod);
-
-        Class<?> responseClazz = clientRequestHandlerInfo.getResponseClazz();
+        if (clientRequestHandlerInfo.isAsync()) {
+            return invokeAsync(httpMethod, uri, request, responseClazz);
+        }
 
         switch (httpMethod) {
             case POST: {
-                return client.getRestTemplate().postForObject(uri, request, responseClazz, urlVariables);
+                return client.getRestTemplate().postForObject(uri, request, responseClazz);
             } case PUT: {
-                return client.getRestTemplate().exchange(uri, HttpMethod.PUT, new HttpEntity(request), responseClazz, urlVariables).getBody();
+                return client.getRestTemplate().exchange(uri, HttpMethod.PUT, new HttpEntity(request), responseClazz).getBody();
             } case DELETE: {
-                return client.getRestTemplate().exchange(uri, HttpMethod.DELETE, new HttpEntity(request), responseClazz, urlVariables).getBody();
+                return client.getRestTemplate().exchange(uri, HttpMethod.DELETE, new HttpEntity(request), responseClazz).getBody();
 
 //                HttpEntityRequestCallback requestCallback = new HttpEntityRequestCallback(request, responseClazz);
 //                HttpMessageConverterExtractor<ResponseResult> responseExtractor =
 //                                new HttpMessageConverterExtractor<ResponseResult>(responseClazz, client.getRestTemplate().getMessageConverters());
 //                return client.getRestTemplate().execute(uri, HttpMethod.DELETE, requestCallback, responseExtractor, urlVariables);
             } default: {
-                if (urlVariables.isEmpty()) {
-                    return client.getRestTemplate().getForObject(uri, responseClazz);
-                } else {
-                    return client.getRestTemplate().getForObject(uri, responseClazz, urlVariables);
-                }
+                return client.getRestTemplate().getForObject(uri, responseClazz);
+            }
+        }
+    }
+
+    /**
+     * Sends the request with the async rest template and 
+     * returns a future of the response body.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private ListenableFuture<?> invokeAsync(RequestMethod httpMethod, URI uri, Object request, Class<?> responseClazz) {
+        AsyncRestTemplate template = client.getAsyncRestTemplate();
+        ListenableFuture future = null;
+
+        switch (httpMethod) {
+            case POST: {
+                future = template.postForEntity(uri, new HttpEntity(request), responseClazz);
+                break;
+            } case PUT: {
+                future = template.exchange(uri, HttpMethod.PUT, new HttpEntity(request), responseClazz);
+                break;
+            } case DELETE: {
+                future = template.exchange(uri, HttpMethod.DELETE, new HttpEntity(request), responseClazz);
+                break;
+            } default: {
+                future = template.getForEntity(uri, responseClazz);
             }
         }
+
+        return new ListenableFutureAdapter<Object, ResponseEntity>(future) {
+            @Override
+            protected Object adapt(ResponseEntity response) {
+                return response.getBody();
+            }
+        };
     }
 
     /**
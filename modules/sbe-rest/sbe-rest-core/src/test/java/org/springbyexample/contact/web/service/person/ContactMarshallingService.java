@@ -25,6 +25,7 @@ import org.springbyexample.mvc.rest.service.PersistenceMarshallingService;
 import org.springbyexample.schema.beans.person.Person;
 import org.springbyexample.schema.beans.person.PersonFindResponse;
 import org.springbyexample.schema.beans.person.PersonResponse;
+import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -66,4 +67,8 @@ public interface ContactMarshallingService extends PersistenceMarshallingService
     @RestRequestResource(methodName="findByLastName", converter=SmallContactConverter.class)
     public PersonFindResponse smallFindByLastName(@RequestParam(LAST_NAME_VAR) String lastName);
 
+    @RequestMapping(value = FIND_BY_ID_URI, method = RequestMethod.GET)
+    @RestRequestResource(methodName="findById")
+    public ListenableFuture<PersonResponse> findByIdAsync(@PathVariable(ID_VAR) Integer id);
+
 }
@@ -18,19 +18,40 @@ package org.springbyexample.contact.web.service.person;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.springbyexample.contact.test.constants.person.PersonTestConstants.FIRST_NAME;
 import static org.springbyexample.contact.test.constants.person.PersonTestConstants.LAST_NAME;
 import static org.springbyexample.contact.test.constants.person.PersonTestConstants.NEW_LAST_NAME;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.junit.Test;
+import org.springbyexample.mvc.json.CachingJackson2HttpMessageConverter;
+import org.springbyexample.mvc.json.SmileObjectMapper;
+import org.springbyexample.mvc.rest.client.ContentEncodingRequestInterceptor;
+import org.springbyexample.mvc.rest.client.ResponseCacheRequestInterceptor;
+import org.springbyexample.mvc.rest.client.RestClient;
 import org.springbyexample.mvc.rest.service.PersistenceMarshallingService;
 import org.springbyexample.schema.beans.person.Person;
 import org.springbyexample.schema.beans.person.PersonFindResponse;
 import org.springbyexample.schema.beans.person.PersonResponse;
 import org.springbyexample.web.service.AbstractPersistenceControllerTest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
 
 /**
  * Tests contact marshalling client through the embedded REST service 
@@ -43,6 +64,9 @@ public class ContactMarshallingServiceTest extends AbstractPersistenceController
     @Autowired
     private ContactMarshallingService client = null;
     
+    @Autowired
+    private RestClient restClient = null;
+    
     public ContactMarshallingServiceTest() {
         super(1, 3);
     }
@@ -52,6 +76,11 @@ public class ContactMarshallingServiceTest extends AbstractPersistenceController
         return client;
     }
 
+    @Override
+    protected ListenableFuture<PersonResponse> findByIdAsync(int id) {
+        return client.findByIdAsync(id);
+    }
+
     @Override
     protected Person generateCreateRequest() {
         return new Person().withFirstName(FIRST_NAME).withLastName(LAST_NAME);
@@ -143,6 +172,61 @@ public class ContactMarshallingServiceTest extends AbstractPersistenceController
         verifySmallRecord(response.getResults(), false);
     }
 
+    @Test
+    public void testConditionalFindById() {
+        ResponseCacheRequestInterceptor responseCache = restClient.getResponseCache();
+        assertNotNull("Response cache is null.", responseCache);
+        
+        long notModifiedCount = responseCache.getNotModifiedCount();
+        
+        verifyRecord(client.findById(id).getResults());
+        
+        // unchanged record is revalidated with the cached ETag
+        PersonResponse response = client.findById(id);
+        
+        assertNotNull("Response is null.", response);
+        verifyRecord(response.getResults());
+        
+        assertTrue("Second request should be not modified.", (responseCache.getNotModifiedCount() > notModifiedCount));
+    }
+
+    @Test
+    public void testBulk() {
+        int size = 3;
+        PersonFindResponse request = new PersonFindResponse();
+        
+        for (int i = 0; i < size; i++) {
+            request.withResults(generateCreateRequest());
+        }
+        
+        PersonFindResponse response = client.createAll(request);
+        assertNotNull("Response is null.", response);
+        assertEquals("Number of results should be " + size + ".", size, response.getResults().size());
+        
+        List<Integer> ids = new ArrayList<Integer>();
+        
+        for (Person person : response.getResults()) {
+            verifyRecord(person, true);
+            
+            ids.add(person.getId());
+            generateUpdateRequest(person);
+        }
+        
+        response = client.updateAll(response);
+        assertNotNull("Response is null.", response);
+        assertEquals("Number of results should be " + size + ".", size, response.getResults().size());
+        
+        for (Person person : response.getResults()) {
+            verifyRecord(person, true, true);
+        }
+        
+        response = client.deleteAll(response);
+        assertNotNull("Response is null.", response);
+        assertEquals("Number of results should be " + size + ".", size, response.getResults().size());
+        
+        assertTrue("Results should be empty after delete.", client.findByIds(ids).getResults().isEmpty());
+    }
+
     @Test
     public void testSmallPaginatedFind() {
         int page = 0;
@@ -157,6 +241,74 @@ public class ContactMarshallingServiceTest extends AbstractPersistenceController
         verifySmallRecord(response.getResults().get(0), false);
     }
 
+    @Test
+    public void testContentEncoding() {
+        ContentEncodingRequestInterceptor contentEncoding = restClient.getContentEncoding();
+        assertNotNull("Content encoding is null.", contentEncoding);
+        
+        // a cached response would be revalidated without a body
+        restClient.getResponseCache().clear();
+        
+        long decodedCount = contentEncoding.getDecodedCount();
+        
+        PersonFindResponse response = client.find();
+        assertNotNull("Response is null.", response);
+        assertNotNull("Response results is null.", response.getResults());
+        assertTrue("Response results are empty.", !response.getResults().isEmpty());
+        
+        assertTrue("Response should be compressed.", (contentEncoding.getDecodedCount() > decodedCount));
+    }
+
+    @Test
+    public void testSmile() {
+        ObjectMapper objectMapper = new SmileObjectMapper().registerModule(new JodaModule());
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        
+        CachingJackson2HttpMessageConverter converter = new CachingJackson2HttpMessageConverter(objectMapper);
+        converter.setSupportedMediaTypes(Collections.singletonList(MediaType.valueOf(SmileObjectMapper.MEDIA_TYPE)));
+        
+        RestTemplate restTemplate = new RestTemplate(restClient.getRestTemplate().getRequestFactory());
+        restTemplate.setMessageConverters(Collections.<HttpMessageConverter<?>>singletonList(converter));
+        
+        PersonResponse response = restTemplate.getForObject(
+                restClient.createUrl(ContactMarshallingService.PATH + ContactMarshallingService.FIND_BY_ID_URI), 
+                PersonResponse.class, id);
+        
+        assertNotNull("Response is null.", response);
+        verifyRecord(response.getResults());
+    }
+
+    @Test
+    public void testEndpointMetrics() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertNotNull("Response is null.", client.findById(id));
+        }
+
+        RestTemplate restTemplate = new RestTemplate(restClient.getRestTemplate().getRequestFactory());
+        String metrics = restTemplate.getForObject(restClient.createUrl("/metrics"), String.class);
+
+        String label = "{method=\"GET\",pattern=\"" + ContactMarshallingService.PATH + ContactMarshallingService.FIND_BY_ID_URI + "\"}";
+
+        logger.debug(metrics);
+
+        assertTrue("Missing request count.", metrics.contains("sbe_rest_requests_total" + label));
+        assertTrue("Missing latency count.", metrics.contains("sbe_rest_latency_seconds_count" + label));
+        assertTrue("Missing max latency.", metrics.contains("sbe_rest_latency_max_seconds" + label));
+
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> names = mbeanServer.queryNames(new ObjectName("*:type=EndpointMetrics,*"), null);
+
+        assertTrue("Endpoint metrics not exported to JMX.", !names.isEmpty());
+
+        ObjectName name = names.iterator().next();
+
+        assertTrue("Requests weren't recorded.", ((Long) mbeanServer.getAttribute(name, "TotalRequests")) >= 3);
+
+        for (String summary : (String[]) mbeanServer.getAttribute(name, "EndpointSummary")) {
+            logger.info(summary);
+        }
+    }
+
 //    @Override
 //    public void testDeletePk() {}
     
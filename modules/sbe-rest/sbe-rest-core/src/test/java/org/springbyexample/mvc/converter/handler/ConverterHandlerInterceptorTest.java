@@ -0,0 +1,99 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.converter.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.Method;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+import org.springbyexample.contact.converter.person.SmallContactConverter;
+import org.springbyexample.converter.ListConverter;
+import org.springbyexample.schema.beans.person.Person;
+import org.springbyexample.schema.beans.person.PersonFindResponse;
+import org.springbyexample.schema.beans.person.PersonResponse;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Tests converter handler interceptor.
+ * 
+ * @author David Winterfeldt
+ */
+public class ConverterHandlerInterceptorTest {
+
+    @Test
+    public void testModelKeyLookup() throws Exception {
+        ConverterHandlerInterceptor interceptor = createInterceptor(PersonResponse.class, "personResponse", new SmallContactConverter());
+
+        ModelAndView modelAndView = new ModelAndView();
+        modelAndView.addObject("personResponse", new PersonResponse().withResults(createPerson()));
+
+        interceptor.postHandle(null, null, null, modelAndView);
+
+        verifySmallPerson(((PersonResponse) modelAndView.getModel().get("personResponse")).getResults());
+    }
+
+    @Test
+    public void testModelScan() throws Exception {
+        ConverterHandlerInterceptor interceptor = createInterceptor(PersonFindResponse.class, "missing", new SmallContactConverter());
+
+        ModelAndView modelAndView = new ModelAndView();
+        modelAndView.addObject("status", "ok");
+        modelAndView.addObject("personFindResponse", new PersonFindResponse().withResults(createPerson(), createPerson()));
+
+        interceptor.postHandle(null, null, null, modelAndView);
+
+        PersonFindResponse response = (PersonFindResponse) modelAndView.getModel().get("personFindResponse");
+
+        assertEquals("results", 2, response.getResults().size());
+
+        for (Person person : response.getResults()) {
+            verifySmallPerson(person);
+        }
+    }
+
+    private ConverterHandlerInterceptor createInterceptor(Class<?> returnTypeClass, String modelKey,
+                                                          @SuppressWarnings("rawtypes") ListConverter converter) {
+        Method getResultsMethod = ReflectionUtils.findMethod(returnTypeClass, "getResults");
+        Method setResultsMethod = null;
+
+        // getter may be a bridge method, so find setter by name
+        for (Method method : returnTypeClass.getMethods()) {
+            if ("setResults".equals(method.getName())) {
+                setResultsMethod = method;
+            }
+        }
+
+        return new ConverterHandlerInterceptor(converter, returnTypeClass, modelKey, getResultsMethod, setResultsMethod);
+    }
+
+    private Person createPerson() {
+        return new Person().withId(1).withFirstName("Joe").withLastName("Smith")
+                .withCreated(DateTime.now()).withCreateUser("david");
+    }
+
+    private void verifySmallPerson(Person person) {
+        assertNotNull("Person is null.", person);
+        assertEquals("'firstName'", "Joe", person.getFirstName());
+        assertNull("'created' isn't null", person.getCreated());
+        assertNull("'createUser' isn't null", person.getCreateUser());
+    }
+
+}
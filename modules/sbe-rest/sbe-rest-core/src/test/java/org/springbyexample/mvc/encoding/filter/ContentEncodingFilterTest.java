@@ -0,0 +1,101 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.encoding.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.junit.Test;
+import org.springbyexample.mvc.encoding.ContentEncoding;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Tests content encoding filter's response headers.
+ *
+ * @author David Winterfeldt
+ */
+public class ContentEncodingFilterTest {
+
+    private static final String VARY = "Vary";
+
+    private final ContentEncodingFilter filter = new ContentEncodingFilter();
+
+    @Test
+    public void testCompressed() throws Exception {
+        MockHttpServletResponse response = doFilter(ContentEncoding.GZIP.getName(), new byte[2048], -1);
+
+        assertEquals("Content-Encoding", ContentEncoding.GZIP.getName(), response.getHeader(ContentEncoding.CONTENT_ENCODING));
+        assertEquals("Vary", ContentEncoding.ACCEPT_ENCODING, response.getHeader(VARY));
+    }
+
+    @Test
+    public void testWithoutAcceptEncoding() throws Exception {
+        MockHttpServletResponse response = doFilter(null, new byte[2048], -1);
+
+        assertNull("Response shouldn't be encoded.", response.getHeader(ContentEncoding.CONTENT_ENCODING));
+        assertEquals("Response length.", 2048, response.getContentAsByteArray().length);
+        assertEquals("Vary", ContentEncoding.ACCEPT_ENCODING, response.getHeader(VARY));
+    }
+
+    @Test
+    public void testUnderMinSize() throws Exception {
+        byte[] body = new byte[] { 1, 2, 3 };
+        MockHttpServletResponse response = doFilter(ContentEncoding.GZIP.getName(), body, body.length);
+
+        assertNull("Response shouldn't be encoded.", response.getHeader(ContentEncoding.CONTENT_ENCODING));
+        assertEquals("Response body.", Arrays.toString(body), Arrays.toString(response.getContentAsByteArray()));
+        assertEquals("Vary", ContentEncoding.ACCEPT_ENCODING, response.getHeader(VARY));
+    }
+
+    /**
+     * Filters a GET request with a handler writing the body.
+     *
+     * @param   acceptEncoding      Accept encoding header or <code>null</code> for none.
+     * @param   contentLength       Content length the handler sets or -1 for none.
+     */
+    private MockHttpServletResponse doFilter(String acceptEncoding, final byte[] body, final int contentLength)
+            throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/person");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        if (acceptEncoding != null) {
+            request.addHeader(ContentEncoding.ACCEPT_ENCODING, acceptEncoding);
+        }
+
+        filter.doFilter(request, response, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+                if (contentLength >= 0) {
+                    response.setContentLength(contentLength);
+                }
+
+                response.getOutputStream().write(body);
+            }
+        });
+
+        return response;
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.method.annotation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Future;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springbyexample.contact.web.service.person.ContactMarshallingService;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.ReflectionUtils.MethodFilter;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.method.HandlerMethodSelector;
+
+/**
+ * Tests the compile time <code>RestResource</code> index matches scanning.
+ * 
+ * @author David Winterfeldt
+ */
+public class RestResourceIndexTest {
+
+    private static final String BASE_PACKAGE = "org.springbyexample.contact.web.service";
+    private static final String TEST_PACKAGE = "org.springbyexample.index";
+
+    private static final MethodFilter CLIENT_FILTER = new MethodFilter() {
+        @Override
+        public boolean matches(Method method) {
+            return (AnnotationUtils.findAnnotation(method, RequestMapping.class) != null);
+        }
+    };
+
+    private static final MethodFilter HANDLER_FILTER = new MethodFilter() {
+        @Override
+        public boolean matches(Method method) {
+            return (CLIENT_FILTER.matches(method) && !Future.class.isAssignableFrom(method.getReturnType()));
+        }
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testIndexMatchesScan() {
+        RestResourceIndex index = RestResourceIndex.read(ClassUtils.getDefaultClassLoader());
+
+        assertFalse("Index is empty.", index.isEmpty());
+        assertEquals("components", scan(new RestServiceComponentProvider(), BASE_PACKAGE), index.getComponents(BASE_PACKAGE));
+        assertTrue("Unindexed package should be empty.", index.getComponents("org.springbyexample.missing").isEmpty());
+
+        Set<Method> clientMethods = RestServiceUtils.selectMethods(ContactMarshallingService.class, index, CLIENT_FILTER);
+        Set<Method> handlerMethods = RestServiceUtils.selectMethods(ContactMarshallingService.class, index, HANDLER_FILTER);
+
+        assertEquals("client methods", HandlerMethodSelector.selectMethods(ContactMarshallingService.class, CLIENT_FILTER), clientMethods);
+        assertEquals("handler methods", HandlerMethodSelector.selectMethods(ContactMarshallingService.class, HANDLER_FILTER), handlerMethods);
+        assertTrue("Async method should only be a client method.", (clientMethods.size() > handlerMethods.size()));
+
+        assertNull("Unindexed class shouldn't have methods.", index.getMethods(RestResourceIndexTest.class));
+    }
+
+    @Test
+    public void testIgnoreIndex() {
+        System.setProperty(RestResourceIndex.IGNORE_INDEX_PROPERTY, "true");
+
+        try {
+            assertTrue("Index should be ignored.", RestResourceIndex.read(ClassUtils.getDefaultClassLoader()).isEmpty());
+        } finally {
+            System.clearProperty(RestResourceIndex.IGNORE_INDEX_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testHandlerMethods() {
+        for (String basePackage : new String[] { BASE_PACKAGE, "org.springbyexample" }) {
+            int scanned = 0;
+
+            for (String className : scan(new RestServiceComponentProvider(), basePackage)) {
+                scanned += HandlerMethodSelector.selectMethods(ClassUtils.resolveClassName(className, null), HANDLER_FILTER).size();
+            }
+
+            RestResourceIndex index = RestResourceIndex.read(ClassUtils.getDefaultClassLoader());
+            int indexed = 0;
+
+            for (Class<?> clazz : RestServiceUtils.findRestServiceInterfaces(null, index, basePackage)) {
+                indexed += RestServiceUtils.selectMethods(clazz, index, HANDLER_FILTER).size();
+            }
+
+            assertEquals("handler methods", scanned, indexed);
+        }
+    }
+
+    @Test
+    public void testIncrementalCompile() throws Exception {
+        File outputDir = folder.newFolder("classes");
+
+        compile(outputDir, "FirstResource", "FirstResource", "SecondResource");
+
+        // only recompiles one interface, which is no longer a REST resource
+        compile(outputDir, "SecondResource");
+        compile(outputDir, "ThirdResource", "ThirdResource");
+
+        Properties index = new Properties();
+        InputStream in = new FileInputStream(new File(outputDir, RestResourceIndex.INDEX_LOCATION));
+
+        try {
+            index.load(in);
+        } finally {
+            in.close();
+        }
+
+        assertEquals("components", new TreeSet<String>(Arrays.asList(TEST_PACKAGE + ".FirstResource", TEST_PACKAGE + ".ThirdResource")),
+                     new TreeSet<String>(index.stringPropertyNames()));
+        assertEquals("methods", "find(java.lang.Integer)", index.getProperty(TEST_PACKAGE + ".FirstResource"));
+    }
+
+    /**
+     * Compiles interfaces with the index processor into the output directory, 
+     * which is also on the classpath like it would be for an incremental compile.
+     * 
+     * @param   restResources       Names of the compiled interfaces that are REST resources.
+     */
+    private void compile(File outputDir, String name, String... restResources) throws IOException {
+        File source = new File(folder.getRoot(), name + ".java");
+        String annotation = (Arrays.asList(restResources).contains(name) ? 
+                "@org.springbyexample.mvc.bind.annotation.RestResource(service = Object.class, path = \"/\", responseClass = Object.class)\n" : "");
+
+        FileCopyUtils.copy("package " + TEST_PACKAGE + ";\n" + 
+                           annotation + 
+                           "public interface " + name + " {\n" + 
+                           "    @org.springframework.web.bind.annotation.RequestMapping(\"/{id}\")\n" + 
+                           "    public Object find(Integer id);\n" + 
+                           "}\n", new FileWriter(source));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+
+        try {
+            List<String> lOptions = Arrays.asList("-d", outputDir.getPath(), 
+                                                  "-classpath", outputDir.getPath() + File.pathSeparator + System.getProperty("java.class.path"), 
+                                                  "-processor", RestResourceIndexProcessor.class.getName());
+
+            assertTrue("Compile failed.", compiler.getTask(null, fileManager, null, lOptions, null, 
+                                                           fileManager.getJavaFileObjects(source)).call());
+        } finally {
+            fileManager.close();
+        }
+    }
+
+    private List<String> scan(RestServiceComponentProvider scanner, String basePackage) {
+        List<String> result = new ArrayList<String>();
+
+        for (BeanDefinition definition : scanner.findCandidateComponents(basePackage)) {
+            result.add(definition.getBeanClassName());
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests endpoint metrics and their latency histogram.
+ * 
+ * @author David Winterfeldt
+ */
+public class EndpointMetricsTest {
+
+    final Logger logger = LoggerFactory.getLogger(EndpointMetricsTest.class);
+
+    private static final String METHOD = "GET";
+    private static final String PATTERN = "/person/{id}";
+
+    private static final int THREADS = 4;
+    private static final int ITERATIONS = 10000;
+
+    @Test
+    public void testBuckets() {
+        for (long value = 0; value < 100000; value++) {
+            int bucket = LatencyHistogram.getBucket(value);
+
+            assertTrue("Value " + value + " above bucket.", value <= LatencyHistogram.getUpperBound(bucket));
+            assertTrue("Value " + value + " below bucket.", (bucket == 0 || value > LatencyHistogram.getUpperBound(bucket - 1)));
+        }
+
+        assertEquals("last bucket", (LatencyHistogram.BUCKETS - 1), LatencyHistogram.getBucket(Long.MAX_VALUE >> 20));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros);
+        }
+
+        assertEquals("count", 1000, histogram.getCount());
+        assertEquals("max", 1000, histogram.getMax());
+        assertEquals("mean", 500, histogram.getMean());
+
+        verifyPercentile(500, histogram.getPercentile(0.5));
+        verifyPercentile(990, histogram.getPercentile(0.99));
+        assertEquals("p100", 1000, histogram.getPercentile(1));
+        assertEquals("empty", 0, new LatencyHistogram().getPercentile(0.5));
+    }
+
+    @Test
+    public void testRecord() throws Exception {
+        EndpointMetrics metrics = new EndpointMetrics();
+        metrics.register("POST", PATTERN);
+
+        metrics.record(METHOD, PATTERN, 100, 200, false, 1000);
+        metrics.record(METHOD, PATTERN, 200, 404, false, -1);
+        metrics.record(METHOD, PATTERN, 300, 500, false, 3000);
+        metrics.record(METHOD, PATTERN, 400, 200, true, -1);
+
+        EndpointStatistics stats = metrics.getStatistics(METHOD, PATTERN);
+
+        assertEquals("requests", 4, stats.getRequests());
+        assertEquals("errors", 2, stats.getErrors());
+        assertEquals("client errors", 1, stats.getClientErrors());
+        assertEquals("response bytes", 4000, stats.getResponseBytes());
+        assertEquals("mean response size", 2000, stats.getMeanResponseSize());
+        assertEquals("total requests", 4, metrics.getTotalRequests());
+        assertEquals("endpoints", 2, metrics.getEndpointSummary().length);
+
+        StringWriter writer = new StringWriter();
+        metrics.writeText(writer);
+
+        String text = writer.toString();
+        String label = "{method=\"GET\",pattern=\"" + PATTERN + "\"}";
+
+        logger.debug(text);
+
+        assertTrue("Missing requests.", text.contains("sbe_rest_requests_total" + label + " 4\n"));
+        assertTrue("Missing unrequested endpoint.", text.contains("sbe_rest_requests_total{method=\"POST\",pattern=\"" + PATTERN + "\"} 0\n"));
+        assertTrue("Missing max.", text.contains("sbe_rest_latency_max_seconds" + label + " 4.0E-4\n"));
+
+        metrics.reset();
+
+        assertEquals("requests after reset", 0, metrics.getStatistics(METHOD, PATTERN).getRequests());
+        assertEquals("endpoints after reset", 2, metrics.getStatistics().size());
+    }
+
+    /**
+     * Tests no records are lost with all threads recording to the same endpoint.
+     */
+    @Test
+    public void testConcurrentRecord() throws Exception {
+        final EndpointMetrics metrics = new EndpointMetrics();
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> lThreads = new ArrayList<Thread>();
+
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    for (int j = 0; j < ITERATIONS; j++) {
+                        metrics.record(METHOD, PATTERN, (j % 5000), 200, false, 100);
+                    }
+                }
+            });
+
+            thread.start();
+            lThreads.add(thread);
+        }
+
+        startLatch.countDown();
+
+        for (Thread thread : lThreads) {
+            thread.join();
+        }
+
+        EndpointStatistics stats = metrics.getStatistics(METHOD, PATTERN);
+
+        assertEquals("requests", (THREADS * ITERATIONS), stats.getRequests());
+        assertEquals("response bytes", (THREADS * ITERATIONS * 100L), stats.getResponseBytes());
+        assertEquals("latency count", (THREADS * ITERATIONS), stats.getLatency().getCount());
+        assertEquals("max", 4999, stats.getLatency().getMax());
+    }
+
+    private void verifyPercentile(long expected, long actual) {
+        assertTrue("Percentile " + actual + " isn't within 12.5% of " + expected + ".",
+                   (actual >= expected && actual <= (expected * 1.125)));
+    }
+
+}
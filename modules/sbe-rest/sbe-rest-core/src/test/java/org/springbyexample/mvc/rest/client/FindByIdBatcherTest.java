@@ -0,0 +1,198 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.rest.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springbyexample.mvc.rest.service.PersistenceFindMarshallingService;
+import org.springbyexample.schema.beans.person.Person;
+import org.springbyexample.schema.beans.person.PersonFindResponse;
+import org.springbyexample.schema.beans.person.PersonResponse;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Tests batching of find by id requests.
+ *
+ * @author David Winterfeldt
+ */
+public class FindByIdBatcherTest {
+
+    private StubService service = null;
+    private ManualScheduler scheduler = null;
+    private FindByIdBatcher<Person> batcher = null;
+
+    @Before
+    public void setUp() {
+        service = new StubService();
+        scheduler = new ManualScheduler();
+
+        batcher = new FindByIdBatcher<Person>(service, scheduler);
+        batcher.setMaxBatchSize(2);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testBatchWindow() throws Exception {
+        ListenableFuture<Person> future = batcher.findByIdAsync(1);
+        ListenableFuture<Person> missingFuture = batcher.findByIdAsync(1000);
+
+        // full batch is sent right away
+        assertEquals("Person id.", 1, future.get().getId());
+        assertNull("Missing id should have a null result.", missingFuture.get());
+
+        future = batcher.findByIdAsync(2);
+        assertFalse("Batch shouldn't be sent before the batch window.", future.isDone());
+
+        scheduler.runScheduled(1);
+
+        assertEquals("Person id.", 2, future.get().getId());
+        assertEquals("Batches.", "[[1, 1000], [2]]", service.getBatches().toString());
+    }
+
+    @Test
+    public void testScheduledFlushAfterFullBatch() throws Exception {
+        ListenableFuture<Person> first = batcher.findByIdAsync(1);
+        ListenableFuture<Person> second = batcher.findByIdAsync(2);
+
+        first.get();
+        second.get();
+
+        ListenableFuture<Person> third = batcher.findByIdAsync(3);
+
+        assertTrue("Full batch's scheduled send should be cancelled.", scheduler.getScheduled().get(0).isCancelled());
+
+        // a stale send, as if it had started before the full batch was cut
+        scheduler.runScheduled(0);
+
+        assertFalse("Next batch shouldn't be sent by the previous batch's scheduled send.", third.isDone());
+        assertEquals("Batches.", "[[1, 2]]", service.getBatches().toString());
+
+        scheduler.runScheduled(1);
+
+        assertEquals("Person id.", 3, third.get().getId());
+        assertEquals("Batches.", "[[1, 2], [3]]", service.getBatches().toString());
+    }
+
+    /**
+     * Scheduler that sends full batches right away, but only runs
+     * scheduled batch window sends when the test runs them.
+     */
+    private static class ManualScheduler extends ScheduledThreadPoolExecutor {
+
+        private final List<Runnable> lCommands = new ArrayList<Runnable>();
+        private final List<ScheduledFuture<?>> lScheduled = new ArrayList<ScheduledFuture<?>>();
+
+        public ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public synchronized ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            // execute() schedules without a delay
+            if (delay == 0) {
+                return super.schedule(command, delay, unit);
+            }
+
+            ScheduledFuture<?> result = super.schedule(command, 1, TimeUnit.DAYS);
+
+            lCommands.add(command);
+            lScheduled.add(result);
+
+            return result;
+        }
+
+        public synchronized List<ScheduledFuture<?>> getScheduled() {
+            return lScheduled;
+        }
+
+        public void runScheduled(int index) {
+            Runnable command = null;
+
+            synchronized (this) {
+                command = lCommands.get(index);
+            }
+
+            command.run();
+        }
+
+    }
+
+    /**
+     * Find service that records each batch of ids.
+     */
+    private static class StubService implements PersistenceFindMarshallingService<PersonResponse, PersonFindResponse> {
+
+        private final List<List<Integer>> lBatches = new CopyOnWriteArrayList<List<Integer>>();
+
+        public List<List<Integer>> getBatches() {
+            return lBatches;
+        }
+
+        @Override
+        public PersonFindResponse findByIds(List<Integer> ids) {
+            lBatches.add(new ArrayList<Integer>(ids));
+
+            PersonFindResponse response = new PersonFindResponse();
+
+            for (Integer id : ids) {
+                if (id < 1000) {
+                    response.withResults(new Person().withId(id));
+                }
+            }
+
+            return response;
+        }
+
+        @Override
+        public PersonResponse findById(Integer id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PersonFindResponse find(int page, int pageSize) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PersonFindResponse findByCursor(String cursor, int pageSize) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PersonFindResponse find() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.rest.client;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Tests response cache limits.
+ *
+ * @author David Winterfeldt
+ */
+public class ResponseCacheRequestInterceptorTest {
+
+    private final ResponseCacheRequestInterceptor cache = new ResponseCacheRequestInterceptor(10, 100, 40);
+
+    @Test
+    public void testMaxEntryBytes() throws Exception {
+        byte[] body = new byte[41];
+        body[40] = 1;
+
+        byte[] responseBody = StreamUtils.copyToByteArray(get("/large", body, false).getBody());
+
+        assertEquals("Large response shouldn't be cached.", 0, cache.size());
+        assertEquals("Response body.", 41, responseBody.length);
+        assertEquals("Last byte of the response body.", 1, responseBody[40]);
+
+        get("/length", body, true);
+
+        assertEquals("Large response with a content length shouldn't be cached.", 0, cache.size());
+    }
+
+    @Test
+    public void testMaxBytes() throws Exception {
+        get("/1", new byte[40], false);
+        get("/2", new byte[40], false);
+
+        assertEquals("Cached bytes.", 80, cache.getCachedBytes());
+
+        get("/3", new byte[40], false);
+
+        assertEquals("Least recently used response should be evicted.", 2, cache.size());
+        assertEquals("Cached bytes.", 80, cache.getCachedBytes());
+
+        cache.clear();
+
+        assertEquals("Cached bytes after clear.", 0, cache.getCachedBytes());
+    }
+
+    /**
+     * Gets a URL through the cache with an <code>ETag</code> response.
+     */
+    private ClientHttpResponse get(String path, final byte[] body, final boolean contentLength) throws IOException {
+        return cache.intercept(new MockClientHttpRequest(HttpMethod.GET, URI.create("http://localhost" + path)), new byte[0],
+            new ClientHttpRequestExecution() {
+                @Override
+                public ClientHttpResponse execute(HttpRequest request, byte[] requestBody) throws IOException {
+                    MockClientHttpResponse response = new MockClientHttpResponse(body, HttpStatus.OK);
+                    response.getHeaders().setETag("\"1\"");
+
+                    if (contentLength) {
+                        response.getHeaders().setContentLength(body.length);
+                    }
+
+                    return response;
+                }
+            });
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.mvc.rest.client.factory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Tests client request handler info's URI expansion and request body binding.
+ * 
+ * @author David Winterfeldt
+ */
+public class ClientRequestHandlerInfoTest {
+
+    private static final String BASE_URL = "http://localhost:8080/api";
+
+    @Test
+    public void testExpandWithoutArgs() throws Exception {
+        ClientRequestHandlerInfo info = createInfo("/person", "findAll");
+        ClientRequestHandlerInfo nullMethodInfo = new ClientRequestHandlerInfo("/person", Object.class, RequestMethod.GET, 
+                                                                               BASE_URL + "/person", null, false);
+        
+        assertFalse("Shouldn't have URI variables.", info.hasUriVariables());
+        assertEquals("URI.", BASE_URL + "/person", info.expand(new Object[0]).toString());
+        assertEquals("URI with null args.", BASE_URL + "/person", info.expand(null).toString());
+        assertEquals("URI without a method.", BASE_URL + "/person", nullMethodInfo.expand(null).toString());
+        
+        assertNull("Request body should be null.", info.getRequestBody(new Object[0]));
+        assertNull("Request body with null args should be null.", info.getRequestBody(null));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testExpandArgCountMismatch() throws Exception {
+        createInfo("/person/{id}", "findById", long.class).expand(new Object[0]);
+    }
+
+    @Test
+    public void testExpandPathVariable() throws Exception {
+        ClientRequestHandlerInfo info = createInfo("/person/{id}/{name}/{id}", "findByIdAndName", long.class, String.class);
+        
+        assertTrue("Should have URI variables.", info.hasUriVariables());
+        assertEquals("URI.", BASE_URL + "/person/1/John%20Doe/1", info.expand(new Object[] { 1L, "John Doe" }).toString());
+        assertEquals("URI with a null variable.", BASE_URL + "/person/1//1", info.expand(new Object[] { 1L, null }).toString());
+    }
+
+    @Test
+    public void testExpandRequestParam() throws Exception {
+        ClientRequestHandlerInfo info = createInfo("/person/search?name={name}", "search", String.class);
+        
+        assertEquals("URI.", BASE_URL + "/person/search?name=a%26b", info.expand(new Object[] { "a&b" }).toString());
+        assertEquals("URI with a null param.", BASE_URL + "/person/search?name=", info.expand(new Object[] { null }).toString());
+    }
+
+    @Test
+    public void testExpandCollectionParam() throws Exception {
+        ClientRequestHandlerInfo info = createInfo("/person/ids?ids={ids}", "findByIds", List.class);
+        
+        assertTrue("Should have URI variables.", info.hasUriVariables());
+        assertEquals("URI.", BASE_URL + "/person/ids?ids=1&ids=2&ids=a%26b", 
+                     info.expand(new Object[] { Arrays.asList(1, 2, "a&b") }).toString());
+        assertEquals("URI with a null element.", BASE_URL + "/person/ids?ids=1&ids=null", 
+                     info.expand(new Object[] { Arrays.asList(1, null) }).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExpandEmptyRequiredParam() throws Exception {
+        ClientRequestHandlerInfo info = createInfo("/person/ids?ids={ids}", "findByIds", List.class);
+        
+        info.expand(new Object[] { Collections.emptyList() });
+    }
+
+    @Test
+    public void testExpandArrayParam() throws Exception {
+        ClientRequestHandlerInfo info = createInfo("/person/ids?ids={ids}&name={name}", "findByIdArray", long[].class, String.class);
+        ClientRequestHandlerInfo objectArrayInfo = createInfo("/person/names?names={names}", "findByNames", String[].class);
+        
+        assertEquals("URI.", BASE_URL + "/person/ids?name=John&ids=1&ids=2", 
+                     info.expand(new Object[] { new long[] { 1, 2 }, "John" }).toString());
+        assertEquals("URI with an empty optional array.", BASE_URL + "/person/ids?name=John", 
+                     info.expand(new Object[] { new long[0], "John" }).toString());
+        assertEquals("URI with a null optional array.", BASE_URL + "/person/ids?name=John", 
+                     info.expand(new Object[] { null, "John" }).toString());
+        assertEquals("URI with an object array.", BASE_URL + "/person/names?names=John%20Doe&names=Jane", 
+                     objectArrayInfo.expand(new Object[] { new String[] { "John Doe", "Jane" } }).toString());
+    }
+
+    @Test
+    public void testGetRequestBody() throws Exception {
+        ClientRequestHandlerInfo info = createInfo("/person/{id}", "save", long.class, Object.class);
+        Object request = new Object();
+        
+        assertSame("Request body.", request, info.getRequestBody(new Object[] { 1L, request }));
+        assertNull("Null request body.", info.getRequestBody(new Object[] { 1L, null }));
+        assertEquals("URI.", BASE_URL + "/person/1", info.expand(new Object[] { 1L, request }).toString());
+    }
+
+    /**
+     * Creates client request handler info for a method of the test client.
+     */
+    private ClientRequestHandlerInfo createInfo(String pattern, String methodName, Class<?>... paramTypes) 
+            throws NoSuchMethodException {
+        Method method = TestClient.class.getMethod(methodName, paramTypes);
+        
+        return new ClientRequestHandlerInfo(pattern, Object.class, RequestMethod.GET, BASE_URL + pattern, method, false);
+    }
+    
+    /**
+     * Client interface with each kind of method param.
+     */
+    public interface TestClient {
+        
+        public Object findAll();
+        
+        public Object findById(@PathVariable("id") long id);
+        
+        public Object findByIdAndName(@PathVariable("id") long id, @PathVariable("name") String name);
+        
+        public Object search(@RequestParam("name") String name);
+        
+        public Object findByIds(@RequestParam("ids") List<?> ids);
+        
+        public Object findByIdArray(@RequestParam(value = "ids", required = false) long[] ids, @RequestParam("name") String name);
+        
+        public Object findByNames(@RequestParam("names") String[] names);
+        
+        public Object save(@PathVariable("id") long id, @RequestBody Object request);
+        
+    }
+    
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.converter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.cglib.beans.BeanCopier;
+import org.springframework.cglib.core.Converter;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+
+/**
+ * Abstract converter that copies properties with a <code>BeanCopier</code>,
+ * which generates a class with direct getter to setter calls for each pair of classes
+ * when the converter is created instead of using reflection on every conversion.
+ *
+ * <p>Properties are matched by name like Dozer's implicit mapping.
+ * A property value of a different class than the target's property is
+ * copied to a new instance of the target's property class with its own generated copier.
+ * Lists without a setter, like JAXB generated lists, aren't copied.</p>
+ *
+ * @author David Winterfeldt
+ */
+public abstract class AbstractBeanCopierListConverter<T, V> extends AbstractListConverter<T, V> {
+
+    private static final ConcurrentMap<CopierKey, BeanCopier> hCopiers = new ConcurrentHashMap<CopierKey, BeanCopier>();
+    private static final Converter propertyConverter = new PropertyConverter();
+
+    private final Class<T> tClazz;
+    private final Class<V> vClazz;
+    private final BeanCopier toCopier;
+    private final BeanCopier fromCopier;
+
+    public AbstractBeanCopierListConverter(Class<T> tClazz, Class<V> vClazz) {
+        this.tClazz = tClazz;
+        this.vClazz = vClazz;
+        this.toCopier = getCopier(tClazz, vClazz);
+        this.fromCopier = getCopier(vClazz, tClazz);
+    }
+
+    @Override
+    public V convertTo(T source) {
+        Assert.notNull(source, "Source must not be null.");
+
+        V result = BeanUtils.instantiate(vClazz);
+
+        toCopier.copy(source, result, propertyConverter);
+
+        return result;
+    }
+
+    @Override
+    public T convertFrom(V source) {
+        Assert.notNull(source, "Source must not be null.");
+
+        T result = BeanUtils.instantiate(tClazz);
+
+        fromCopier.copy(source, result, propertyConverter);
+
+        return result;
+    }
+
+    /**
+     * Gets copier for the source and target class, generating it on first use.
+     */
+    private static BeanCopier getCopier(Class<?> sourceClazz, Class<?> targetClazz) {
+        CopierKey key = new CopierKey(sourceClazz, targetClazz);
+        BeanCopier result = hCopiers.get(key);
+
+        if (result == null) {
+            result = BeanCopier.create(sourceClazz, targetClazz, true);
+
+            BeanCopier existing = hCopiers.putIfAbsent(key, result);
+
+            if (existing != null) {
+                result = existing;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Passes through values the target property accepts and
+     * copies other values to a new instance of the target property's class.
+     */
+    private static class PropertyConverter implements Converter {
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Object convert(Object value, Class target, Object setterName) {
+            Object result = value;
+
+            if (value != null && !ClassUtils.isAssignableValue(target, value)) {
+                Assert.isTrue(!ClassUtils.isPrimitiveOrWrapper(target),
+                              "Unable to convert " + value.getClass().getName() + " to " + target.getName() +
+                              " for '" + setterName + "'.");
+
+                result = BeanUtils.instantiate(target);
+
+                getCopier(value.getClass(), target).copy(value, result, this);
+            }
+
+            return result;
+        }
+
+    }
+
+    /**
+     * Copier cache key.
+     */
+    private static class CopierKey {
+
+        private final Class<?> sourceClazz;
+        private final Class<?> targetClazz;
+
+        public CopierKey(Class<?> sourceClazz, Class<?> targetClazz) {
+            this.sourceClazz = sourceClazz;
+            this.targetClazz = targetClazz;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof CopierKey)) {
+                return false;
+            }
+
+            CopierKey other = (CopierKey) obj;
+
+            return (sourceClazz == other.sourceClazz && targetClazz == other.targetClazz);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * sourceClazz.hashCode() + targetClazz.hashCode());
+        }
+
+    }
+
+}
@@ -16,37 +16,212 @@
 package org.springbyexample.converter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.springframework.util.Assert;
 
 
 /**
  * Abstract list converter.
  * 
+ * <p>Lists are presized to the source collection.  Parallel conversion is off 
+ * by default.  If a fork-join pool and a parallel threshold are set, collections 
+ * larger than the threshold are split across the pool and the results
+ * are kept in the source order.  Conversions running in parallel mustn't
+ * depend on the calling thread, for example by loading a lazy association
+ * from the request's persistence context.</p>
+ * 
  * @author David Winterfeldt
  */
 public abstract class AbstractListConverter<T, V> implements ListConverter<T, V> {
 
+    public final static int DEFAULT_PARALLEL_THRESHOLD = 0;
+
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private ForkJoinPool pool = null;
+
+    /**
+     * Gets size a collection must be larger than to be converted in parallel.
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets size a collection must be larger than to be converted in parallel.
+     * Default is zero, which only converts on the calling thread.
+     * Also requires a fork-join pool to be set.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Gets fork-join pool for parallel conversions.
+     */
+    public ForkJoinPool getForkJoinPool() {
+        return pool;
+    }
+
+    /**
+     * Sets fork-join pool for parallel conversions.  Default is <code>null</code>, 
+     * which only converts on the calling thread.  The pool isn't shutdown by the converter, 
+     * so it should be managed by its creator (ex: a Spring <code>ForkJoinPoolFactoryBean</code>).
+     */
+    public void setForkJoinPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     @Override
     public List<V> convertListTo(Collection<T> sourceList) {
-        List<V> results = new ArrayList<V>();
-        
-        for (T item : sourceList) {
-            results.add(convertTo(item));
-        }
-        
-        return results;
+        return convertList(sourceList, new Conversion<T, V>() {
+            @Override
+            public V convert(T source) {
+                return convertTo(source);
+            }
+        });
     }
 
     @Override
     public List<T> convertListFrom(Collection<V> sourceList) {
-        List<T> results = new ArrayList<T>();
+        return convertList(sourceList, new Conversion<V, T>() {
+            @Override
+            public T convert(V source) {
+                return convertFrom(source);
+            }
+        });
+    }
         
-        for (V item : sourceList) {
-            results.add(convertFrom(item));
+    @Override
+    public Iterator<V> convertIteratorTo(Iterator<T> iterator) {
+        return new ConvertingIterator<T, V>(iterator, new Conversion<T, V>() {
+            @Override
+            public V convert(T source) {
+                return convertTo(source);
+            }
+        });
+    }
+
+    @Override
+    public Iterator<T> convertIteratorFrom(Iterator<V> iterator) {
+        return new ConvertingIterator<V, T>(iterator, new Conversion<V, T>() {
+            @Override
+            public T convert(V source) {
+                return convertFrom(source);
+            }
+        });
+    }
+
+    /**
+     * Converts list into a presized list, in parallel if there is a pool and it's over the threshold.
+     */
+    @SuppressWarnings("unchecked")
+    private <S, R> List<R> convertList(Collection<S> sourceList, Conversion<S, R> conversion) {
+        ForkJoinPool pool = this.pool;
+
+        if (pool == null || parallelThreshold <= 0 || sourceList.size() <= parallelThreshold) {
+            List<R> results = new ArrayList<R>(sourceList.size());
+
+            for (S item : sourceList) {
+                results.add(conversion.convert(item));
+            }
+
+            return results;
         }
         
-        return results;
+        Object[] sources = sourceList.toArray();
+        Object[] results = new Object[sources.length];
+        int chunkSize = Math.max(sources.length / (pool.getParallelism() * 4), 1);
+
+        pool.invoke(new ConvertAction<S, R>(sources, results, 0, sources.length, chunkSize, conversion));
+
+        return new ArrayList<R>((List<R>) Arrays.asList(results));
+    }
+
+    /**
+     * Converts one element.
+     */
+    private interface Conversion<S, R> {
+        public R convert(S source);
+    }
+
+    /**
+     * Converts a range of the sources into the same positions of the results,
+     * splitting the range in half until it's no larger than the chunk size.
+     */
+    private static class ConvertAction<S, R> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] sources;
+        private final Object[] results;
+        private final int start;
+        private final int end;
+        private final int chunkSize;
+        private final Conversion<S, R> conversion;
+
+        public ConvertAction(Object[] sources, Object[] results, int start, int end, int chunkSize,
+                             Conversion<S, R> conversion) {
+            this.sources = sources;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+            this.chunkSize = chunkSize;
+            this.conversion = conversion;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void compute() {
+            if (end - start <= chunkSize) {
+                for (int i = start; i < end; i++) {
+                    results[i] = conversion.convert((S) sources[i]);
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+
+                invokeAll(new ConvertAction<S, R>(sources, results, start, middle, chunkSize, conversion),
+                          new ConvertAction<S, R>(sources, results, middle, end, chunkSize, conversion));
+            }
+        }
+
+    }
+
+    /**
+     * Converts each element as it's read.
+     */
+    private static class ConvertingIterator<S, R> implements Iterator<R> {
+
+        private final Iterator<S> iterator;
+        private final Conversion<S, R> conversion;
+
+        public ConvertingIterator(Iterator<S> iterator, Conversion<S, R> conversion) {
+            Assert.notNull(iterator, "Iterator must not be null.");
+
+            this.iterator = iterator;
+            this.conversion = conversion;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public R next() {
+            return conversion.convert(iterator.next());
+        }
+
+        @Override
+        public void remove() {
+            iterator.remove();
+        }
+
     }
     
 }
@@ -16,6 +16,7 @@
 package org.springbyexample.converter;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 
@@ -40,4 +41,14 @@ public interface ListConverter<T, V> extends Converter<T, V> {
      */
     public List<T> convertListFrom(Collection<V> list);
 
+    /**
+     * Converts each domain model from the iterator as it's read.
+     */
+    public Iterator<V> convertIteratorTo(Iterator<T> iterator);
+
+    /**
+     * Converts each business model from the iterator as it's read.
+     */
+    public Iterator<T> convertIteratorFrom(Iterator<V> iterator);
+
 }
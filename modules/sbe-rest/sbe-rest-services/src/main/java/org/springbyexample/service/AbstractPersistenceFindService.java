@@ -15,20 +15,40 @@
  */
 package org.springbyexample.service;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
 import org.springbyexample.converter.ListConverter;
 import org.springbyexample.schema.beans.entity.PkEntityBase;
 import org.springbyexample.schema.beans.response.EntityFindResponseResult;
 import org.springbyexample.schema.beans.response.EntityResponseResult;
+import org.springbyexample.service.util.CursorUtil;
 import org.springbyexample.service.util.DBUtil;
 import org.springbyexample.service.util.MessageHelper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.AbstractPersistable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 
 /**
@@ -46,9 +66,35 @@ public abstract class AbstractPersistenceFindService<T extends AbstractPersistab
                                                      R extends EntityResponseResult, FR extends EntityFindResponseResult>
         extends AbstractService implements PersistenceFindService<R, FR> {
 
+    /**
+     * How the count of a keyset paginated find is set.
+     */
+    public enum CountMode {
+        /** Counts the records on every request. */
+        EXACT,
+        /** Reuses a count until the count cache timeout or a record is created or deleted. */
+        CACHED,
+        /** Doesn't count the records, the count is {@link AbstractPersistenceFindService#UNKNOWN_COUNT}. */
+        NONE
+    }
+
+    public final static int DEFAULT_FETCH_SIZE = 100;
+    public final static long DEFAULT_COUNT_CACHE_TIMEOUT = 60 * 1000;
+    public final static long UNKNOWN_COUNT = -1;
+
+    private static final ConversionService conversionService = new DefaultConversionService();
+
     protected final JpaRepository<T, Integer> repository;
     protected final ListConverter<T, V> converter;
 
+    @PersistenceContext
+    protected EntityManager entityManager;
+
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    private CountMode countMode = CountMode.EXACT;
+    private long countCacheTimeout = DEFAULT_COUNT_CACHE_TIMEOUT;
+    private volatile CachedCount cachedCount = null;
+
     public AbstractPersistenceFindService(JpaRepository<T, Integer> repository, ListConverter<T, V> converter,
                                           MessageHelper messageHelper) {
         super(messageHelper);
@@ -57,6 +103,55 @@ public abstract class AbstractPersistenceFindService<T extends AbstractPersistab
         this.converter = converter;
     }
 
+    /**
+     * Gets number of records loaded per query by a streaming find.
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Sets number of records loaded per query by a streaming find.
+     * Default is 100.
+     */
+    public void setFetchSize(int fetchSize) {
+        Assert.isTrue((fetchSize > 0), "Fetch size must be greater than zero.");
+
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Gets how the count of a keyset paginated find is set.
+     */
+    public CountMode getCountMode() {
+        return countMode;
+    }
+
+    /**
+     * Sets how the count of a keyset paginated find is set.
+     * Default is {@link CountMode#EXACT}.
+     */
+    public void setCountMode(CountMode countMode) {
+        Assert.notNull(countMode, "Count mode must not be null.");
+
+        this.countMode = countMode;
+    }
+
+    /**
+     * Gets how long in milliseconds a cached count is used.
+     */
+    public long getCountCacheTimeout() {
+        return countCacheTimeout;
+    }
+
+    /**
+     * Sets how long in milliseconds a cached count is used.
+     * Default is one minute.
+     */
+    public void setCountCacheTimeout(long countCacheTimeout) {
+        this.countCacheTimeout = countCacheTimeout;
+    }
+
     @Override
     public R findById(Integer id) {
         T bean = repository.findOne(id);
@@ -65,6 +160,20 @@ public abstract class AbstractPersistenceFindService<T extends AbstractPersistab
         return createResponse(result);
     }
 
+    /**
+     * Loads all of the records with a single <code>IN</code> query.
+     * 
+     * @throws  IllegalArgumentException    If the ids are <code>null</code> or empty.
+     */
+    @Override
+    public FR findByIds(List<Integer> ids) {
+        Assert.notEmpty(ids, "Ids must not be empty.");
+
+        List<V> results = converter.convertListTo(repository.findAll(ids));
+
+        return createFindResponse(results);
+    }
+
     @Override
     public FR find() {
         List<V> results = converter.convertListTo(repository.findAll(createDefaultSort()));
@@ -72,6 +181,52 @@ public abstract class AbstractPersistenceFindService<T extends AbstractPersistab
         return createFindResponse(results);
     }
 
+    /**
+     * Loads all of the records in fetch size chunks, passing each converted record
+     * to the callback and then detaching its entity so memory use doesn't grow
+     * with the number of records.  Each chunk seeks past the last record's sort values 
+     * like {@link #findByCursor(String, int)}, so later chunks don't cost more 
+     * than the first one the way an offset would.
+     */
+    public long find(ResultCallback<V> callback) {
+        Class<T> entityClazz = getEntityClass();
+        Sort sort = createKeysetSort();
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> criteria = builder.createQuery(entityClazz);
+        Root<T> root = criteria.from(entityClazz);
+
+        // unique order so chunks don't overlap
+        criteria.select(root).orderBy(QueryUtils.toOrders(sort, root, builder));
+
+        long result = 0;
+        String cursor = null;
+        List<T> lChunk = null;
+
+        do {
+            if (cursor != null) {
+                criteria.where(createKeysetPredicate(entityClazz, sort, cursor, root, builder));
+            }
+
+            lChunk = entityManager.createQuery(criteria).setMaxResults(fetchSize).getResultList();
+
+            for (T bean : lChunk) {
+                callback.doWithResult(converter.convertTo(bean));
+
+                result++;
+            }
+
+            if (!lChunk.isEmpty()) {
+                cursor = createCursor(sort, lChunk.get(lChunk.size() - 1));
+            }
+
+            for (T bean : lChunk) {
+                entityManager.detach(bean);
+            }
+        } while (lChunk.size() == fetchSize);
+
+        return result;
+    }
+
     @Override
     public FR find(int page, int pageSize) {
         Page<T> pageResults = repository.findAll(new PageRequest(page, pageSize, createDefaultSort()));
@@ -81,6 +236,43 @@ public abstract class AbstractPersistenceFindService<T extends AbstractPersistab
         return createFindResponse(results, pageResults.getTotalElements());
     }
 
+    /**
+     * Seeks past the cursor's sort values instead of skipping rows with an offset,
+     * so with an index on the sort columns every page costs the same.
+     * One extra record is loaded to know whether or not there is a next page.
+     */
+    @Override
+    public FR findByCursor(String cursor, int pageSize) {
+        Assert.isTrue((pageSize > 0), "Page size must be greater than zero.");
+
+        Class<T> entityClazz = getEntityClass();
+        Sort sort = createKeysetSort();
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> criteria = builder.createQuery(entityClazz);
+        Root<T> root = criteria.from(entityClazz);
+
+        criteria.select(root).orderBy(QueryUtils.toOrders(sort, root, builder));
+
+        if (StringUtils.hasText(cursor)) {
+            criteria.where(createKeysetPredicate(entityClazz, sort, cursor, root, builder));
+        }
+
+        List<T> lBeans = entityManager.createQuery(criteria).setMaxResults(pageSize + 1).getResultList();
+        String nextCursor = null;
+
+        if (lBeans.size() > pageSize) {
+            lBeans = lBeans.subList(0, pageSize);
+            nextCursor = createCursor(sort, lBeans.get(pageSize - 1));
+        }
+
+        List<V> results = converter.convertListTo(lBeans);
+
+        FR response = createFindResponse(results, getCount());
+        response.setNextCursor(nextCursor);
+
+        return response;
+    }
+
     /**
      * Create a response.
      */
@@ -104,6 +296,106 @@ public abstract class AbstractPersistenceFindService<T extends AbstractPersistab
         return DBUtil.isPrimaryKeyValid(request);
     }
 
+    /**
+     * Gets the count for a keyset paginated find based on the count mode.
+     */
+    protected long getCount() {
+        long result = UNKNOWN_COUNT;
+
+        if (countMode == CountMode.EXACT) {
+            result = repository.count();
+        } else if (countMode == CountMode.CACHED) {
+            CachedCount count = cachedCount;
+
+            if (count == null || count.isExpired()) {
+                count = new CachedCount(repository.count(), System.currentTimeMillis() + countCacheTimeout);
+                cachedCount = count;
+            }
+
+            result = count.getCount();
+        }
+
+        return result;
+    }
+
+    /**
+     * Clears the cached count.
+     */
+    protected void resetCount() {
+        cachedCount = null;
+    }
+
+    /**
+     * Gets the domain model class from the class's generic type.
+     */
+    @SuppressWarnings("unchecked")
+    private Class<T> getEntityClass() {
+        Class<?>[] typeArgs = GenericTypeResolver.resolveTypeArguments(getClass(), AbstractPersistenceFindService.class);
+
+        Assert.notNull(typeArgs, "Unable to resolve domain model class.");
+
+        return (Class<T>) typeArgs[0];
+    }
+
+    /**
+     * Creates a cursor from a record's sort values.
+     */
+    private String createCursor(Sort sort, T bean) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(bean);
+        List<String> lValues = new ArrayList<String>();
+
+        for (Sort.Order order : sort) {
+            Object value = wrapper.getPropertyValue(order.getProperty());
+
+            Assert.notNull(value, "Sort property used for a cursor must not be null.  property='" + order.getProperty() + "'");
+
+            lValues.add(conversionService.convert(value, String.class));
+        }
+
+        return CursorUtil.encode(lValues);
+    }
+
+    /**
+     * Creates a predicate for the records after the cursor's sort values.
+     * For sort properties a, b, and c it's <code>a > ? or (a = ? and b > ?) or (a = ? and b = ? and c > ?)</code>.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Predicate createKeysetPredicate(Class<T> entityClazz, Sort sort, String cursor,
+                                            Root<T> root, CriteriaBuilder builder) {
+        List<String> lValues = CursorUtil.decode(cursor);
+        List<Expression<?>> lPaths = new ArrayList<Expression<?>>();
+        List<Object> lKeys = new ArrayList<Object>();
+
+        for (Sort.Order order : sort) {
+            // resolves generic properties like the primary key
+            Method readMethod = BeanUtils.getPropertyDescriptor(entityClazz, order.getProperty()).getReadMethod();
+            Class<?> propertyType = GenericTypeResolver.resolveReturnType(readMethod, entityClazz);
+
+            Assert.isTrue((lKeys.size() < lValues.size()), "Invalid cursor.  cursor='" + cursor + "'");
+
+            lPaths.add(root.get(order.getProperty()));
+            lKeys.add(conversionService.convert(lValues.get(lKeys.size()), propertyType));
+        }
+
+        Assert.isTrue((lKeys.size() == lValues.size()), "Invalid cursor.  cursor='" + cursor + "'");
+
+        Predicate[] predicates = new Predicate[lPaths.size()];
+
+        for (int i = 0; i < lPaths.size(); i++) {
+            Predicate[] terms = new Predicate[i + 1];
+
+            for (int j = 0; j < i; j++) {
+                terms[j] = builder.equal(lPaths.get(j), lKeys.get(j));
+            }
+
+            terms[i] = builder.greaterThan((Expression<Comparable>) lPaths.get(i), (Comparable) lKeys.get(i));
+
+            predicates[i] = builder.and(terms);
+        }
+
+        return builder.or(predicates);
+    }
+
     /**
      * Creates default sort.
      */
@@ -111,4 +403,35 @@ public abstract class AbstractPersistenceFindService<T extends AbstractPersistab
         return new Sort("lastName", "firstName");
     }
 
+    /**
+     * Creates the default sort with the primary key added to make the order unique,
+     * which is needed to page through records without skipping or repeating any.
+     */
+    private Sort createKeysetSort() {
+        return createDefaultSort().and(new Sort("id"));
+    }
+
+    /**
+     * Count and when it expires.
+     */
+    private static class CachedCount {
+
+        private final long count;
+        private final long expiration;
+
+        public CachedCount(long count, long expiration) {
+            this.count = count;
+            this.expiration = expiration;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public boolean isExpired() {
+            return (System.currentTimeMillis() > expiration);
+        }
+
+    }
+
 }
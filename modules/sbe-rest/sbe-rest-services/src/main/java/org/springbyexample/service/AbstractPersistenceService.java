@@ -15,10 +15,17 @@
  */
 package org.springbyexample.service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.springbyexample.converter.ListConverter;
 import org.springbyexample.schema.beans.entity.PkEntityBase;
 import org.springbyexample.schema.beans.response.EntityFindResponseResult;
 import org.springbyexample.schema.beans.response.EntityResponseResult;
+import org.springbyexample.schema.beans.response.Message;
+import org.springbyexample.schema.beans.response.MessageType;
 import org.springbyexample.service.util.MessageHelper;
 import org.springframework.data.jpa.domain.AbstractPersistable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -42,17 +49,42 @@ public abstract class AbstractPersistenceService<T extends AbstractPersistable<I
         implements PersistenceService<V, R, FR> {
 
     protected static final String DELETE_MSG = "delete.msg";
+    protected static final String DELETE_NOT_FOUND_MSG = "delete.not.found.msg";
+
+    public final static int DEFAULT_BATCH_SIZE = 50;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
 
     public AbstractPersistenceService(JpaRepository<T, Integer> repository, ListConverter<T, V> converter,
                                       MessageHelper messageHelper) {
         super(repository, converter, messageHelper);
     }
 
+    /**
+     * Gets number of records flushed together by a bulk operation.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets number of records flushed together by a bulk operation.
+     * Default is 50, which should match <code>hibernate.jdbc.batch_size</code>
+     * so each flush is sent as one JDBC batch.
+     */
+    public void setBatchSize(int batchSize) {
+        Assert.isTrue((batchSize > 0), "Batch size must be greater than zero.");
+
+        this.batchSize = batchSize;
+    }
+
     @Override
     @Transactional
     public R create(V request) {
         Assert.isTrue(!isPrimaryKeyValid(request), "Create should not have a valid primary key.");
 
+        resetCount();
+
         return doSave(request);
     }
 
@@ -67,16 +99,61 @@ public abstract class AbstractPersistenceService<T extends AbstractPersistable<I
     @Override
     @Transactional
     public R delete(V request) {
+        resetCount();
+
         return doDelete(request);
     }
 
+    @Override
+    @Transactional
+    public FR createAll(FR request) {
+        List<V> lRequests = getRequests(request);
+
+        for (V bean : lRequests) {
+            Assert.isTrue(!isPrimaryKeyValid(bean), "Create should not have a valid primary key.");
+        }
+
+        resetCount();
+
+        return doSaveAll(lRequests);
+    }
+
+    @Override
+    @Transactional
+    public FR updateAll(FR request) {
+        List<V> lRequests = getRequests(request);
+
+        for (V bean : lRequests) {
+            Assert.isTrue(isPrimaryKeyValid(bean), "Update should have a valid primary key.");
+        }
+
+        return doSaveAll(lRequests);
+    }
+
+    @Override
+    @Transactional
+    public FR deleteAll(FR request) {
+        List<V> lRequests = getRequests(request);
+        List<Integer> lIds = new ArrayList<Integer>(lRequests.size());
+
+        for (V bean : lRequests) {
+            Assert.isTrue(isPrimaryKeyValid(bean), "Delete should have a valid primary key.");
+
+            lIds.add(bean.getId());
+        }
+
+        resetCount();
+
+        return doDeleteAll(lIds);
+    }
+
     /**
      * Processes save.  Can be overridden for custom save logic.
      */
     protected R doSave(V request) {
         V result = null;
 
-        T convertedRequest = converter.convertFrom(request);
+        T convertedRequest = convertSaveRequest(request);
 
         // issues with lock version updating if flush isn't called
         T bean = repository.saveAndFlush(convertedRequest);
@@ -96,6 +173,100 @@ public abstract class AbstractPersistenceService<T extends AbstractPersistable<I
         return createDeleteResponse();
     }
 
+    /**
+     * Processes bulk save.  Each batch is flushed once and then
+     * cleared from the persistence context so a large import doesn't
+     * keep every saved record managed until the transaction ends.
+     */
+    protected FR doSaveAll(List<V> requests) {
+        List<V> results = new ArrayList<V>(requests.size());
+
+        for (int i = 0; i < requests.size(); i += batchSize) {
+            List<V> lBatch = requests.subList(i, Math.min(i + batchSize, requests.size()));
+            List<T> lBeans = new ArrayList<T>(lBatch.size());
+
+            for (V request : lBatch) {
+                lBeans.add(convertSaveRequest(request));
+            }
+
+            List<T> lSaved = repository.save(lBeans);
+
+            // converted after flush so generated keys and lock versions are set
+            repository.flush();
+
+            results.addAll(converter.convertListTo(lSaved));
+
+            entityManager.clear();
+        }
+
+        return createFindResponse(results, results.size());
+    }
+
+    /**
+     * Processes bulk delete.  Records are loaded and removed a batch at a time
+     * so cascades are still applied.  The results are in the same order as the ids.
+     * An id without a record has a not found result and a warning message
+     * whose property is the result's index.
+     */
+    protected FR doDeleteAll(List<Integer> ids) {
+        List<V> results = new ArrayList<V>(ids.size());
+        List<Message> lMessages = new ArrayList<Message>();
+
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            List<Integer> lBatchIds = ids.subList(i, Math.min(i + batchSize, ids.size()));
+            List<T> lBeans = repository.findAll(lBatchIds);
+            Map<Integer, V> hResults = new HashMap<Integer, V>();
+
+            // the query returns records in database order and skips missing ids
+            for (T bean : lBeans) {
+                hResults.put(bean.getId(), converter.convertTo(bean));
+            }
+
+            for (Integer id : lBatchIds) {
+                V result = hResults.get(id);
+
+                if (result == null) {
+                    result = createNotFoundResult(id);
+
+                    lMessages.add(new Message().withMessageType(MessageType.WARN)
+                            .withMessageKey(DELETE_NOT_FOUND_MSG)
+                            .withMessage(getMessage(DELETE_NOT_FOUND_MSG, new Object[] { String.valueOf(id) }))
+                            .withProperty("results[" + results.size() + "]"));
+                }
+
+                results.add(result);
+            }
+
+            repository.delete(lBeans);
+            repository.flush();
+
+            entityManager.clear();
+        }
+
+        FR response = createFindResponse(results, results.size());
+        response.getMessageList().addAll(lMessages);
+
+        return response;
+    }
+
+    /**
+     * Converts a save request to the domain model.
+     * Can be overridden if different request types need different converters.
+     */
+    protected T convertSaveRequest(V request) {
+        return converter.convertFrom(request);
+    }
+
+    /**
+     * Gets records from a bulk request.
+     */
+    @SuppressWarnings("unchecked")
+    private List<V> getRequests(FR request) {
+        Assert.notNull(request, "Request must not be null.");
+
+        return (List<V>) request.getResults();
+    }
+
     /**
      * Create a save response.
      */
@@ -106,4 +277,9 @@ public abstract class AbstractPersistenceService<T extends AbstractPersistable<I
      */
     protected abstract R createDeleteResponse();
 
+    /**
+     * Create the result of a bulk delete for an id without a record.
+     */
+    protected abstract V createNotFoundResult(Integer id);
+
 }
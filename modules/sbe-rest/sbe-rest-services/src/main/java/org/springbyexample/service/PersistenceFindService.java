@@ -15,6 +15,8 @@
  */
 package org.springbyexample.service;
 
+import java.util.List;
+
 import org.springbyexample.schema.beans.response.EntityFindResponseResult;
 import org.springbyexample.schema.beans.response.EntityResponseResult;
 
@@ -34,6 +36,14 @@ public interface PersistenceFindService<R extends EntityResponseResult, FR exten
      */
     public R findById(Integer id);
 
+    /**
+     * Find records with a list of ids.
+     * Ids without a matching record are not in the results.
+     * The ids must not be empty, and an empty list is rejected 
+     * instead of being treated as a find all.
+     */
+    public FR findByIds(List<Integer> ids);
+
     /**
      * Find all records.
      */
@@ -44,4 +54,15 @@ public interface PersistenceFindService<R extends EntityResponseResult, FR exten
      */
     public FR find(int page, int pageSize);
 
+    /**
+     * Find a page of records after a cursor, which is faster than an offset
+     * for deep pages.  The response's next cursor requests the following page
+     * and isn't set on the last page.
+     *
+     * @param   cursor      Next cursor from the previous page or
+     *                      <code>null</code> for the first page.
+     * @param   pageSize    Number of records in a page.
+     */
+    public FR findByCursor(String cursor, int pageSize);
+
 }
@@ -33,6 +33,14 @@ public interface PersistenceService<V extends PkEntityBase,
                                     R extends EntityResponseResult, FR extends EntityFindResponseResult>
         extends PersistenceFindService<R, FR> {
 
+    /**
+     * Find all records, passing each one to the callback
+     * as it's loaded instead of returning them in a list.
+     *
+     * @return  Number of records found.
+     */
+    public long find(ResultCallback<V> callback);
+
     /**
      * Creates a record.
      */
@@ -48,4 +56,26 @@ public interface PersistenceService<V extends PkEntityBase,
      */
     public R delete(V request);
 
+    /**
+     * Creates the request's results in batches.
+     *
+     * @return  Created records in the same order as the request.
+     */
+    public FR createAll(FR request);
+
+    /**
+     * Updates the request's results in batches.
+     *
+     * @return  Updated records in the same order as the request.
+     */
+    public FR updateAll(FR request);
+
+    /**
+     * Deletes the request's results by primary key in batches.
+     *
+     * @return  Deleted records in the same order as the request.  An id without a record
+     *          has a result with only the id set and a warning message.
+     */
+    public FR deleteAll(FR request);
+
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.service;
+
+
+/**
+ * Callback for processing each result of a streaming find.
+ *
+ * @author David Winterfeldt
+ *
+ * @param   <V>      Domain transfer object (DTO).
+ */
+public interface ResultCallback<V> {
+
+    /**
+     * Processes a result.  The entity it was converted from
+     * is detached after this returns.
+     */
+    public void doWithResult(V result);
+
+}
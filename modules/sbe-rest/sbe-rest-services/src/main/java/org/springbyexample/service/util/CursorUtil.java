@@ -0,0 +1,96 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.service.util;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.DatatypeConverter;
+
+
+/**
+ * Cursor utilities for keyset pagination.
+ * A cursor is the sort values of the last record of a page,
+ * encoded as an opaque URL safe token.
+ *
+ * @author David Winterfeldt
+ */
+public class CursorUtil {
+
+    private static final String ENCODING = "UTF-8";
+    private static final Charset UTF_8 = Charset.forName(ENCODING);
+    private static final String VALUE_DELIM = ",";
+
+    private CursorUtil() {}
+
+    /**
+     * Encodes values into a cursor.
+     */
+    public static String encode(List<String> values) {
+        StringBuilder sb = new StringBuilder();
+
+        try {
+            for (String value : values) {
+                if (sb.length() > 0) {
+                    sb.append(VALUE_DELIM);
+                }
+
+                sb.append(URLEncoder.encode(value, ENCODING));
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+
+        String result = DatatypeConverter.printBase64Binary(sb.toString().getBytes(UTF_8));
+
+        // URL safe alphabet without padding
+        return result.replace('+', '-').replace('/', '_').replace("=", "");
+    }
+
+    /**
+     * Decodes values from a cursor.
+     *
+     * @throws  IllegalArgumentException    If the cursor isn't valid.
+     */
+    public static List<String> decode(String cursor) {
+        List<String> result = new ArrayList<String>();
+
+        StringBuilder sb = new StringBuilder(cursor.replace('-', '+').replace('_', '/'));
+
+        while (sb.length() % 4 != 0) {
+            sb.append('=');
+        }
+
+        try {
+            String decoded = new String(DatatypeConverter.parseBase64Binary(sb.toString()), UTF_8);
+
+            for (String value : decoded.split(VALUE_DELIM, -1)) {
+                result.add(URLDecoder.decode(value, ENCODING));
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor.  cursor='" + cursor + "'", e);
+        }
+
+        return result;
+    }
+
+}
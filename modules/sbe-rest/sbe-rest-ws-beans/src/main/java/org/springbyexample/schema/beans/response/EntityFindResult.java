@@ -37,4 +37,14 @@ public interface EntityFindResult {
      */
     public long getCount();
     
+    /**
+     * Gets cursor of the next page of a keyset paginated result.
+     */
+    public String getNextCursor();
+
+    /**
+     * Sets cursor of the next page of a keyset paginated result.
+     */
+    public void setNextCursor(String nextCursor);
+    
 }
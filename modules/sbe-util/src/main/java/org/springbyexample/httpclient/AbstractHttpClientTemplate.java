@@ -19,6 +19,11 @@ package org.springbyexample.httpclient;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpConnectionManager;
@@ -27,26 +32,58 @@ import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.NameValuePair;
 import org.apache.commons.httpclient.UsernamePasswordCredentials;
 import org.apache.commons.httpclient.auth.AuthScope;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
 import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
 import org.springbyexample.httpclient.auth.Credentials;
 import org.springbyexample.httpclient.auth.NTCredentials;
+import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
 
 /**
  * Base <code>HttpClient</code> template class.
  * 
+ * <p>If an <code>MBeanExporter</code> is set, an <code>InstrumentedHttpConnectionManager</code> 
+ * is registered with it so the pool statistics are available as JMX attributes.</p>
+ * 
  * @author David Winterfeldt
  */
-public abstract class AbstractHttpClientTemplate<T> implements InitializingBean, DisposableBean {
+public abstract class AbstractHttpClientTemplate<T> implements InitializingBean, DisposableBean, BeanNameAware {
 
+    public static final int DEFAULT_ASYNC_POOL_SIZE = 10;
+    public static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 100;
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 20;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = DEFAULT_ASYNC_POOL_SIZE;
+
     protected HttpClient client = null;
     protected HttpConnectionManager connectionManager = null;
     protected String defaultUri = null;
     protected boolean authenticationPreemptive = false;
     protected List<Credentials> lCredentials = new ArrayList<Credentials>();
+    protected AsyncListenableTaskExecutor taskExecutor = null;
+    protected int asyncPoolSize = DEFAULT_ASYNC_POOL_SIZE;
+    protected int asyncQueueCapacity = DEFAULT_ASYNC_QUEUE_CAPACITY;
+    protected int maxTotalConnections = DEFAULT_MAX_TOTAL_CONNECTIONS;
+    protected int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    protected int connectionTimeout = 0;
+    protected int readTimeout = 0;
+    protected long connectionManagerTimeout = 0;
+    protected long idleConnectionTimeout = 0;
+    protected boolean staleCheckingEnabled = true;
+    protected MBeanExporter mbeanExporter = null;
+    protected String objectName = null;
+    
+    private String beanName = null;
+    private ObjectName registeredObjectName = null;
+    private ThreadPoolTaskExecutor defaultTaskExecutor = null;
+    private IdleConnectionTimeoutThread idleConnectionTimeoutThread = null;
 
     /**
      * Constructor.
@@ -158,12 +195,207 @@ public abstract class AbstractHttpClientTemplate<T> implements InitializingBean,
     public void setCredentials(List<Credentials> credentials) {
         this.lCredentials = credentials;
     }
+
+    /**
+     * Gets task executor used for asynchronous requests.
+     */
+    public AsyncListenableTaskExecutor getTaskExecutor() {
+        return taskExecutor;
+    }
+
+    /**
+     * Sets task executor used for asynchronous requests.
+     * If not set, a <code>ThreadPoolTaskExecutor</code> 
+     * sized by the async pool size and queue capacity is created during initialization.
+     */
+    public void setTaskExecutor(AsyncListenableTaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Gets the number of threads for the default asynchronous task executor.
+     * Defaults to {@link #DEFAULT_ASYNC_POOL_SIZE}.
+     */
+    public int getAsyncPoolSize() {
+        return asyncPoolSize;
+    }
+
+    /**
+     * Sets the number of threads for the default asynchronous task executor.
+     * Ignored if a task executor is explicitly set.
+     */
+    public void setAsyncPoolSize(int asyncPoolSize) {
+        this.asyncPoolSize = asyncPoolSize;
+    }
+
+    /**
+     * Gets the number of requests the default asynchronous task executor 
+     * queues before running them on the calling thread.
+     * Defaults to {@link #DEFAULT_ASYNC_QUEUE_CAPACITY}.
+     */
+    public int getAsyncQueueCapacity() {
+        return asyncQueueCapacity;
+    }
+
+    /**
+     * Sets the number of requests the default asynchronous task executor 
+     * queues before running them on the calling thread.
+     * Ignored if a task executor is explicitly set.
+     */
+    public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+        this.asyncQueueCapacity = asyncQueueCapacity;
+    }
+
+    /**
+     * Gets max total connections for the default connection manager.
+     * Defaults to {@link #DEFAULT_MAX_TOTAL_CONNECTIONS}.
+     */
+    public int getMaxTotalConnections() {
+        return maxTotalConnections;
+    }
+
+    /**
+     * Sets max total connections for the default connection manager.
+     */
+    public void setMaxTotalConnections(int maxTotalConnections) {
+        this.maxTotalConnections = maxTotalConnections;
+    }
+
+    /**
+     * Gets max connections per host for the default connection manager.
+     * Defaults to {@link #DEFAULT_MAX_CONNECTIONS_PER_HOST}.
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Sets max connections per host for the default connection manager.
+     */
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * Gets timeout in milliseconds for establishing a connection.
+     * Zero is no timeout, which is the default.
+     */
+    public int getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    /**
+     * Sets timeout in milliseconds for establishing a connection.
+     */
+    public void setConnectionTimeout(int connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    /**
+     * Gets socket read timeout in milliseconds.
+     * Zero is no timeout, which is the default.
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Sets socket read timeout in milliseconds.
+     */
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Gets timeout in milliseconds to wait for a connection from the pool.
+     * Zero is no timeout, which is the default.
+     */
+    public long getConnectionManagerTimeout() {
+        return connectionManagerTimeout;
+    }
+
+    /**
+     * Sets timeout in milliseconds to wait for a connection from the pool.
+     */
+    public void setConnectionManagerTimeout(long connectionManagerTimeout) {
+        this.connectionManagerTimeout = connectionManagerTimeout;
+    }
+
+    /**
+     * Gets time in milliseconds a pooled connection can be idle before it is closed.
+     * Zero disables idle connection eviction, which is the default.
+     */
+    public long getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    /**
+     * Sets time in milliseconds a pooled connection can be idle before it is closed.
+     */
+    public void setIdleConnectionTimeout(long idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    /**
+     * Whether or not kept alive connections are checked for being 
+     * stale before being reused.  Defaults to <code>true</code>.
+     */
+    public boolean isStaleCheckingEnabled() {
+        return staleCheckingEnabled;
+    }
+
+    /**
+     * Sets whether or not kept alive connections are checked for being 
+     * stale before being reused.
+     */
+    public void setStaleCheckingEnabled(boolean staleCheckingEnabled) {
+        this.staleCheckingEnabled = staleCheckingEnabled;
+    }
     
+    /**
+     * Gets exporter the connection manager is registered with.
+     */
+    public MBeanExporter getMbeanExporter() {
+        return mbeanExporter;
+    }
+
+    /**
+     * Sets exporter to register an <code>InstrumentedHttpConnectionManager</code> with.
+     * Typically the annotation based exporter from <code>&lt;context:mbean-export/&gt;</code>.
+     */
+    public void setMbeanExporter(MBeanExporter mbeanExporter) {
+        this.mbeanExporter = mbeanExporter;
+    }
+
+    /**
+     * Gets JMX object name of the connection manager.
+     */
+    public String getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * Sets JMX object name of the connection manager.  Defaults to 
+     * 'org.springbyexample.httpclient:type=InstrumentedHttpConnectionManager,name=' 
+     * and the bean name.
+     */
+    public void setObjectName(String objectName) {
+        this.objectName = objectName;
+    }
+
+    /**
+     * Implementation of <code>BeanNameAware</code>.
+     */
+    public void setBeanName(String beanName) {
+        this.beanName = beanName;
+    }
+
     /**
      * Implementation of <code>InitializingBean</code> 
      * that initializes the <code>HttpClient</code> if it is <code>null</code> 
-     * and also sets the connection manager to <code>MultiThreadedHttpConnectionManager</code> 
-     * if it is <code>null</code> while initializing the <code>HttpClient</code>.
+     * and also sets the connection manager to an <code>InstrumentedHttpConnectionManager</code> 
+     * configured with the pool settings if it is <code>null</code> while 
+     * initializing the <code>HttpClient</code>.
      */
     public void afterPropertiesSet() throws Exception {
         // make sure credentials are properly set
@@ -181,13 +413,36 @@ public abstract class AbstractHttpClientTemplate<T> implements InitializingBean,
         
         if (client == null) {
             if (connectionManager == null) {
-                connectionManager = new MultiThreadedHttpConnectionManager();
+                connectionManager = new InstrumentedHttpConnectionManager();
+                
+                HttpConnectionManagerParams params = connectionManager.getParams();
+                params.setMaxTotalConnections(maxTotalConnections);
+                params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+                params.setConnectionTimeout(connectionTimeout);
+                params.setSoTimeout(readTimeout);
+                params.setStaleCheckingEnabled(staleCheckingEnabled);
             }
 
             client = new HttpClient(connectionManager);
         }
 
         client.getParams().setAuthenticationPreemptive(authenticationPreemptive);
+        client.getParams().setConnectionManagerTimeout(connectionManagerTimeout);
+        
+        if (mbeanExporter != null && client.getHttpConnectionManager() instanceof InstrumentedHttpConnectionManager) {
+            registeredObjectName = createObjectName();
+            
+            mbeanExporter.registerManagedResource(client.getHttpConnectionManager(), registeredObjectName);
+        }
+        
+        if (idleConnectionTimeout > 0) {
+            idleConnectionTimeoutThread = new IdleConnectionTimeoutThread();
+            idleConnectionTimeoutThread.setName(getClass().getSimpleName() + "-idle-connection-timeout");
+            idleConnectionTimeoutThread.setConnectionTimeout(idleConnectionTimeout);
+            idleConnectionTimeoutThread.setTimeoutInterval(Math.max(1000, idleConnectionTimeout / 2));
+            idleConnectionTimeoutThread.addConnectionManager(client.getHttpConnectionManager());
+            idleConnectionTimeoutThread.start();
+        }
         
         for (Credentials credentials : lCredentials) {
             AuthScope authScope = new AuthScope(credentials.getAuthScopeHost(), 
@@ -209,19 +464,71 @@ public abstract class AbstractHttpClientTemplate<T> implements InitializingBean,
             
             client.getState().setCredentials(authScope, httpCredentials);
         }
+        
+        if (taskExecutor == null) {
+            Assert.isTrue(asyncPoolSize > 0);
+            Assert.isTrue(asyncQueueCapacity >= 0);
+            
+            defaultTaskExecutor = new ThreadPoolTaskExecutor();
+            defaultTaskExecutor.setCorePoolSize(asyncPoolSize);
+            defaultTaskExecutor.setMaxPoolSize(asyncPoolSize);
+            defaultTaskExecutor.setQueueCapacity(asyncQueueCapacity);
+            // a full queue runs the request on the caller, throttling fan-out
+            defaultTaskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+            defaultTaskExecutor.setThreadNamePrefix(getClass().getSimpleName() + "-");
+            defaultTaskExecutor.initialize();
+            
+            taskExecutor = defaultTaskExecutor;
+        }
     }
 
     /**
      * Implementation of <code>DisposableBean</code> that 
      * shuts down the connection manager if it is an instance of 
-     * <code>MultiThreadedHttpConnectionManager</code>.
+     * <code>MultiThreadedHttpConnectionManager</code> and 
+     * the default asynchronous task executor and idle connection 
+     * eviction thread if they were created.
      */
     public void destroy() throws Exception {
+        if (registeredObjectName != null) {
+            mbeanExporter.unregisterManagedResource(registeredObjectName);
+            
+            registeredObjectName = null;
+        }
+        
+        if (idleConnectionTimeoutThread != null) {
+            idleConnectionTimeoutThread.shutdown();
+            
+            idleConnectionTimeoutThread = null;
+        }
+        
+        if (defaultTaskExecutor != null) {
+            defaultTaskExecutor.shutdown();
+            
+            defaultTaskExecutor = null;
+            taskExecutor = null;
+        }
+        
         if (client.getHttpConnectionManager() instanceof MultiThreadedHttpConnectionManager) {
             ((MultiThreadedHttpConnectionManager)client.getHttpConnectionManager()).shutdown();
         }
     }
 
+    /**
+     * Creates connection manager's JMX object name.
+     */
+    protected ObjectName createObjectName() throws MalformedObjectNameException {
+        if (objectName != null) {
+            return ObjectName.getInstance(objectName);
+        }
+        
+        String name = (beanName != null ? beanName : getClass().getSimpleName() + "-" + System.identityHashCode(this));
+        
+        return ObjectName.getInstance(InstrumentedHttpConnectionManager.class.getPackage().getName() + 
+                                      ":type=" + InstrumentedHttpConnectionManager.class.getSimpleName() + 
+                                      ",name=" + ObjectName.quote(name));
+    }
+
     /**
      * Execute get method.
      */
@@ -347,6 +654,98 @@ public abstract class AbstractHttpClientTemplate<T> implements InitializingBean,
                                            T requestPayload, Map<String, String> hParams,
                                            ResponseCallback<?> callback);
     
+    /**
+     * Execute get method asynchronously.
+     * 
+     * @param   callback        Callback with HTTP method's response.
+     * 
+     * @return  Future completed after the callback has processed the response.
+     */
+    public ListenableFuture<Void> executeGetMethodAsync(ResponseCallback<?> callback) {
+        return executeGetMethodAsync(defaultUri, null, callback);
+    }
+
+    /**
+     * Execute get method asynchronously.
+     * 
+     * @param   hParams         Parameters for the HTTP get.
+     * @param   callback        Callback with HTTP method's response.
+     * 
+     * @return  Future completed after the callback has processed the response.
+     */
+    public ListenableFuture<Void> executeGetMethodAsync(Map<String, String> hParams, ResponseCallback<?> callback) {
+        return executeGetMethodAsync(defaultUri, hParams, callback);
+    }
+
+    /**
+     * Execute get method asynchronously.  Any error, including an 
+     * unsuccessful HTTP response, completes the future with an 
+     * <code>HttpAccessException</code>.
+     * 
+     * @param   uri             URI to use when processing this HTTP request instead 
+     *                          of using the default URI.
+     * @param   hParams         Parameters for the HTTP get.
+     * @param   callback        Callback with HTTP method's response.
+     * 
+     * @return  Future completed after the callback has processed the response.
+     */
+    public ListenableFuture<Void> executeGetMethodAsync(final String uri, final Map<String, String> hParams, 
+                                                        final ResponseCallback<?> callback) {
+        return submit(new Callable<Void>() {
+            public Void call() throws Exception {
+                executeGetMethod(uri, hParams, callback);
+                
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Execute post method asynchronously.
+     * 
+     * @param   hParams         Parameters for the HTTP post.
+     * @param   callback        Callback with HTTP method's response.
+     * 
+     * @return  Future completed after the callback has processed the response.
+     */
+    public ListenableFuture<Void> executePostMethodAsync(Map<String, String> hParams, ResponseCallback<?> callback) {
+        return executePostMethodAsync(defaultUri, null, hParams, callback);
+    }
+
+    /**
+     * Execute post method asynchronously.  Any error, including an 
+     * unsuccessful HTTP response, completes the future with an 
+     * <code>HttpAccessException</code>.
+     * 
+     * @param   uri             URI to use when processing this HTTP request instead 
+     *                          of using the default URI.
+     * @param   requestPayload  Request data to post.
+     * @param   hParams         Parameters for the HTTP post.
+     * @param   callback        Callback with HTTP method's response.
+     * 
+     * @return  Future completed after the callback has processed the response.
+     */
+    public ListenableFuture<Void> executePostMethodAsync(final String uri,
+                                                         final T requestPayload, final Map<String, String> hParams,
+                                                         final ResponseCallback<?> callback) {
+        return submit(new Callable<Void>() {
+            public Void call() throws Exception {
+                executePostMethod(uri, requestPayload, hParams, callback);
+                
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Submits a request to the task executor.
+     */
+    protected <V> ListenableFuture<V> submit(Callable<V> task) {
+        Assert.state(taskExecutor != null, "Template has not been initialized.");
+        
+        return taskExecutor.submitListenable(task);
+    }
+    
     /**
      * Processes <code>HttpMethod</code> by executing the method, 
      * validating the response, and calling the callback.
@@ -16,6 +16,7 @@
 
 package org.springbyexample.httpclient;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Map;
@@ -35,6 +36,7 @@ import org.springframework.oxm.MarshallingFailureException;
 import org.springframework.oxm.Unmarshaller;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
 
 /**
  * Template for easier use of <code>HttpClient</code> and 
@@ -47,10 +49,15 @@ import org.springframework.util.Assert;
 public class HttpClientOxmTemplate<T> extends AbstractHttpClientTemplate<T> 
         implements InitializingBean {
 
+    public static final int DEFAULT_RESPONSE_BUFFER_SIZE = 8192;
+
     final Logger logger = LoggerFactory.getLogger(HttpClientOxmTemplate.class);
 
     protected Marshaller marshaller = null;
     protected Unmarshaller unmarshaller = null;
+    protected boolean streamingRequest = true;
+    protected String requestContentType = null;
+    protected int responseBufferSize = DEFAULT_RESPONSE_BUFFER_SIZE;
     
     /**
      * Constructor.
@@ -130,6 +137,54 @@ public class HttpClientOxmTemplate<T> extends AbstractHttpClientTemplate<T>
     public void setUnmarshaller(Unmarshaller unmarshaller) {
         this.unmarshaller = unmarshaller;
     }
+
+    /**
+     * Whether or not requests are marshalled directly to the connection 
+     * using chunked transfer encoding.  If <code>false</code>, requests 
+     * are marshalled to a buffer first so the content length can be sent.
+     * Defaults to <code>true</code>.
+     */
+    public boolean isStreamingRequest() {
+        return streamingRequest;
+    }
+
+    /**
+     * Sets whether or not requests are marshalled directly to the connection 
+     * using chunked transfer encoding.
+     */
+    public void setStreamingRequest(boolean streamingRequest) {
+        this.streamingRequest = streamingRequest;
+    }
+
+    /**
+     * Gets content type of marshalled requests.
+     * Defaults to <code>null</code>, which doesn't send a content type.
+     */
+    public String getRequestContentType() {
+        return requestContentType;
+    }
+
+    /**
+     * Sets content type of marshalled requests.
+     */
+    public void setRequestContentType(String requestContentType) {
+        this.requestContentType = requestContentType;
+    }
+
+    /**
+     * Gets size of the buffer used when reading a response for unmarshalling.
+     * Defaults to {@link #DEFAULT_RESPONSE_BUFFER_SIZE}.
+     */
+    public int getResponseBufferSize() {
+        return responseBufferSize;
+    }
+
+    /**
+     * Sets size of the buffer used when reading a response for unmarshalling.
+     */
+    public void setResponseBufferSize(int responseBufferSize) {
+        this.responseBufferSize = responseBufferSize;
+    }
     
     /**
      * Implementation of <code>InitializingBean</code> 
@@ -140,6 +195,7 @@ public class HttpClientOxmTemplate<T> extends AbstractHttpClientTemplate<T>
     public void afterPropertiesSet() throws Exception {
         Assert.notNull(marshaller);
         Assert.notNull(unmarshaller);
+        Assert.isTrue(responseBufferSize > 0);
         
         super.afterPropertiesSet();
     }
@@ -193,6 +249,36 @@ public class HttpClientOxmTemplate<T> extends AbstractHttpClientTemplate<T>
         executePostMethod(defaultUri, requestPayload, hParams, callback);
     }
     
+    /**
+     * Execute post method asynchronously.
+     * 
+     * @param   requestPayload  Request data to post after marshalling.  
+     *                          The <code>Marshaller</code> should be able to 
+     *                          process this instance. 
+     * @param   callback        Callback with HTTP method's response.
+     * 
+     * @return  Future completed after the callback has processed the response.
+     */
+    public ListenableFuture<Void> executePostMethodAsync(T requestPayload, ResponseCallback<?> callback) {
+        return executePostMethodAsync(defaultUri, requestPayload, null, callback);
+    }
+
+    /**
+     * Execute post method asynchronously.
+     * 
+     * @param   requestPayload  Request data to post after marshalling.  
+     *                          The <code>Marshaller</code> should be able to 
+     *                          process this instance. 
+     * @param   hParams         Parameters for the HTTP post.
+     * @param   callback        Callback with HTTP method's response.
+     * 
+     * @return  Future completed after the callback has processed the response.
+     */
+    public ListenableFuture<Void> executePostMethodAsync(T requestPayload, Map<String, String> hParams,
+                                                         ResponseCallback<?> callback) {
+        return executePostMethodAsync(defaultUri, requestPayload, hParams, callback);
+    }
+    
     /**
      * Execute post method.
      * 
@@ -209,7 +295,9 @@ public class HttpClientOxmTemplate<T> extends AbstractHttpClientTemplate<T>
                                   ResponseCallback<?> callback) {
         PostMethod post = new PostMethod(uri);
         
-        if (requestPayload != null) {
+        if (requestPayload != null && streamingRequest) {
+            post.setRequestEntity(new MarshallingRequestEntity(marshaller, requestPayload, requestContentType));
+        } else if (requestPayload != null) {
             ByteArrayOutputStream out = new ByteArrayOutputStream();
             
             try {
@@ -218,7 +306,7 @@ public class HttpClientOxmTemplate<T> extends AbstractHttpClientTemplate<T>
                 throw new MarshallingFailureException(e.getMessage(), e);
             }
             
-            post.setRequestEntity(new ByteArrayRequestEntity(out.toByteArray()));
+            post.setRequestEntity(new ByteArrayRequestEntity(out.toByteArray(), requestContentType));
         }
         
         processHttpMethodParams(post, hParams);
@@ -241,7 +329,8 @@ public class HttpClientOxmTemplate<T> extends AbstractHttpClientTemplate<T>
             validateResponse(httpMethod);
             
             if (callback != null) {
-                Object value = unmarshaller.unmarshal(new StreamSource(httpMethod.getResponseBodyAsStream()));
+                Object value = unmarshaller.unmarshal(new StreamSource(
+                        new BufferedInputStream(httpMethod.getResponseBodyAsStream(), responseBufferSize)));
             
                 callback.doWithResponse((T)value);
             }
@@ -30,6 +30,7 @@ import org.apache.commons.httpclient.methods.RequestEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
 
 /**
  * Template for easier use of <code>HttpClient</code>.
@@ -131,6 +132,34 @@ public class HttpClientTemplate extends AbstractHttpClientTemplate<RequestEntity
         executePostMethod(defaultUri, new InputStreamRequestEntity(input), null, callback);
     }
     
+    /**
+     * Execute post method asynchronously.
+     * 
+     * @param   input           Byte array <code>RequestEntity</code> to post 
+     *                          for the request's data.
+     * @param   callback        Callback with HTTP method's response.
+     * 
+     * @return  Future completed after the callback has processed the response.
+     */
+    public ListenableFuture<Void> executePostMethodAsync(byte[] input, ResponseCallback<?> callback) {
+        return executePostMethodAsync(defaultUri,  
+                                      (input != null ? new ByteArrayRequestEntity(input) : null), 
+                                      null, callback);
+    }
+
+    /**
+     * Execute post method asynchronously.
+     * 
+     * @param   input           <code>String</code> to post 
+     *                          for the request's data.
+     * @param   callback        Callback with HTTP method's response.
+     * 
+     * @return  Future completed after the callback has processed the response.
+     */
+    public ListenableFuture<Void> executePostMethodAsync(String input, ResponseCallback<?> callback) {
+        return executePostMethodAsync((input != null ? input.getBytes() : null), callback);
+    }
+    
     /**
      * Execute post method.
      * 
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.httpclient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * <code>MultiThreadedHttpConnectionManager</code> that keeps per host 
+ * statistics on leased connections, requests waiting for a connection, 
+ * and how long requests waited to lease a connection.  The statistics 
+ * are exposed as JMX attributes when registered with an annotation 
+ * based <code>MBeanExporter</code>.
+ * 
+ * @author David Winterfeldt
+ */
+@ManagedResource(description="HTTP connection pool.")
+public class InstrumentedHttpConnectionManager extends MultiThreadedHttpConnectionManager {
+
+    private final ConcurrentMap<String, HostStatistics> hHostStatistics = new ConcurrentHashMap<String, HostStatistics>();
+
+    /**
+     * Constructor.
+     */
+    public InstrumentedHttpConnectionManager() {
+        super();
+    }
+    
+    /**
+     * Gets a connection, tracking the time spent waiting for one to be leased.
+     */
+    @Override
+    public HttpConnection getConnectionWithTimeout(HostConfiguration hostConfiguration, long timeout)
+            throws ConnectionPoolTimeoutException {
+        HostStatistics stats = getHostStatistics(hostConfiguration.getHost(), hostConfiguration.getPort());
+        stats.hostConfiguration = hostConfiguration;
+        
+        stats.pending.incrementAndGet();
+        long start = System.nanoTime();
+        
+        try {
+            HttpConnection result = super.getConnectionWithTimeout(hostConfiguration, timeout);
+            
+            stats.leased.incrementAndGet();
+            stats.recordLease(System.nanoTime() - start);
+            
+            return result;
+        } catch (ConnectionPoolTimeoutException e) {
+            stats.leaseTimeouts.incrementAndGet();
+            
+            throw e;
+        } finally {
+            stats.pending.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Releases a connection back to the pool.
+     */
+    @Override
+    public void releaseConnection(HttpConnection conn) {
+        super.releaseConnection(conn);
+        
+        getHostStatistics(conn.getHost(), conn.getPort()).leased.decrementAndGet();
+    }
+
+    /**
+     * Gets the total number of connections in the pool.
+     */
+    @ManagedAttribute(description="Total number of open connections.")
+    public int getTotalConnections() {
+        return getConnectionsInPool();
+    }
+    
+    /**
+     * Gets the number of connections currently leased.
+     */
+    @ManagedAttribute(description="Number of leased connections.")
+    public int getLeasedConnections() {
+        int result = 0;
+        
+        for (HostStatistics stats : hHostStatistics.values()) {
+            result += stats.getLeased();
+        }
+        
+        return result;
+    }
+
+    /**
+     * Gets the number of open connections that aren't leased.
+     */
+    @ManagedAttribute(description="Number of open connections available for lease.")
+    public int getAvailableConnections() {
+        return Math.max(0, getTotalConnections() - getLeasedConnections());
+    }
+
+    /**
+     * Gets the number of requests waiting to lease a connection.
+     */
+    @ManagedAttribute(description="Number of requests waiting for a connection.")
+    public int getPendingRequests() {
+        int result = 0;
+        
+        for (HostStatistics stats : hHostStatistics.values()) {
+            result += stats.getPending();
+        }
+        
+        return result;
+    }
+
+    /**
+     * Gets max total connections.
+     */
+    @Override
+    @ManagedAttribute(description="Maximum number of connections.")
+    public int getMaxTotalConnections() {
+        return super.getMaxTotalConnections();
+    }
+    
+    /**
+     * Gets default max connections per host.
+     */
+    @Override
+    @ManagedAttribute(description="Default maximum number of connections per host.")
+    public int getMaxConnectionsPerHost() {
+        return super.getMaxConnectionsPerHost();
+    }
+
+    /**
+     * Gets a summary of statistics for each host.
+     */
+    @ManagedAttribute(description="Connection statistics for each host.")
+    public String[] getHostStatisticsSummary() {
+        List<String> lResults = new ArrayList<String>();
+        
+        for (Map.Entry<String, HostStatistics> entry : hHostStatistics.entrySet()) {
+            HostStatistics stats = entry.getValue();
+            
+            lResults.add(entry.getKey() + 
+                         " leased=" + stats.getLeased() + 
+                         " available=" + stats.getAvailable() + 
+                         " pending=" + stats.getPending() + 
+                         " leaseCount=" + stats.getLeaseCount() + 
+                         " leaseTimeouts=" + stats.getLeaseTimeouts() + 
+                         " averageLeaseWaitTime=" + stats.getAverageLeaseWaitTime() + "ms" + 
+                         " maxLeaseWaitTime=" + stats.getMaxLeaseWaitTime() + "ms");
+        }
+        
+        Collections.sort(lResults);
+        
+        return lResults.toArray(new String[lResults.size()]);
+    }
+    
+    /**
+     * Gets statistics for each host keyed by 'host:port'.
+     */
+    public Map<String, HostStatistics> getHostStatistics() {
+        return Collections.<String, HostStatistics>unmodifiableMap(hHostStatistics);
+    }
+
+    /**
+     * Gets or creates statistics for a host.
+     */
+    private HostStatistics getHostStatistics(String host, int port) {
+        String key = host + ":" + port;
+        HostStatistics result = hHostStatistics.get(key);
+        
+        if (result == null) {
+            HostStatistics stats = new HostStatistics();
+            result = hHostStatistics.putIfAbsent(key, stats);
+            
+            if (result == null) {
+                result = stats;
+            }
+        }
+        
+        return result;
+    }
+
+    /**
+     * Connection statistics for a host.
+     */
+    public class HostStatistics {
+        
+        private final AtomicInteger leased = new AtomicInteger();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicLong leaseCount = new AtomicLong();
+        private final AtomicLong leaseTimeouts = new AtomicLong();
+        private final AtomicLong totalLeaseWaitTime = new AtomicLong();
+        private final AtomicLong maxLeaseWaitTime = new AtomicLong();
+        private volatile HostConfiguration hostConfiguration = null;
+
+        /**
+         * Gets the number of connections leased.
+         */
+        public int getLeased() {
+            return leased.get();
+        }
+        
+        /**
+         * Gets the number of open connections that aren't leased.
+         */
+        public int getAvailable() {
+            return (hostConfiguration != null ? 
+                    Math.max(0, getConnectionsInPool(hostConfiguration) - getLeased()) : 0);
+        }
+
+        /**
+         * Gets the number of requests waiting to lease a connection.
+         */
+        public int getPending() {
+            return pending.get();
+        }
+
+        /**
+         * Gets the number of connections leased since the pool was created.
+         */
+        public long getLeaseCount() {
+            return leaseCount.get();
+        }
+
+        /**
+         * Gets the number of requests that timed out waiting for a connection.
+         */
+        public long getLeaseTimeouts() {
+            return leaseTimeouts.get();
+        }
+
+        /**
+         * Gets average time in milliseconds spent waiting to lease a connection.
+         */
+        public long getAverageLeaseWaitTime() {
+            long count = leaseCount.get();
+            
+            return (count > 0 ? (totalLeaseWaitTime.get() / count) / 1000000 : 0);
+        }
+
+        /**
+         * Gets max time in milliseconds spent waiting to lease a connection.
+         */
+        public long getMaxLeaseWaitTime() {
+            return maxLeaseWaitTime.get() / 1000000;
+        }
+        
+        /**
+         * Records a lease.
+         */
+        private void recordLease(long waitTime) {
+            leaseCount.incrementAndGet();
+            totalLeaseWaitTime.addAndGet(waitTime);
+            
+            long max = maxLeaseWaitTime.get();
+            
+            while (waitTime > max && !maxLeaseWaitTime.compareAndSet(max, waitTime)) {
+                max = maxLeaseWaitTime.get();
+            }
+        }
+        
+    }
+    
+}
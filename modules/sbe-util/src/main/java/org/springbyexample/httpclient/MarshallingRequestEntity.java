@@ -0,0 +1,104 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.httpclient;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.springframework.oxm.Marshaller;
+
+/**
+ * <code>RequestEntity</code> that marshals the payload directly to 
+ * the request's <code>OutputStream</code>.  Since the content length 
+ * isn't known in advance, the request is sent using chunked transfer encoding.
+ * 
+ * @author David Winterfeldt
+ */
+public class MarshallingRequestEntity implements RequestEntity {
+
+    private final Marshaller marshaller;
+    private final Object requestPayload;
+    private final String contentType;
+    
+    /**
+     * Constructor.
+     * 
+     * @param   marshaller      Marshaller to use for marshalling the payload.
+     * @param   requestPayload  Request data to marshal.
+     */
+    public MarshallingRequestEntity(Marshaller marshaller, Object requestPayload) {
+        this(marshaller, requestPayload, null);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param   marshaller      Marshaller to use for marshalling the payload.
+     * @param   requestPayload  Request data to marshal.
+     * @param   contentType     Content type of the request (optional).
+     */
+    public MarshallingRequestEntity(Marshaller marshaller, Object requestPayload, String contentType) {
+        this.marshaller = marshaller;
+        this.requestPayload = requestPayload;
+        this.contentType = contentType;
+    }
+    
+    /**
+     * The payload can be marshalled again if the request needs to be retried.
+     */
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    /**
+     * Marshals the payload to the request's <code>OutputStream</code>.
+     * The stream is shielded from being closed by the marshaller 
+     * since it belongs to the connection.
+     */
+    public void writeRequest(OutputStream out) throws IOException {
+        marshaller.marshal(requestPayload, new StreamResult(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+            
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        }));
+    }
+
+    /**
+     * Content length isn't known in advance so chunked transfer encoding is used.
+     */
+    public long getContentLength() {
+        return -1;
+    }
+
+    /**
+     * Gets content type.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.httpclient.solr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Result of a bulk index run from {@link SolrBulkIndexer}.
+ * 
+ * @author David Winterfeldt
+ */
+public class SolrBulkIndexResult<T> {
+
+    private final AtomicLong documentCount = new AtomicLong();
+    private final AtomicInteger batchCount = new AtomicInteger();
+    private final List<FailedBatch<T>> lFailedBatches = Collections.synchronizedList(new ArrayList<FailedBatch<T>>());
+    private volatile long elapsedTime = 0;
+    
+    /**
+     * Gets number of documents successfully indexed.
+     */
+    public long getDocumentCount() {
+        return documentCount.get();
+    }
+
+    /**
+     * Gets number of batches successfully sent.
+     */
+    public int getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Gets batches that failed to be indexed.
+     */
+    public List<FailedBatch<T>> getFailedBatches() {
+        synchronized (lFailedBatches) {
+            return new ArrayList<FailedBatch<T>>(lFailedBatches);
+        }
+    }
+    
+    /**
+     * Whether or not any batches failed.
+     */
+    public boolean hasFailures() {
+        return !lFailedBatches.isEmpty();
+    }
+
+    /**
+     * Gets elapsed time of the run in milliseconds.
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Gets throughput in documents per second.
+     */
+    public double getDocumentsPerSecond() {
+        return (elapsedTime > 0 ? (getDocumentCount() * 1000d) / elapsedTime : 0);
+    }
+
+    /**
+     * Records a successfully indexed batch.
+     */
+    void addIndexedBatch(int size) {
+        documentCount.addAndGet(size);
+        batchCount.incrementAndGet();
+    }
+
+    /**
+     * Records a failed batch.
+     */
+    void addFailedBatch(List<T> lBeans, Throwable cause) {
+        lFailedBatches.add(new FailedBatch<T>(lBeans, cause));
+    }
+
+    /**
+     * Sets elapsed time of the run in milliseconds.
+     */
+    void setElapsedTime(long elapsedTime) {
+        this.elapsedTime = elapsedTime;
+    }
+
+    /**
+     * A batch that failed to be indexed.
+     */
+    public static class FailedBatch<T> {
+        
+        private final List<T> lBeans;
+        private final Throwable cause;
+        
+        /**
+         * Constructor.
+         */
+        public FailedBatch(List<T> lBeans, Throwable cause) {
+            this.lBeans = lBeans;
+            this.cause = cause;
+        }
+
+        /**
+         * Gets beans in the failed batch.
+         */
+        public List<T> getBeans() {
+            return lBeans;
+        }
+
+        /**
+         * Gets cause of the failure.
+         */
+        public Throwable getCause() {
+            return cause;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.httpclient.solr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.oxm.MarshallingFailureException;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+
+/**
+ * Indexes a large number of beans with Solr by splitting them into 
+ * batches by count and optionally by marshalled size, and keeping 
+ * several update requests in flight at once.  Instead of committing 
+ * each batch, updates can use Solr's <i>commitWithin</i> and a single 
+ * commit is sent once all batches have been processed.
+ * 
+ * @author David Winterfeldt
+ */
+public class SolrBulkIndexer<T> {
+
+    final Logger logger = LoggerFactory.getLogger(SolrBulkIndexer.class);
+
+    public final static int DEFAULT_BATCH_SIZE = 1000;
+    public final static int DEFAULT_CONCURRENCY = 4;
+    
+    protected final static String COMMIT_WITHIN_PARAM = "commitWithin";
+
+    protected final SolrOxmClient<T> client;
+    
+    protected int batchSize = DEFAULT_BATCH_SIZE;
+    protected long maxBatchBytes = 0;
+    protected int concurrency = DEFAULT_CONCURRENCY;
+    protected Integer commitWithin = null;
+    protected boolean commit = true;
+    protected SolrRequestAttributes commitAttributes = null;
+    
+    /**
+     * Constructor.
+     * 
+     * @param   client      Initialized Solr client to index with.
+     */
+    public SolrBulkIndexer(SolrOxmClient<T> client) {
+        Assert.notNull(client);
+        
+        this.client = client;
+    }
+
+    /**
+     * Gets max number of beans in a batch.
+     * Defaults to {@link #DEFAULT_BATCH_SIZE}.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets max number of beans in a batch.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Gets max marshalled size of a batch in bytes.
+     * If greater than zero, each batch is marshalled before 
+     * being sent and split until it is under the limit (or contains a single bean).
+     * Defaults to zero, which streams batches without checking their size.
+     */
+    public long getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    /**
+     * Sets max marshalled size of a batch in bytes.
+     */
+    public void setMaxBatchBytes(long maxBatchBytes) {
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    /**
+     * Gets max number of update requests in flight.
+     * Defaults to {@link #DEFAULT_CONCURRENCY}.
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Sets max number of update requests in flight.
+     * The client's asynchronous pool size and max connections per host 
+     * limit how many requests actually run at once.
+     */
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Gets the number of milliseconds within which Solr should commit each batch.
+     * Defaults to <code>null</code>, which doesn't send <i>commitWithin</i>.
+     */
+    public Integer getCommitWithin() {
+        return commitWithin;
+    }
+
+    /**
+     * Sets the number of milliseconds within which Solr should commit each batch.
+     */
+    public void setCommitWithin(Integer commitWithin) {
+        this.commitWithin = commitWithin;
+    }
+
+    /**
+     * Whether or not to send a commit after all batches have been sent.
+     * Defaults to <code>true</code>.
+     */
+    public boolean isCommit() {
+        return commit;
+    }
+
+    /**
+     * Sets whether or not to send a commit after all batches have been sent.
+     */
+    public void setCommit(boolean commit) {
+        this.commit = commit;
+    }
+
+    /**
+     * Gets attributes for the final commit (ex: soft commit).
+     */
+    public SolrRequestAttributes getCommitAttributes() {
+        return commitAttributes;
+    }
+
+    /**
+     * Sets attributes for the final commit (ex: soft commit).
+     */
+    public void setCommitAttributes(SolrRequestAttributes commitAttributes) {
+        this.commitAttributes = commitAttributes;
+    }
+
+    /**
+     * Indexes beans.  Blocks until all batches have been processed.  Failed batches 
+     * don't stop the run and are reported in the result.
+     * 
+     * @param   beans       Beans to create or update.
+     */
+    public SolrBulkIndexResult<T> index(Iterator<T> beans) {
+        Assert.isTrue(batchSize > 0);
+        Assert.isTrue(concurrency > 0);
+        
+        final SolrBulkIndexResult<T> result = new SolrBulkIndexResult<T>();
+        final Semaphore permits = new Semaphore(concurrency);
+        String uri = getUpdateUri();
+        
+        long start = System.currentTimeMillis();
+        
+        while (beans.hasNext()) {
+            List<T> lBatch = new ArrayList<T>(batchSize);
+            
+            while (beans.hasNext() && lBatch.size() < batchSize) {
+                lBatch.add(beans.next());
+            }
+            
+            send(uri, lBatch, permits, result);
+        }
+        
+        // wait for all in flight requests
+        permits.acquireUninterruptibly(concurrency);
+        permits.release(concurrency);
+        
+        client.clearSearchCache();
+
+        if (commit) {
+            client.commit(commitAttributes);
+        }
+
+        result.setElapsedTime(System.currentTimeMillis() - start);
+        
+        logger.info("Processed bulk index.  documents={} batches={} failedBatches={} elapsedTime={}ms docsPerSecond={}", 
+                    new Object[] { result.getDocumentCount(), result.getBatchCount(), 
+                                   result.getFailedBatches().size(), result.getElapsedTime(), 
+                                   (long) result.getDocumentsPerSecond() });
+        
+        return result;
+    }
+    
+    /**
+     * Gets update uri including the <i>commitWithin</i> parameter, 
+     * appended to any query string the update url already has.
+     */
+    protected String getUpdateUri() {
+        String result = client.getUpdateUrl();
+        
+        if (commitWithin != null) {
+            result += (result.indexOf('?') >= 0 ? "&" : "?") + COMMIT_WITHIN_PARAM + "=" + commitWithin;
+        }
+        
+        return result;
+    }
+
+    /**
+     * Sends a batch, splitting it if it exceeds the max batch size in bytes.
+     */
+    protected void send(String uri, final List<T> lBatch, 
+                        final Semaphore permits, final SolrBulkIndexResult<T> result) {
+        byte[] request = null;
+        
+        if (maxBatchBytes > 0) {
+            try {
+                request = marshal(lBatch);
+            } catch (RuntimeException e) {
+                result.addFailedBatch(lBatch, e);
+                
+                return;
+            }
+            
+            if (request.length > maxBatchBytes && lBatch.size() > 1) {
+                int middle = lBatch.size() / 2;
+                
+                send(uri, new ArrayList<T>(lBatch.subList(0, middle)), permits, result);
+                send(uri, new ArrayList<T>(lBatch.subList(middle, lBatch.size())), permits, result);
+                
+                return;
+            }
+        }
+
+        ListenableFuture<Void> future = null;
+        
+        permits.acquireUninterruptibly();
+        
+        try {
+            if (request != null) {
+                future = client.postTemplate.executePostMethodAsync(uri, new ByteArrayRequestEntity(request, client.getContentType()), null, null);
+            } else {
+                future = client.updateTemplate.executePostMethodAsync(uri, lBatch, null, null);
+            }
+        } catch (RuntimeException e) {
+            permits.release();
+            result.addFailedBatch(lBatch, e);
+            
+            return;
+        }
+        
+        future.addCallback(new ListenableFutureCallback<Void>() {
+            public void onSuccess(Void value) {
+                result.addIndexedBatch(lBatch.size());
+                permits.release();
+            }
+
+            public void onFailure(Throwable t) {
+                logger.warn("Failed to index batch of size {}.  {}", lBatch.size(), t.getMessage());
+
+                result.addFailedBatch(lBatch, t);
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * Marshals a batch.
+     */
+    protected byte[] marshal(List<T> lBatch) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        try {
+            client.getMarshaller().marshal(lBatch, new StreamResult(out));
+        } catch (IOException e) {
+            throw new MarshallingFailureException(e.getMessage(), e);
+        }
+        
+        return out.toByteArray();
+    }
+    
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.httpclient.solr;
+
+import org.springframework.oxm.Marshaller;
+import org.springframework.oxm.Unmarshaller;
+
+
+
+/**
+ * Marshals update requests and unmarshals search responses for a 
+ * Solr wire format.  Setting a codec on {@link SolrOxmClient} sets 
+ * the marshaller and unmarshaller, and also the response writer type 
+ * requested from Solr and the content type of update requests.
+ * 
+ * @author David Winterfeldt
+ */
+public interface SolrCodec extends Marshaller, Unmarshaller {
+
+    /**
+     * Gets the Solr response writer type sent as the <i>wt</i> parameter (ex: 'xml', 'json').
+     */
+    public String getWriterType();
+    
+    /**
+     * Gets the content type of update requests (ex: 'application/json').
+     */
+    public String getContentType();
+    
+}
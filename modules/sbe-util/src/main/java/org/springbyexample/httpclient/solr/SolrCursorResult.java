@@ -0,0 +1,35 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.httpclient.solr;
+
+
+
+/**
+ * Implemented by a search result returned from an <code>Unmarshaller</code> 
+ * to pass along Solr's <i>nextCursorMark</i> so {@link SolrSearchIterator} 
+ * can page using cursors instead of <i>start</i> and <i>rows</i>.
+ * 
+ * @author David Winterfeldt
+ */
+public interface SolrCursorResult {
+
+    /**
+     * Gets the cursor mark for the next page of results.
+     */
+    public String getNextCursorMark();
+    
+}
@@ -17,13 +17,17 @@
 package org.springbyexample.httpclient.solr;
 
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springbyexample.httpclient.HttpAccessException;
 import org.springbyexample.httpclient.HttpClientOxmTemplate;
 import org.springbyexample.httpclient.HttpClientTemplate;
 import org.springbyexample.httpclient.ResponseCallback;
@@ -32,6 +36,7 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.oxm.Marshaller;
 import org.springframework.oxm.Unmarshaller;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 
 /**
@@ -45,6 +50,14 @@ public class SolrOxmClient<T> implements InitializingBean, DisposableBean {
     final Logger logger = LoggerFactory.getLogger(SolrOxmClient.class);
 
     public final static String SEARCH_QUERY_PARAM = "q";
+    public final static String WRITER_TYPE_PARAM = "wt";
+    public final static String SORT_PARAM = "sort";
+    
+    public final static String DEFAULT_UNIQUE_KEY = "id";
+    public final static int DEFAULT_PREFETCH_PAGES = 1;
+    
+    protected final static String XML_CONTENT_TYPE = "text/xml";
+    protected final static String XML_CHARSET = "UTF-8";
     
     protected final static String SELECT_URL_SUFFIX = "/select";
     protected final static String UPDATE_URL_SUFFIX = "/update";
@@ -64,6 +77,10 @@ public class SolrOxmClient<T> implements InitializingBean, DisposableBean {
     protected String baseUrl = null;
     protected Marshaller marshaller = null;
     protected Unmarshaller unmarshaller = null;
+    protected String writerType = null;
+    protected String contentType = null;
+    protected SolrSearchCache<T> searchCache = null;
+    protected String uniqueKey = DEFAULT_UNIQUE_KEY;
 
     /**
      * Gets base url (ex: http://localhost:8983/solr).
@@ -122,6 +139,79 @@ public class SolrOxmClient<T> implements InitializingBean, DisposableBean {
         this.unmarshaller = unmarshaller;
     }
 
+    /**
+     * Gets the Solr response writer type sent as the <i>wt</i> parameter.
+     */
+    public String getWriterType() {
+        return writerType;
+    }
+
+    /**
+     * Sets the Solr response writer type sent as the <i>wt</i> parameter 
+     * (ex: 'json').  Defaults to <code>null</code>, which uses Solr's default XML response.
+     * The unmarshaller must be able to process this format.
+     */
+    public void setWriterType(String writerType) {
+        this.writerType = writerType;
+    }
+
+    /**
+     * Gets the content type of update requests.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Sets the content type of update requests (ex: 'application/json').
+     * Defaults to <code>null</code>, which doesn't send a content type.
+     * The marshaller must produce this format.
+     */
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * Gets search result cache.
+     */
+    public SolrSearchCache<T> getSearchCache() {
+        return searchCache;
+    }
+
+    /**
+     * Sets search result cache.  Defaults to <code>null</code>, 
+     * which doesn't cache searches.  The cache is cleared whenever 
+     * this client sends an update, delete, commit, or rollback.
+     */
+    public void setSearchCache(SolrSearchCache<T> searchCache) {
+        this.searchCache = searchCache;
+    }
+
+    /**
+     * Gets the schema's unique key field.
+     */
+    public String getUniqueKey() {
+        return uniqueKey;
+    }
+
+    /**
+     * Sets the schema's unique key field.  Defaults to 'id'.
+     * Searches sorted on this field page with <i>cursorMark</i> by default.
+     */
+    public void setUniqueKey(String uniqueKey) {
+        this.uniqueKey = uniqueKey;
+    }
+
+    /**
+     * Sets marshaller, unmarshaller, writer type, and content type from a codec.
+     */
+    public void setCodec(SolrCodec codec) {
+        this.marshaller = codec;
+        this.unmarshaller = codec;
+        this.writerType = codec.getWriterType();
+        this.contentType = codec.getContentType();
+    }
+
     /**
      * <p>Initializes <code>HttpClientTemplate</code>s.</p>
      * 
@@ -141,6 +231,7 @@ public class SolrOxmClient<T> implements InitializingBean, DisposableBean {
         updateTemplate = new HttpClientOxmTemplate<List<T>>(getUpdateUrl());
         updateTemplate.setMarshaller(marshaller);
         updateTemplate.setUnmarshaller(unmarshaller);
+        updateTemplate.setRequestContentType(contentType);
         // call init
         updateTemplate.afterPropertiesSet();
 
@@ -188,17 +279,83 @@ public class SolrOxmClient<T> implements InitializingBean, DisposableBean {
      * @param   hParams     <code>Map</code> of query parameters.
      */ 
     public List<T> search(final Map<String, String> hParams) {
+        Map<String, String> hSearchParams = getSearchParams(hParams);
+        long cacheGeneration = 0;
+        
+        if (searchCache != null) {
+            List<T> lCachedResults = searchCache.get(hSearchParams);
+            
+            if (lCachedResults != null) {
+                return lCachedResults;
+            }
+            
+            cacheGeneration = searchCache.getGeneration();
+        }
+        
         final List<T> lResults = new ArrayList<T>();
 
-        selectTemplate.executeGetMethod(hParams, new ResponseCallback<List<T>>() {
+        selectTemplate.executeGetMethod(hSearchParams, new ResponseCallback<List<T>>() {
             public void doWithResponse(List<T> lBeans) throws IOException {
                 lResults.addAll(lBeans);
             }
         });
+        
+        if (searchCache != null) {
+            searchCache.put(hSearchParams, lResults, cacheGeneration);
+        }
 
         return lResults;
     }
 
+    /**
+     * Lazily searches all results, requesting pages as they're needed 
+     * and prefetching the next page.  If the <i>sort</i> includes the 
+     * unique key, pages are requested with Solr's <i>cursorMark</i>.  
+     * Otherwise, or if the unmarshaller doesn't return a 
+     * {@link SolrCursorResult}, <i>start</i> and <i>rows</i> are used.
+     * 
+     * @param   hParams     <code>Map</code> of query parameters.
+     * @param   rows        Number of results per page.
+     */ 
+    public Iterable<T> searchIterable(Map<String, String> hParams, int rows) {
+        return searchIterable(hParams, rows, DEFAULT_PREFETCH_PAGES, isUniqueKeySort(hParams));
+    }
+
+    /**
+     * Lazily searches all results, requesting pages as they're needed 
+     * and prefetching the next page.
+     * 
+     * @param   hParams     <code>Map</code> of query parameters.
+     * @param   rows        Number of results per page.
+     * @param   cursor      Whether or not to page with Solr's <i>cursorMark</i>.
+     * 
+     * @see     SolrSearchIterator
+     */ 
+    public Iterable<T> searchIterable(Map<String, String> hParams, int rows, boolean cursor) {
+        return searchIterable(hParams, rows, DEFAULT_PREFETCH_PAGES, cursor);
+    }
+
+    /**
+     * Lazily searches all results, requesting pages as they're needed 
+     * and prefetching the next pages.
+     * 
+     * @param   hParams         <code>Map</code> of query parameters.
+     * @param   rows            Number of results per page.
+     * @param   prefetchPages   Number of pages to request ahead of the current one.
+     *                          With cursor paging only one page can be requested ahead.
+     * @param   cursor          Whether or not to page with Solr's <i>cursorMark</i>.
+     * 
+     * @see     SolrSearchIterator
+     */ 
+    public Iterable<T> searchIterable(final Map<String, String> hParams, final int rows, 
+                                      final int prefetchPages, final boolean cursor) {
+        return new Iterable<T>() {
+            public Iterator<T> iterator() {
+                return new SolrSearchIterator<T>(SolrOxmClient.this, hParams, rows, prefetchPages, cursor);
+            }
+        };
+    }
+
     /**
      * Updates a list of beans and automatically commits the updates.
      * 
@@ -216,12 +373,25 @@ public class SolrOxmClient<T> implements InitializingBean, DisposableBean {
      */
     public void update(List<T> lBeans, boolean commit) {
         updateTemplate.executePostMethod(lBeans);
+        
+        clearSearchCache();
 
         if (commit) {
             commit();
         }
     }
 
+    /**
+     * Indexes beans in batches with several update requests in flight 
+     * and commits once all batches have been sent.  Use a 
+     * {@link SolrBulkIndexer} directly to configure batching and commits.
+     * 
+     * @param   beans       Beans to create or update.
+     */
+    public SolrBulkIndexResult<T> bulkUpdate(Iterator<T> beans) {
+        return new SolrBulkIndexer<T>(this).index(beans);
+    }
+
     /**
      * Deletes a record based on an id and automatically commits the delete.
      * 
@@ -270,7 +440,9 @@ public class SolrOxmClient<T> implements InitializingBean, DisposableBean {
     protected void delete(String query, boolean commit) {
         String request = getEnclosingElement(DELETE_ELEMENT_NAME, query);
         
-        postTemplate.executePostMethod(request);
+        postRequest(request);
+        
+        clearSearchCache();
         
         if (commit) {
             commit();
@@ -292,7 +464,9 @@ public class SolrOxmClient<T> implements InitializingBean, DisposableBean {
     public void commit(SolrRequestAttributes attrs) {
         String request = getElementWithAttributes(COMMIT_ELEMENT_NAME, attrs);
         
-        postTemplate.executePostMethod(request);
+        postRequest(request);
+        
+        clearSearchCache();
         
         logger.debug("Processed commit.  request={}", request);
     }
@@ -301,7 +475,9 @@ public class SolrOxmClient<T> implements InitializingBean, DisposableBean {
      * Rollback pending transactions.
      */
     public void rollback() {
-        postTemplate.executePostMethod(ROLLBACK_REQUEST);
+        postRequest(ROLLBACK_REQUEST);
+        
+        clearSearchCache();
         
         logger.info("Processed rollback.");
     }
@@ -319,11 +495,67 @@ public class SolrOxmClient<T> implements InitializingBean, DisposableBean {
     public void optimize(SolrRequestAttributes attrs) {
         String request = getElementWithAttributes(OPTIMIZE_ELEMENT_NAME, attrs);
         
-        postTemplate.executePostMethod(request);
+        postRequest(request);
         
         logger.debug("Processed optimize.  request={}", request);
     }
 
+    /**
+     * Posts an XML update request (ex: commit, delete) as UTF-8.
+     */
+    protected void postRequest(String request) {
+        try {
+            postTemplate.executePostMethod(getUpdateUrl(), 
+                                           new StringRequestEntity(request, XML_CONTENT_TYPE, XML_CHARSET), 
+                                           null, null);
+        } catch (UnsupportedEncodingException e) {
+            throw new HttpAccessException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Clears the search cache if one is set.
+     */
+    protected void clearSearchCache() {
+        if (searchCache != null) {
+            searchCache.clear();
+        }
+    }
+
+    /**
+     * Whether or not the <i>sort</i> parameter includes the unique key, 
+     * which Solr requires for <i>cursorMark</i> paging.
+     */
+    protected boolean isUniqueKeySort(Map<String, String> hParams) {
+        String sort = hParams.get(SORT_PARAM);
+        
+        if (uniqueKey != null && StringUtils.hasText(sort)) {
+            for (String clause : StringUtils.commaDelimitedListToStringArray(sort)) {
+                String[] fields = StringUtils.tokenizeToStringArray(clause, " ");
+                
+                if (fields.length > 0 && uniqueKey.equals(fields[0])) {
+                    return true;
+                }
+            }
+        }
+        
+        return false;
+    }
+
+    /**
+     * Gets search parameters, adding the writer type if one is set.
+     */
+    protected Map<String, String> getSearchParams(Map<String, String> hParams) {
+        Map<String, String> result = hParams;
+        
+        if (writerType != null) {
+            result = new HashMap<String, String>(hParams);
+            result.put(WRITER_TYPE_PARAM, writerType);
+        }
+        
+        return result;
+    }
+
     /**
      * Gets an element enclosing a value. 
      */
@@ -358,6 +590,10 @@ public class SolrOxmClient<T> implements InitializingBean, DisposableBean {
             if (attrs.getWaitSearcher() != null) {
                 result.append(" waitSearcher=\"" + attrs.getWaitSearcher() + "\"");
             }
+    
+            if (attrs.getSoftCommit() != null) {
+                result.append(" softCommit=\"" + attrs.getSoftCommit() + "\"");
+            }
         }
         
         result.append("/>");
@@ -28,6 +28,7 @@ public class SolrRequestAttributes {
     private Integer maxSegments = null;
     private Boolean waitFlush = null;
     private Boolean waitSearcher = null;
+    private Boolean softCommit = null;
    
     /**
      * Gets max segments.
@@ -83,6 +84,24 @@ public class SolrRequestAttributes {
         this.waitSearcher = waitSearcher;
     }
 
+    /**
+     * Gets whether or not to perform a soft commit.
+     * Makes changes visible without flushing them to disk (Solr 4.0+).
+     * Defaults to <code>false</code>.
+     */
+    public Boolean getSoftCommit() {
+        return softCommit;
+    }
+
+    /**
+     * Sets whether or not to perform a soft commit.
+     * Makes changes visible without flushing them to disk (Solr 4.0+).
+     * Defaults to <code>false</code>.
+     */
+    public void setSoftCommit(Boolean softCommit) {
+        this.softCommit = softCommit;
+    }
+
     
 }
 
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.httpclient.solr;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+
+/**
+ * Bounded cache of search results for {@link SolrOxmClient}.  Entries 
+ * are keyed by the query parameters sorted by name, evicted least 
+ * recently used first once the max size is reached, and expire after 
+ * the time to live.  The client clears the cache whenever it sends 
+ * an update, delete, commit, or rollback.
+ * 
+ * @author David Winterfeldt
+ */
+@ManagedResource(description="Solr search result cache.")
+public class SolrSearchCache<T> {
+
+    public final static int DEFAULT_MAX_SIZE = 1000;
+    public final static long DEFAULT_TIME_TO_LIVE = 60000;
+    
+    protected final static String PARAM_DELIM = "&";
+    protected final static String VALUE_DELIM = "=";
+    protected final static String KEY_ENCODING = "UTF-8";
+
+    private final Map<String, Entry<T>> hEntries;
+    private final int maxSize;
+    private final long timeToLive;
+    
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Constructor.
+     */
+    public SolrSearchCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param   maxSize         Max number of searches to cache.
+     * @param   timeToLive      Time in milliseconds before an entry expires.  
+     *                          Zero or less doesn't expire entries.
+     */
+    public SolrSearchCache(final int maxSize, long timeToLive) {
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        
+        hEntries = new LinkedHashMap<String, Entry<T>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 5092876401627716435L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+                boolean result = (size() > maxSize);
+                
+                if (result) {
+                    evictionCount.incrementAndGet();
+                }
+                
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Gets cached results for search parameters.
+     * 
+     * @return  A copy of the cached results or <code>null</code> if not cached.
+     */
+    public List<T> get(Map<String, String> hParams) {
+        String key = getKey(hParams);
+        List<T> result = null;
+        
+        synchronized (hEntries) {
+            Entry<T> entry = hEntries.get(key);
+            
+            if (entry != null && isExpired(entry)) {
+                hEntries.remove(key);
+                evictionCount.incrementAndGet();
+            } else if (entry != null) {
+                result = new ArrayList<T>(entry.lResults);
+            }
+        }
+        
+        if (result != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        
+        return result;
+    }
+
+    /**
+     * Gets the current generation, which changes every time the cache is cleared.
+     * Pass it to {@link #put(Map, List, long)} so results from a search that 
+     * started before an update aren't cached.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+    
+    /**
+     * Caches results for search parameters if the cache hasn't been 
+     * cleared since the search started.
+     */
+    public void put(Map<String, String> hParams, List<T> lResults, long generation) {
+        String key = getKey(hParams);
+        
+        synchronized (hEntries) {
+            if (generation == this.generation.get()) {
+                hEntries.put(key, new Entry<T>(new ArrayList<T>(lResults)));
+            }
+        }
+    }
+    
+    /**
+     * Clears the cache.
+     */
+    @ManagedOperation(description="Clears the cache.")
+    public void clear() {
+        synchronized (hEntries) {
+            generation.incrementAndGet();
+            hEntries.clear();
+        }
+    }
+
+    /**
+     * Gets the number of cached searches.
+     */
+    @ManagedAttribute(description="Number of cached searches.")
+    public int getSize() {
+        synchronized (hEntries) {
+            return hEntries.size();
+        }
+    }
+
+    /**
+     * Gets max number of searches to cache.
+     */
+    @ManagedAttribute(description="Max number of cached searches.")
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets time in milliseconds before an entry expires.
+     */
+    @ManagedAttribute(description="Time in milliseconds before an entry expires.")
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Gets the number of searches found in the cache.
+     */
+    @ManagedAttribute(description="Number of cache hits.")
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets the number of searches not found in the cache.
+     */
+    @ManagedAttribute(description="Number of cache misses.")
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets the number of entries evicted for size or expiration.
+     */
+    @ManagedAttribute(description="Number of entries evicted for size or expiration.")
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Gets key for search parameters with the parameters sorted by name.  
+     * Names and values are URL encoded so a delimiter in a value 
+     * can't make two different searches share a key.
+     */
+    protected String getKey(Map<String, String> hParams) {
+        StringBuilder result = new StringBuilder();
+        
+        for (Map.Entry<String, String> entry : new TreeMap<String, String>(hParams).entrySet()) {
+            if (result.length() > 0) {
+                result.append(PARAM_DELIM);
+            }
+            
+            result.append(encode(entry.getKey()));
+            
+            if (entry.getValue() != null) {
+                result.append(VALUE_DELIM);
+                result.append(encode(entry.getValue()));
+            }
+        }
+        
+        return result.toString();
+    }
+
+    /**
+     * URL encodes a key's name or value.
+     */
+    private String encode(String value) {
+        try {
+            return URLEncoder.encode(value, KEY_ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Whether or not an entry is expired.
+     */
+    private boolean isExpired(Entry<T> entry) {
+        return (timeToLive > 0 && System.currentTimeMillis() - entry.created > timeToLive);
+    }
+    
+    /**
+     * Cache entry.
+     */
+    private static class Entry<T> {
+        
+        private final List<T> lResults;
+        private final long created = System.currentTimeMillis();
+        
+        /**
+         * Constructor.
+         */
+        public Entry(List<T> lResults) {
+            this.lResults = lResults;
+        }
+        
+    }
+    
+}
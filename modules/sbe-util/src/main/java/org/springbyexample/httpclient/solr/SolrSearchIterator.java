@@ -0,0 +1,241 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.httpclient.solr;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+
+import org.springbyexample.httpclient.HttpAccessException;
+import org.springbyexample.httpclient.ResponseCallback;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+
+
+/**
+ * Lazily iterates over all the results of a search, requesting 
+ * pages from Solr as they're needed.  The next page is requested 
+ * in the background while the current one is being consumed, and 
+ * no more than the current page plus the prefetched pages are held in memory.
+ * 
+ * <p>If cursor paging is enabled, Solr's <i>cursorMark</i> is used 
+ * (Solr 4.7+).  This requires a <i>sort</i> on the unique key and 
+ * an <code>Unmarshaller</code> that returns a {@link SolrCursorResult}.  
+ * If the first page isn't a <code>SolrCursorResult</code>, or cursor paging 
+ * isn't enabled, pages are requested using <i>start</i> and <i>rows</i>.</p>
+ * 
+ * @author David Winterfeldt
+ */
+public class SolrSearchIterator<T> implements Iterator<T> {
+
+    public final static String START_PARAM = "start";
+    public final static String ROWS_PARAM = "rows";
+    public final static String CURSOR_MARK_PARAM = "cursorMark";
+    
+    protected final static String CURSOR_MARK_START = "*";
+
+    private final SolrOxmClient<T> client;
+    private final Map<String, String> hParams;
+    private final int rows;
+    private final int requestedPrefetchPages;
+    private int prefetchPages;
+    private boolean cursor;
+    
+    private final LinkedList<Page<T>> lPendingPages = new LinkedList<Page<T>>();
+    private Iterator<T> current = Collections.<T>emptyList().iterator();
+    private int nextStart = 0;
+    private boolean lastPageRequested = false;
+    
+    /**
+     * Constructor.
+     * 
+     * @param   client          Initialized Solr client.
+     * @param   hParams         <code>Map</code> of query parameters.
+     * @param   rows            Number of results per page.
+     * @param   prefetchPages   Number of pages to request ahead of the current one.
+     *                          With cursor paging only one page can be requested ahead.
+     * @param   cursor          Whether or not to page with Solr's <i>cursorMark</i>.
+     */
+    public SolrSearchIterator(SolrOxmClient<T> client, Map<String, String> hParams,
+                              int rows, int prefetchPages, boolean cursor) {
+        Assert.notNull(client);
+        Assert.isTrue(rows > 0);
+        Assert.isTrue(prefetchPages > 0);
+        
+        this.client = client;
+        this.hParams = new HashMap<String, String>(hParams);
+        this.rows = rows;
+        this.requestedPrefetchPages = prefetchPages;
+        this.prefetchPages = (cursor ? 1 : prefetchPages);
+        this.cursor = cursor;
+
+        if (cursor) {
+            this.hParams.remove(START_PARAM);
+            requestPage(CURSOR_MARK_START);
+        } else if (this.hParams.containsKey(START_PARAM)) {
+            nextStart = Integer.parseInt(this.hParams.get(START_PARAM));
+        }
+        
+        fillPrefetch();
+    }
+
+    /**
+     * Whether or not there are more results.
+     */
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (lPendingPages.isEmpty()) {
+                return false;
+            }
+
+            Page<T> page = lPendingPages.removeFirst();
+            List<T> lResults = page.get();
+            
+            if (lResults.size() < rows) {
+                lastPageRequested = true;
+                lPendingPages.clear();
+            } else if (cursor) {
+                String nextCursorMark = (lResults instanceof SolrCursorResult ? 
+                                         ((SolrCursorResult) lResults).getNextCursorMark() : null);
+                
+                if (nextCursorMark == null && CURSOR_MARK_START.equals(page.cursorMark)) {
+                    // unmarshaller doesn't pass along the cursor mark, 
+                    // so continue after the first page with start and rows
+                    cursor = false;
+                    prefetchPages = requestedPrefetchPages;
+                    nextStart = rows;
+                } else {
+                    Assert.state(nextCursorMark != null, 
+                                 "Cursor paging requires the unmarshaller to return a SolrCursorResult.");
+                    
+                    if (nextCursorMark.equals(page.cursorMark)) {
+                        lastPageRequested = true;
+                    } else {
+                        requestPage(nextCursorMark);
+                    }
+                }
+            }
+
+            fillPrefetch();
+            
+            current = lResults.iterator();
+        }
+        
+        return true;
+    }
+
+    /**
+     * Gets the next result.
+     */
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        
+        return current.next();
+    }
+
+    /**
+     * Not supported.
+     */
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Requests pages using <i>start</i> until the prefetch limit is reached.
+     */
+    private void fillPrefetch() {
+        if (!cursor) {
+            while (!lastPageRequested && lPendingPages.size() < prefetchPages) {
+                requestPage(null);
+            }
+        }
+    }
+    
+    /**
+     * Requests a page in the background.
+     */
+    private void requestPage(String cursorMark) {
+        Map<String, String> hPageParams = new HashMap<String, String>(hParams);
+        hPageParams.put(ROWS_PARAM, String.valueOf(rows));
+        
+        if (cursorMark != null) {
+            hPageParams.put(CURSOR_MARK_PARAM, cursorMark);
+        } else {
+            hPageParams.put(START_PARAM, String.valueOf(nextStart));
+            nextStart += rows;
+        }
+        
+        final Page<T> page = new Page<T>(cursorMark);
+        
+        page.future = client.selectTemplate.executeGetMethodAsync(client.getSelectUrl(), client.getSearchParams(hPageParams), 
+            new ResponseCallback<List<T>>() {
+                public void doWithResponse(List<T> lBeans) throws IOException {
+                    page.lResults = lBeans;
+                }
+        });
+        
+        lPendingPages.add(page);
+    }
+
+    /**
+     * Page of results being requested.
+     */
+    private static class Page<T> {
+        
+        private final String cursorMark;
+        private ListenableFuture<Void> future = null;
+        private volatile List<T> lResults = null;
+        
+        /**
+         * Constructor.
+         */
+        public Page(String cursorMark) {
+            this.cursorMark = cursorMark;
+        }
+        
+        /**
+         * Waits for and gets the page's results.
+         */
+        public List<T> get() {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                
+                throw new HttpAccessException(e.getMessage(), e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                
+                throw new HttpAccessException(e.getCause().getMessage(), e.getCause());
+            }
+            
+            return (lResults != null ? lResults : Collections.<T>emptyList());
+        }
+        
+    }
+    
+}
@@ -1,9 +1,12 @@
 package org.springbyexample.util.image;
 
+import java.awt.Dimension;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Image processor.
@@ -21,7 +24,32 @@ public interface ImageProcessor {
      * Sets image width for scaling.
      */
     public void setImageScaleWidth(int imageScaleWidth);
+
+    /**
+     * Gets named image variants.
+     */
+    public List<ImageVariant> getImageVariants();
+
+    /**
+     * Sets named image variants.
+     */
+    public void setImageVariants(List<ImageVariant> imageVariants);
         
+    /**
+     * Gets the width and height of an image without decoding it.
+     */
+    public Dimension getImageSize(File imageFile) 
+            throws IOException;
+
+    /**
+     * Gets the size an image will be after it's scaled.
+     * 
+     * @param   width           Image width.
+     * @param   height          Image height.
+     * @param   scaleWidth      Length of the longest side of the scaled image.
+     */
+    public Dimension getScaledSize(int width, int height, int scaleWidth);
+
     /**
      * Creates a scaled new file.
      */
@@ -34,4 +62,14 @@ public interface ImageProcessor {
     public void scaleImage(InputStream in, OutputStream out, String formatName) 
             throws IOException;
 
+    /**
+     * Creates a scaled new file for each variant 
+     * while only decoding the image once.
+     * 
+     * @param   imageFile       Image to scale.
+     * @param   hVariantFiles   Files to create keyed by the variant to scale to.
+     */
+    public void scaleImage(File imageFile, Map<ImageVariant, File> hVariantFiles) 
+            throws IOException;
+
 }
@@ -1,21 +1,49 @@
 package org.springbyexample.util.image;
 
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
-import java.awt.geom.AffineTransform;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 /**
  * Image processor.
+ *
+ * <p>Large images are decoded with subsampling so the full resolution
+ * image is never held in memory, then reduced in progressive halving
+ * steps before a final bilinear step to the requested size.</p>
+ *
+ * <p>When creating several variants of an image, the image is decoded 
+ * once for the largest variant and each smaller variant is scaled 
+ * from the next larger one.</p>
  * 
  * @author David Winterfeldt
  */
@@ -23,7 +51,17 @@ public class ImageProcessorImpl implements ImageProcessor{
 
 	final Logger logger = LoggerFactory.getLogger(ImageProcessorImpl.class);
 	
+	public static final float DEFAULT_COMPRESSION_QUALITY = 0.75f;
+	public static final int DEFAULT_SUBSAMPLING_HEADROOM = 2;
+	
+	protected static final String TEMP_FILE_SUFFIX = ".tmp";
+
 	protected int imageScaleWidth = 200;
+	protected float compressionQuality = DEFAULT_COMPRESSION_QUALITY;
+	protected boolean subsampling = true;
+	protected int subsamplingHeadroom = DEFAULT_SUBSAMPLING_HEADROOM;
+	protected boolean progressiveScaling = true;
+	protected List<ImageVariant> lImageVariants = new ArrayList<ImageVariant>();
 
 	/**
      * Gets image width for scaling.
@@ -40,21 +78,100 @@ public class ImageProcessorImpl implements ImageProcessor{
     }
 
     /**
-     * Creates a scaled new file.
+     * Gets named image variants.
+     */
+    public List<ImageVariant> getImageVariants() {
+        return lImageVariants;
+    }
+
+    /**
+     * Sets named image variants.
+     */
+    public void setImageVariants(List<ImageVariant> imageVariants) {
+        this.lImageVariants = imageVariants;
+    }
+
+    /**
+     * Gets JPEG compression quality between 0 and 1.
+     * Defaults to {@link #DEFAULT_COMPRESSION_QUALITY}.
+     */
+    public float getCompressionQuality() {
+        return compressionQuality;
+    }
+
+    /**
+     * Sets JPEG compression quality between 0 and 1.
+     */
+    public void setCompressionQuality(float compressionQuality) {
+        this.compressionQuality = compressionQuality;
+    }
+
+    /**
+     * Whether or not large images are decoded with subsampling.
+     * Defaults to <code>true</code>.
+     */
+    public boolean isSubsampling() {
+        return subsampling;
+    }
+
+    /**
+     * Sets whether or not large images are decoded with subsampling.
+     */
+    public void setSubsampling(boolean subsampling) {
+        this.subsampling = subsampling;
+    }
+
+    /**
+     * Gets how many times larger than the scaled size a subsampled
+     * image is decoded, leaving room for the progressive scaling steps.
+     * Defaults to {@link #DEFAULT_SUBSAMPLING_HEADROOM}.
+     */
+    public int getSubsamplingHeadroom() {
+        return subsamplingHeadroom;
+    }
+
+    /**
+     * Sets how many times larger than the scaled size a subsampled
+     * image is decoded.
+     */
+    public void setSubsamplingHeadroom(int subsamplingHeadroom) {
+        this.subsamplingHeadroom = subsamplingHeadroom;
+    }
+
+    /**
+     * Whether or not images are reduced in halving steps
+     * before the final scaling step.
+     * Defaults to <code>true</code>.
+     */
+    public boolean isProgressiveScaling() {
+        return progressiveScaling;
+    }
+
+    /**
+     * Sets whether or not images are reduced in halving steps
+     * before the final scaling step.
+     */
+    public void setProgressiveScaling(boolean progressiveScaling) {
+        this.progressiveScaling = progressiveScaling;
+    }
+
+    /**
+     * Creates a scaled new file.  The format is based on
+     * the new file's extension, or the image file's
+     * extension if the new file doesn't have one.
      */
 	public void scaleImage(File imageFile, File newImageFile) 
 			throws IOException {
         Assert.notNull(imageFile, "Image file can not be null.");
         Assert.notNull(newImageFile, "New image file can not be null.");
 
-	    String imageFileName = imageFile.getName();
-        String formatName = imageFileName.substring(imageFileName.lastIndexOf("."));
+        String formatName = getFormatName(newImageFile, imageFile);
 
-	    BufferedImage image = ImageIO.read(imageFile);
+	    BufferedImage image = readImage(imageFile, imageScaleWidth);
 	    
 	    BufferedImage destImage = processImageScaling(image);
 
-	    ImageIO.write(destImage, formatName, newImageFile);
+	    writeImage(destImage, formatName, newImageFile);
 
         logger.debug("Created '{}' from orginal file '{}'.", newImageFile.getAbsolutePath(), imageFile.getAbsolutePath());
 	}
@@ -68,42 +185,337 @@ public class ImageProcessorImpl implements ImageProcessor{
         Assert.notNull(out, "OutStream can not be null.");
         Assert.hasText(formatName, "Format name can not be blank.");
         
-        BufferedImage image = ImageIO.read(in);
+        BufferedImage image = readImage(in, imageScaleWidth);
         
         BufferedImage destImage = processImageScaling(image);
 
-        ImageIO.write(destImage, formatName, out);
+        ImageOutputStream ios = ImageIO.createImageOutputStream(out);
+
+        try {
+            writeImage(destImage, formatName, ios);
+        } finally {
+            ios.close();
+        }
         
         logger.debug("Created scaled from orginal file.");
     }
     
+    /**
+     * Creates a scaled new file for each variant 
+     * while only decoding the image once.
+     */
+    public void scaleImage(File imageFile, Map<ImageVariant, File> hVariantFiles) 
+            throws IOException {
+        Assert.notNull(imageFile, "Image file can not be null.");
+        Assert.notEmpty(hVariantFiles, "Variant files can not be empty.");
+
+        List<ImageVariant> lVariants = new ArrayList<ImageVariant>(hVariantFiles.keySet());
+
+        // largest first so each variant can be scaled from the previous one
+        Collections.sort(lVariants, new Comparator<ImageVariant>() {
+            public int compare(ImageVariant v1, ImageVariant v2) {
+                return (v2.getScaleWidth() < v1.getScaleWidth() ? -1 : (v2.getScaleWidth() == v1.getScaleWidth() ? 0 : 1));
+            }
+        });
+
+        BufferedImage image = readImage(imageFile, lVariants.get(0).getScaleWidth());
+
+        for (ImageVariant variant : lVariants) {
+            File newImageFile = hVariantFiles.get(variant);
+            String formatName = (StringUtils.hasText(variant.getFormatName()) ? 
+                                 variant.getFormatName() : getFormatName(newImageFile, imageFile));
+
+            image = processImageScaling(image, variant.getScaleWidth());
+
+            writeImage(image, formatName, newImageFile);
+
+            logger.debug("Created '{}' variant '{}' from orginal file '{}'.", 
+                         new Object[] { variant.getName(), newImageFile.getAbsolutePath(), imageFile.getAbsolutePath() });
+        }
+    }
+
     /**
      * Creates a scaled new file.
      */
     protected BufferedImage processImageScaling(BufferedImage image) 
             throws IOException {
-		double d = (double) imageScaleWidth / (double) image.getHeight(null);
-		
-		if (image.getWidth(null) > image.getHeight(null)) {
-			d = (double) imageScaleWidth / (double) image.getWidth(null);
-		}
-		
-		int j = (int) (d * (double) image.getWidth(null));
-		int k = (int) (d * (double) image.getHeight(null));
+        return processImageScaling(image, imageScaleWidth);
+    }
 		
-		BufferedImage destImage = new BufferedImage(j, k, 1);
+    /**
+     * Scales an image so its longest side matches the scale width.
+     * Images smaller than the scale width are not enlarged.
+     *
+     * <p>If progressive scaling is enabled, the image is halved until
+     * the next step would be smaller than the target.  Each step draws
+     * into one of two scratch images, alternating between them,
+     * so only two intermediate rasters are allocated regardless of
+     * the number of steps.</p>
+     *
+     * @param   image           Image to scale.
+     * @param   scaleWidth      Length of the longest side of the scaled image.
+     */
+    protected BufferedImage processImageScaling(BufferedImage image, int scaleWidth) {
+        Assert.isTrue(scaleWidth > 0, "Scale width must be greater than zero.");
 
-		AffineTransform at = new AffineTransform();
-		
-		if (d < 1.0D) {
-			at.scale(d, d);
+        Dimension scaledSize = getScaledSize(image.getWidth(), image.getHeight(), scaleWidth);
+
+		int j = scaledSize.width;
+		int k = scaledSize.height;
+
+		// keep transparency, otherwise use an opaque raster
+		int imageType = (image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		BufferedImage currentImage = image;
+
+		if (progressiveScaling) {
+		    BufferedImage[] scratchImages = new BufferedImage[2];
+		    int step = 0;
+
+		    while (currentImage.getWidth() / 2 >= j && currentImage.getHeight() / 2 >= k) {
+		        int stepWidth = currentImage.getWidth() / 2;
+		        int stepHeight = currentImage.getHeight() / 2;
+
+		        // steps alternate so source and destination never share a raster
+		        int index = step % 2;
+
+		        if (scratchImages[index] == null) {
+		            scratchImages[index] = new BufferedImage(stepWidth, stepHeight, imageType);
+		        }
+
+		        BufferedImage stepImage = scratchImages[index].getSubimage(0, 0, stepWidth, stepHeight);
+		        drawScaled(currentImage, stepImage);
+
+		        currentImage = stepImage;
+		        step++;
+		    }
 		}
-			
-		Graphics2D graphics2d = destImage.createGraphics();
-		graphics2d.drawImage(image, at, null);
-		graphics2d.dispose();
+		
+		BufferedImage destImage = new BufferedImage(j, k, imageType);
+		drawScaled(currentImage, destImage);
 		
 		return destImage;
 	}
 	   
+    /**
+     * Gets the width and height of an image from its header without decoding it.
+     */
+    public Dimension getImageSize(File imageFile) throws IOException {
+        Assert.notNull(imageFile, "Image file can not be null.");
+        
+        ImageInputStream iis = ImageIO.createImageInputStream(imageFile);
+
+        if (iis == null) {
+            throw new IOException("Unable to create an image input stream.");
+        }
+
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+
+            if (!readers.hasNext()) {
+                throw new IOException("No image reader found for input.");
+            }
+
+            ImageReader reader = readers.next();
+
+            try {
+                reader.setInput(iis, true, true);
+
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            iis.close();
+        }
+    }
+
+    /**
+     * Gets the size an image will be after its longest side is scaled 
+     * to the scale width.  Images smaller than the scale width are not enlarged.
+     */
+    public Dimension getScaledSize(int width, int height, int scaleWidth) {
+        double d = Math.min((double) scaleWidth / (double) Math.max(width, height), 1.0D);
+
+        return new Dimension(Math.max((int) (d * (double) width), 1), Math.max((int) (d * (double) height), 1));
+    }
+
+    /**
+     * Reads an image.  If subsampling is enabled and the image is
+     * much larger than the scale width, only every nth pixel
+     * is decoded.
+     *
+     * @param   input           <code>File</code> or <code>InputStream</code> to read from.
+     * @param   scaleWidth      Length of the longest side the image will be scaled to.
+     */
+    protected BufferedImage readImage(Object input, int scaleWidth) throws IOException {
+        ImageInputStream iis = ImageIO.createImageInputStream(input);
+
+        if (iis == null) {
+            throw new IOException("Unable to create an image input stream.");
+        }
+
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+
+            if (!readers.hasNext()) {
+                throw new IOException("No image reader found for input.");
+            }
+
+            ImageReader reader = readers.next();
+
+            try {
+                reader.setInput(iis, true, true);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int sampling = getSubsampling(reader.getWidth(0), reader.getHeight(0), scaleWidth);
+
+                if (sampling > 1) {
+                    param.setSourceSubsampling(sampling, sampling, 0, 0);
+                }
+
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            iis.close();
+        }
+    }
+
+    /**
+     * Writes an image to a temporary file in the same directory and then 
+     * renames it, replacing any existing file, so a reader never sees a partial image.
+     */
+    protected void writeImage(BufferedImage image, String formatName, File file) 
+            throws IOException {
+        File tempFile = File.createTempFile("." + file.getName() + "-", TEMP_FILE_SUFFIX, file.getAbsoluteFile().getParentFile());
+
+        try {
+            ImageOutputStream out = ImageIO.createImageOutputStream(tempFile);
+
+            try {
+                writeImage(image, formatName, out);
+            } finally {
+                out.close();
+            }
+
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), 
+                           StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * Writes an image.  If the format is JPEG,
+     * the compression quality is applied.
+     */
+    protected void writeImage(BufferedImage image, String formatName, ImageOutputStream out)
+            throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+
+        if (!writers.hasNext()) {
+            throw new IOException("No image writer found for format '" + formatName + "'.");
+        }
+
+        ImageWriter writer = writers.next();
+
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+
+            if (isJpeg(formatName)) {
+                // JPEG doesn't support transparency
+                image = removeAlpha(image);
+                
+                if (param.canWriteCompressed()) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(compressionQuality);
+                }
+            }
+
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Gets the subsampling factor for decoding an image.
+     */
+    protected int getSubsampling(int width, int height, int scaleWidth) {
+        int result = 1;
+
+        if (subsampling && scaleWidth > 0) {
+            result = Math.max(Math.max(width, height) / (scaleWidth * Math.max(subsamplingHeadroom, 1)), 1);
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the format name based on the new file's extension, 
+     * or the image file's extension if the new file doesn't have one.
+     */
+    protected String getFormatName(File newImageFile, File imageFile) {
+        String result = StringUtils.getFilenameExtension(newImageFile.getName());
+
+        if (!StringUtils.hasText(result)) {
+            result = StringUtils.getFilenameExtension(imageFile.getName());
+        }
+
+        return result;
+    }
+
+    /**
+     * Draws an image with transparency on an opaque white background.
+     * An opaque image is returned as is.
+     */
+    protected BufferedImage removeAlpha(BufferedImage image) {
+        BufferedImage result = image;
+        
+        if (image.getColorModel().hasAlpha()) {
+            result = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            
+            Graphics2D graphics2d = result.createGraphics();
+            
+            try {
+                graphics2d.drawImage(image, 0, 0, Color.WHITE, null);
+            } finally {
+                graphics2d.dispose();
+            }
+        }
+        
+        return result;
+    }
+
+    /**
+     * Draws the source image scaled to the size of the destination image, 
+     * replacing any pixels already in the destination.
+     */
+    private void drawScaled(BufferedImage image, BufferedImage destImage) {
+        Graphics2D graphics2d = destImage.createGraphics();
+
+        try {
+            // scratch rasters are reused, so don't blend with the previous step
+            graphics2d.setComposite(AlphaComposite.Src);
+            graphics2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics2d.drawImage(image, 0, 0, destImage.getWidth(), destImage.getHeight(), null);
+        } finally {
+            graphics2d.dispose();
+        }
+    }
+
+    /**
+     * Whether or not the format name is JPEG.
+     */
+    private boolean isJpeg(String formatName) {
+        return ("jpg".equalsIgnoreCase(formatName) || "jpeg".equalsIgnoreCase(formatName));
+    }
+
 }
@@ -0,0 +1,96 @@
+package org.springbyexample.util.image;
+
+import org.springframework.util.Assert;
+
+/**
+ * Named size and format an image is scaled to.
+ * 
+ * @author David Winterfeldt
+ */
+public class ImageVariant {
+
+    protected String name = null;
+    protected int scaleWidth = 0;
+    protected String formatName = null;
+
+    /**
+     * Constructor.
+     */
+    public ImageVariant() {}
+
+    /**
+     * Constructor.
+     * 
+     * @param   name            Variant name.
+     * @param   scaleWidth      Length of the longest side of the scaled image.
+     */
+    public ImageVariant(String name, int scaleWidth) {
+        this(name, scaleWidth, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param   name            Variant name.
+     * @param   scaleWidth      Length of the longest side of the scaled image.
+     * @param   formatName      Image format name (ex: jpg, png).
+     */
+    public ImageVariant(String name, int scaleWidth, String formatName) {
+        Assert.isTrue(scaleWidth > 0, "Scale width must be greater than zero.");
+
+        this.name = name;
+        this.scaleWidth = scaleWidth;
+        this.formatName = formatName;
+    }
+
+    /**
+     * Gets variant name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets variant name.
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the length of the longest side of the scaled image.
+     */
+    public int getScaleWidth() {
+        return scaleWidth;
+    }
+
+    /**
+     * Sets the length of the longest side of the scaled image.
+     */
+    public void setScaleWidth(int scaleWidth) {
+        this.scaleWidth = scaleWidth;
+    }
+
+    /**
+     * Gets image format name.  If not set, the format is 
+     * based on the extension of the file being written.
+     */
+    public String getFormatName() {
+        return formatName;
+    }
+
+    /**
+     * Sets image format name.  Any format with an <code>ImageIO</code> 
+     * writer can be used, so a format like WebP requires its 
+     * <code>ImageIO</code> plugin to be on the classpath.
+     */
+    public void setFormatName(String formatName) {
+        this.formatName = formatName;
+    }
+
+    @Override
+    public String toString() {
+        return "ImageVariant[name=" + name + ", scaleWidth=" + scaleWidth + ", formatName=" + formatName + "]";
+    }
+
+}
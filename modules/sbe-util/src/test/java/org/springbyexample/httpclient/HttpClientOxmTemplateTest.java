@@ -114,6 +114,30 @@ public class HttpClientOxmTemplateTest {
         template.executePostMethod(persons);
     }
 
+    /**
+     * Tests template's post method buffering the marshalled request 
+     * instead of streaming it and ignoring the response.
+     */ 
+    @Test
+    public void testBufferedDataPostMethodIgnoreResponse() {
+        assertNotNull("HttpClientOxmTemplate is null.", template);
+
+        Persons persons = new Persons();
+        Person person = new Person();
+        person.setId(ID);
+        person.setFirstName(FIRST_NAME);
+        person.setLastName(LAST_NAME);
+        persons.getPerson().add(person);
+        
+        template.setStreamingRequest(false);
+        
+        try {
+            template.executePostMethod(persons);
+        } finally {
+            template.setStreamingRequest(true);
+        }
+    }
+
     /**
      * Tests template's post method sending <code>String</code> data and 
      * with a <code>String</code> response.
@@ -23,8 +23,15 @@ import static org.junit.Assert.assertTrue;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.AfterClass;
@@ -39,8 +46,10 @@ import org.mortbay.jetty.servlet.ServletHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.StringUtils;
 
 /**
@@ -306,5 +315,112 @@ public class HttpClientTemplateTest {
                 }
         });
     }
+
+    /**
+     * Tests template's asynchronous get method with a <code>String</code> response 
+     * while several requests are in flight.
+     */
+    @Test
+    public void testGetMethodAsyncWithStringResponse() throws Exception {
+        assertNotNull("HttpClientTemplate is null.", template);
+
+        List<ListenableFuture<Void>> lFutures = new ArrayList<ListenableFuture<Void>>();
+        
+        for (int i = 0; i < 5; i++) {
+            lFutures.add(template.executeGetMethodAsync(new ResponseStringCallback() {
+                public void doWithResponse(String response) throws IOException {
+                    assertEquals("Response does not match expected result.", GET_RESULT, response);
+                    
+                    logger.debug("HTTP async get string response. '{}'", response);
+                }
+            }));
+        }
+        
+        for (ListenableFuture<Void> future : lFutures) {
+            future.get();
+        }
+    }
+
+    /**
+     * Tests template's asynchronous post method sending <code>String</code> data and 
+     * with a <code>String</code> response.
+     */ 
+    @Test
+    public void testStringDataPostMethodAsyncWithStringResponse() throws Exception {
+        assertNotNull("HttpClientTemplate is null.", template);
+
+        ListenableFuture<Void> future = template.executePostMethodAsync(POST_DATA_INPUT,
+            new ResponseStringCallback() {
+                public void doWithResponse(String response) throws IOException {
+                    assertEquals("Response does not match expected result.", POST_DATA_RESULT, response);
+    
+                    logger.debug("HTTP async string data post string response. '{}'", response);
+                }
+        });
+        
+        future.get();
+    }
+
+    /**
+     * Tests default asynchronous task executor's queue is bounded 
+     * and runs requests on the caller when it's full.
+     */
+    @Test
+    public void testDefaultTaskExecutorBounded() {
+        assertNotNull("HttpClientTemplate is null.", template);
+
+        ThreadPoolExecutor executor = ((ThreadPoolTaskExecutor) template.getTaskExecutor()).getThreadPoolExecutor();
+
+        assertEquals("Queue capacity.", HttpClientTemplate.DEFAULT_ASYNC_QUEUE_CAPACITY, 
+                     executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        assertTrue("Rejected requests should run on the caller.", 
+                   executor.getRejectedExecutionHandler() instanceof ThreadPoolExecutor.CallerRunsPolicy);
+    }
+
+    /**
+     * Tests default connection manager statistics after a request.
+     */
+    @Test
+    public void testConnectionManagerStatistics() {
+        assertNotNull("HttpClientTemplate is null.", template);
+        assertTrue("Connection manager should be instrumented.", 
+                   template.getConnectionManager() instanceof InstrumentedHttpConnectionManager);
+
+        template.executeGetMethod(new ResponseStringCallback() {
+            public void doWithResponse(String response) throws IOException {}
+        });
+        
+        InstrumentedHttpConnectionManager connectionManager = (InstrumentedHttpConnectionManager) template.getConnectionManager();
+        InstrumentedHttpConnectionManager.HostStatistics stats = connectionManager.getHostStatistics().get("localhost:" + PORT);
+        
+        assertNotNull("Host statistics are null.", stats);
+        assertTrue("Lease count should be greater than zero.", stats.getLeaseCount() > 0);
+        assertEquals("No connections should be leased.", 0, connectionManager.getLeasedConnections());
+        assertEquals("No requests should be pending.", 0, connectionManager.getPendingRequests());
+        assertEquals("Max connections per host should be the default.", 
+                     AbstractHttpClientTemplate.DEFAULT_MAX_CONNECTIONS_PER_HOST, connectionManager.getMaxConnectionsPerHost());
+        
+        logger.debug("Connection statistics. {}", (Object) connectionManager.getHostStatisticsSummary());
+    }
+    
+    /**
+     * Tests the connection manager is registered with the MBean exporter.
+     */
+    @Test
+    public void testConnectionManagerMBean() throws Exception {
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = template.createObjectName();
+        
+        assertEquals("Object type", "InstrumentedHttpConnectionManager", name.getKeyProperty("type"));
+        assertTrue("Connection manager MBean isn't registered.", mbeanServer.isRegistered(name));
+        
+        template.executeGetMethod(new ResponseStringCallback() {
+            public void doWithResponse(String response) throws IOException {}
+        });
+        
+        assertEquals("Leased connections", 0, mbeanServer.getAttribute(name, "LeasedConnections"));
+        assertEquals("Max connections per host", AbstractHttpClientTemplate.DEFAULT_MAX_CONNECTIONS_PER_HOST, 
+                     mbeanServer.getAttribute(name, "MaxConnectionsPerHost"));
+    }
     
 }
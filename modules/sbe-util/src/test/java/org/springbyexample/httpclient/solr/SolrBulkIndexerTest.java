@@ -0,0 +1,333 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.httpclient.solr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.httpclient.methods.StringRequestEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springbyexample.httpclient.HttpClientOxmTemplate;
+import org.springbyexample.httpclient.HttpClientTemplate;
+import org.springbyexample.httpclient.ResponseCallback;
+import org.springframework.oxm.Marshaller;
+import org.springframework.oxm.Unmarshaller;
+import org.springframework.oxm.XmlMappingException;
+import org.springframework.util.StringUtils;
+
+/**
+ * Tests <code>SolrBulkIndexer</code> against stub templates.
+ * 
+ * @author David Winterfeldt
+ */
+public class SolrBulkIndexerTest {
+
+    private static final String BASE_URL = "http://localhost:8983/solr";
+    private static final String FAIL = "fail";
+    
+    private StubUpdateTemplate updateTemplate = null;
+    private StubPostTemplate postTemplate = null;
+    private SolrOxmClient<String> client = null;
+    
+    @Before
+    public void setUp() throws Exception {
+        StubMarshaller marshaller = new StubMarshaller();
+        
+        updateTemplate = new StubUpdateTemplate();
+        updateTemplate.setMarshaller(marshaller);
+        updateTemplate.setUnmarshaller(marshaller);
+        updateTemplate.afterPropertiesSet();
+        
+        postTemplate = new StubPostTemplate();
+        postTemplate.afterPropertiesSet();
+        
+        client = new SolrOxmClient<String>();
+        client.setBaseUrl(BASE_URL);
+        client.setMarshaller(marshaller);
+        client.updateTemplate = updateTemplate;
+        client.postTemplate = postTemplate;
+    }
+    
+    @After
+    public void tearDown() throws Exception {
+        updateTemplate.destroy();
+        postTemplate.destroy();
+    }
+
+    /**
+     * Tests beans are split into batches by count, sent with <i>commitWithin</i>, 
+     * no more than the concurrency are in flight, and one commit is sent at the end.
+     */
+    @Test
+    public void testBatching() {
+        SolrBulkIndexer<String> indexer = new SolrBulkIndexer<String>(client);
+        indexer.setBatchSize(10);
+        indexer.setConcurrency(2);
+        indexer.setCommitWithin(1000);
+        
+        SolrBulkIndexResult<String> result = indexer.index(createBeans(25).iterator());
+        
+        assertFalse("Shouldn't have failures.", result.hasFailures());
+        assertEquals("Document count doesn't match.", 25, result.getDocumentCount());
+        assertEquals("Batch count doesn't match.", 3, result.getBatchCount());
+        
+        assertEquals("Batch sizes don't match.", "[10, 10, 5]", getSortedSizes(updateTemplate.lBatches).toString());
+        assertEquals("Indexed beans don't match.", createBeans(25), getSortedBeans(updateTemplate.lBatches));
+        assertTrue("Too many requests in flight.", updateTemplate.maxInFlight.get() <= 2);
+        
+        for (String uri : updateTemplate.lUris) {
+            assertEquals("Update uri doesn't match.", BASE_URL + "/update?commitWithin=1000", uri);
+        }
+        
+        assertEquals("Commits don't match.", Collections.singletonList("<commit/>"), postTemplate.lRequests);
+        assertEquals("Commit content type doesn't match.", "text/xml; charset=UTF-8", postTemplate.lContentTypes.get(0));
+    }
+
+    /**
+     * Tests <i>commitWithin</i> is appended to an update url with a query string.
+     */
+    @Test
+    public void testCommitWithinWithQueryString() {
+        SolrOxmClient<String> client = new SolrOxmClient<String>() {
+            @Override
+            protected String getUpdateUrl() {
+                return BASE_URL + "/update?wt=xml";
+            }
+        };
+        client.setBaseUrl(BASE_URL);
+        client.setMarshaller(updateTemplate.getMarshaller());
+        client.updateTemplate = updateTemplate;
+        client.postTemplate = postTemplate;
+        
+        SolrBulkIndexer<String> indexer = new SolrBulkIndexer<String>(client);
+        indexer.setCommitWithin(1000);
+        indexer.setCommit(false);
+        
+        indexer.index(createBeans(5).iterator());
+        
+        assertEquals("Update uri doesn't match.", 
+                     Collections.singletonList(BASE_URL + "/update?wt=xml&commitWithin=1000"), updateTemplate.lUris);
+    }
+
+    /**
+     * Tests a failed batch is collected with its cause and doesn't stop the run.
+     */
+    @Test
+    public void testFailedBatch() {
+        List<String> lBeans = createBeans(25);
+        lBeans.set(12, FAIL);
+        
+        SolrBulkIndexer<String> indexer = new SolrBulkIndexer<String>(client);
+        indexer.setBatchSize(10);
+        indexer.setCommit(false);
+        
+        SolrBulkIndexResult<String> result = indexer.index(lBeans.iterator());
+        
+        assertTrue("Should have failures.", result.hasFailures());
+        assertEquals("Failed batch count doesn't match.", 1, result.getFailedBatches().size());
+        
+        SolrBulkIndexResult.FailedBatch<String> failedBatch = result.getFailedBatches().get(0);
+        
+        assertEquals("Failed beans don't match.", lBeans.subList(10, 20), failedBatch.getBeans());
+        assertEquals("Failure cause doesn't match.", FAIL, failedBatch.getCause().getMessage());
+        
+        assertEquals("Document count should only include indexed batches.", 15, result.getDocumentCount());
+        assertEquals("Batch count should only include indexed batches.", 2, result.getBatchCount());
+        assertTrue("Commit shouldn't be sent.", postTemplate.lRequests.isEmpty());
+    }
+
+    /**
+     * Tests batches over the max marshalled size are split until they fit.
+     */
+    @Test
+    public void testMaxBatchBytes() {
+        // each bean is 4 bytes plus a separator
+        int maxBatchBytes = 15;
+        
+        SolrBulkIndexer<String> indexer = new SolrBulkIndexer<String>(client);
+        indexer.setBatchSize(10);
+        indexer.setMaxBatchBytes(maxBatchBytes);
+        
+        SolrBulkIndexResult<String> result = indexer.index(createBeans(20).iterator());
+        
+        assertFalse("Shouldn't have failures.", result.hasFailures());
+        assertEquals("Document count doesn't match.", 20, result.getDocumentCount());
+        assertTrue("Update template shouldn't be used.", updateTemplate.lBatches.isEmpty());
+
+        List<List<String>> lBatches = new ArrayList<List<String>>();
+        
+        for (byte[] request : postTemplate.lEntities) {
+            assertTrue("Batch is over the max size.", request.length <= maxBatchBytes);
+            
+            lBatches.add(Arrays.asList(StringUtils.commaDelimitedListToStringArray(new String(request))));
+        }
+        
+        assertEquals("Batch count doesn't match.", lBatches.size(), result.getBatchCount());
+        assertEquals("Indexed beans don't match.", createBeans(20), getSortedBeans(lBatches));
+    }
+
+    /**
+     * Tests throughput is calculated from the document count and elapsed time.
+     */
+    @Test
+    public void testThroughput() {
+        updateTemplate.delay = 10;
+        
+        SolrBulkIndexer<String> indexer = new SolrBulkIndexer<String>(client);
+        indexer.setBatchSize(5);
+        indexer.setConcurrency(1);
+        
+        SolrBulkIndexResult<String> result = indexer.index(createBeans(20).iterator());
+        
+        assertTrue("Elapsed time should include each batch.", result.getElapsedTime() >= 40);
+        assertEquals("Throughput doesn't match.", 
+                     (20 * 1000d) / result.getElapsedTime(), result.getDocumentsPerSecond(), 0.001);
+        assertEquals("Throughput without an elapsed time should be zero.", 
+                     0, new SolrBulkIndexResult<String>().getDocumentsPerSecond(), 0);
+    }
+
+    private List<String> createBeans(int count) {
+        List<String> result = new ArrayList<String>();
+        
+        for (int i = 0; i < count; i++) {
+            result.add(String.format("b%03d", i));
+        }
+        
+        return result;
+    }
+    
+    private List<Integer> getSortedSizes(List<List<String>> lBatches) {
+        List<Integer> result = new ArrayList<Integer>();
+        
+        for (List<String> lBatch : lBatches) {
+            result.add(lBatch.size());
+        }
+        
+        Collections.sort(result, Collections.reverseOrder());
+        
+        return result;
+    }
+    
+    private List<String> getSortedBeans(List<List<String>> lBatches) {
+        List<String> result = new ArrayList<String>();
+        
+        for (List<String> lBatch : lBatches) {
+            result.addAll(lBatch);
+        }
+        
+        Collections.sort(result);
+        
+        return result;
+    }
+    
+    /**
+     * Records update batches instead of posting them and fails a batch with a 'fail' bean.
+     */
+    private static class StubUpdateTemplate extends HttpClientOxmTemplate<List<String>> {
+        
+        final List<List<String>> lBatches = Collections.synchronizedList(new ArrayList<List<String>>());
+        final List<String> lUris = Collections.synchronizedList(new ArrayList<String>());
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        
+        volatile long delay = 5;
+        
+        @Override
+        public void executePostMethod(String uri, List<String> requestPayload, Map<String, String> hParams,
+                                      ResponseCallback<?> callback) {
+            int current = inFlight.incrementAndGet();
+            
+            try {
+                synchronized (maxInFlight) {
+                    maxInFlight.set(Math.max(maxInFlight.get(), current));
+                }
+                
+                Thread.sleep(delay);
+                
+                if (requestPayload.contains(FAIL)) {
+                    throw new IllegalStateException(FAIL);
+                }
+                
+                lUris.add(uri);
+                lBatches.add(requestPayload);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Records posted requests instead of sending them.
+     */
+    private static class StubPostTemplate extends HttpClientTemplate {
+        
+        final List<String> lRequests = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> lContentTypes = Collections.synchronizedList(new ArrayList<String>());
+        final List<byte[]> lEntities = Collections.synchronizedList(new ArrayList<byte[]>());
+
+        @Override
+        public void executePostMethod(String uri, RequestEntity requestPayload, Map<String, String> hParams,
+                                      ResponseCallback<?> callback) {
+            if (requestPayload instanceof StringRequestEntity) {
+                lRequests.add(((StringRequestEntity) requestPayload).getContent());
+                lContentTypes.add(requestPayload.getContentType());
+            } else {
+                lEntities.add(((ByteArrayRequestEntity) requestPayload).getContent());
+            }
+        }
+    }
+    
+    /**
+     * Marshals a list of strings as comma delimited text.
+     */
+    private static class StubMarshaller implements Marshaller, Unmarshaller {
+
+        public boolean supports(Class<?> clazz) {
+            return true;
+        }
+
+        public void marshal(Object graph, Result result) throws IOException, XmlMappingException {
+            OutputStream out = ((StreamResult) result).getOutputStream();
+            
+            out.write(StringUtils.collectionToCommaDelimitedString((List<?>) graph).getBytes());
+        }
+
+        public Object unmarshal(Source source) throws IOException, XmlMappingException {
+            throw new UnsupportedOperationException();
+        }
+    }
+    
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.httpclient.solr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests <code>SolrSearchCache</code>.
+ * 
+ * @author David Winterfeldt
+ */
+public class SolrSearchCacheTest {
+
+    /**
+     * Tests parameters are normalized so order doesn't matter.
+     */
+    @Test
+    public void testHit() {
+        SolrSearchCache<String> cache = new SolrSearchCache<String>();
+        
+        Map<String, String> hParams = new HashMap<String, String>();
+        hParams.put("q", "belkin");
+        hParams.put("rows", "10");
+        
+        assertNull("Search should not be cached.", cache.get(hParams));
+        
+        cache.put(hParams, Arrays.asList("a", "b"), cache.getGeneration());
+        
+        Map<String, String> hReorderedParams = new LinkedHashMap<String, String>();
+        hReorderedParams.put("rows", "10");
+        hReorderedParams.put("q", "belkin");
+        
+        List<String> lResults = cache.get(hReorderedParams);
+        
+        assertNotNull("Search should be cached.", lResults);
+        assertEquals("Cached results don't match.", Arrays.asList("a", "b"), lResults);
+        assertEquals("Hit count doesn't match.", 1, cache.getHitCount());
+        assertEquals("Miss count doesn't match.", 1, cache.getMissCount());
+    }
+
+    /**
+     * Tests parameters whose values contain delimiters don't share a key.
+     */
+    @Test
+    public void testKeyCollision() {
+        SolrSearchCache<String> cache = new SolrSearchCache<String>();
+        
+        Map<String, String> hParams = new HashMap<String, String>();
+        hParams.put("q", "a, rows=10");
+        
+        Map<String, String> hCollidingParams = new HashMap<String, String>();
+        hCollidingParams.put("q", "a");
+        hCollidingParams.put("rows", "10");
+        
+        Map<String, String> hDelimitedParams = new HashMap<String, String>();
+        hDelimitedParams.put("q", "a&rows=10");
+        
+        cache.put(hParams, Arrays.asList("a"), cache.getGeneration());
+        
+        assertNull("Different search should not be cached.", cache.get(hCollidingParams));
+        assertNull("Different search should not be cached.", cache.get(hDelimitedParams));
+        assertEquals("Cached results don't match.", Arrays.asList("a"), cache.get(hParams));
+        
+        cache.put(hCollidingParams, Arrays.asList("b"), cache.getGeneration());
+        cache.put(hDelimitedParams, Arrays.asList("c"), cache.getGeneration());
+        
+        assertEquals("Size doesn't match.", 3, cache.getSize());
+        assertEquals("Cached results don't match.", Arrays.asList("b"), cache.get(hCollidingParams));
+        assertEquals("Cached results don't match.", Arrays.asList("c"), cache.get(hDelimitedParams));
+    }
+
+    /**
+     * Tests clearing the cache and skipping results from searches started before it was cleared.
+     */
+    @Test
+    public void testClear() {
+        SolrSearchCache<String> cache = new SolrSearchCache<String>();
+        Map<String, String> hParams = new HashMap<String, String>();
+        hParams.put("q", "belkin");
+        
+        cache.put(hParams, Arrays.asList("a"), cache.getGeneration());
+        
+        long generation = cache.getGeneration();
+        cache.clear();
+        
+        assertNull("Search should not be cached after clear.", cache.get(hParams));
+        
+        cache.put(hParams, Arrays.asList("b"), generation);
+        
+        assertNull("Stale search should not be cached.", cache.get(hParams));
+    }
+
+    /**
+     * Tests least recently used entries are evicted once the max size is reached.
+     */
+    @Test
+    public void testEviction() {
+        SolrSearchCache<String> cache = new SolrSearchCache<String>(2, 0);
+        
+        for (int i = 0; i < 3; i++) {
+            cache.put(getParams(i), Arrays.asList(String.valueOf(i)), cache.getGeneration());
+        }
+        
+        assertEquals("Size doesn't match.", 2, cache.getSize());
+        assertEquals("Eviction count doesn't match.", 1, cache.getEvictionCount());
+        assertNull("First search should be evicted.", cache.get(getParams(0)));
+        assertNotNull("Last search should be cached.", cache.get(getParams(2)));
+    }
+    
+    /**
+     * Gets search parameters.
+     */
+    private Map<String, String> getParams(int i) {
+        Map<String, String> result = new HashMap<String, String>();
+        result.put("q", "query" + i);
+        
+        return result;
+    }
+    
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.httpclient.solr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springbyexample.httpclient.HttpAccessException;
+import org.springbyexample.httpclient.HttpClientOxmTemplate;
+import org.springbyexample.httpclient.ResponseCallback;
+import org.springframework.oxm.Marshaller;
+import org.springframework.oxm.Unmarshaller;
+import org.springframework.oxm.XmlMappingException;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Tests <code>SolrSearchIterator</code> against a stub select template.
+ * 
+ * @author David Winterfeldt
+ */
+public class SolrSearchIteratorTest {
+
+    private static final int DOCUMENT_COUNT = 20;
+    
+    private StubSelectTemplate selectTemplate = null;
+    private SolrOxmClient<String> client = null;
+    
+    @Before
+    public void setUp() throws Exception {
+        StubUnmarshaller unmarshaller = new StubUnmarshaller();
+        
+        selectTemplate = new StubSelectTemplate();
+        selectTemplate.setMarshaller(unmarshaller);
+        selectTemplate.setUnmarshaller(unmarshaller);
+        selectTemplate.afterPropertiesSet();
+        
+        client = new SolrOxmClient<String>();
+        client.setBaseUrl("http://localhost:8983/solr");
+        client.selectTemplate = selectTemplate;
+    }
+    
+    @After
+    public void tearDown() throws Exception {
+        selectTemplate.destroy();
+    }
+
+    /**
+     * Tests pages are requested with <i>start</i> and <i>rows</i> 
+     * until a short page is returned.
+     */
+    @Test
+    public void testStartPaging() {
+        List<String> lResults = toList(client.searchIterable(createParams(null), 6, false));
+        
+        assertEquals("Results don't match.", createDocuments(), lResults);
+        assertEquals("Start params don't match.", "[0, 6, 12, 18]", 
+                     selectTemplate.getRequestParams(SolrSearchIterator.START_PARAM).toString());
+        assertEquals("Rows params don't match.", "[6, 6, 6, 6]", 
+                     selectTemplate.getRequestParams(SolrSearchIterator.ROWS_PARAM).toString());
+    }
+
+    /**
+     * Tests cursor paging ends when Solr returns the same cursor mark.
+     */
+    @Test
+    public void testCursorEnd() {
+        // full pages only, so the end is only detected by an unchanged cursor mark
+        List<String> lResults = toList(client.searchIterable(createParams(null), 5, true));
+        
+        assertEquals("Results don't match.", createDocuments(), lResults);
+        assertEquals("Cursor marks don't match.", "[*, d004, d009, d014, d019]", 
+                     selectTemplate.getRequestParams(SolrSearchIterator.CURSOR_MARK_PARAM).toString());
+        assertTrue("Start shouldn't be sent with a cursor.", 
+                   selectTemplate.getRequestParams(SolrSearchIterator.START_PARAM).isEmpty());
+    }
+
+    /**
+     * Tests cursor paging is used by default when the sort includes the unique key.
+     */
+    @Test
+    public void testDefaultCursor() {
+        List<String> lResults = toList(client.searchIterable(createParams("score desc, id asc"), 5));
+        
+        assertEquals("Results don't match.", createDocuments(), lResults);
+        assertEquals("Cursor paging should be used.", 5, 
+                     selectTemplate.getRequestParams(SolrSearchIterator.CURSOR_MARK_PARAM).size());
+
+        assertFalse("Sort isn't on the unique key.", client.isUniqueKeySort(createParams("idx asc")));
+        assertFalse("Sort isn't on the unique key.", client.isUniqueKeySort(createParams(null)));
+    }
+
+    /**
+     * Tests default cursor paging falls back to <i>start</i> and <i>rows</i> 
+     * when the unmarshaller doesn't return a <code>SolrCursorResult</code>.
+     */
+    @Test
+    public void testDefaultCursorWithoutCursorResult() {
+        selectTemplate.cursorResult = false;
+        
+        List<String> lResults = toList(client.searchIterable(createParams("id asc"), 5));
+        
+        assertEquals("Results don't match.", createDocuments(), lResults);
+        assertEquals("Cursor marks don't match.", "[*]", 
+                     selectTemplate.getRequestParams(SolrSearchIterator.CURSOR_MARK_PARAM).toString());
+        assertEquals("Start params don't match.", "[5, 10, 15, 20]", 
+                     selectTemplate.getRequestParams(SolrSearchIterator.START_PARAM).toString());
+    }
+
+    /**
+     * Tests prefetched pages are requested in order, no more than the prefetch 
+     * limit are requested ahead, and results are returned in order even 
+     * when later pages complete first.
+     */
+    @Test
+    public void testPrefetchOrdering() {
+        int rows = 3;
+        int prefetchPages = 3;
+        
+        // earlier pages are slower so they complete after the prefetched ones
+        selectTemplate.reverseDelay = true;
+        
+        Iterator<String> iterator = client.searchIterable(createParams(null), rows, prefetchPages, false).iterator();
+        
+        assertEquals("Initial prefetch doesn't match.", "[0, 3, 6]", 
+                     selectTemplate.getRequestParams(SolrSearchIterator.START_PARAM).toString());
+        
+        List<String> lResults = new ArrayList<String>();
+        
+        while (iterator.hasNext()) {
+            lResults.add(iterator.next());
+            
+            int requested = selectTemplate.getRequestParams(SolrSearchIterator.START_PARAM).size();
+            int consumedPages = (lResults.size() + rows - 1) / rows;
+            
+            assertTrue("Too many pages requested ahead.", requested <= consumedPages + prefetchPages);
+        }
+        
+        assertEquals("Results don't match.", createDocuments(), lResults);
+        
+        // pages past the end may already have been requested when the short page arrives
+        List<String> lStarts = selectTemplate.getRequestParams(SolrSearchIterator.START_PARAM);
+        
+        assertTrue("Too many pages requested past the end.", lStarts.size() <= 7 + prefetchPages - 1);
+        
+        for (int i = 0; i < lStarts.size(); i++) {
+            assertEquals("Pages weren't requested in order.", String.valueOf(i * rows), lStarts.get(i));
+        }
+    }
+
+    /**
+     * Tests a failed page request is thrown from the iterator.
+     */
+    @Test(expected=HttpAccessException.class)
+    public void testFailedPage() {
+        selectTemplate.fail = true;
+        
+        client.searchIterable(createParams(null), 5, false).iterator().hasNext();
+    }
+
+    private Map<String, String> createParams(String sort) {
+        Map<String, String> result = new HashMap<String, String>();
+        
+        result.put(SolrOxmClient.SEARCH_QUERY_PARAM, "*:*");
+        
+        if (sort != null) {
+            result.put(SolrOxmClient.SORT_PARAM, sort);
+        }
+        
+        return result;
+    }
+
+    private static List<String> createDocuments() {
+        List<String> result = new ArrayList<String>();
+        
+        for (int i = 0; i < DOCUMENT_COUNT; i++) {
+            result.add(String.format("d%03d", i));
+        }
+        
+        return result;
+    }
+
+    private List<String> toList(Iterable<String> iterable) {
+        List<String> result = new ArrayList<String>();
+        
+        for (String document : iterable) {
+            result.add(document);
+        }
+        
+        return result;
+    }
+
+    /**
+     * Page of results with a cursor mark.
+     */
+    private static class CursorResult extends ArrayList<String> implements SolrCursorResult {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final String nextCursorMark;
+        
+        public CursorResult(List<String> lResults, String nextCursorMark) {
+            super(lResults);
+            
+            this.nextCursorMark = nextCursorMark;
+        }
+
+        public String getNextCursorMark() {
+            return nextCursorMark;
+        }
+    }
+    
+    /**
+     * Serves pages from a sorted list of documents and records each request's parameters 
+     * in the order they were made.
+     */
+    private static class StubSelectTemplate extends HttpClientOxmTemplate<List<String>> {
+        
+        private final List<String> lDocuments = createDocuments();
+        private final List<Map<String, String>> lRequests = 
+            Collections.synchronizedList(new ArrayList<Map<String, String>>());
+        
+        volatile boolean reverseDelay = false;
+        volatile boolean fail = false;
+        volatile boolean cursorResult = true;
+        
+        public List<String> getRequestParams(String name) {
+            List<String> result = new ArrayList<String>();
+            
+            synchronized (lRequests) {
+                for (Map<String, String> hParams : lRequests) {
+                    if (hParams.containsKey(name)) {
+                        result.add(hParams.get(name));
+                    }
+                }
+            }
+            
+            return result;
+        }
+        
+        @Override
+        public ListenableFuture<Void> executeGetMethodAsync(String uri, Map<String, String> hParams,
+                                                            ResponseCallback<?> callback) {
+            lRequests.add(new HashMap<String, String>(hParams));
+            
+            return super.executeGetMethodAsync(uri, hParams, callback);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void executeGetMethod(String uri, Map<String, String> hParams, ResponseCallback<?> callback) {
+            if (fail) {
+                throw new HttpAccessException("Service unavailable.", 503);
+            }
+            
+            int rows = Integer.parseInt(hParams.get(SolrSearchIterator.ROWS_PARAM));
+            String cursorMark = hParams.get(SolrSearchIterator.CURSOR_MARK_PARAM);
+            int start = 0;
+            
+            if (cursorMark == null) {
+                start = Integer.parseInt(hParams.get(SolrSearchIterator.START_PARAM));
+            } else if (!SolrSearchIterator.CURSOR_MARK_START.equals(cursorMark)) {
+                start = lDocuments.indexOf(cursorMark) + 1;
+            }
+            
+            List<String> lResults = new ArrayList<String>(
+                lDocuments.subList(Math.min(start, lDocuments.size()), Math.min(start + rows, lDocuments.size())));
+            
+            if (cursorMark != null && cursorResult) {
+                lResults = new CursorResult(lResults, (lResults.isEmpty() ? cursorMark : lResults.get(lResults.size() - 1)));
+            }
+            
+            try {
+                if (reverseDelay) {
+                    Thread.sleep(Math.max(0, 30 - start));
+                }
+                
+                ((ResponseCallback<List<String>>) callback).doWithResponse(lResults);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                throw new HttpAccessException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Unused, but required by the template.
+     */
+    private static class StubUnmarshaller implements Marshaller, Unmarshaller {
+
+        public boolean supports(Class<?> clazz) {
+            return true;
+        }
+
+        public void marshal(Object graph, Result result) throws IOException, XmlMappingException {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object unmarshal(Source source) throws IOException, XmlMappingException {
+            throw new UnsupportedOperationException();
+        }
+    }
+    
+}
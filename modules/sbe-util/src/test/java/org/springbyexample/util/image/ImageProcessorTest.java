@@ -16,14 +16,23 @@
 
 package org.springbyexample.util.image;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertNotNull;
 
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.imageio.ImageIO;
 
@@ -34,6 +43,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.util.FileSystemUtils;
 
 /**
  * Tests image processor.
@@ -76,5 +86,244 @@ public class ImageProcessorTest {
             try { in.close(); } catch(Exception e) {}
         }
     }
+
+    /**
+     * Tests scaling an image file to a new file.
+     */
+    @Test
+    public void testScaleImageFile() throws IOException {
+        File imageFile = File.createTempFile("image", ".jpg");
+        File newImageFile = File.createTempFile("image-thumbnail", ".jpg");
+        
+        try {
+            ImageIO.write(createImage(1600, 1200), "jpg", imageFile);
+            
+            imageProcessor.scaleImage(imageFile, newImageFile);
+            
+            BufferedImage scaledImage = ImageIO.read(newImageFile);
+            
+            assertNotNull("Scaled image is null.", scaledImage);
+            assertEquals("Scaled image width.", imageProcessor.getImageScaleWidth(), scaledImage.getWidth());
+            assertEquals("Scaled image height.", (imageProcessor.getImageScaleWidth() * 3 / 4), scaledImage.getHeight());
+        } finally {
+            imageFile.delete();
+            newImageFile.delete();
+        }
+    }
+
+    /**
+     * Tests replacing an existing file, which is written to a temporary 
+     * file and renamed so no partial image or temporary file is left.
+     */
+    @Test
+    public void testReplaceImageFile() throws IOException {
+        File dir = File.createTempFile("images", "");
+        dir.delete();
+        dir.mkdirs();
+        
+        File imageFile = new File(dir, "image.jpg");
+        File newImageFile = new File(dir, "image-thumbnail.jpg");
+        
+        try {
+            ImageIO.write(createImage(1600, 1200), "jpg", imageFile);
+            
+            FileOutputStream out = new FileOutputStream(newImageFile);
+            
+            try {
+                out.write(new byte[1024 * 1024]);
+            } finally {
+                out.close();
+            }
+            
+            imageProcessor.scaleImage(imageFile, newImageFile);
+            
+            BufferedImage scaledImage = ImageIO.read(newImageFile);
+            
+            assertNotNull("Scaled image is null.", scaledImage);
+            assertTrue("Existing file wasn't replaced.", newImageFile.length() < 1024 * 1024);
+            assertEquals("Temporary file wasn't removed.", 2, dir.listFiles().length);
+        } finally {
+            FileSystemUtils.deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Tests reading an image's size and the size it will be scaled to.
+     */
+    @Test
+    public void testImageSize() throws IOException {
+        File imageFile = File.createTempFile("image", ".jpg");
+        
+        try {
+            ImageIO.write(createImage(1200, 1600), "jpg", imageFile);
+            
+            assertEquals("Image size.", new Dimension(1200, 1600), imageProcessor.getImageSize(imageFile));
+            assertEquals("Scaled size.", new Dimension(150, 200), imageProcessor.getScaledSize(1200, 1600, 200));
+            assertEquals("Small image shouldn't be enlarged.", new Dimension(120, 160), imageProcessor.getScaledSize(120, 160, 200));
+        } finally {
+            imageFile.delete();
+        }
+    }
+
+    /**
+     * Tests creating several variants of an image file.
+     */
+    @Test
+    public void testScaleImageVariants() throws IOException {
+        File imageFile = File.createTempFile("image", ".jpg");
+        ImageVariant thumb = new ImageVariant("thumb", 100);
+        ImageVariant large = new ImageVariant("large", 800);
+        ImageVariant medium = new ImageVariant("medium", 400, "png");
+        
+        Map<ImageVariant, File> hVariantFiles = new LinkedHashMap<ImageVariant, File>();
+        hVariantFiles.put(thumb, File.createTempFile("image-thumb", ".jpg"));
+        hVariantFiles.put(large, File.createTempFile("image-large", ".jpg"));
+        hVariantFiles.put(medium, File.createTempFile("image-medium", ".png"));
+        
+        try {
+            ImageIO.write(createImage(1600, 1200), "jpg", imageFile);
+            
+            imageProcessor.scaleImage(imageFile, hVariantFiles);
+            
+            for (Map.Entry<ImageVariant, File> entry : hVariantFiles.entrySet()) {
+                BufferedImage scaledImage = ImageIO.read(entry.getValue());
+                
+                assertNotNull("Scaled image is null for " + entry.getKey() + ".", scaledImage);
+                assertEquals("Scaled image width.", entry.getKey().getScaleWidth(), scaledImage.getWidth());
+                assertEquals("Scaled image height.", (entry.getKey().getScaleWidth() * 3 / 4), scaledImage.getHeight());
+            }
+        } finally {
+            imageFile.delete();
+            
+            for (File file : hVariantFiles.values()) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Tests that a large image is decoded with subsampling 
+     * and scaling produces the same size with or without it.
+     */
+    @Test
+    public void testSubsampledScaling() throws IOException {
+        ImageProcessorImpl processor = new ImageProcessorImpl();
+        processor.setImageScaleWidth(100);
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(createImage(2000, 1000), "jpg", out);
+        byte[] image = out.toByteArray();
+        
+        BufferedImage decodedImage = processor.readImage(new ByteArrayInputStream(image), 100);
+        
+        assertEquals("Subsampled image width.", 200, decodedImage.getWidth());
+        assertEquals("Subsampled image height.", 100, decodedImage.getHeight());
+        
+        BufferedImage subsampledImage = scale(processor, image);
+        
+        processor.setSubsampling(false);
+        processor.setProgressiveScaling(false);
+        
+        BufferedImage fullImage = scale(processor, image);
+        
+        assertEquals("Scaled image width.", fullImage.getWidth(), subsampledImage.getWidth());
+        assertEquals("Scaled image height.", fullImage.getHeight(), subsampledImage.getHeight());
+        assertEquals("Scaled image width.", 100, subsampledImage.getWidth());
+    }
+
+    /**
+     * Tests that a lower JPEG quality produces a smaller image.
+     */
+    @Test
+    public void testCompressionQuality() throws IOException {
+        ImageProcessorImpl processor = new ImageProcessorImpl();
+        processor.setImageScaleWidth(400);
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(createImage(800, 600), "jpg", out);
+        byte[] image = out.toByteArray();
+        
+        processor.setCompressionQuality(0.95f);
+        
+        ByteArrayOutputStream highQuality = new ByteArrayOutputStream();
+        processor.scaleImage(new ByteArrayInputStream(image), highQuality, "jpg");
+        
+        processor.setCompressionQuality(0.2f);
+        
+        ByteArrayOutputStream lowQuality = new ByteArrayOutputStream();
+        processor.scaleImage(new ByteArrayInputStream(image), lowQuality, "jpg");
+        
+        logger.debug("High quality size={}, low quality size={}", highQuality.size(), lowQuality.size());
+        
+        assertTrue("Low quality image should be smaller.", (lowQuality.size() < highQuality.size()));
+    }
+
+    /**
+     * Tests transparency is kept when scaling to a format that supports it 
+     * and is removed when scaling to JPEG.
+     */
+    @Test
+    public void testScaleTransparentImage() throws IOException {
+        BufferedImage image = new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_ARGB);
+        
+        Graphics2D graphics2d = image.createGraphics();
+        graphics2d.setColor(Color.BLUE);
+        graphics2d.fillRect(0, 0, 800, 1200);
+        graphics2d.dispose();
+        
+        ByteArrayOutputStream imageOut = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", imageOut);
+        
+        ImageProcessorImpl processor = new ImageProcessorImpl();
+        processor.setImageScaleWidth(100);
+        
+        ByteArrayOutputStream pngOut = new ByteArrayOutputStream();
+        processor.scaleImage(new ByteArrayInputStream(imageOut.toByteArray()), pngOut, "png");
+        
+        BufferedImage scaledImage = ImageIO.read(new ByteArrayInputStream(pngOut.toByteArray()));
+        
+        assertTrue("Scaled image should have transparency.", scaledImage.getColorModel().hasAlpha());
+        assertEquals("Right side should be transparent.", 0, scaledImage.getRGB(90, 37) >>> 24);
+        assertEquals("Left side should be opaque.", 0xff, scaledImage.getRGB(10, 37) >>> 24);
+        
+        ByteArrayOutputStream jpegOut = new ByteArrayOutputStream();
+        processor.scaleImage(new ByteArrayInputStream(imageOut.toByteArray()), jpegOut, "jpg");
+        
+        scaledImage = ImageIO.read(new ByteArrayInputStream(jpegOut.toByteArray()));
+        
+        assertNotNull("Scaled JPEG is null.", scaledImage);
+        assertEquals("Scaled JPEG width.", 100, scaledImage.getWidth());
+    }
+
+    /**
+     * Scales an image.
+     */
+    private BufferedImage scale(ImageProcessor processor, byte[] image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        processor.scaleImage(new ByteArrayInputStream(image), out, "jpg");
+        
+        return ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    /**
+     * Creates a test image.
+     */
+    private BufferedImage createImage(int width, int height) {
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        
+        Graphics2D graphics2d = result.createGraphics();
+        graphics2d.setPaint(new GradientPaint(0, 0, Color.BLUE, width, height, Color.ORANGE));
+        graphics2d.fillRect(0, 0, width, height);
+        graphics2d.setColor(Color.WHITE);
+        
+        for (int i = 0; i < width; i += 10) {
+            graphics2d.drawLine(i, 0, width - i, height);
+        }
+        
+        graphics2d.dispose();
+        
+        return result;
+    }
     
 }
@@ -0,0 +1,787 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.web.servlet.image;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * In memory index of image directories.  The first lookup of a directory
+ * lists it once, reading each entry's attributes in the same pass, and
+ * later lookups are served from memory.
+ *
+ * <p>Indexed directories are registered with a <code>WatchService</code>
+ * and rescanned when an entry is created, deleted, or modified.  If the
+ * file system doesn't support watching a directory, or polling is forced
+ * (for example on network file systems where remote changes aren't
+ * reported), directories are rescanned at the poll interval instead.
+ * Changes to thumbnails, variants, and hidden files (like the temporary 
+ * files thumbnails are written to) don't cause a rescan since generating 
+ * a thumbnail already invalidates its directory.</p>
+ *
+ * <p>Once the max number of directories are indexed, the least recently 
+ * used directory is evicted and no longer watched or polled.</p>
+ *
+ * @author David Winterfeldt
+ */
+public class ImageDirectoryIndex implements InitializingBean, DisposableBean {
+
+	final Logger logger = LoggerFactory.getLogger(ImageDirectoryIndex.class);
+
+	public static final long DEFAULT_POLL_INTERVAL = 30000;
+	public static final int DEFAULT_MAX_DIRECTORIES = 1000;
+
+	protected String thumbnailSuffix = "-thumbnail";
+	protected String fileSuffix = ".jpg";
+	protected List<String> lVariantSuffixes = new ArrayList<String>();
+	protected boolean usePolling = false;
+	protected long pollInterval = DEFAULT_POLL_INTERVAL;
+	protected int maxDirectories = DEFAULT_MAX_DIRECTORIES;
+
+	protected final Map<File, ImageDirectory> hDirectories = Collections.synchronizedMap(
+		new LinkedHashMap<File, ImageDirectory>(16, 0.75f, true) {
+			private static final long serialVersionUID = -4305167283468207398L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<File, ImageDirectory> eldest) {
+				boolean result = (maxDirectories > 0 && size() > maxDirectories);
+
+				if (result) {
+					unregister(eldest.getKey());
+				}
+
+				return result;
+			}
+		});
+	protected final ConcurrentMap<File, WatchKey> hWatchKeys = new ConcurrentHashMap<File, WatchKey>();
+	protected final ConcurrentMap<File, Boolean> hPolledDirectories = new ConcurrentHashMap<File, Boolean>();
+
+	private WatchService watchService = null;
+	private Thread watchThread = null;
+	private ScheduledExecutorService pollExecutor = null;
+
+	/**
+	 * Constructor.
+	 */
+	public ImageDirectoryIndex() {}
+
+	/**
+	 * Constructor.
+	 */
+	public ImageDirectoryIndex(String thumbnailSuffix, String fileSuffix) {
+		this.thumbnailSuffix = thumbnailSuffix;
+		this.fileSuffix = fileSuffix;
+	}
+
+	/**
+	 * Constructor.
+	 */
+	public ImageDirectoryIndex(String thumbnailSuffix, String fileSuffix, List<String> variantSuffixes) {
+		this(thumbnailSuffix, fileSuffix);
+
+		this.lVariantSuffixes = variantSuffixes;
+	}
+
+	/**
+	 * Sets thumbnail suffix.
+	 */
+	public void setThumbnailSuffix(String thumbnailSuffix) {
+		this.thumbnailSuffix = thumbnailSuffix;
+	}
+
+	/**
+	 * Sets file suffix.
+	 */
+	public void setFileSuffix(String fileSuffix) {
+		this.fileSuffix = fileSuffix;
+	}
+
+	/**
+	 * Sets suffixes, including the file extension, of the image 
+	 * variants generated for each image.  Files ending in a variant 
+	 * suffix aren't treated as images.
+	 */
+	public void setVariantSuffixes(List<String> variantSuffixes) {
+		this.lVariantSuffixes = variantSuffixes;
+	}
+
+	/**
+	 * Sets whether or not all directories are polled for changes
+	 * instead of using a <code>WatchService</code>.
+	 * Defaults to <code>false</code>.
+	 */
+	public void setUsePolling(boolean usePolling) {
+		this.usePolling = usePolling;
+	}
+
+	/**
+	 * Sets the interval in milliseconds between rescans of directories
+	 * that aren't watched.  Defaults to {@link #DEFAULT_POLL_INTERVAL}.
+	 */
+	public void setPollInterval(long pollInterval) {
+		this.pollInterval = pollInterval;
+	}
+
+	/**
+	 * Sets the max number of indexed directories.  Zero or less is unbounded.
+	 * Defaults to {@link #DEFAULT_MAX_DIRECTORIES}.
+	 */
+	public void setMaxDirectories(int maxDirectories) {
+		this.maxDirectories = maxDirectories;
+	}
+
+	/**
+	 * Implementation of <code>InitializingBean</code> that starts
+	 * the directory watcher and the polling thread.
+	 */
+	public void afterPropertiesSet() throws Exception {
+		Assert.isTrue(pollInterval > 0, "Poll interval must be greater than zero.");
+
+		if (!usePolling) {
+			try {
+				watchService = FileSystems.getDefault().newWatchService();
+			} catch (IOException e) {
+				logger.warn("Unable to create watch service, polling for directory changes. " + e.getMessage());
+			} catch (UnsupportedOperationException e) {
+				logger.warn("Watch service not supported, polling for directory changes.");
+			}
+		}
+
+		if (watchService != null) {
+			final WatchService ws = watchService;
+
+			watchThread = new Thread(new Runnable() {
+				public void run() {
+					watch(ws);
+				}
+			}, getClass().getSimpleName() + "-watcher");
+			watchThread.setDaemon(true);
+			watchThread.start();
+		}
+
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(getClass().getSimpleName() + "-poller-");
+		threadFactory.setDaemon(true);
+
+		pollExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		pollExecutor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				poll();
+			}
+		}, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Implementation of <code>DisposableBean</code> that
+	 * stops the directory watcher and the polling thread.
+	 */
+	public void destroy() throws Exception {
+		if (pollExecutor != null) {
+			pollExecutor.shutdownNow();
+			pollExecutor = null;
+		}
+
+		if (watchService != null) {
+			watchService.close();
+			watchService = null;
+		}
+
+		if (watchThread != null) {
+			watchThread.interrupt();
+			watchThread = null;
+		}
+
+		hDirectories.clear();
+		hWatchKeys.clear();
+		hPolledDirectories.clear();
+	}
+
+	/**
+	 * Gets an image directory, scanning and watching it
+	 * if it isn't already indexed.
+	 *
+	 * @return	The image directory or <code>null</code> if the file isn't a directory.
+	 */
+	public ImageDirectory getDirectory(File dir) throws IOException {
+		File key = dir.getAbsoluteFile();
+		ImageDirectory result = hDirectories.get(key);
+
+		if (result == null || result.isStale()) {
+			ImageDirectory previous = result;
+
+			result = refresh(key, previous);
+
+			if (result != null && previous == null) {
+				register(key);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Marks a directory as changed so it's rescanned on the next lookup.
+	 */
+	public void invalidate(File dir) {
+		ImageDirectory directory = hDirectories.get(dir.getAbsoluteFile());
+
+		if (directory != null) {
+			directory.setStale(true);
+		}
+	}
+
+	/**
+	 * Gets the number of indexed directories.
+	 */
+	public int size() {
+		return hDirectories.size();
+	}
+
+	/**
+	 * Scans a directory and stores it in the index.
+	 *
+	 * @param 	previous	Previous scan of the directory or <code>null</code> if it wasn't indexed.
+	 *
+	 * @return	The image directory or <code>null</code> if the file isn't a directory.
+	 */
+	protected ImageDirectory refresh(File dir, ImageDirectory previous) throws IOException {
+		ImageDirectory result = scan(dir, thumbnailSuffix, fileSuffix, lVariantSuffixes);
+
+		if (result != null) {
+			if (previous != null) {
+				result.copyImageSizes(previous);
+			}
+
+			hDirectories.put(dir, result);
+		} else {
+			hDirectories.remove(dir);
+			unregister(dir);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Rescans a directory that changed if it's still indexed.
+	 * A directory evicted during the scan isn't added back.
+	 */
+	protected void rescan(File dir) {
+		try {
+			ImageDirectory directory = scan(dir, thumbnailSuffix, fileSuffix, lVariantSuffixes);
+
+			synchronized (hDirectories) {
+				ImageDirectory previous = hDirectories.get(dir);
+
+				if (directory != null && previous != null) {
+					directory.copyImageSizes(previous);
+
+					hDirectories.put(dir, directory);
+				} else if (directory == null) {
+					hDirectories.remove(dir);
+				}
+			}
+
+			if (directory == null) {
+				unregister(dir);
+			}
+		} catch (IOException e) {
+			logger.warn("Unable to rescan '{}'. {}", dir.getAbsolutePath(), e.getMessage());
+
+			hDirectories.remove(dir);
+		}
+	}
+
+	/**
+	 * Registers a directory with the watch service,
+	 * or for polling if it can't be watched.
+	 */
+	protected void register(File dir) {
+		WatchService ws = watchService;
+		boolean watched = false;
+
+		if (ws != null) {
+			try {
+				hWatchKeys.put(dir, dir.toPath().register(ws, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY));
+
+				watched = true;
+			} catch (IOException e) {
+				logger.warn("Unable to watch '{}', polling for changes. {}", dir.getAbsolutePath(), e.getMessage());
+			} catch (ClosedWatchServiceException e) {
+				logger.debug("Watch service closed.");
+			}
+		}
+
+		if (!watched) {
+			hPolledDirectories.put(dir, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Stops watching or polling a directory.
+	 */
+	protected void unregister(File dir) {
+		WatchKey key = hWatchKeys.remove(dir);
+
+		if (key != null) {
+			key.cancel();
+		}
+
+		hPolledDirectories.remove(dir);
+	}
+
+	/**
+	 * Processes watch events until the watch service is closed,
+	 * rescanning a directory whenever one of its images or 
+	 * sub-directories changes.
+	 */
+	protected void watch(WatchService ws) {
+		try {
+			while (true) {
+				WatchKey key = ws.take();
+				File dir = ((Path) key.watchable()).toFile();
+				boolean changed = false;
+
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == OVERFLOW || 
+						(event.context() != null && !isIgnored(event.kind(), event.context().toString()))) {
+						changed = true;
+					}
+				}
+
+				if (!key.reset()) {
+					logger.debug("Stopped watching '{}'.", dir.getAbsolutePath());
+
+					// a canceled key may be replaced if the directory was indexed again
+					if (hWatchKeys.remove(dir, key)) {
+						hDirectories.remove(dir);
+					}
+				} else if (changed && hDirectories.containsKey(dir)) {
+					rescan(dir);
+				}
+			}
+		} catch (ClosedWatchServiceException e) {
+			logger.debug("Watch service closed.");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Rescans directories that aren't watched.
+	 */
+	protected void poll() {
+		for (File dir : hPolledDirectories.keySet()) {
+			rescan(dir);
+		}
+	}
+
+	/**
+	 * Whether or not a watch event doesn't change the directory's listing 
+	 * or thumbnail state.  Generated files being written are ignored, but 
+	 * a deleted thumbnail or variant means it has to be generated again.
+	 */
+	protected boolean isIgnored(WatchEvent.Kind<?> kind, String fileName) {
+		return (isHidden(fileName) || (kind != ENTRY_DELETE && isGenerated(fileName)));
+	}
+
+	/**
+	 * Whether or not a file is generated by thumbnail generation, 
+	 * which is a thumbnail, variant, or hidden temporary file.
+	 */
+	protected boolean isGenerated(String fileName) {
+		return (isHidden(fileName) || isDerived(fileName, thumbnailSuffix + fileSuffix, lVariantSuffixes));
+	}
+
+	/**
+	 * Scans a directory, reading the attributes of every entry
+	 * once and matching images with their thumbnails.
+	 *
+	 * @return	The image directory or <code>null</code> if the file isn't a directory.
+	 */
+	public static ImageDirectory scan(File dir, String thumbnailSuffix, String fileSuffix)
+			throws IOException {
+		return scan(dir, thumbnailSuffix, fileSuffix, Collections.<String>emptyList());
+	}
+
+	/**
+	 * Scans a directory, reading the attributes of every entry
+	 * once and matching images with their thumbnails and variants.
+	 *
+	 * @return	The image directory or <code>null</code> if the file isn't a directory.
+	 */
+	public static ImageDirectory scan(File dir, String thumbnailSuffix, String fileSuffix, 
+									  List<String> lVariantSuffixes)
+			throws IOException {
+		Path path = dir.toPath();
+
+		if (!Files.isDirectory(path)) {
+			return null;
+		}
+
+		String thumbnailEnding = thumbnailSuffix + fileSuffix;
+		Map<String, BasicFileAttributes> hFiles = new HashMap<String, BasicFileAttributes>();
+		List<File> lDirectories = new ArrayList<File>();
+		List<String> lNames = new ArrayList<String>();
+
+		DirectoryStream<Path> stream = null;
+
+		try {
+			stream = Files.newDirectoryStream(path);
+
+			for (Path entry : stream) {
+				BasicFileAttributes attributes = null;
+
+				try {
+					attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+				} catch (NoSuchFileException e) {
+					// deleted while listing
+					continue;
+				}
+
+				String fileName = entry.getFileName().toString();
+
+				if (isHidden(fileName)) {
+					continue;
+				} else if (attributes.isDirectory()) {
+					lDirectories.add(entry.toFile());
+				} else {
+					hFiles.put(fileName, attributes);
+					lNames.add(fileName);
+				}
+			}
+		} catch (NoSuchFileException e) {
+			return null;
+		} finally {
+			if (stream != null) {
+				stream.close();
+			}
+		}
+
+		List<ImageFile> lImages = new ArrayList<ImageFile>();
+
+		for (String fileName : lNames) {
+			if (!isDerived(fileName, thumbnailEnding, lVariantSuffixes)) {
+				BasicFileAttributes attributes = hFiles.get(fileName);
+				String name = StringUtils.stripFilenameExtension(fileName);
+				String thumbnailName = name + thumbnailEnding;
+				Map<String, Long> hVariantLastModified = new HashMap<String, Long>();
+
+				for (String variantSuffix : lVariantSuffixes) {
+					hVariantLastModified.put(variantSuffix, getLastModified(hFiles.get(name + variantSuffix)));
+				}
+
+				lImages.add(new ImageFile(name, new File(dir, fileName), new File(dir, thumbnailName),
+										  attributes.size(), attributes.lastModifiedTime().toMillis(),
+										  getLastModified(hFiles.get(thumbnailName)), hVariantLastModified));
+			}
+		}
+
+		return new ImageDirectory(dir, lImages, lDirectories);
+	}
+
+	/**
+	 * Whether or not a file is a thumbnail or variant of another image.
+	 */
+	private static boolean isDerived(String fileName, String thumbnailEnding, List<String> lVariantSuffixes) {
+		boolean result = fileName.endsWith(thumbnailEnding);
+
+		for (int i = 0; !result && i < lVariantSuffixes.size(); i++) {
+			result = fileName.endsWith(lVariantSuffixes.get(i));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Whether or not a file is hidden.
+	 */
+	private static boolean isHidden(String fileName) {
+		return fileName.startsWith(".");
+	}
+
+	/**
+	 * Gets last modified time or zero if there aren't any attributes.
+	 */
+	private static long getLastModified(BasicFileAttributes attributes) {
+		return (attributes != null ? attributes.lastModifiedTime().toMillis() : 0);
+	}
+
+	/**
+	 * Snapshot of an image directory.
+	 */
+	public static class ImageDirectory {
+
+		private final File dir;
+		private final List<ImageFile> lImages;
+		private final List<File> lDirectories;
+		private final long scanTime = System.currentTimeMillis();
+		private volatile boolean stale = false;
+
+		/**
+		 * Constructor.
+		 */
+		public ImageDirectory(File dir, List<ImageFile> lImages, List<File> lDirectories) {
+			this.dir = dir;
+			this.lImages = Collections.unmodifiableList(lImages);
+			this.lDirectories = Collections.unmodifiableList(lDirectories);
+		}
+
+		/**
+		 * Gets directory.
+		 */
+		public File getDir() {
+			return dir;
+		}
+
+		/**
+		 * Gets images in the directory, excluding thumbnails.
+		 */
+		public List<ImageFile> getImages() {
+			return lImages;
+		}
+
+		/**
+		 * Gets sub-directories.
+		 */
+		public List<File> getDirectories() {
+			return lDirectories;
+		}
+
+		/**
+		 * Gets the time the directory was scanned.
+		 */
+		public long getScanTime() {
+			return scanTime;
+		}
+
+		/**
+		 * Whether or not the directory changed since it was scanned.
+		 */
+		public boolean isStale() {
+			return stale;
+		}
+
+		/**
+		 * Sets whether or not the directory changed since it was scanned.
+		 */
+		public void setStale(boolean stale) {
+			this.stale = stale;
+		}
+
+		/**
+		 * Copies the image sizes read for images that haven't 
+		 * changed since an earlier scan of the directory.
+		 */
+		public void copyImageSizes(ImageDirectory previous) {
+			Map<File, ImageFile> hPreviousImages = new HashMap<File, ImageFile>();
+
+			for (ImageFile image : previous.getImages()) {
+				if (image.getImageSize() != null) {
+					hPreviousImages.put(image.getFile(), image);
+				}
+			}
+
+			for (ImageFile image : lImages) {
+				ImageFile previousImage = hPreviousImages.get(image.getFile());
+
+				if (previousImage != null && previousImage.getLastModified() == image.getLastModified() && 
+					previousImage.getSize() == image.getSize()) {
+					image.setImageSize(previousImage.getImageSize());
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Snapshot of an image and the state of its thumbnail.
+	 */
+	public static class ImageFile {
+
+		private final String name;
+		private final File file;
+		private final File thumbnailFile;
+		private final long size;
+		private final long lastModified;
+		private final long thumbnailLastModified;
+		private final Map<String, Long> hVariantLastModified;
+		private volatile Dimension imageSize = null;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param 	name					Image name without the file extension.
+		 * @param 	file					Image file.
+		 * @param 	thumbnailFile			Thumbnail file.
+		 * @param 	size					Image size in bytes.
+		 * @param 	lastModified			Image last modified time.
+		 * @param 	thumbnailLastModified	Thumbnail last modified time or zero if it doesn't exist.
+		 * @param 	hVariantLastModified	Variant last modified times keyed by variant suffix.
+		 */
+		public ImageFile(String name, File file, File thumbnailFile,
+						 long size, long lastModified, long thumbnailLastModified, 
+						 Map<String, Long> hVariantLastModified) {
+			this.name = name;
+			this.file = file;
+			this.thumbnailFile = thumbnailFile;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.thumbnailLastModified = thumbnailLastModified;
+			this.hVariantLastModified = Collections.unmodifiableMap(hVariantLastModified);
+		}
+
+		/**
+		 * Gets image name without the file extension.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets image file.
+		 */
+		public File getFile() {
+			return file;
+		}
+
+		/**
+		 * Gets thumbnail file.
+		 */
+		public File getThumbnailFile() {
+			return thumbnailFile;
+		}
+
+		/**
+		 * Gets image size in bytes.
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * Gets image last modified time.
+		 */
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		/**
+		 * Gets thumbnail last modified time or zero if it doesn't exist.
+		 */
+		public long getThumbnailLastModified() {
+			return thumbnailLastModified;
+		}
+
+		/**
+		 * Whether or not the thumbnail exists and is
+		 * at least as new as the image.
+		 */
+		public boolean isThumbnailCurrent() {
+			return isCurrent(thumbnailLastModified);
+		}
+
+		/**
+		 * Gets a variant file.
+		 *
+		 * @param 	variantSuffix	Variant suffix including the file extension.
+		 */
+		public File getVariantFile(String variantSuffix) {
+			return new File(file.getParentFile(), name + variantSuffix);
+		}
+
+		/**
+		 * Gets variant last modified times keyed by variant suffix, 
+		 * with zero for a variant that doesn't exist.
+		 */
+		public Map<String, Long> getVariantLastModified() {
+			return hVariantLastModified;
+		}
+
+		/**
+		 * Gets the width and height of the image or <code>null</code> 
+		 * if they haven't been read yet.
+		 */
+		public Dimension getImageSize() {
+			return imageSize;
+		}
+
+		/**
+		 * Sets the width and height of the image.  They're kept 
+		 * when the directory is rescanned if the image hasn't changed.
+		 */
+		public void setImageSize(Dimension imageSize) {
+			this.imageSize = imageSize;
+		}
+
+		/**
+		 * Whether or not the thumbnail and all variants exist 
+		 * and are at least as new as the image.
+		 */
+		public boolean isCurrent() {
+			boolean result = isThumbnailCurrent();
+
+			for (Long variantLastModified : hVariantLastModified.values()) {
+				result = result && isCurrent(variantLastModified);
+			}
+
+			return result;
+		}
+
+		/**
+		 * Whether or not a derived file exists and is at least as new as the image.
+		 */
+		private boolean isCurrent(long derivedLastModified) {
+			return (derivedLastModified > 0 && derivedLastModified >= lastModified);
+		}
+
+	}
+
+}
@@ -16,9 +16,23 @@
 
 package org.springbyexample.web.servlet.image;
 
+import java.awt.Dimension;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -26,6 +40,15 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springbyexample.util.image.ImageProcessor;
+import org.springbyexample.util.image.ImageVariant;
+import org.springbyexample.web.servlet.image.ImageDirectoryIndex.ImageDirectory;
+import org.springbyexample.web.servlet.image.ImageDirectoryIndex.ImageFile;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
@@ -35,11 +58,35 @@ import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
  * a directory in the image directory, a list of images will be 
  * created and thumbnails can optionally be generated.
  * 
+ * <p>Missing thumbnails are generated concurrently by a bounded 
+ * worker pool and a thumbnail that is already being generated 
+ * by another request is only scaled once.  By default the request 
+ * waits for the thumbnails of the directory to be generated, 
+ * but if asynchronous thumbnails are enabled a placeholder can 
+ * be returned while generation completes in the background.</p>
+ * 
+ * <p>If directory indexing is enabled, directory listings and 
+ * thumbnail state are kept in an {@link ImageDirectoryIndex} so 
+ * rendering a gallery doesn't touch the file system.  In either case 
+ * a thumbnail is regenerated when it's older than its image.</p>
+ * 
+ * <p>If the image processor has image variants, each variant is 
+ * generated with the thumbnail from a single decode of the image and 
+ * its path is exposed on the {@link ThumbnailBean} along with 
+ * a <code>srcset</code> value for responsive images.  The <code>srcset</code> 
+ * is left out until the image's size has been read in the background, 
+ * which is done while generating its thumbnail or, for an indexed 
+ * directory, once for an image with a current thumbnail.</p>
+ * 
  * @author David Winterfeldt
  */
-public class ImageInterceptor extends HandlerInterceptorAdapter {
+public class ImageInterceptor extends HandlerInterceptorAdapter 
+		implements InitializingBean, DisposableBean {
 
 	final Logger logger = LoggerFactory.getLogger(ImageInterceptor.class);
+
+	public static final int DEFAULT_THUMBNAIL_POOL_SIZE = 4;
+	public static final int DEFAULT_THUMBNAIL_QUEUE_CAPACITY = 1000;
 	
 	protected ImageProcessor imageProcessor = null;
 	protected String rootImagePath = null;
@@ -48,6 +95,22 @@ public class ImageInterceptor extends HandlerInterceptorAdapter {
 	protected String fileSuffix = ".jpg";
 	protected String imageViewName = null;	
 	protected int rowWidth = 5;
+	protected AsyncTaskExecutor taskExecutor = null;
+	protected int thumbnailPoolSize = DEFAULT_THUMBNAIL_POOL_SIZE;
+	protected int thumbnailQueueCapacity = DEFAULT_THUMBNAIL_QUEUE_CAPACITY;
+	protected long thumbnailTimeout = 0;
+	protected boolean asyncThumbnails = false;
+	protected String placeholderPath = null;
+	protected boolean preWarm = false;
+	protected boolean indexDirectories = false;
+	protected ImageDirectoryIndex directoryIndex = null;
+	protected List<String> lVariantSuffixes = new ArrayList<String>();
+
+	protected final ConcurrentMap<File, Future<File>> hThumbnailTasks = new ConcurrentHashMap<File, Future<File>>();
+
+	private ThreadPoolTaskExecutor defaultTaskExecutor = null;
+	private ImageDirectoryIndex defaultDirectoryIndex = null;
+	private final AtomicBoolean preWarmStarted = new AtomicBoolean(false);
 	
 	/**
      * Sets image processor.
@@ -100,6 +163,144 @@ public class ImageInterceptor extends HandlerInterceptorAdapter {
         this.rowWidth = rowWidth;
     }
 
+	/**
+	 * Sets task executor used to generate thumbnails.
+	 * If not set, a <code>ThreadPoolTaskExecutor</code> sized by 
+	 * the thumbnail pool size and queue capacity is created when it's first needed.
+	 * A thumbnail rejected by the executor is generated on the calling thread.
+	 */
+	public void setTaskExecutor(AsyncTaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Sets the number of threads for the default thumbnail task executor.
+	 * Defaults to {@link #DEFAULT_THUMBNAIL_POOL_SIZE}.
+	 * Ignored if a task executor is explicitly set.
+	 */
+	public void setThumbnailPoolSize(int thumbnailPoolSize) {
+		this.thumbnailPoolSize = thumbnailPoolSize;
+	}
+
+	/**
+	 * Sets the number of thumbnails the default thumbnail task executor 
+	 * queues before rejecting them, which generates them on the calling thread.
+	 * Defaults to {@link #DEFAULT_THUMBNAIL_QUEUE_CAPACITY}.
+	 * Ignored if a task executor is explicitly set.
+	 */
+	public void setThumbnailQueueCapacity(int thumbnailQueueCapacity) {
+		this.thumbnailQueueCapacity = thumbnailQueueCapacity;
+	}
+
+	/**
+	 * Sets the maximum time in milliseconds a request waits for 
+	 * the thumbnails of a directory to be generated.  A thumbnail 
+	 * not finished in time is treated as pending.  
+	 * Defaults to zero, which waits until all are generated.
+	 * Not used if asynchronous thumbnails are enabled.
+	 */
+	public void setThumbnailTimeout(long thumbnailTimeout) {
+		this.thumbnailTimeout = thumbnailTimeout;
+	}
+
+	/**
+	 * Sets whether or not a request returns immediately 
+	 * without waiting for missing thumbnails to be generated.
+	 * Defaults to <code>false</code>.
+	 */
+	public void setAsyncThumbnails(boolean asyncThumbnails) {
+		this.asyncThumbnails = asyncThumbnails;
+	}
+
+	/**
+	 * Sets the path of a placeholder image used as the thumbnail path 
+	 * while a thumbnail is still being generated.  If not set, 
+	 * the thumbnail path is returned even though it may not exist yet.
+	 */
+	public void setPlaceholderPath(String placeholderPath) {
+		this.placeholderPath = placeholderPath;
+	}
+
+	/**
+	 * Sets whether or not all missing thumbnails under the images path 
+	 * are generated in the background on startup.  If the root image path 
+	 * isn't set, the scan starts on the first request.
+	 * Defaults to <code>false</code>.
+	 */
+	public void setPreWarm(boolean preWarm) {
+		this.preWarm = preWarm;
+	}
+
+	/**
+	 * Sets whether or not image directories are kept in an in memory index.
+	 * If a directory index isn't set, one using the interceptor's 
+	 * thumbnail and file suffixes is created during initialization.
+	 * Defaults to <code>false</code>.
+	 */
+	public void setIndexDirectories(boolean indexDirectories) {
+		this.indexDirectories = indexDirectories;
+	}
+
+	/**
+	 * Sets image directory index.  Setting an index enables directory indexing.
+	 */
+	public void setDirectoryIndex(ImageDirectoryIndex directoryIndex) {
+		this.directoryIndex = directoryIndex;
+	}
+
+	/**
+	 * Implementation of <code>InitializingBean</code> that creates 
+	 * the default thumbnail task executor and directory index 
+	 * if they weren't set and starts pre-warming thumbnails if it is enabled.
+	 */
+	public void afterPropertiesSet() throws Exception {
+		Assert.notNull(imageProcessor, "Image processor must be set.");
+
+		getTaskExecutor();
+
+		lVariantSuffixes = new ArrayList<String>();
+
+		for (ImageVariant variant : getImageVariants()) {
+			lVariantSuffixes.add(getVariantSuffix(variant));
+		}
+
+		if (indexDirectories && directoryIndex == null) {
+			defaultDirectoryIndex = new ImageDirectoryIndex(thumbnailSuffix, fileSuffix, lVariantSuffixes);
+			defaultDirectoryIndex.afterPropertiesSet();
+
+			directoryIndex = defaultDirectoryIndex;
+		} else if (directoryIndex != null) {
+			directoryIndex.setVariantSuffixes(lVariantSuffixes);
+		}
+
+		if (preWarm && StringUtils.hasText(rootImagePath)) {
+			preWarmThumbnails();
+		}
+	}
+
+	/**
+	 * Implementation of <code>DisposableBean</code> that 
+	 * shuts down the default thumbnail task executor and 
+	 * directory index if they were created.
+	 */
+	public void destroy() throws Exception {
+		if (defaultDirectoryIndex != null) {
+			defaultDirectoryIndex.destroy();
+
+			defaultDirectoryIndex = null;
+			directoryIndex = null;
+		}
+
+		synchronized (this) {
+			if (defaultTaskExecutor != null) {
+				defaultTaskExecutor.shutdown();
+
+				defaultTaskExecutor = null;
+				taskExecutor = null;
+			}
+		}
+	}
+
 	/**
 	 * Intercepts before request.
 	 */
@@ -112,6 +313,10 @@ public class ImageInterceptor extends HandlerInterceptorAdapter {
 		if (!StringUtils.hasText(rootImagePath)) {
 			rootImagePath = request.getSession().getServletContext().getRealPath("/");
 		}
+
+		if (preWarm) {
+			preWarmThumbnails();
+		}
     	
     	String path = request.getServletPath();
     	path = StringUtils.stripFilenameExtension(path);
@@ -123,30 +328,41 @@ public class ImageInterceptor extends HandlerInterceptorAdapter {
     	
     	File dir = new File(absoluteImagePath);
     	
-		if (dir.isDirectory()) {
-			File fileList[] = dir.listFiles();
+		ImageDirectory directory = getImageDirectory(dir);
+    	
+		if (directory != null) {
+			Map<ThumbnailBean, Future<File>> hPendingThumbnails = new LinkedHashMap<ThumbnailBean, Future<File>>();
+			List<ImageFile> lImages = directory.getImages();
 			
-			for (int i = 0; i < fileList.length; i++) {
-				File file = fileList[i];
+			for (ImageFile image : lImages) {
+				String name = image.getName();
 				
-				if (file.exists() && !file.isDirectory() && 
-			        !file.getName().endsWith(thumbnailSuffix + fileSuffix)) {
-					String name = StringUtils.stripFilenameExtension(file.getName());
-					
-					String thumbnailName = name + thumbnailSuffix + fileSuffix;
-					
-					String mainImagePath = imagePath + "/" + name + fileSuffix;
-					String thumbnailPath = imagePath + "/" + thumbnailName;
-					
-					File newFile = new File(dir, thumbnailName);
-					
-					// if thumbnail file doesn't exist, create
-					if  (!newFile.exists()) {
-						imageProcessor.scaleImage(file, newFile);
-					}
-					
-					lResults.add(new ThumbnailBean(mainImagePath, thumbnailPath));
+				String thumbnailName = name + thumbnailSuffix + fileSuffix;
+				
+				String mainImagePath = imagePath + "/" + name + fileSuffix;
+				String thumbnailPath = imagePath + "/" + thumbnailName;
+				
+				ThumbnailBean thumbnail = new ThumbnailBean(mainImagePath, thumbnailPath);
+				
+				for (ImageVariant variant : getImageVariants()) {
+					thumbnail.getVariantPaths().put(variant.getName(), imagePath + "/" + name + getVariantSuffix(variant));
+				}
+				
+				// if thumbnail or variant files don't exist or are out of date, create
+				if  (!image.isCurrent()) {
+					hPendingThumbnails.put(thumbnail, generateThumbnail(image));
+				} else if (directoryIndex != null && image.getImageSize() == null) {
+					// reads the image size in the background for the indexed directory
+					generateThumbnail(image);
 				}
+				
+				lResults.add(thumbnail);
+			}
+
+			waitForThumbnails(hPendingThumbnails);
+			
+			for (int i = 0; i < lImages.size(); i++) {
+				lResults.get(i).setSrcset(getSrcset(lResults.get(i), lImages.get(i)));
 			}
 
 			modelAndView.setViewName(imageViewName);
@@ -155,5 +371,284 @@ public class ImageInterceptor extends HandlerInterceptorAdapter {
 		modelAndView.addObject("rowWidth", rowWidth);
     	modelAndView.addObject("imageList", lResults);
     }
+
+	/**
+	 * Scans the images path under the root image path in the background 
+	 * and generates any missing thumbnails.  The scan is only started once.
+	 */
+	public void preWarmThumbnails() {
+		if (!StringUtils.hasText(rootImagePath) || !preWarmStarted.compareAndSet(false, true)) {
+			return;
+		}
+
+		final File dir = new File(StringUtils.cleanPath(rootImagePath + "/" + imagesPath));
+
+		try {
+			getTaskExecutor().execute(new Runnable() {
+				public void run() {
+					long startTime = System.currentTimeMillis();
+					int count = preWarmThumbnails(dir);
+	
+					logger.info("Scheduled {} thumbnails for generation under '{}' in {}ms.", 
+								new Object[] { count, dir.getAbsolutePath(), (System.currentTimeMillis() - startTime) });
+				}
+			});
+		} catch (TaskRejectedException e) {
+			// let a later request retry instead of scanning on the calling thread
+			preWarmStarted.set(false);
+
+			logger.warn("Thumbnail pre-warming rejected by task executor. {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Generates a thumbnail and any image variants in the background, 
+	 * and reads the image's size if it isn't known.  
+	 * If the thumbnail is already being generated, the existing task is returned.
+	 * 
+	 * @param 	image		Image to scale.
+	 * 
+	 * @return	<code>Future</code> that completes once the thumbnail has been created.
+	 */
+	protected Future<File> generateThumbnail(final ImageFile image) {
+		final File imageFile = image.getFile();
+		final File thumbnailFile = image.getThumbnailFile();
+		Future<File> result = hThumbnailTasks.get(thumbnailFile);
+
+		if (result == null) {
+			FutureTask<File> task = new FutureTask<File>(new Callable<File>() {
+				public File call() throws Exception {
+					try {
+						Map<ImageVariant, File> hVariantFiles = new LinkedHashMap<ImageVariant, File>();
+
+						// another task may have created them before this one was registered
+						if (isStale(thumbnailFile, imageFile)) {
+							hVariantFiles.put(new ImageVariant("thumbnail", imageProcessor.getImageScaleWidth()), thumbnailFile);
+						}
+
+						for (ImageVariant variant : getImageVariants()) {
+							File variantFile = image.getVariantFile(getVariantSuffix(variant));
+
+							if (isStale(variantFile, imageFile)) {
+								hVariantFiles.put(variant, variantFile);
+							}
+						}
+
+						if (!hVariantFiles.isEmpty()) {
+							imageProcessor.scaleImage(imageFile, hVariantFiles);
+						}
+
+						if (image.getImageSize() == null) {
+							readImageSize(image);
+						}
+
+						return thumbnailFile;
+					} finally {
+						hThumbnailTasks.remove(thumbnailFile);
+
+						if (directoryIndex != null && !image.isCurrent()) {
+							directoryIndex.invalidate(thumbnailFile.getParentFile());
+						}
+					}
+				}
+			});
+
+			result = hThumbnailTasks.putIfAbsent(thumbnailFile, task);
+
+			if (result == null) {
+				result = task;
+
+				try {
+					getTaskExecutor().execute(task);
+				} catch (TaskRejectedException e) {
+					logger.warn("Thumbnail generation rejected by task executor, generating '{}' on calling thread.", 
+								thumbnailFile.getAbsolutePath());
+
+					task.run();
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Waits for pending thumbnails unless asynchronous thumbnails are enabled.
+	 * Any thumbnail that isn't finished is marked as pending 
+	 * and uses the placeholder path if one is set.
+	 */
+	protected void waitForThumbnails(Map<ThumbnailBean, Future<File>> hPendingThumbnails) 
+			throws InterruptedException {
+		long deadline = System.currentTimeMillis() + thumbnailTimeout;
+
+		for (Map.Entry<ThumbnailBean, Future<File>> entry : hPendingThumbnails.entrySet()) {
+			ThumbnailBean thumbnail = entry.getKey();
+			Future<File> task = entry.getValue();
+
+			if (!asyncThumbnails) {
+				try {
+					if (thumbnailTimeout > 0) {
+						task.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+					} else {
+						task.get();
+					}
+				} catch (ExecutionException e) {
+					logger.error("Unable to create thumbnail '" + thumbnail.getThumbnailPath() + "'.", e.getCause());
+				} catch (TimeoutException e) {
+					logger.debug("Timed out waiting for thumbnail '{}'.", thumbnail.getThumbnailPath());
+				}
+			}
+
+			if (!task.isDone()) {
+				thumbnail.setPending(true);
+
+				if (StringUtils.hasText(placeholderPath)) {
+					thumbnail.setThumbnailPath(placeholderPath);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the task executor, creating the default one if a task executor 
+	 * wasn't set.  The default executor has a bounded queue and rejects 
+	 * thumbnails once it's full, which generates them on the calling thread.
+	 */
+	protected synchronized AsyncTaskExecutor getTaskExecutor() {
+		if (taskExecutor == null) {
+			Assert.isTrue(thumbnailPoolSize > 0);
+			Assert.isTrue(thumbnailQueueCapacity >= 0);
+
+			defaultTaskExecutor = new ThreadPoolTaskExecutor();
+			defaultTaskExecutor.setCorePoolSize(thumbnailPoolSize);
+			defaultTaskExecutor.setMaxPoolSize(thumbnailPoolSize);
+			defaultTaskExecutor.setQueueCapacity(thumbnailQueueCapacity);
+			defaultTaskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+			defaultTaskExecutor.setThreadNamePrefix(getClass().getSimpleName() + "-");
+			defaultTaskExecutor.initialize();
+
+			taskExecutor = defaultTaskExecutor;
+		}
+
+		return taskExecutor;
+	}
+
+	/**
+	 * Gets the image variants of the image processor.
+	 */
+	protected List<ImageVariant> getImageVariants() {
+		List<ImageVariant> result = imageProcessor.getImageVariants();
+
+		return (result != null ? result : new ArrayList<ImageVariant>());
+	}
+
+	/**
+	 * Gets the suffix of a variant file, which is the variant name 
+	 * followed by the variant's format or the file suffix.
+	 */
+	protected String getVariantSuffix(ImageVariant variant) {
+		return "-" + variant.getName() + 
+			   (StringUtils.hasText(variant.getFormatName()) ? "." + variant.getFormatName() : fileSuffix);
+	}
+
+	/**
+	 * Reads the width and height of an image from its header 
+	 * and stores them on the image.  This is only done while 
+	 * generating thumbnails so requests don't read image headers.
+	 */
+	protected void readImageSize(ImageFile image) {
+		try {
+			image.setImageSize(imageProcessor.getImageSize(image.getFile()));
+		} catch (IOException e) {
+			logger.debug("Unable to read size of '{}'. {}", image.getFile().getAbsolutePath(), e.getMessage());
+		}
+	}
+
+	/**
+	 * Gets the <code>srcset</code> value of the thumbnail and variants 
+	 * in the image's format, with the scaled width of each as its width descriptor.
+	 * 
+	 * @return	The <code>srcset</code> value or <code>null</code> if the thumbnail 
+	 * 			is pending or the image size isn't known yet.
+	 */
+	protected String getSrcset(ThumbnailBean thumbnail, ImageFile image) {
+		Dimension imageSize = image.getImageSize();
+
+		if (thumbnail.isPending() || imageSize == null) {
+			return null;
+		}
+
+		StringBuilder result = new StringBuilder(thumbnail.getThumbnailPath() + " " + 
+												 getScaledWidth(imageSize, imageProcessor.getImageScaleWidth()) + "w");
+
+		for (ImageVariant variant : getImageVariants()) {
+			if (!StringUtils.hasText(variant.getFormatName())) {
+				result.append(", " + thumbnail.getVariantPaths().get(variant.getName()) + " " + 
+							  getScaledWidth(imageSize, variant.getScaleWidth()) + "w");
+			}
+		}
+
+		return result.toString();
+	}
+
+	/**
+	 * Gets the width of an image after it's scaled, which is used as 
+	 * the <code>srcset</code> width descriptor.
+	 */
+	protected int getScaledWidth(Dimension imageSize, int scaleWidth) {
+		return imageProcessor.getScaledSize(imageSize.width, imageSize.height, scaleWidth).width;
+	}
+
+	/**
+	 * Whether or not a generated file doesn't exist or is older than its image.
+	 */
+	protected boolean isStale(File file, File imageFile) {
+		return (!file.exists() || file.lastModified() < imageFile.lastModified());
+	}
+
+	/**
+	 * Gets an image directory from the directory index if indexing 
+	 * is enabled, otherwise the directory is scanned.
+	 * 
+	 * @return	The image directory or <code>null</code> if the file isn't a directory.
+	 */
+	protected ImageDirectory getImageDirectory(File dir) throws IOException {
+		if (directoryIndex != null) {
+			return directoryIndex.getDirectory(dir);
+		} else {
+			return ImageDirectoryIndex.scan(dir, thumbnailSuffix, fileSuffix, lVariantSuffixes);
+		}
+	}
+
+	/**
+	 * Recursively generates missing thumbnails in a directory.
+	 * 
+	 * @return	The number of thumbnails scheduled for generation.
+	 */
+	private int preWarmThumbnails(File dir) {
+		int result = 0;
+
+		try {
+			ImageDirectory directory = getImageDirectory(dir);
+
+			if (directory != null) {
+				for (File subDir : directory.getDirectories()) {
+					result += preWarmThumbnails(subDir);
+				}
+
+				for (ImageFile image : directory.getImages()) {
+					if (!image.isCurrent()) {
+						generateThumbnail(image);
+
+						result++;
+					}
+				}
+			}
+		} catch (IOException e) {
+			logger.warn("Unable to scan '{}'. {}", dir.getAbsolutePath(), e.getMessage());
+		}
+
+		return result;
+	}
     	   
 }
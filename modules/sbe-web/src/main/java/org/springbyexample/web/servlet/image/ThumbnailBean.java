@@ -17,6 +17,8 @@
 package org.springbyexample.web.servlet.image;
 
 import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Thumbnail bean.
@@ -29,6 +31,9 @@ public class ThumbnailBean implements Serializable {
 
 	protected String imagePath = null;
 	protected String thumbnailPath = null;
+	protected boolean pending = false;
+	protected Map<String, String> hVariantPaths = new LinkedHashMap<String, String>();
+	protected String srcset = null;
 
 	/**
 	 * Constructor.
@@ -71,5 +76,49 @@ public class ThumbnailBean implements Serializable {
 	public void setThumbnailPath(String thumbnailPath) {
 		this.thumbnailPath = thumbnailPath;
 	}
+
+	/**
+	 * Gets image variant paths keyed by variant name.
+	 */
+	public Map<String, String> getVariantPaths() {
+		return hVariantPaths;
+	}
+
+	/**
+	 * Sets image variant paths keyed by variant name.
+	 */
+	public void setVariantPaths(Map<String, String> variantPaths) {
+		this.hVariantPaths = variantPaths;
+	}
+
+	/**
+	 * Gets the value for an <code>img</code> tag's <code>srcset</code> 
+	 * attribute listing the thumbnail and variants in the image's format.
+	 */
+	public String getSrcset() {
+		return srcset;
+	}
+
+	/**
+	 * Sets the value for an <code>img</code> tag's <code>srcset</code> attribute.
+	 */
+	public void setSrcset(String srcset) {
+		this.srcset = srcset;
+	}
+
+	/**
+	 * Whether or not the thumbnail is still being generated 
+	 * and the thumbnail path is a placeholder.
+	 */
+	public boolean isPending() {
+		return pending;
+	}
+
+	/**
+	 * Sets whether or not the thumbnail is still being generated.
+	 */
+	public void setPending(boolean pending) {
+		this.pending = pending;
+	}
 	
 }
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2007-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springbyexample.web.servlet.image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springbyexample.web.servlet.image.ImageDirectoryIndex.ImageDirectory;
+import org.springbyexample.web.servlet.image.ImageDirectoryIndex.ImageFile;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Tests image directory index.
+ * 
+ * @author David Winterfeldt
+ */
+public class ImageDirectoryIndexTest {
+
+    final Logger logger = LoggerFactory.getLogger(ImageDirectoryIndexTest.class);
+
+    private File dir = null;
+    private ImageDirectoryIndex index = null;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("images", "");
+        dir.delete();
+        dir.mkdirs();
+
+        index = new ImageDirectoryIndex("-thumbnail", ".jpg");
+        index.setUsePolling(true);
+        index.setPollInterval(100);
+        index.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        index.destroy();
+
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    /**
+     * Tests scanning a directory.
+     */
+    @Test
+    public void testScan() throws IOException {
+        File image = createFile("park.jpg", 100);
+        createFile("park-thumbnail.jpg", 10).setLastModified(image.lastModified() + 1000);
+        createFile("street.jpg", 200);
+        new File(dir, "nested").mkdir();
+
+        ImageDirectory directory = ImageDirectoryIndex.scan(dir, "-thumbnail", ".jpg");
+
+        assertNotNull("Directory is null.", directory);
+        assertEquals("Images.", 2, directory.getImages().size());
+        assertEquals("Directories.", 1, directory.getDirectories().size());
+
+        for (ImageFile imageFile : directory.getImages()) {
+            if ("park".equals(imageFile.getName())) {
+                assertEquals("Size.", 100, imageFile.getSize());
+                assertTrue("Thumbnail should be current.", imageFile.isThumbnailCurrent());
+            } else {
+                assertEquals("Name.", "street", imageFile.getName());
+                assertEquals("Thumbnail file.", new File(dir, "street-thumbnail.jpg"), imageFile.getThumbnailFile());
+                assertFalse("Thumbnail should not be current.", imageFile.isThumbnailCurrent());
+            }
+        }
+
+        assertNull("File isn't a directory.", ImageDirectoryIndex.scan(image, "-thumbnail", ".jpg"));
+    }
+
+    /**
+     * Tests scanning a directory with image variants.
+     */
+    @Test
+    public void testScanVariants() throws IOException {
+        File image = createFile("park.jpg", 100);
+        createFile("park-thumbnail.jpg", 10).setLastModified(image.lastModified() + 1000);
+        createFile("park-medium.jpg", 50).setLastModified(image.lastModified() + 1000);
+
+        ImageDirectory directory = ImageDirectoryIndex.scan(dir, "-thumbnail", ".jpg", Arrays.asList("-medium.jpg", "-large.png"));
+
+        assertEquals("Images.", 1, directory.getImages().size());
+
+        ImageFile imageFile = directory.getImages().get(0);
+
+        assertTrue("Thumbnail should be current.", imageFile.isThumbnailCurrent());
+        assertFalse("Large variant is missing.", imageFile.isCurrent());
+        assertEquals("Variant file.", new File(dir, "park-large.png"), imageFile.getVariantFile("-large.png"));
+
+        createFile("park-large.png", 50).setLastModified(image.lastModified() + 1000);
+
+        imageFile = ImageDirectoryIndex.scan(dir, "-thumbnail", ".jpg", Arrays.asList("-medium.jpg", "-large.png")).getImages().get(0);
+
+        assertTrue("Image should be current.", imageFile.isCurrent());
+    }
+
+    /**
+     * Tests that lookups are served from the index 
+     * and that polling picks up changes.
+     */
+    @Test
+    public void testIndex() throws Exception {
+        createFile("park.jpg", 100);
+
+        ImageDirectory directory = index.getDirectory(dir);
+
+        assertEquals("Images.", 1, directory.getImages().size());
+        assertSame("Directory should be cached.", directory, index.getDirectory(dir));
+
+        createFile("street.jpg", 100);
+
+        long timeout = System.currentTimeMillis() + 5000;
+
+        while (index.getDirectory(dir).getImages().size() == 1 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(50);
+        }
+
+        assertEquals("Images after poll.", 2, index.getDirectory(dir).getImages().size());
+
+        createFile("bridge.jpg", 100);
+        index.invalidate(dir);
+
+        assertEquals("Images after invalidate.", 3, index.getDirectory(dir).getImages().size());
+    }
+
+    /**
+     * Tests image sizes are kept when a directory is rescanned, 
+     * unless the image changed.
+     */
+    @Test
+    public void testImageSizeRescan() throws Exception {
+        File image = createFile("park.jpg", 100);
+        createFile("street.jpg", 100);
+
+        ImageDirectory directory = index.getDirectory(dir);
+
+        for (ImageFile imageFile : directory.getImages()) {
+            imageFile.setImageSize(new Dimension(800, 600));
+        }
+
+        createFile("park.jpg", 200).setLastModified(image.lastModified() + 1000);
+        index.invalidate(dir);
+
+        ImageDirectory rescanned = index.getDirectory(dir);
+
+        assertNotSame("Directory should be rescanned.", directory, rescanned);
+
+        for (ImageFile imageFile : rescanned.getImages()) {
+            if ("park".equals(imageFile.getName())) {
+                assertNull("Changed image's size shouldn't be kept.", imageFile.getImageSize());
+            } else {
+                assertEquals("Image size.", new Dimension(800, 600), imageFile.getImageSize());
+            }
+        }
+    }
+
+    /**
+     * Tests the least recently used directory is evicted 
+     * and no longer polled once the max directories are indexed.
+     */
+    @Test
+    public void testMaxDirectories() throws Exception {
+        index.setMaxDirectories(2);
+        
+        File[] dirs = new File[3];
+        
+        for (int i = 0; i < dirs.length; i++) {
+            dirs[i] = new File(dir, "dir" + i);
+            dirs[i].mkdir();
+        }
+        
+        index.getDirectory(dirs[0]);
+        index.getDirectory(dirs[1]);
+        index.getDirectory(dirs[0]);
+        index.getDirectory(dirs[2]);
+        
+        assertEquals("Indexed directories.", 2, index.size());
+        assertFalse("Least recently used directory should be evicted.", index.hDirectories.containsKey(dirs[1].getAbsoluteFile()));
+        assertFalse("Evicted directory shouldn't be polled.", index.hPolledDirectories.containsKey(dirs[1].getAbsoluteFile()));
+        assertEquals("Polled directories.", 2, index.hPolledDirectories.size());
+    }
+
+    /**
+     * Tests generated files don't cause a watched directory to be rescanned.
+     */
+    @Test
+    public void testIgnoreGeneratedFiles() throws Exception {
+        ImageDirectoryIndex watchIndex = new ImageDirectoryIndex("-thumbnail", ".jpg", Arrays.asList("-medium.jpg"));
+        watchIndex.afterPropertiesSet();
+        
+        try {
+            createFile("park.jpg", 100);
+            
+            ImageDirectory directory = watchIndex.getDirectory(dir);
+            
+            createFile("park-thumbnail.jpg", 10);
+            createFile("park-medium.jpg", 10);
+            createFile(".park-thumbnail.jpg-123.tmp", 10).delete();
+            
+            Thread.sleep(500);
+            
+            assertSame("Generated files shouldn't cause a rescan.", directory, watchIndex.getDirectory(dir));
+            
+            createFile("street.jpg", 100);
+            
+            long timeout = System.currentTimeMillis() + 5000;
+            
+            while (watchIndex.getDirectory(dir).getImages().size() == 1 && System.currentTimeMillis() < timeout) {
+                Thread.sleep(50);
+            }
+            
+            assertEquals("Images after new image.", 2, watchIndex.getDirectory(dir).getImages().size());
+        } finally {
+            watchIndex.destroy();
+        }
+    }
+
+    /**
+     * Tests a deleted thumbnail causes a watched directory to be rescanned.
+     */
+    @Test
+    public void testDeletedThumbnail() throws Exception {
+        ImageDirectoryIndex watchIndex = new ImageDirectoryIndex("-thumbnail", ".jpg");
+        watchIndex.afterPropertiesSet();
+        
+        try {
+            File image = createFile("park.jpg", 100);
+            File thumbnail = createFile("park-thumbnail.jpg", 10);
+            thumbnail.setLastModified(image.lastModified() + 1000);
+            
+            assertTrue("Thumbnail should be current.", watchIndex.getDirectory(dir).getImages().get(0).isThumbnailCurrent());
+            
+            thumbnail.delete();
+            
+            long timeout = System.currentTimeMillis() + 5000;
+            
+            while (watchIndex.getDirectory(dir).getImages().get(0).isThumbnailCurrent() && System.currentTimeMillis() < timeout) {
+                Thread.sleep(50);
+            }
+            
+            assertFalse("Deleted thumbnail shouldn't be current.", watchIndex.getDirectory(dir).getImages().get(0).isThumbnailCurrent());
+        } finally {
+            watchIndex.destroy();
+        }
+    }
+
+    /**
+     * Creates a file.
+     */
+    private File createFile(String name, int size) throws IOException {
+        File result = new File(dir, name);
+        FileOutputStream out = new FileOutputStream(result);
+
+        try {
+            out.write(new byte[size]);
+        } finally {
+            out.close();
+        }
+
+        return result;
+    }
+
+}
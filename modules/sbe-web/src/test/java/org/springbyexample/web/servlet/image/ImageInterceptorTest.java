@@ -0,0 +1,359 @@
+/*
+ * Copyright 2007-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springbyexample.web.servlet.image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springbyexample.util.image.ImageProcessor;
+import org.springbyexample.util.image.ImageVariant;
+import org.springbyexample.web.servlet.image.ImageDirectoryIndex.ImageFile;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Tests image interceptor thumbnail generation.
+ * 
+ * @author David Winterfeldt
+ */
+public class ImageInterceptorTest {
+
+    private File dir = null;
+    private File galleryDir = null;
+    private StubImageProcessor imageProcessor = null;
+    private ImageInterceptor interceptor = null;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("images", "");
+        dir.delete();
+        
+        galleryDir = new File(dir, "images/gallery");
+        galleryDir.mkdirs();
+
+        imageProcessor = new StubImageProcessor();
+        
+        interceptor = new ImageInterceptor();
+        interceptor.setImageProcessor(imageProcessor);
+        interceptor.setRootImagePath(dir.getAbsolutePath());
+        interceptor.setImageViewName("gallery");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        imageProcessor.release.countDown();
+        interceptor.destroy();
+
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    /**
+     * Tests thumbnails are generated by an interceptor that wasn't initialized 
+     * with <code>afterPropertiesSet</code>, which creates the default executor when it's needed.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testWithoutInitialization() throws Exception {
+        imageProcessor.release.countDown();
+        
+        createFile("park.jpg");
+        createFile("street.jpg");
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/gallery.html");
+        request.setServletPath("/gallery.html");
+        ModelAndView modelAndView = new ModelAndView();
+        
+        interceptor.postHandle(request, new MockHttpServletResponse(), null, modelAndView);
+        
+        List<ThumbnailBean> lThumbnails = (List<ThumbnailBean>) modelAndView.getModel().get("imageList");
+        
+        assertEquals("View name.", "gallery", modelAndView.getViewName());
+        assertEquals("Thumbnails.", 2, lThumbnails.size());
+        
+        for (ThumbnailBean thumbnail : lThumbnails) {
+            assertFalse("Thumbnail shouldn't be pending.", thumbnail.isPending());
+        }
+        
+        assertTrue("Thumbnail wasn't created.", new File(galleryDir, "park-thumbnail.jpg").exists());
+        assertTrue("Thumbnail wasn't created.", new File(galleryDir, "street-thumbnail.jpg").exists());
+        assertEquals("Thumbnails should be generated by the executor.", 
+                     0, Collections.frequency(imageProcessor.lThreads, Thread.currentThread()));
+    }
+
+    /**
+     * Tests <code>srcset</code> width descriptors are the scaled width 
+     * of the image, not the length of its longest side.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSrcset() throws Exception {
+        imageProcessor.release.countDown();
+        imageProcessor.imageVariants = Arrays.asList(new ImageVariant("large", 400), new ImageVariant("small", 50, "png"));
+        
+        createFile("park.jpg");
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/gallery.html");
+        request.setServletPath("/gallery.html");
+        ModelAndView modelAndView = new ModelAndView();
+        
+        interceptor.afterPropertiesSet();
+        interceptor.postHandle(request, new MockHttpServletResponse(), null, modelAndView);
+        
+        ThumbnailBean thumbnail = ((List<ThumbnailBean>) modelAndView.getModel().get("imageList")).get(0);
+        
+        // portrait 800x1200 image
+        assertEquals("Srcset.", "/images/gallery/park-thumbnail.jpg 66w, /images/gallery/park-large.jpg 266w", 
+                     thumbnail.getSrcset());
+    }
+
+    /**
+     * Tests the image size isn't read for an image with a current 
+     * thumbnail without a directory index, so <code>srcset</code> is left out.
+     */
+    @Test
+    public void testSrcsetWithoutImageSize() throws Exception {
+        imageProcessor.release.countDown();
+        
+        createCurrentThumbnail("park");
+        
+        interceptor.afterPropertiesSet();
+        
+        assertNull("Srcset should be left out.", getThumbnails().get(0).getSrcset());
+        assertTrue("Image size shouldn't be read.", imageProcessor.lSizeThreads.isEmpty());
+    }
+
+    /**
+     * Tests the image size of an indexed image with a current thumbnail 
+     * is read in the background and used by later requests.
+     */
+    @Test
+    public void testSrcsetFromIndex() throws Exception {
+        createCurrentThumbnail("park");
+        
+        interceptor.setIndexDirectories(true);
+        interceptor.afterPropertiesSet();
+        
+        assertNull("Srcset should be left out until the image size is read.", getThumbnails().get(0).getSrcset());
+        
+        imageProcessor.release.countDown();
+        
+        long timeout = System.currentTimeMillis() + 5000;
+        
+        while (getThumbnails().get(0).getSrcset() == null && System.currentTimeMillis() < timeout) {
+            Thread.sleep(50);
+        }
+        
+        assertEquals("Srcset.", "/images/gallery/park-thumbnail.jpg 66w", getThumbnails().get(0).getSrcset());
+        assertEquals("Image size should be read once.", 1, imageProcessor.lSizeThreads.size());
+        assertFalse("Image size shouldn't be read by a request.", 
+                    imageProcessor.lSizeThreads.contains(Thread.currentThread()));
+    }
+
+    /**
+     * Tests a thumbnail that's already being generated is only scaled once.
+     */
+    @Test
+    public void testSharedThumbnailTask() throws Exception {
+        createFile("park.jpg");
+        
+        ImageFile image = getImage();
+        
+        Future<File> task = interceptor.generateThumbnail(image);
+        
+        assertSame("Thumbnail task should be shared.", task, interceptor.generateThumbnail(image));
+        
+        imageProcessor.release.countDown();
+        
+        assertEquals("Thumbnail file.", image.getThumbnailFile(), task.get(5, TimeUnit.SECONDS));
+        assertEquals("Thumbnail should only be scaled once.", 1, imageProcessor.lThreads.size());
+    }
+
+    /**
+     * Tests the default executor's queue is bounded and a rejected 
+     * thumbnail is generated on the calling thread.
+     */
+    @Test
+    public void testRejectedThumbnail() throws Exception {
+        interceptor.setThumbnailPoolSize(1);
+        interceptor.setThumbnailQueueCapacity(0);
+        interceptor.afterPropertiesSet();
+        
+        createFile("park.jpg");
+        createFile("street.jpg");
+        
+        List<Future<File>> lTasks = new ArrayList<Future<File>>();
+        
+        // the first blocks the only worker, so the second is rejected
+        for (ImageFile image : ImageDirectoryIndex.scan(galleryDir, "-thumbnail", ".jpg").getImages()) {
+            lTasks.add(interceptor.generateThumbnail(image));
+            
+            assertTrue("Worker didn't start.", imageProcessor.started.await(5, TimeUnit.SECONDS));
+        }
+        
+        assertTrue("Rejected thumbnail should be generated on the calling thread.", lTasks.get(1).isDone());
+        assertSame("Rejected thumbnail thread.", Thread.currentThread(), imageProcessor.lThreads.get(1));
+        assertFalse("Queued thumbnail shouldn't be done.", lTasks.get(0).isDone());
+        
+        imageProcessor.release.countDown();
+        
+        lTasks.get(0).get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Gets the gallery's thumbnails.
+     */
+    @SuppressWarnings("unchecked")
+    private List<ThumbnailBean> getThumbnails() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/gallery.html");
+        request.setServletPath("/gallery.html");
+        ModelAndView modelAndView = new ModelAndView();
+        
+        interceptor.postHandle(request, new MockHttpServletResponse(), null, modelAndView);
+        
+        return (List<ThumbnailBean>) modelAndView.getModel().get("imageList");
+    }
+
+    /**
+     * Creates an image with a thumbnail newer than it.
+     */
+    private void createCurrentThumbnail(String name) throws IOException {
+        File image = createFile(name + ".jpg");
+        
+        createFile(name + "-thumbnail.jpg").setLastModified(image.lastModified() + 1000);
+    }
+
+    /**
+     * Gets the only image in the gallery.
+     */
+    private ImageFile getImage() throws IOException {
+        return ImageDirectoryIndex.scan(galleryDir, "-thumbnail", ".jpg").getImages().get(0);
+    }
+    
+    /**
+     * Creates a file.
+     */
+    private File createFile(String name) throws IOException {
+        File result = new File(galleryDir, name);
+        FileOutputStream out = new FileOutputStream(result);
+
+        try {
+            out.write(new byte[100]);
+        } finally {
+            out.close();
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes empty files instead of scaling images.  The first image 
+     * scaled or sized on a thread other than the test's blocks until released.
+     */
+    private static class StubImageProcessor implements ImageProcessor {
+
+        final List<Thread> lThreads = Collections.synchronizedList(new ArrayList<Thread>());
+        final List<Thread> lSizeThreads = Collections.synchronizedList(new ArrayList<Thread>());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        
+        volatile List<ImageVariant> imageVariants = null;
+        
+        private final Thread testThread = Thread.currentThread();
+        
+        public int getImageScaleWidth() {
+            return 100;
+        }
+
+        public void setImageScaleWidth(int imageScaleWidth) {}
+
+        public List<ImageVariant> getImageVariants() {
+            return imageVariants;
+        }
+
+        public void setImageVariants(List<ImageVariant> imageVariants) {}
+
+        public Dimension getImageSize(File imageFile) throws IOException {
+            lSizeThreads.add(Thread.currentThread());
+            
+            await();
+            
+            return new Dimension(800, 1200);
+        }
+
+        public Dimension getScaledSize(int width, int height, int scaleWidth) {
+            double d = Math.min((double) scaleWidth / Math.max(width, height), 1);
+            
+            return new Dimension((int) (d * width), (int) (d * height));
+        }
+
+        public void scaleImage(File imageFile, File newFile) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        public void scaleImage(InputStream in, OutputStream out, String formatName) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        public void scaleImage(File imageFile, Map<ImageVariant, File> hVariantFiles) throws IOException {
+            lThreads.add(Thread.currentThread());
+            
+            await();
+            
+            for (File file : hVariantFiles.values()) {
+                new FileOutputStream(file).close();
+            }
+        }
+
+        /**
+         * Blocks until released if not on the test's thread.
+         */
+        private void await() {
+            if (Thread.currentThread() != testThread) {
+                started.countDown();
+                
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+    
+}